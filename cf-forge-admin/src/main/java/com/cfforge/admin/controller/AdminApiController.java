@@ -72,6 +72,14 @@ public class AdminApiController {
         return buildMetrics.getBuildMetrics();
     }
 
+    @GetMapping("/builds/stages")
+    public Map<String, Object> buildStages() {
+        return Map.of(
+            "breakdown", buildMetrics.getStageBreakdown(),
+            "waterfalls", buildMetrics.getRecentWaterfalls()
+        );
+    }
+
     @GetMapping("/deployments")
     public Map<String, Object> deployments() {
         return deploymentMetrics.getDeploymentMetrics();
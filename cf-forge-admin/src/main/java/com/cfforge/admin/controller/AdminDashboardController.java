@@ -90,6 +90,8 @@ public class AdminDashboardController {
         model.addAttribute("currentPage", "builds");
         var metrics = buildMetricsService.getBuildMetrics();
         model.addAttribute("metrics", metrics);
+        model.addAttribute("stageBreakdown", buildMetricsService.getStageBreakdown());
+        model.addAttribute("waterfalls", buildMetricsService.getRecentWaterfalls());
         return "admin/builds";
     }
 
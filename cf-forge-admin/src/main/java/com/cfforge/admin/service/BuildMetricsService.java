@@ -1,12 +1,17 @@
 package com.cfforge.admin.service;
 
+import com.cfforge.common.dto.BuildStageTiming;
 import com.cfforge.common.entity.Build;
 import com.cfforge.common.enums.BuildStatus;
 import com.cfforge.common.repository.BuildRepository;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -43,4 +48,60 @@ public class BuildMetricsService {
             "byStatus", byStatus
         );
     }
+
+    /**
+     * @param sharePercent this stage's part of all recorded stage time
+     */
+    public record StageSummary(String stage, long builds, long avgMs, long p95Ms, double sharePercent) {}
+
+    /**
+     * One recent build's stages laid out as a waterfall, positioned in percent of its total time.
+     */
+    public record Waterfall(UUID buildId, String status, long totalMs, List<Bar> bars) {}
+
+    public record Bar(String stage, double offsetPercent, double widthPercent, long durationMs) {}
+
+    /**
+     * Per-stage time over the most recent builds with a timeline, slowest stage first.
+     */
+    public List<StageSummary> getStageBreakdown() {
+        Map<String, List<Long>> byStage = new LinkedHashMap<>();
+        for (Build build : buildRepository.findTop20ByStageTimingsIsNotNullOrderByCreatedAtDesc()) {
+            for (BuildStageTiming timing : build.getStageTimings()) {
+                byStage.computeIfAbsent(timing.stage(), k -> new ArrayList<>()).add(timing.durationMs());
+            }
+        }
+        long total = byStage.values().stream().flatMap(List::stream).mapToLong(Long::longValue).sum();
+
+        List<StageSummary> summaries = new ArrayList<>();
+        byStage.forEach((stage, durations) -> {
+            List<Long> sorted = durations.stream().sorted().toList();
+            long sum = sorted.stream().mapToLong(Long::longValue).sum();
+            long p95 = sorted.get(Math.max(0, (int) Math.ceil(sorted.size() * 0.95) - 1));
+            double share = total > 0 ? (double) sum / total * 100 : 0;
+            summaries.add(new StageSummary(stage, sorted.size(), sum / sorted.size(), p95,
+                Math.round(share * 10) / 10.0));
+        });
+        summaries.sort(Comparator.comparingDouble(StageSummary::sharePercent).reversed());
+        return summaries;
+    }
+
+    public List<Waterfall> getRecentWaterfalls() {
+        return buildRepository.findTop20ByStageTimingsIsNotNullOrderByCreatedAtDesc().stream()
+            .filter(b -> !b.getStageTimings().isEmpty())
+            .map(BuildMetricsService::waterfall)
+            .toList();
+    }
+
+    private static Waterfall waterfall(Build build) {
+        long totalMs = Math.max(1, build.getStageTimings().stream().mapToLong(BuildStageTiming::endMs).max().orElse(1));
+        List<Bar> bars = build.getStageTimings().stream()
+            .map(t -> new Bar(t.stage(), percent(t.startMs(), totalMs), percent(t.durationMs(), totalMs), t.durationMs()))
+            .toList();
+        return new Waterfall(build.getId(), build.getStatus().name(), totalMs, bars);
+    }
+
+    private static double percent(long value, long total) {
+        return Math.round((double) value / total * 1000) / 10.0;
+    }
 }
@@ -1,5 +1,6 @@
 package com.cfforge.admin.service;
 
+import com.cfforge.common.dto.BuildStageTiming;
 import com.cfforge.common.entity.Build;
 import com.cfforge.common.enums.BuildStatus;
 import com.cfforge.common.repository.BuildRepository;
@@ -12,6 +13,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
@@ -82,4 +84,38 @@ class BuildMetricsServiceTest {
 
         assertThat(result.get("avgDurationMs")).isEqualTo(2000L);
     }
+
+    @Test
+    void getStageBreakdown_ranksStagesByShareOfTime() {
+        Build first = Build.builder().status(BuildStatus.SUCCESS).stageTimings(List.of(
+            new BuildStageTiming("sources", 0, 1000),
+            new BuildStageTiming("test", 1000, 6000))).build();
+        Build second = Build.builder().status(BuildStatus.SUCCESS).stageTimings(List.of(
+            new BuildStageTiming("sources", 0, 3000),
+            new BuildStageTiming("test", 3000, 10000))).build();
+        when(buildRepository.findTop20ByStageTimingsIsNotNullOrderByCreatedAtDesc()).thenReturn(List.of(first, second));
+
+        List<BuildMetricsService.StageSummary> breakdown = service.getStageBreakdown();
+
+        assertThat(breakdown).extracting(BuildMetricsService.StageSummary::stage).containsExactly("test", "sources");
+        assertThat(breakdown.get(0).avgMs()).isEqualTo(8000);
+        assertThat(breakdown.get(0).p95Ms()).isEqualTo(10000);
+        assertThat(breakdown.get(0).sharePercent()).isEqualTo(80.0);
+    }
+
+    @Test
+    void getRecentWaterfalls_positionsStagesRelativeToBuildEnd() {
+        Build build = Build.builder().id(UUID.randomUUID()).status(BuildStatus.SUCCESS).stageTimings(List.of(
+            new BuildStageTiming("queued", 0, 500),
+            new BuildStageTiming("compile", 500, 1500),
+            new BuildStageTiming("cve-scan", 2000, 2000),
+            new BuildStageTiming("upload", 2000, 500))).build();
+        when(buildRepository.findTop20ByStageTimingsIsNotNullOrderByCreatedAtDesc()).thenReturn(List.of(build));
+
+        BuildMetricsService.Waterfall waterfall = service.getRecentWaterfalls().get(0);
+
+        assertThat(waterfall.totalMs()).isEqualTo(4000);
+        assertThat(waterfall.bars()).extracting(BuildMetricsService.Bar::offsetPercent).containsExactly(0.0, 12.5, 50.0, 50.0);
+        assertThat(waterfall.bars()).extracting(BuildMetricsService.Bar::widthPercent).containsExactly(12.5, 37.5, 50.0, 12.5);
+    }
 }
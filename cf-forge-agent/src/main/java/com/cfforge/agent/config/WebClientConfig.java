@@ -1,11 +1,14 @@
 package com.cfforge.agent.config;
 
+import com.cfforge.common.routing.WorkspaceRouter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.time.Duration;
+
 @Configuration
 public class WebClientConfig {
 
@@ -30,11 +33,17 @@ public class WebClientConfig {
 
     @Bean
     public WebClient workspaceClient(
-            @Value("${cfforge.workspace.url:http://cf-forge-workspace.apps.internal:8080}") String workspaceUrl) {
-        return WebClient.builder()
+            @Value("${cfforge.workspace.url:http://cf-forge-workspace.apps.internal:8080}") String workspaceUrl,
+            @Value("${cfforge.workspace.routing.enabled:true}") boolean routingEnabled,
+            @Value("${cfforge.workspace.routing.virtual-nodes:160}") int virtualNodes,
+            @Value("${cfforge.workspace.routing.refresh-interval:PT15S}") Duration refreshInterval) {
+        var builder = WebClient.builder()
             .baseUrl(workspaceUrl)
-            .exchangeStrategies(exchangeStrategies())
-            .build();
+            .exchangeStrategies(exchangeStrategies());
+        if (routingEnabled) {
+            builder.filter(new WorkspaceRouter(workspaceUrl, virtualNodes, refreshInterval));
+        }
+        return builder.build();
     }
 
     @Bean
@@ -30,10 +30,7 @@ public class ErrorAnalysisService {
     }
 
     public ErrorFix analyzeBuildFailure(UUID projectId) {
-        Build build = buildRepository.findByProjectIdOrderByCreatedAtDesc(projectId)
-            .stream()
-            .filter(b -> b.getStatus() == BuildStatus.FAILED)
-            .findFirst()
+        Build build = buildRepository.findFirstByProjectIdAndStatusOrderByCreatedAtDesc(projectId, BuildStatus.FAILED)
             .orElseThrow(() -> new IllegalStateException("No failed builds found for project"));
 
         return chatClient.prompt()
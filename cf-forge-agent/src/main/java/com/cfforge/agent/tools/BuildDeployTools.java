@@ -4,6 +4,7 @@ import com.cfforge.common.dto.BuildRequest;
 import com.cfforge.common.dto.DeployRequest;
 import com.cfforge.common.enums.DeployEnvironment;
 import com.cfforge.common.enums.TriggerType;
+import com.cfforge.common.events.BuildRequestPublisher;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.cloud.stream.function.StreamBridge;
@@ -15,15 +16,20 @@ import java.util.UUID;
 public class BuildDeployTools {
 
     private final StreamBridge streamBridge;
+    private final BuildRequestPublisher buildRequestPublisher;
 
-    public BuildDeployTools(StreamBridge streamBridge) {
+    public BuildDeployTools(StreamBridge streamBridge, BuildRequestPublisher buildRequestPublisher) {
         this.streamBridge = streamBridge;
+        this.buildRequestPublisher = buildRequestPublisher;
     }
 
-    @Tool(description = "Trigger a build for the project (compile, test, scan, package)")
-    public String triggerBuild(@ToolParam(description = "Project ID") String projectId) {
-        streamBridge.send("buildRequest-out-0",
-            new BuildRequest(UUID.fromString(projectId), TriggerType.AGENT));
+    @Tool(description = "Trigger a build for the project (compile, test, scan, package). "
+        + "Unchanged sources reuse the previous successful build unless forceRebuild is true")
+    public String triggerBuild(@ToolParam(description = "Project ID") String projectId,
+                               @ToolParam(description = "Rebuild even if sources are unchanged", required = false)
+                               Boolean forceRebuild) {
+        buildRequestPublisher.publish(
+            new BuildRequest(UUID.fromString(projectId), TriggerType.AGENT, Boolean.TRUE.equals(forceRebuild)));
         return "Build triggered for project " + projectId;
     }
 
@@ -1,18 +1,29 @@
 package com.cfforge.agent.tools;
 
+import com.cfforge.common.delta.DeltaEncoder;
+import com.cfforge.common.delta.DeltaFormat;
+import com.cfforge.common.delta.FileSignature;
 import com.cfforge.common.dto.FileEntry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 @Component
+@Slf4j
 public class WorkspaceTools {
 
+    /** Files at least this large are sent as a delta against the stored version when possible. */
+    private static final int DELTA_THRESHOLD_BYTES = 64 * 1024;
+
     private final WebClient workspaceClient;
 
     public WorkspaceTools(WebClient workspaceClient) {
@@ -35,6 +46,10 @@ public class WorkspaceTools {
             @ToolParam(description = "Project workspace ID") String workspaceId,
             @ToolParam(description = "File path relative to project root") String path,
             @ToolParam(description = "File content") String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= DELTA_THRESHOLD_BYTES && writeDelta(workspaceId, path, bytes)) {
+            return "File written: " + path;
+        }
         workspaceClient.put()
             .uri("/workspace/{id}/files/{path}", workspaceId, path)
             .bodyValue(Map.of("content", content))
@@ -44,6 +59,37 @@ public class WorkspaceTools {
         return "File written: " + path;
     }
 
+    /**
+     * Uploads only what changed relative to the stored file. Returns false when there is no
+     * stored version or the workspace rejected the delta, so the caller does a full write.
+     */
+    private boolean writeDelta(String workspaceId, String path, byte[] content) {
+        try {
+            FileSignature signature = workspaceClient.get()
+                .uri("/workspace/{id}/files/{path}?signature=true", workspaceId, path)
+                .retrieve()
+                .bodyToMono(FileSignature.class)
+                .block();
+            if (signature == null || signature.length() == 0) {
+                return false;
+            }
+            ByteArrayOutputStream delta = new ByteArrayOutputStream();
+            long literalBytes = DeltaEncoder.encode(signature, content, delta);
+            workspaceClient.patch()
+                .uri("/workspace/{id}/files/{path}", workspaceId, path)
+                .contentType(MediaType.parseMediaType(DeltaFormat.MEDIA_TYPE))
+                .bodyValue(delta.toByteArray())
+                .retrieve()
+                .toBodilessEntity()
+                .block();
+            log.debug("Delta-synced {} ({} of {} bytes sent as literals)", path, literalBytes, content.length);
+            return true;
+        } catch (Exception e) {
+            log.debug("Delta sync of {} failed, falling back to full upload: {}", path, e.getMessage());
+            return false;
+        }
+    }
+
     @Tool(description = "List all files in the project workspace")
     public String listFiles(
             @ToolParam(description = "Project workspace ID") String workspaceId,
@@ -1,5 +1,6 @@
 package com.cfforge.api.config;
 
+import com.cfforge.common.routing.WorkspaceRouter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -7,6 +8,8 @@ import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.time.Duration;
+
 @Configuration
 public class WebClientConfig {
 
@@ -31,10 +34,20 @@ public class WebClientConfig {
             .build();
     }
 
+    /**
+     * Workspace requests are routed to the instance owning the workspace id; see {@link WorkspaceRouter}.
+     */
     @Bean
-    public WebClient workspaceWebClient() {
-        return WebClient.builder()
-            .baseUrl("http://cf-forge-workspace.apps.internal:8080")
-            .build();
+    public WebClient workspaceWebClient(
+            @Value("${cfforge.workspace.url:http://cf-forge-workspace.apps.internal:8080}") String workspaceUrl,
+            @Value("${cfforge.workspace.routing.enabled:true}") boolean routingEnabled,
+            @Value("${cfforge.workspace.routing.virtual-nodes:160}") int virtualNodes,
+            @Value("${cfforge.workspace.routing.refresh-interval:PT15S}") Duration refreshInterval) {
+        var builder = WebClient.builder()
+            .baseUrl(workspaceUrl);
+        if (routingEnabled) {
+            builder.filter(new WorkspaceRouter(workspaceUrl, virtualNodes, refreshInterval));
+        }
+        return builder.build();
     }
 }
@@ -5,6 +5,7 @@ import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -16,6 +17,17 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         config.setApplicationDestinationPrefixes("/app");
     }
 
+    /**
+     * Backpressure for streamed build logs: a subscriber that can't keep up is disconnected once
+     * its outbound buffer fills, instead of the server buffering without bound. The client
+     * reconnects and catches up from the replay buffer.
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit(512 * 1024)
+            .setSendTimeLimit(10_000);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // Collaboration endpoint with SockJS fallback
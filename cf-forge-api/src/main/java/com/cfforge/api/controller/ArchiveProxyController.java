@@ -0,0 +1,75 @@
+package com.cfforge.api.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Proxies whole-project tar.gz download/upload to the workspace service.
+ * Bytes are streamed through in both directions without buffering the archive.
+ */
+@RestController
+@RequestMapping("/api/v1/projects/{projectId}")
+public class ArchiveProxyController {
+
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
+    private final WebClient workspaceClient;
+
+    public ArchiveProxyController(@Qualifier("workspaceWebClient") WebClient workspaceClient) {
+        this.workspaceClient = workspaceClient;
+    }
+
+    @GetMapping("/archive")
+    public ResponseEntity<StreamingResponseBody> downloadProject(@PathVariable UUID projectId) {
+        return streamFromWorkspace("/workspace/" + projectId + "/archive", "project-" + projectId + ".tar.gz");
+    }
+
+    @GetMapping("/checkpoints/{checkpointId}/archive")
+    public ResponseEntity<StreamingResponseBody> downloadCheckpoint(@PathVariable UUID projectId,
+                                                                     @PathVariable String checkpointId) {
+        return streamFromWorkspace("/workspace/" + projectId + "/checkpoints/" + checkpointId + "/archive",
+            "checkpoint-" + checkpointId + ".tar.gz");
+    }
+
+    @PostMapping(value = "/archive", consumes = {"application/gzip", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public Map<String, Object> uploadProject(@PathVariable UUID projectId, HttpServletRequest request) throws Exception {
+        var body = DataBufferUtils.readInputStream(request::getInputStream, DefaultDataBufferFactory.sharedInstance, 64 * 1024);
+        return workspaceClient.post()
+            .uri("/workspace/{projectId}/archive", projectId)
+            .contentType(GZIP)
+            .body(body, DataBuffer.class)
+            .retrieve()
+            .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+            .block();
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamFromWorkspace(String uri, String filename) {
+        StreamingResponseBody responseBody = outputStream -> DataBufferUtils.write(
+                workspaceClient.get()
+                    .uri(uri)
+                    .accept(GZIP)
+                    .retrieve()
+                    .bodyToFlux(DataBuffer.class),
+                outputStream)
+            .map(DataBufferUtils::release)
+            .blockLast();
+
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+            .contentType(GZIP)
+            .body(responseBody);
+    }
+}
@@ -0,0 +1,41 @@
+package com.cfforge.api.controller;
+
+import com.cfforge.common.artifact.ArtifactStore;
+import com.cfforge.common.repository.BuildRepository;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/projects/{projectId}/builds/{buildId}")
+public class ArtifactController {
+
+    private final BuildRepository buildRepository;
+    private final ArtifactStore artifactStore;
+
+    public ArtifactController(BuildRepository buildRepository, ArtifactStore artifactStore) {
+        this.buildRepository = buildRepository;
+        this.artifactStore = artifactStore;
+    }
+
+    /**
+     * Streams the build's artifact, reassembling layered jars from their stored layers.
+     */
+    @GetMapping("/artifact")
+    public ResponseEntity<StreamingResponseBody> downloadArtifact(@PathVariable UUID projectId,
+                                                                  @PathVariable UUID buildId) {
+        return buildRepository.findById(buildId)
+            .filter(build -> build.getProject() != null && projectId.equals(build.getProject().getId()))
+            .filter(build -> build.getArtifactPath() != null)
+            .map(build -> ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"" + ArtifactStore.fileName(build.getArtifactPath()) + "\"")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body((StreamingResponseBody) out -> artifactStore.copyTo(build.getArtifactPath(), out)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+}
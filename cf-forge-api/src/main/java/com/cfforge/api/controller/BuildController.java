@@ -1,14 +1,21 @@
 package com.cfforge.api.controller;
 
+import com.cfforge.api.service.BuildLogService;
+import com.cfforge.common.dto.BuildCancelRequest;
 import com.cfforge.common.dto.BuildRequest;
+import com.cfforge.common.dto.BuildSummary;
 import com.cfforge.common.entity.Build;
+import com.cfforge.common.enums.BuildStatus;
 import com.cfforge.common.enums.TriggerType;
+import com.cfforge.common.events.BuildRequestPublisher;
 import com.cfforge.common.repository.BuildRepository;
 import com.cfforge.common.repository.ProjectRepository;
 import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.UUID;
@@ -17,19 +24,27 @@ import java.util.UUID;
 @RequestMapping("/api/v1/projects/{projectId}/builds")
 public class BuildController {
 
+    private static final int MAX_LOG_PAGE_BYTES = 1024 * 1024;
+
     private final BuildRepository buildRepository;
     private final ProjectRepository projectRepository;
     private final StreamBridge streamBridge;
+    private final BuildRequestPublisher buildRequestPublisher;
+    private final BuildLogService buildLogService;
 
     public BuildController(BuildRepository buildRepository, ProjectRepository projectRepository,
-                           StreamBridge streamBridge) {
+                           StreamBridge streamBridge, BuildRequestPublisher buildRequestPublisher,
+                           BuildLogService buildLogService) {
         this.buildRepository = buildRepository;
         this.projectRepository = projectRepository;
         this.streamBridge = streamBridge;
+        this.buildRequestPublisher = buildRequestPublisher;
+        this.buildLogService = buildLogService;
     }
 
     @PostMapping
-    public ResponseEntity<Build> triggerBuild(@PathVariable UUID projectId) {
+    public ResponseEntity<Build> triggerBuild(@PathVariable UUID projectId,
+                                              @RequestParam(defaultValue = "false") boolean force) {
         var project = projectRepository.findById(projectId)
             .orElseThrow(() -> new RuntimeException("Project not found"));
 
@@ -39,13 +54,37 @@ public class BuildController {
             .build();
         build = buildRepository.save(build);
 
-        streamBridge.send("buildRequest-out-0", new BuildRequest(projectId, TriggerType.MANUAL));
+        buildRequestPublisher.publish(new BuildRequest(projectId, TriggerType.MANUAL, force, build.getId()));
         return ResponseEntity.status(HttpStatus.CREATED).body(build);
     }
 
+    /**
+     * Cancels a queued or running build. A queued build is marked cancelled here and skipped when
+     * a builder picks it up; a running one is terminated by the builder holding it, which records
+     * the final status.
+     */
+    @PostMapping("/{buildId}/cancel")
+    public ResponseEntity<Build> cancelBuild(@PathVariable UUID projectId, @PathVariable UUID buildId) {
+        var build = buildRepository.findById(buildId)
+            .filter(b -> b.getProject() != null && projectId.equals(b.getProject().getId()))
+            .orElse(null);
+        if (build == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (build.getStatus() != BuildStatus.QUEUED && build.getStatus() != BuildStatus.BUILDING) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(build);
+        }
+        if (build.getStatus() == BuildStatus.QUEUED) {
+            build.setStatus(BuildStatus.CANCELLED);
+            build = buildRepository.save(build);
+        }
+        streamBridge.send("buildCancel-out-0", new BuildCancelRequest(projectId, buildId, "Cancelled by user"));
+        return ResponseEntity.accepted().body(build);
+    }
+
     @GetMapping
-    public List<Build> listBuilds(@PathVariable UUID projectId) {
-        return buildRepository.findByProjectIdOrderByCreatedAtDesc(projectId);
+    public List<BuildSummary> listBuilds(@PathVariable UUID projectId) {
+        return buildRepository.findSummariesByProjectId(projectId);
     }
 
     @GetMapping("/{buildId}")
@@ -54,4 +93,28 @@ public class BuildController {
             .map(ResponseEntity::ok)
             .orElse(ResponseEntity.notFound().build());
     }
+
+    /**
+     * Pages through a build's log; without an offset returns the last {@code limit} bytes.
+     */
+    @GetMapping("/{buildId}/logs")
+    public ResponseEntity<BuildLogService.LogPage> getBuildLog(@PathVariable UUID projectId, @PathVariable UUID buildId,
+                                                               @RequestParam(required = false) Long offset,
+                                                               @RequestParam(defaultValue = "65536") int limit) {
+        int pageLimit = Math.max(1, Math.min(limit, MAX_LOG_PAGE_BYTES));
+        return buildRepository.findById(buildId)
+            .map(build -> ResponseEntity.ok(buildLogService.read(build, offset, pageLimit)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/{buildId}/logs/raw", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<StreamingResponseBody> downloadBuildLog(@PathVariable UUID projectId,
+                                                                  @PathVariable UUID buildId) {
+        return buildRepository.findById(buildId)
+            .map(build -> ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=\"build-" + buildId + ".log\"")
+                .contentType(MediaType.TEXT_PLAIN)
+                .body((StreamingResponseBody) out -> buildLogService.stream(build, out)))
+            .orElse(ResponseEntity.notFound().build());
+    }
 }
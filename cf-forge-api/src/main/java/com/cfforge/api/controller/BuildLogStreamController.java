@@ -0,0 +1,29 @@
+package com.cfforge.api.controller;
+
+import com.cfforge.api.service.BuildLogRelay;
+import com.cfforge.common.dto.BuildLogEvent;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Replay for late joiners: subscribing to {@code /app/builds/{buildId}/logs} returns the
+ * buffered batches once; live batches follow on {@code /topic/builds/{buildId}/logs}.
+ */
+@Controller
+public class BuildLogStreamController {
+
+    private final BuildLogRelay relay;
+
+    public BuildLogStreamController(BuildLogRelay relay) {
+        this.relay = relay;
+    }
+
+    @SubscribeMapping("/builds/{buildId}/logs")
+    public List<BuildLogEvent> replay(@DestinationVariable UUID buildId) {
+        return relay.replay(buildId);
+    }
+}
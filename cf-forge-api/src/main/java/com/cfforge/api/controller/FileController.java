@@ -1,8 +1,14 @@
 package com.cfforge.api.controller;
 
+import com.cfforge.common.delta.DeltaFormat;
+import com.cfforge.common.delta.FileSignature;
 import com.cfforge.common.dto.FileEntry;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -57,6 +63,32 @@ public class FileController {
         return ResponseEntity.ok().build();
     }
 
+    @GetMapping(value = "/**", params = "signature")
+    public FileSignature getSignature(@PathVariable UUID projectId, HttpServletRequest request) {
+        String path = extractFilePath(request, projectId);
+        return workspaceClient.get()
+            .uri("/workspace/{projectId}/files/{path}?signature=true", projectId, path)
+            .retrieve()
+            .bodyToMono(FileSignature.class)
+            .block();
+    }
+
+    /**
+     * Streams a delta through to the workspace service; its 409 on a stale base is passed on as-is.
+     */
+    @PatchMapping(value = "/**", consumes = DeltaFormat.MEDIA_TYPE)
+    public ResponseEntity<Map<String, Object>> applyDelta(@PathVariable UUID projectId,
+                                                          HttpServletRequest request) {
+        String path = extractFilePath(request, projectId);
+        var body = DataBufferUtils.readInputStream(request::getInputStream, DefaultDataBufferFactory.sharedInstance, 64 * 1024);
+        return workspaceClient.patch()
+            .uri("/workspace/{projectId}/files/{path}", projectId, path)
+            .contentType(MediaType.parseMediaType(DeltaFormat.MEDIA_TYPE))
+            .body(body, DataBuffer.class)
+            .exchangeToMono(response -> response.toEntity(new ParameterizedTypeReference<Map<String, Object>>() {}))
+            .block();
+    }
+
     @DeleteMapping("/**")
     public ResponseEntity<Void> deleteFile(@PathVariable UUID projectId, HttpServletRequest request) {
         String path = extractFilePath(request, projectId);
@@ -0,0 +1,104 @@
+package com.cfforge.api.service;
+
+import com.cfforge.common.dto.BuildLogEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Fans build log batches from the builder out to STOMP subscribers of
+ * {@code /topic/builds/{buildId}/logs}.
+ *
+ * Every API instance receives every batch (anonymous queue per instance) and keeps a bounded
+ * replay buffer per build, so a client that subscribes mid-build first fetches the snapshot from
+ * {@code /app/builds/{buildId}/logs} and then de-duplicates live batches by sequence number.
+ * Buffers of finished builds are dropped after the retention period.
+ */
+@Component
+@Slf4j
+public class BuildLogRelay {
+
+    private static final long SWEEP_INTERVAL_MS = 30_000;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final int replayLines;
+    private final Duration retention;
+    private final Map<UUID, Replay> replays = new ConcurrentHashMap<>();
+    private volatile long nextSweep;
+
+    public BuildLogRelay(SimpMessagingTemplate messagingTemplate,
+                         @Value("${cfforge.build-logs.replay-lines:5000}") int replayLines,
+                         @Value("${cfforge.build-logs.retention:PT10M}") Duration retention) {
+        this.messagingTemplate = messagingTemplate;
+        this.replayLines = replayLines;
+        this.retention = retention;
+    }
+
+    @Bean
+    public Consumer<BuildLogEvent> buildLog() {
+        return this::relay;
+    }
+
+    public void relay(BuildLogEvent event) {
+        replays.computeIfAbsent(event.buildId(), id -> new Replay()).add(event, replayLines);
+        messagingTemplate.convertAndSend(destination(event.buildId()), event);
+        sweep();
+    }
+
+    /**
+     * Batches still buffered for a build, in sequence order; empty once the build is unknown here.
+     */
+    public List<BuildLogEvent> replay(UUID buildId) {
+        Replay replay = replays.get(buildId);
+        return replay != null ? replay.snapshot() : List.of();
+    }
+
+    public static String destination(UUID buildId) {
+        return "/topic/builds/" + buildId + "/logs";
+    }
+
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        if (now < nextSweep) {
+            return;
+        }
+        nextSweep = now + SWEEP_INTERVAL_MS;
+        // Unfinished builds are kept twice as long in case their final batch was lost
+        replays.entrySet().removeIf(e -> now - e.getValue().lastUpdated
+            > (e.getValue().finished ? retention.toMillis() : retention.toMillis() * 2));
+    }
+
+    private static final class Replay {
+
+        private final TreeMap<Long, BuildLogEvent> batches = new TreeMap<>();
+        private int lines;
+        private volatile long lastUpdated = System.currentTimeMillis();
+        private volatile boolean finished;
+
+        synchronized void add(BuildLogEvent event, int maxLines) {
+            if (batches.putIfAbsent(event.sequence(), event) == null) {
+                lines += event.lines().size();
+            }
+            while (lines > maxLines && batches.size() > 1) {
+                lines -= batches.pollFirstEntry().getValue().lines().size();
+            }
+            lastUpdated = System.currentTimeMillis();
+            finished |= event.status() != null;
+        }
+
+        synchronized List<BuildLogEvent> snapshot() {
+            return new ArrayList<>(batches.values());
+        }
+    }
+}
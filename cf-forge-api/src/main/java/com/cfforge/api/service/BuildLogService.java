@@ -0,0 +1,121 @@
+package com.cfforge.api.service;
+
+import com.cfforge.common.buildlog.BuildLogIndex;
+import com.cfforge.common.entity.Build;
+import com.cfforge.common.enums.BuildStatus;
+import com.cfforge.common.storage.S3StorageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads build logs from their chunked object storage layout (see {@link BuildLogIndex}).
+ * Builds without a stored log, such as ones from before chunked storage, are served from the
+ * log text on the build record.
+ */
+@Service
+@Slf4j
+public class BuildLogService {
+
+    private final S3StorageService storageService;
+    private final ObjectMapper objectMapper;
+
+    public BuildLogService(S3StorageService storageService, ObjectMapper objectMapper) {
+        this.storageService = storageService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param content UTF-8 text of bytes {@code [offset, nextOffset)}; a page boundary may split a
+     *                multi-byte character
+     */
+    public record LogPage(long offset, long nextOffset, long totalBytes, boolean complete, String content,
+                          List<BuildLogIndex.Stage> stages) {}
+
+    /**
+     * A page of up to {@code limit} bytes starting at {@code offset}, or the last {@code limit}
+     * bytes when no offset is given.
+     */
+    public LogPage read(Build build, Long offset, int limit) {
+        Optional<BuildLogIndex> index = loadIndex(build);
+        if (index.isEmpty()) {
+            byte[] text = build.getBuildLog() != null ? build.getBuildLog().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            long start = startOf(offset, limit, text.length);
+            int end = (int) Math.min(text.length, start + limit);
+            return new LogPage(start, end, text.length, isFinished(build),
+                new String(text, (int) start, (int) (end - start), StandardCharsets.UTF_8), List.of());
+        }
+
+        BuildLogIndex idx = index.get();
+        long start = startOf(offset, limit, idx.totalBytes());
+        long end = Math.min(idx.totalBytes(), start + limit);
+        ByteArrayOutputStream page = new ByteArrayOutputStream((int) (end - start));
+        for (BuildLogIndex.Chunk chunk : idx.chunks()) {
+            long chunkEnd = chunk.offset() + chunk.length();
+            if (chunkEnd <= start || chunk.offset() >= end) {
+                continue;
+            }
+            byte[] content = readChunk(chunk);
+            int from = (int) Math.max(0, start - chunk.offset());
+            int to = (int) Math.min(content.length, end - chunk.offset());
+            page.write(content, from, to - from);
+        }
+        return new LogPage(start, end, idx.totalBytes(), idx.complete(),
+            page.toString(StandardCharsets.UTF_8), idx.stages());
+    }
+
+    /**
+     * Writes the whole log, decompressing one chunk at a time.
+     */
+    public void stream(Build build, OutputStream out) throws IOException {
+        Optional<BuildLogIndex> index = loadIndex(build);
+        if (index.isEmpty()) {
+            if (build.getBuildLog() != null) {
+                out.write(build.getBuildLog().getBytes(StandardCharsets.UTF_8));
+            }
+            return;
+        }
+        for (BuildLogIndex.Chunk chunk : index.get().chunks()) {
+            try (InputStream in = new GZIPInputStream(storageService.openObject(chunk.key()))) {
+                in.transferTo(out);
+            }
+        }
+    }
+
+    private Optional<BuildLogIndex> loadIndex(Build build) {
+        try {
+            byte[] json = storageService.getObject(BuildLogIndex.indexKey(build.getId()));
+            return Optional.of(objectMapper.readValue(json, BuildLogIndex.class));
+        } catch (Exception e) {
+            if (build.getLogPath() != null) {
+                log.warn("Stored log of build {} unavailable, serving database tail: {}", build.getId(), e.getMessage());
+            }
+            return Optional.empty();
+        }
+    }
+
+    private byte[] readChunk(BuildLogIndex.Chunk chunk) {
+        try (InputStream in = new GZIPInputStream(storageService.openObject(chunk.key()))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read log chunk: " + chunk.key(), e);
+        }
+    }
+
+    private static long startOf(Long offset, int limit, long total) {
+        return offset != null ? Math.max(0, Math.min(offset, total)) : Math.max(0, total - limit);
+    }
+
+    private static boolean isFinished(Build build) {
+        return build.getStatus() != BuildStatus.QUEUED && build.getStatus() != BuildStatus.BUILDING;
+    }
+}
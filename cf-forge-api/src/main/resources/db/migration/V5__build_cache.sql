@@ -0,0 +1,4 @@
+ALTER TABLE builds ADD COLUMN input_hash VARCHAR(64);
+ALTER TABLE builds ADD COLUMN cache_hit BOOLEAN DEFAULT false;
+
+CREATE INDEX idx_builds_project_input_hash ON builds(project_id, input_hash);
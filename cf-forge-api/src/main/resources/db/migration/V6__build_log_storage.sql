@@ -0,0 +1,2 @@
+ALTER TABLE builds ADD COLUMN log_path VARCHAR(512);
+ALTER TABLE builds ADD COLUMN log_size BIGINT;
@@ -0,0 +1 @@
+ALTER TABLE builds ADD COLUMN stage_timings JSONB;
@@ -0,0 +1,2 @@
+ALTER TABLE builds ADD COLUMN peak_memory_mb INTEGER;
+ALTER TABLE builds ADD COLUMN cpu_time_ms BIGINT;
@@ -0,0 +1,54 @@
+package com.cfforge.api.service;
+
+import com.cfforge.common.dto.BuildLogEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class BuildLogRelayTest {
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final BuildLogRelay relay = new BuildLogRelay(messagingTemplate, 4, Duration.ofMinutes(10));
+    private final UUID buildId = UUID.randomUUID();
+    private final UUID projectId = UUID.randomUUID();
+
+    @Test
+    void relay_broadcastsToBuildTopic() {
+        BuildLogEvent event = batch(0, "line");
+
+        relay.relay(event);
+
+        verify(messagingTemplate).convertAndSend(eq("/topic/builds/" + buildId + "/logs"), eq(event));
+    }
+
+    @Test
+    void replay_returnsBatchesInSequenceOrderWithoutDuplicates() {
+        relay.relay(batch(1, "b"));
+        relay.relay(batch(0, "a"));
+        relay.relay(batch(1, "b"));
+
+        assertThat(relay.replay(buildId)).extracting(BuildLogEvent::sequence).containsExactly(0L, 1L);
+    }
+
+    @Test
+    void replay_dropsOldestBatchesBeyondLineLimit() {
+        relay.relay(batch(0, "1", "2"));
+        relay.relay(batch(1, "3", "4"));
+        relay.relay(batch(2, "5"));
+
+        assertThat(relay.replay(buildId)).extracting(BuildLogEvent::sequence).containsExactly(1L, 2L);
+        assertThat(relay.replay(UUID.randomUUID())).isEmpty();
+    }
+
+    private BuildLogEvent batch(long sequence, String... lines) {
+        return new BuildLogEvent(buildId, projectId, sequence, List.of(lines), null);
+    }
+}
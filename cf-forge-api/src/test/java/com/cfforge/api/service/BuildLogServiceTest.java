@@ -0,0 +1,93 @@
+package com.cfforge.api.service;
+
+import com.cfforge.common.buildlog.BuildLogIndex;
+import com.cfforge.common.entity.Build;
+import com.cfforge.common.enums.BuildStatus;
+import com.cfforge.common.storage.S3StorageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BuildLogServiceTest {
+
+    @TempDir
+    Path storageDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private S3StorageService s3;
+    private BuildLogService service;
+    private Build build;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        s3 = new S3StorageService();
+        ReflectionTestUtils.setField(s3, "endpoint", "");
+        ReflectionTestUtils.setField(s3, "fallbackDir", storageDir.toString());
+        ReflectionTestUtils.setField(s3, "defaultBucket", "cf-forge-artifacts");
+        service = new BuildLogService(s3, objectMapper);
+        build = Build.builder().id(UUID.randomUUID()).status(BuildStatus.SUCCESS).buildLog("tail only").build();
+    }
+
+    @Test
+    void read_pagesAcrossChunkBoundaries() throws Exception {
+        storeChunks("0123456789", "abcdefghij", "KLMNO");
+
+        BuildLogService.LogPage page = service.read(build, 8L, 5);
+
+        assertThat(page.content()).isEqualTo("89abc");
+        assertThat(page.nextOffset()).isEqualTo(13);
+        assertThat(page.totalBytes()).isEqualTo(25);
+        assertThat(page.complete()).isTrue();
+    }
+
+    @Test
+    void read_withoutOffset_returnsTail() throws Exception {
+        storeChunks("0123456789", "abcdefghij", "KLMNO");
+
+        BuildLogService.LogPage page = service.read(build, null, 7);
+
+        assertThat(page.offset()).isEqualTo(18);
+        assertThat(page.content()).isEqualTo("ijKLMNO");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.stream(build, out);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("0123456789abcdefghijKLMNO");
+    }
+
+    @Test
+    void read_withoutStoredLog_fallsBackToBuildRecord() {
+        BuildLogService.LogPage page = service.read(build, null, 1024);
+
+        assertThat(page.content()).isEqualTo("tail only");
+        assertThat(page.complete()).isTrue();
+    }
+
+    private void storeChunks(String... contents) throws Exception {
+        List<BuildLogIndex.Chunk> chunks = new ArrayList<>();
+        long offset = 0;
+        for (int i = 0; i < contents.length; i++) {
+            String key = BuildLogIndex.chunkKey(build.getId(), i);
+            ByteArrayOutputStream gz = new ByteArrayOutputStream();
+            try (GZIPOutputStream out = new GZIPOutputStream(gz)) {
+                out.write(contents[i].getBytes(StandardCharsets.UTF_8));
+            }
+            s3.putObject(key, gz.toByteArray());
+            chunks.add(new BuildLogIndex.Chunk(key, offset, contents[i].length()));
+            offset += contents[i].length();
+        }
+        var index = new BuildLogIndex(chunks, List.of(), offset, true);
+        s3.putObject(BuildLogIndex.indexKey(build.getId()), objectMapper.writeValueAsBytes(index));
+    }
+}
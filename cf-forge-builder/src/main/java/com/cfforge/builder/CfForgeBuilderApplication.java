@@ -3,13 +3,20 @@ package com.cfforge.builder;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.ComponentScan;
+import com.cfforge.builder.control.BuildTimeoutProperties;
+import com.cfforge.builder.executor.BuildExecutorProperties;
+import com.cfforge.builder.process.ProcessRunnerProperties;
+import com.cfforge.builder.testimpact.TestImpactProperties;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 @SpringBootApplication
 @EntityScan(basePackages = "com.cfforge.common.entity")
 @EnableJpaRepositories(basePackages = "com.cfforge.common.repository")
 @ComponentScan(basePackages = {"com.cfforge.builder", "com.cfforge.common"})
+@EnableConfigurationProperties({BuildExecutorProperties.class, BuildTimeoutProperties.class,
+    ProcessRunnerProperties.class, TestImpactProperties.class})
 public class CfForgeBuilderApplication {
     public static void main(String[] args) {
         SpringApplication.run(CfForgeBuilderApplication.class, args);
@@ -0,0 +1,101 @@
+package com.cfforge.builder.cache;
+
+import com.cfforge.builder.model.BuildContext;
+import com.cfforge.builder.pipeline.BuildPipeline;
+import com.cfforge.common.entity.Build;
+import com.cfforge.common.enums.BuildStatus;
+import com.cfforge.common.repository.BuildRepository;
+import com.cfforge.common.storage.S3StorageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Reuses the result of an earlier successful build whose inputs were identical.
+ *
+ * The input hash covers the source tree, language, framework, pipeline version and the CVE gate
+ * settings, so a hit is a build that would have produced the same artifact and SBOM. It does not
+ * cover the vulnerability DB, so the consumer re-runs the CVE scan on every hit.
+ * Candidates whose artifact has since disappeared from storage are treated as misses.
+ */
+@Component
+@Slf4j
+public class BuildResultCache {
+
+    private final BuildRepository buildRepository;
+    private final S3StorageService storageService;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final boolean cveScanEnabled;
+    private final String cveBlockSeverity;
+
+    public BuildResultCache(BuildRepository buildRepository, S3StorageService storageService,
+                            MeterRegistry meterRegistry,
+                            @Value("${cf.forge.build-cache.enabled:true}") boolean enabled,
+                            @Value("${cf.forge.cve.scan-enabled:true}") boolean cveScanEnabled,
+                            @Value("${cf.forge.cve.block-severity:critical}") String cveBlockSeverity) {
+        this.buildRepository = buildRepository;
+        this.storageService = storageService;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.cveScanEnabled = cveScanEnabled;
+        this.cveBlockSeverity = cveBlockSeverity;
+    }
+
+    public String inputHash(BuildContext context, BuildPipeline pipeline) {
+        MessageDigest digest = sha256();
+        for (String part : new String[] {
+                context.getSources().treeHash(),
+                String.valueOf(context.getLanguage()),
+                String.valueOf(context.getFramework()),
+                pipeline.getClass().getSimpleName() + ":" + pipeline.version(),
+                "cve:" + cveScanEnabled + ":" + cveBlockSeverity}) {
+            digest.update(part.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public Optional<Build> lookup(UUID projectId, String inputHash, boolean forceRebuild) {
+        if (!enabled || forceRebuild) {
+            record(forceRebuild ? "bypass" : "disabled");
+            return Optional.empty();
+        }
+        Optional<Build> cached = buildRepository
+            .findFirstByProjectIdAndInputHashAndStatusOrderByCreatedAtDesc(projectId, inputHash, BuildStatus.SUCCESS)
+            .filter(this::artifactAvailable);
+        record(cached.isPresent() ? "hit" : "miss");
+        return cached;
+    }
+
+    private boolean artifactAvailable(Build build) {
+        if (build.getArtifactPath() == null) {
+            return true;
+        }
+        try {
+            return storageService.objectExists(build.getArtifactPath());
+        } catch (Exception e) {
+            log.warn("Could not verify cached artifact {}: {}", build.getArtifactPath(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void record(String result) {
+        meterRegistry.counter("builder.build.cache", "result", result).increment();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,517 @@
+package com.cfforge.builder.cache;
+
+import com.cfforge.common.storage.S3StorageService;
+import com.cfforge.common.storage.StoredObject;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Builder-wide, on-disk dependency caches (Maven repository, npm cache, Go module/build caches,
+ * pip wheels), one directory per ecosystem and lockfile hash.
+ *
+ * A build leases the entry for its lockfile. On an exact miss the entry is warmed from the
+ * remote copy in object storage when enabled, otherwise seeded by hard-linking the most recently
+ * used entry of the same ecosystem, so a changed pom.xml only downloads what actually changed.
+ * Entries are evicted least-recently-used once the disk budget is exceeded; leased entries are
+ * never evicted. Each entry directory keeps one {@code EntryState} for the manager's lifetime, so
+ * leasing and evicting it always synchronize on the same object.
+ */
+@Component
+@Slf4j
+public class DependencyCacheManager {
+
+    static final String MARKER = ".cfforge-cache";
+    private static final String REMOTE_PREFIX = "dependency-cache/";
+    private static final List<String> SKIPPED_DIRS = List.of("target", "node_modules", ".git", ".venv");
+
+    public enum Source { HIT, REMOTE, SEEDED, COLD }
+
+    private final S3StorageService storageService;
+    private final MeterRegistry meterRegistry;
+    private final Path root;
+    private final long maxDiskBytes;
+    private final boolean remoteEnabled;
+    private final Map<Path, EntryState> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    public DependencyCacheManager(S3StorageService storageService, MeterRegistry meterRegistry,
+                                  @Value("${cf.forge.dependency-cache.dir:${java.io.tmpdir}/cfforge-dependency-cache}") String dir,
+                                  @Value("${cf.forge.dependency-cache.max-disk-mb:4096}") long maxDiskMb,
+                                  @Value("${cf.forge.dependency-cache.remote-enabled:false}") boolean remoteEnabled) {
+        this.storageService = storageService;
+        this.meterRegistry = meterRegistry;
+        this.root = Paths.get(dir);
+        this.maxDiskBytes = maxDiskMb * 1024 * 1024;
+        this.remoteEnabled = remoteEnabled;
+    }
+
+    /**
+     * Leases the cache entry matching the project's lockfile, creating and warming it if needed.
+     * Never fails the build: if the cache can't be prepared the lease points at an empty entry.
+     */
+    public Lease acquire(Ecosystem ecosystem, Path projectDir) {
+        String key = cacheKey(ecosystem, projectDir);
+        Path entry = ecosystemDir(ecosystem).resolve(key);
+        EntryState state = entries.computeIfAbsent(entry, p -> new EntryState());
+        Source source;
+        synchronized (state) {
+            state.leases++;
+            source = prepare(ecosystem, key, entry);
+            touch(entry);
+        }
+        meterRegistry.counter("builder.dependency.cache", "ecosystem", name(ecosystem), "result", name(source))
+            .increment();
+        log.info("Dependency cache {} {} for key {}", name(ecosystem), name(source), key);
+        return new Lease(ecosystem, key, entry, source);
+    }
+
+    private Source prepare(Ecosystem ecosystem, String key, Path entry) {
+        if (Files.exists(entry.resolve(MARKER))) {
+            return Source.HIT;
+        }
+        try {
+            Files.createDirectories(entry);
+            Source source = Source.COLD;
+            if (remoteEnabled && restoreRemote(ecosystem, key, entry)) {
+                source = Source.REMOTE;
+            } else {
+                Optional<Path> seed = mostRecentEntry(ecosystem, entry);
+                if (seed.isPresent()) {
+                    linkTree(seed.get(), entry);
+                    source = Source.SEEDED;
+                }
+            }
+            Files.writeString(entry.resolve(MARKER), key);
+            return source;
+        } catch (Exception e) {
+            log.warn("Failed to warm dependency cache {}, starting cold: {}", entry, e.getMessage());
+            deleteTree(entry);
+            try {
+                Files.createDirectories(entry);
+                Files.writeString(entry.resolve(MARKER), key);
+            } catch (IOException ignored) {
+                // The build still runs; the tool creates the directory itself
+            }
+            return Source.COLD;
+        }
+    }
+
+    private void release(Lease lease) {
+        EntryState state = entries.computeIfAbsent(lease.directory, p -> new EntryState());
+        synchronized (state) {
+            state.leases--;
+            state.sizeBytes = -1;
+            touch(lease.directory);
+        }
+        if (lease.succeeded && remoteEnabled && (lease.source == Source.COLD || lease.source == Source.SEEDED)) {
+            Thread.ofVirtual().name("dependency-cache-upload").start(() -> uploadRemote(lease));
+        }
+        if (evicting.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("dependency-cache-evict").start(() -> {
+                try {
+                    enforceBudget();
+                } finally {
+                    evicting.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Deletes least-recently-used entries until the cache fits its disk budget. Serialized so
+     * passes triggered by concurrent builds don't both count and evict the same entries.
+     *
+     * Seeded entries share files through hard links, so disk use counts each file once and
+     * evicting an entry only frees the files no remaining entry links to.
+     */
+    synchronized void enforceBudget() {
+        List<Path> all = new ArrayList<>();
+        for (Ecosystem ecosystem : Ecosystem.values()) {
+            try (Stream<Path> dirs = Files.list(ecosystemDir(ecosystem))) {
+                dirs.filter(dir -> Files.exists(dir.resolve(MARKER))).forEach(all::add);
+            } catch (IOException e) {
+                // No entries for this ecosystem yet
+            }
+        }
+        all.sort(Comparator.comparing(DependencyCacheManager::lastUsed));
+
+        long upperBound = 0;
+        for (Path dir : all) {
+            upperBound += sizeOf(dir);
+        }
+        if (upperBound <= maxDiskBytes) {
+            return;
+        }
+
+        Map<Path, Map<Object, Long>> filesByEntry = new HashMap<>();
+        Map<Object, Integer> links = new HashMap<>();
+        long total = 0;
+        for (Path dir : all) {
+            Map<Object, Long> files = filesOf(dir);
+            filesByEntry.put(dir, files);
+            for (Map.Entry<Object, Long> file : files.entrySet()) {
+                if (links.merge(file.getKey(), 1, Integer::sum) == 1) {
+                    total += file.getValue();
+                }
+            }
+        }
+        for (Path dir : all) {
+            if (total <= maxDiskBytes) {
+                break;
+            }
+            EntryState state = entries.computeIfAbsent(dir, p -> new EntryState());
+            synchronized (state) {
+                if (state.leases > 0) {
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(dir.resolve(MARKER));
+                } catch (IOException e) {
+                    continue;
+                }
+                deleteTree(dir);
+                state.sizeBytes = -1;
+                long freed = 0;
+                for (Map.Entry<Object, Long> file : filesByEntry.get(dir).entrySet()) {
+                    if (links.merge(file.getKey(), -1, Integer::sum) == 0) {
+                        freed += file.getValue();
+                    }
+                }
+                total -= freed;
+                meterRegistry.counter("builder.dependency.cache.evictions").increment();
+                log.info("Evicted dependency cache {} ({} MB freed)", dir, freed / (1024 * 1024));
+            }
+        }
+    }
+
+    private long sizeOf(Path dir) {
+        EntryState state = entries.computeIfAbsent(dir, p -> new EntryState());
+        if (state.sizeBytes < 0) {
+            try (Stream<Path> files = Files.walk(dir)) {
+                state.sizeBytes = files.filter(Files::isRegularFile).mapToLong(file -> {
+                    try {
+                        return Files.size(file);
+                    } catch (IOException e) {
+                        return 0;
+                    }
+                }).sum();
+            } catch (IOException | UncheckedIOException e) {
+                state.sizeBytes = 0;
+            }
+        }
+        return state.sizeBytes;
+    }
+
+    /**
+     * The entry's regular files by file key (device and inode where the platform has them), with
+     * their sizes.
+     */
+    private static Map<Object, Long> filesOf(Path dir) {
+        Map<Object, Long> files = new HashMap<>();
+        try {
+            Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        files.put(attrs.fileKey() != null ? attrs.fileKey() : file, attrs.size());
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.debug("Failed to size dependency cache {}: {}", dir, e.getMessage());
+        }
+        return files;
+    }
+
+    private Optional<Path> mostRecentEntry(Ecosystem ecosystem, Path exclude) {
+        try (Stream<Path> dirs = Files.list(ecosystemDir(ecosystem))) {
+            return dirs.filter(dir -> !dir.equals(exclude) && Files.exists(dir.resolve(MARKER)))
+                .max(Comparator.comparing(DependencyCacheManager::lastUsed));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Hard-links every file of {@code source} into {@code target}. Downloaded artifacts are
+     * write-once per version, so sharing their inodes is safe and costs no extra disk; metadata
+     * and index files that tools rewrite in place are copied so a build can't change the seed.
+     */
+    private static void linkTree(Path source, Path target) throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Path relative = source.relativize(file);
+                if (relative.toString().equals(MARKER)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                Path link = target.resolve(relative);
+                if (rewrittenInPlace(relative)) {
+                    Files.copy(file, link, StandardCopyOption.REPLACE_EXISTING);
+                    return FileVisitResult.CONTINUE;
+                }
+                try {
+                    Files.createLink(link, file);
+                } catch (IOException | UnsupportedOperationException e) {
+                    Files.copy(file, link, StandardCopyOption.REPLACE_EXISTING);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Files the package managers update in place rather than replace: Maven's repository
+     * metadata and resolver bookkeeping, npm's cacache index buckets and Go's build cache trim stamp.
+     */
+    static boolean rewrittenInPlace(Path relative) {
+        String name = relative.getFileName().toString();
+        if (name.startsWith("maven-metadata") && name.endsWith(".xml")
+            || name.equals("_remote.repositories")
+            || name.equals("resolver-status.properties")
+            || name.endsWith(".lastUpdated")
+            || name.equals("trim.txt")) {
+            return true;
+        }
+        for (Path part : relative) {
+            if (part.toString().startsWith("index-v")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean restoreRemote(Ecosystem ecosystem, String key, Path entry) throws Exception {
+        String remoteKey = remoteKey(ecosystem, key);
+        try (Stream<StoredObject> objects = storageService.streamObjects(remoteKey)) {
+            if (objects.noneMatch(object -> object.key().equals(remoteKey))) {
+                return false;
+            }
+        }
+        Process tar = new ProcessBuilder("tar", "-xzf", "-", "-C", entry.toString())
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        try (InputStream in = storageService.openObject(remoteKey); OutputStream out = tar.getOutputStream()) {
+            in.transferTo(out);
+        }
+        if (tar.waitFor() != 0) {
+            throw new IOException("tar exited with " + tar.exitValue() + " restoring " + remoteKey);
+        }
+        return true;
+    }
+
+    private void uploadRemote(Lease lease) {
+        String remoteKey = remoteKey(lease.ecosystem, lease.key);
+        Path archive = null;
+        try {
+            archive = Files.createTempFile("cfforge-dependency-cache-", ".tar.gz");
+            Process tar = new ProcessBuilder("tar", "-czf", archive.toString(), "--exclude=./" + MARKER,
+                    "-C", lease.directory.toString(), ".")
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            if (tar.waitFor() != 0) {
+                throw new IOException("tar exited with " + tar.exitValue());
+            }
+            try (InputStream in = Files.newInputStream(archive)) {
+                storageService.putObject(remoteKey, in, Files.size(archive));
+            }
+            log.info("Uploaded dependency cache {} ({} MB)", remoteKey, Files.size(archive) / (1024 * 1024));
+        } catch (Exception e) {
+            log.warn("Failed to upload dependency cache {}: {}", remoteKey, e.getMessage());
+        } finally {
+            if (archive != null) {
+                try {
+                    Files.deleteIfExists(archive);
+                } catch (IOException ignored) {
+                    // Temp file, cleaned up with the container
+                }
+            }
+        }
+    }
+
+    /**
+     * Hash of the files that pin the dependency set. Maven hashes every pom.xml in the tree;
+     * other ecosystems use the first lockfile present. Projects without one share a default entry.
+     */
+    static String cacheKey(Ecosystem ecosystem, Path projectDir) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            List<Path> files = new ArrayList<>();
+            if (ecosystem == Ecosystem.MAVEN) {
+                try (Stream<Path> walk = Files.walk(projectDir)) {
+                    walk.filter(path -> path.getFileName().toString().equals("pom.xml"))
+                        .filter(path -> isBuildSource(projectDir.relativize(path)))
+                        .sorted()
+                        .forEach(files::add);
+                }
+            } else {
+                ecosystem.lockfiles().stream()
+                    .map(projectDir::resolve)
+                    .filter(Files::isRegularFile)
+                    .findFirst()
+                    .ifPresent(files::add);
+            }
+            if (files.isEmpty()) {
+                return "default";
+            }
+            for (Path file : files) {
+                digest.update(projectDir.relativize(file).toString().getBytes());
+                digest.update((byte) 0);
+                digest.update(Files.readAllBytes(file));
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (Exception e) {
+            log.warn("Failed to hash lockfiles in {}: {}", projectDir, e.getMessage());
+            return "default";
+        }
+    }
+
+    private static boolean isBuildSource(Path relative) {
+        for (int i = 0; i < relative.getNameCount() - 1; i++) {
+            if (SKIPPED_DIRS.contains(relative.getName(i).toString())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Path ecosystemDir(Ecosystem ecosystem) {
+        return root.resolve(name(ecosystem));
+    }
+
+    private static String remoteKey(Ecosystem ecosystem, String key) {
+        return REMOTE_PREFIX + name(ecosystem) + "/" + key + ".tar.gz";
+    }
+
+    private static String name(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static void touch(Path entry) {
+        try {
+            Path marker = entry.resolve(MARKER);
+            if (Files.exists(marker)) {
+                Files.setLastModifiedTime(marker, FileTime.from(Instant.now()));
+            }
+        } catch (IOException ignored) {
+            // Recency is best effort
+        }
+    }
+
+    private static FileTime lastUsed(Path entry) {
+        try {
+            return Files.getLastModifiedTime(entry.resolve(MARKER));
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void deleteTree(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(dir)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException ignored) {
+                    // Left for the next eviction pass
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Failed to delete {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private static final class EntryState {
+        int leases;
+        volatile long sizeBytes = -1;
+    }
+
+    /**
+     * A build's hold on one cache entry. Close it when the build is done; call
+     * {@link #markSucceeded()} first so a freshly populated entry is shared remotely.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final Ecosystem ecosystem;
+        private final String key;
+        private final Path directory;
+        private final Source source;
+        private boolean succeeded;
+
+        private Lease(Ecosystem ecosystem, String key, Path directory, Source source) {
+            this.ecosystem = ecosystem;
+            this.key = key;
+            this.directory = directory;
+            this.source = source;
+        }
+
+        public Path directory() {
+            return directory;
+        }
+
+        public Source source() {
+            return source;
+        }
+
+        public Map<String, String> environment() {
+            return ecosystem.environment(directory);
+        }
+
+        public String describe() {
+            return name(ecosystem) + " cache " + name(source) + " (key " + key + ")";
+        }
+
+        public void markSucceeded() {
+            this.succeeded = true;
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.cfforge.builder.cache;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Package ecosystems with a reusable download cache: which files pin the dependency set, and
+ * which environment variables point the tool at a cache directory.
+ */
+public enum Ecosystem {
+
+    MAVEN(List.of("pom.xml")) {
+        @Override
+        public Map<String, String> environment(Path cacheDir) {
+            String existing = System.getenv("MAVEN_OPTS");
+            String repo = "-Dmaven.repo.local=" + cacheDir.resolve("repository");
+            return Map.of("MAVEN_OPTS", existing == null || existing.isBlank() ? repo : existing + " " + repo);
+        }
+    },
+    NPM(List.of("package-lock.json", "npm-shrinkwrap.json", "yarn.lock", "package.json")) {
+        @Override
+        public Map<String, String> environment(Path cacheDir) {
+            return Map.of("npm_config_cache", cacheDir.toString());
+        }
+    },
+    GO(List.of("go.sum", "go.mod")) {
+        @Override
+        public Map<String, String> environment(Path cacheDir) {
+            return Map.of(
+                "GOMODCACHE", cacheDir.resolve("mod").toString(),
+                "GOCACHE", cacheDir.resolve("build").toString());
+        }
+    },
+    PIP(List.of("poetry.lock", "requirements.txt", "pyproject.toml")) {
+        @Override
+        public Map<String, String> environment(Path cacheDir) {
+            return Map.of("PIP_CACHE_DIR", cacheDir.toString());
+        }
+    };
+
+    private final List<String> lockfiles;
+
+    Ecosystem(List<String> lockfiles) {
+        this.lockfiles = lockfiles;
+    }
+
+    /**
+     * Candidate lockfiles in order of preference. For Maven every {@code pom.xml} in the tree
+     * counts, since modules declare their own dependencies.
+     */
+    public List<String> lockfiles() {
+        return lockfiles;
+    }
+
+    public abstract Map<String, String> environment(Path cacheDir);
+}
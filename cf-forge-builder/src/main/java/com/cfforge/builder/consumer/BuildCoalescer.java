@@ -0,0 +1,149 @@
+package com.cfforge.builder.consumer;
+
+import com.cfforge.builder.executor.BuildExecutor;
+import com.cfforge.builder.executor.BuildTicket;
+import com.cfforge.common.dto.BuildRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Keeps at most one waiting build per project.
+ *
+ * A project has at most one job in the build executor. The job runs whichever request is newest
+ * when it starts, so requests arriving while the project's build is queued or running replace the
+ * one waiting; the replaced request is reported as superseded and never runs. A force rebuild
+ * carries over to the request that replaces it.
+ */
+@Slf4j
+public class BuildCoalescer<D> {
+
+    /**
+     * A build request together with whatever is needed to acknowledge its message.
+     */
+    public record Queued<D>(BuildRequest request, BuildTicket ticket, D delivery) {
+
+        Queued<D> replacing(Queued<D> older) {
+            if (request.forceRebuild() || !older.request().forceRebuild()) {
+                return this;
+            }
+            BuildRequest merged = new BuildRequest(request.projectId(), request.triggerType(), true, request.buildId());
+            return new Queued<>(merged, ticket, delivery);
+        }
+    }
+
+    private final BuildExecutor executor;
+    private final Consumer<Queued<D>> runner;
+    private final BiConsumer<Queued<D>, Queued<D>> onSuperseded;
+    private final BiConsumer<Queued<D>, Throwable> onDone;
+    private final Counter superseded;
+    private final Map<UUID, Slot<D>> slots = new HashMap<>();
+
+    /**
+     * @param runner       runs a build on an executor thread
+     * @param onSuperseded called with a request that will not run and the one that replaced it
+     * @param onDone       called once per request when it has run (error null on success), failed,
+     *                     been superseded or been rejected by the executor
+     */
+    public BuildCoalescer(BuildExecutor executor, MeterRegistry meterRegistry, Consumer<Queued<D>> runner,
+                          BiConsumer<Queued<D>, Queued<D>> onSuperseded, BiConsumer<Queued<D>, Throwable> onDone) {
+        this.executor = executor;
+        this.runner = runner;
+        this.onSuperseded = onSuperseded;
+        this.onDone = onDone;
+        this.superseded = meterRegistry.counter("builder.build.superseded");
+    }
+
+    public void offer(Queued<D> queued) {
+        UUID projectId = queued.request().projectId();
+        Queued<D> replaced;
+        boolean schedule = false;
+        synchronized (this) {
+            Slot<D> slot = slots.computeIfAbsent(projectId, id -> new Slot<>());
+            replaced = slot.pending;
+            slot.pending = replaced != null ? queued.replacing(replaced) : queued;
+            if (!slot.scheduled) {
+                slot.scheduled = true;
+                schedule = true;
+            }
+        }
+        if (replaced != null) {
+            superseded.increment();
+            log.info("Build {} of project {} superseded by {}", replaced.request().buildId(), projectId,
+                queued.request().buildId());
+            try {
+                onSuperseded.accept(replaced, queued);
+            } finally {
+                onDone.accept(replaced, null);
+            }
+        }
+        if (schedule) {
+            schedule(projectId, queued.ticket());
+        }
+    }
+
+    private void schedule(UUID projectId, BuildTicket ticket) {
+        AtomicReference<Queued<D>> ran = new AtomicReference<>();
+        try {
+            executor.submit(ticket, () -> runNext(projectId, ran))
+                .whenComplete((ignored, error) -> {
+                    Queued<D> queued = ran.get();
+                    if (queued != null) {
+                        onDone.accept(queued, error);
+                    }
+                });
+        } catch (RejectedExecutionException e) {
+            Queued<D> pending;
+            synchronized (this) {
+                Slot<D> slot = slots.remove(projectId);
+                pending = slot != null ? slot.pending : null;
+            }
+            if (pending != null) {
+                onDone.accept(pending, e);
+            }
+        }
+    }
+
+    private void runNext(UUID projectId, AtomicReference<Queued<D>> ran) {
+        synchronized (this) {
+            Slot<D> slot = slots.get(projectId);
+            ran.set(slot.pending);
+            slot.pending = null;
+        }
+        try {
+            if (ran.get() != null) {
+                runner.accept(ran.get());
+            }
+        } finally {
+            // Anything that arrived meanwhile gets its own executor job
+            Queued<D> next;
+            synchronized (this) {
+                Slot<D> slot = slots.get(projectId);
+                next = slot.pending;
+                if (next == null) {
+                    slots.remove(projectId);
+                }
+            }
+            if (next != null) {
+                schedule(projectId, next.ticket());
+            }
+        }
+    }
+
+    synchronized int trackedProjects() {
+        return slots.size();
+    }
+
+    private static final class Slot<D> {
+        Queued<D> pending;
+        boolean scheduled;
+    }
+}
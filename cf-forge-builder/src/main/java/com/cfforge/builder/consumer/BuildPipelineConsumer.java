@@ -1,28 +1,56 @@
 package com.cfforge.builder.consumer;
 
+import com.cfforge.builder.cache.BuildResultCache;
+import com.cfforge.builder.control.BuildControl;
+import com.cfforge.builder.control.BuildControls;
+import com.cfforge.builder.control.BuildTerminatedException;
+import com.cfforge.builder.executor.BuildExecutor;
+import com.cfforge.builder.executor.BuildLane;
+import com.cfforge.builder.executor.BuildTicket;
+import com.cfforge.builder.logs.BuildLogPublisher;
+import com.cfforge.builder.logs.BuildLogStore;
 import com.cfforge.builder.model.BuildContext;
+import com.cfforge.builder.model.BuildLog;
 import com.cfforge.builder.model.BuildResult;
+import com.cfforge.builder.model.BuildTimeline;
 import com.cfforge.builder.pipeline.BuildPipeline;
+import com.cfforge.builder.postbuild.PostBuildStages;
+import com.cfforge.builder.resources.BuildCgroup;
+import com.cfforge.builder.resources.BuildCgroups;
+import com.cfforge.builder.resources.BuildFootprints;
+import com.cfforge.builder.resources.ResourceUsage;
 import com.cfforge.builder.security.CveScanResult;
 import com.cfforge.builder.security.CveScanner;
-import com.cfforge.builder.security.SbomGenerator;
+import com.cfforge.builder.source.SourceMaterializer;
+import com.cfforge.builder.workdir.WorkDirManager;
+import com.cfforge.common.buildlog.BuildLogIndex;
+import com.cfforge.common.dto.BuildCancelRequest;
 import com.cfforge.common.dto.BuildRequest;
 import com.cfforge.common.entity.Build;
+import com.cfforge.common.entity.Project;
 import com.cfforge.common.enums.BuildStatus;
 import com.cfforge.common.enums.Language;
 import com.cfforge.common.events.MetricEventPublisher;
 import com.cfforge.common.repository.BuildRepository;
 import com.cfforge.common.repository.ProjectRepository;
 import com.cfforge.common.storage.S3StorageService;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
+import org.springframework.integration.acks.AcknowledgmentCallback;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -35,107 +63,384 @@ public class BuildPipelineConsumer {
     private final ProjectRepository projectRepository;
     private final S3StorageService storageService;
     private final MetricEventPublisher metricPublisher;
+    private final PostBuildStages postBuildStages;
     private final CveScanner cveScanner;
-    private final SbomGenerator sbomGenerator;
+    private final SourceMaterializer sourceMaterializer;
+    private final BuildResultCache buildResultCache;
+    private final BuildLogPublisher buildLogPublisher;
+    private final BuildLogStore buildLogStore;
+    private final BuildControls buildControls;
+    private final WorkDirManager workDirManager;
+    private final BuildCgroups buildCgroups;
+    private final BuildFootprints buildFootprints;
+    private final int logTailChars;
+    private final MeterRegistry meterRegistry;
     private final Map<Language, BuildPipeline> pipelineMap;
+    private final BuildCoalescer<Delivery> coalescer;
 
     public BuildPipelineConsumer(List<BuildPipeline> pipelines,
                                   BuildRepository buildRepository,
                                   ProjectRepository projectRepository,
                                   S3StorageService storageService,
                                   MetricEventPublisher metricPublisher,
+                                  PostBuildStages postBuildStages,
                                   CveScanner cveScanner,
-                                  SbomGenerator sbomGenerator) {
+                                  SourceMaterializer sourceMaterializer,
+                                  BuildResultCache buildResultCache,
+                                  BuildExecutor buildExecutor,
+                                  BuildLogPublisher buildLogPublisher,
+                                  BuildLogStore buildLogStore,
+                                  BuildControls buildControls,
+                                  WorkDirManager workDirManager,
+                                  BuildCgroups buildCgroups,
+                                  BuildFootprints buildFootprints,
+                                  @Value("${cf.forge.logs.tail-chars:65536}") int logTailChars,
+                                  MeterRegistry meterRegistry) {
         this.pipelines = pipelines;
         this.buildRepository = buildRepository;
         this.projectRepository = projectRepository;
         this.storageService = storageService;
         this.metricPublisher = metricPublisher;
+        this.postBuildStages = postBuildStages;
         this.cveScanner = cveScanner;
-        this.sbomGenerator = sbomGenerator;
+        this.sourceMaterializer = sourceMaterializer;
+        this.buildResultCache = buildResultCache;
+        this.buildLogPublisher = buildLogPublisher;
+        this.buildLogStore = buildLogStore;
+        this.buildControls = buildControls;
+        this.workDirManager = workDirManager;
+        this.buildCgroups = buildCgroups;
+        this.buildFootprints = buildFootprints;
+        this.logTailChars = logTailChars;
+        this.meterRegistry = meterRegistry;
         this.pipelineMap = pipelines.stream()
             .collect(Collectors.toMap(BuildPipeline::supportedLanguage, p -> p));
+        this.coalescer = new BuildCoalescer<>(buildExecutor, meterRegistry,
+            queued -> {
+                queued.delivery().started().set(true);
+                runBuild(queued.request(), queued.delivery().project());
+            }, this::supersede, this::finished);
     }
 
+    /**
+     * Takes requests from this instance's partition of the build queue. The message stays
+     * unacknowledged until the build finishes or is superseded, so the binding's prefetch bounds
+     * how many builds this instance holds and a crash mid-build redelivers it to another builder.
+     */
     @Bean
-    public Consumer<BuildRequest> buildRequest() {
+    public Consumer<Message<BuildRequest>> buildRequest() {
+        return message -> {
+            Channel channel = message.getHeaders().get(AmqpHeaders.CHANNEL, Channel.class);
+            Long deliveryTag = message.getHeaders().get(AmqpHeaders.DELIVERY_TAG, Long.class);
+            accept(message.getPayload(), status -> acknowledge(channel, deliveryTag, status));
+        };
+    }
+
+    /**
+     * Hands a request to the build coalescer and returns immediately; {@code ack} settles its
+     * message once the build is done with it.
+     */
+    public void accept(BuildRequest request, AcknowledgmentCallback ack) {
+        log.info("Received build request for project: {}", request.projectId());
+
+        var project = projectRepository.findById(request.projectId()).orElse(null);
+        if (project == null) {
+            log.warn("Dead-lettering build request for unknown project: {}", request.projectId());
+            ack.acknowledge(AcknowledgmentCallback.Status.REJECT);
+            return;
+        }
+        if (request.buildId() == null) {
+            // Requests from the agent don't create a build record; give each one its own
+            Build build = buildRepository.save(Build.builder()
+                .project(project)
+                .triggerType(request.triggerType())
+                .build());
+            request = new BuildRequest(request.projectId(), request.triggerType(), request.forceRebuild(), build.getId());
+        }
+        UUID owner = project.getOwner() != null ? project.getOwner().getId() : null;
+        BuildTicket ticket = new BuildTicket(project.getLanguage(), owner, BuildLane.of(request.triggerType()));
+        coalescer.offer(new BuildCoalescer.Queued<>(request, ticket, new Delivery(project, ack, new AtomicBoolean())));
+    }
+
+    /**
+     * Settles a request's message. Only requests that never started are dead-lettered: once
+     * {@code runBuild} has been entered the build is on record, and running it again elsewhere
+     * would repeat it (or, for agent requests, create another build).
+     */
+    private void finished(BuildCoalescer.Queued<Delivery> queued, Throwable error) {
+        AcknowledgmentCallback ack = queued.delivery().ack();
+        if (error instanceof RejectedExecutionException) {
+            ack.acknowledge(AcknowledgmentCallback.Status.REQUEUE);
+            return;
+        }
+        if (error != null) {
+            log.error("Build request for project {} failed", queued.request().projectId(), error);
+        }
+        boolean settled = error == null || queued.delivery().started().get();
+        ack.acknowledge(settled ? AcknowledgmentCallback.Status.ACCEPT : AcknowledgmentCallback.Status.REJECT);
+    }
+
+    /**
+     * Marks a build that was replaced by a newer request before it started.
+     */
+    private void supersede(BuildCoalescer.Queued<Delivery> older, BuildCoalescer.Queued<Delivery> newer) {
+        buildRepository.findById(older.request().buildId())
+            .filter(build -> build.getStatus() == BuildStatus.QUEUED)
+            .ifPresent(build -> {
+                build.setStatus(BuildStatus.SUPERSEDED);
+                build.setBuildLog("Superseded by build " + newer.request().buildId() + " before it started.\n");
+                buildRepository.save(build);
+                // Tells anyone following the superseded build's live log that it is over
+                buildLogPublisher.open(older.request().projectId(), build.getId()).close(BuildStatus.SUPERSEDED);
+            });
+    }
+
+    /**
+     * Cancel requests reach every builder; only the one running the build acts on them. Builds
+     * still queued were already marked cancelled by the API and are skipped when they start.
+     */
+    @Bean
+    public Consumer<BuildCancelRequest> buildCancel() {
         return request -> {
-            log.info("Received build request for project: {}", request.projectId());
-            long startTime = System.currentTimeMillis();
+            String reason = request.reason() != null ? request.reason() : "Cancelled by user";
+            if (buildControls.cancel(request.buildId(), reason)) {
+                log.info("Cancelled build {} of project {}", request.buildId(), request.projectId());
+            }
+        };
+    }
 
-            var project = projectRepository.findById(request.projectId()).orElseThrow();
-            var build = buildRepository.findByProjectIdOrderByCreatedAtDesc(request.projectId())
-                .stream().findFirst().orElseThrow();
+    private void acknowledge(Channel channel, Long deliveryTag, AcknowledgmentCallback.Status status) {
+        if (channel == null || deliveryTag == null) {
+            return;
+        }
+        try {
+            if (status == AcknowledgmentCallback.Status.ACCEPT) {
+                channel.basicAck(deliveryTag, false);
+            } else {
+                // Without requeue the broker dead-letters the message to the overflow queue
+                channel.basicNack(deliveryTag, false, status == AcknowledgmentCallback.Status.REQUEUE);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to acknowledge build request {}: {}", deliveryTag, e.getMessage());
+        }
+    }
 
-            build.setStatus(BuildStatus.BUILDING);
-            buildRepository.save(build);
+    private void runBuild(BuildRequest request, Project project) {
+        long startTime = System.currentTimeMillis();
 
-            try {
-                Path workDir = Files.createTempDirectory("cfforge-build-");
-                var context = BuildContext.builder()
-                    .projectId(request.projectId())
-                    .buildId(build.getId())
-                    .workDir(workDir)
-                    .language(project.getLanguage())
-                    .framework(project.getFramework())
-                    .build();
-
-                BuildPipeline pipeline = pipelineMap.get(project.getLanguage());
-                if (pipeline == null) {
-                    throw new RuntimeException("No build pipeline for language: " + project.getLanguage());
-                }
+        var build = buildRepository.findById(request.buildId()).orElseThrow();
 
-                // Execute build
-                BuildResult result = pipeline.execute(context);
-                long duration = System.currentTimeMillis() - startTime;
-
-                if (result.getStatus() == BuildStatus.SUCCESS) {
-                    // Run CVE scan
-                    CveScanResult cveScan = cveScanner.scan(workDir);
-                    if (cveScan.isScanned()) {
-                        Map<String, Object> cveReport = new LinkedHashMap<>();
-                        cveReport.put("scanned", true);
-                        cveReport.put("summary", cveScan.getSummary());
-                        cveReport.put("blocked", cveScan.isBlocked());
-                        cveReport.put("severityCounts", cveScan.getSeverityCounts());
-                        cveReport.put("vulnerabilityCount", cveScan.getVulnerabilities().size());
-                        build.setCveReport(cveReport);
-
-                        if (cveScan.isBlocked()) {
-                            build.setStatus(BuildStatus.BLOCKED);
-                            build.setBuildLog(result.getLog() + "\n\nCVE SCAN: " + cveScan.getSummary()
-                                + "\nBuild blocked due to CVE severity gate.");
-                            build.setDurationMs((int) duration);
-                            buildRepository.save(build);
-                            metricPublisher.publishFailure("build.blocked", null, request.projectId(), cveScan.getSummary());
-                            return;
-                        }
-                    }
+        long queuedAt = build.getCreatedAt() != null ? build.getCreatedAt().toEpochMilli() : startTime;
+        BuildTimeline timeline = new BuildTimeline(queuedAt);
+        BuildControl control = buildControls.register(build.getId(), timeline);
+        if (build.getStatus() == BuildStatus.CANCELLED || build.getStatus() == BuildStatus.SUPERSEDED) {
+            buildControls.unregister(control);
+            log.info("Skipping build {}, {} while queued", build.getId(), build.getStatus());
+            // Tells anyone following the skipped build's live log that it is over
+            buildLogPublisher.open(request.projectId(), build.getId()).close(build.getStatus());
+            return;
+        }
+
+        build.setStatus(BuildStatus.BUILDING);
+        buildRepository.save(build);
+        timeline.record("queued", queuedAt, startTime);
+        BuildCgroup cgroup = buildCgroups.create(build.getId(), buildFootprints.memoryMb(project.getLanguage()));
+        if (cgroup != null) {
+            control.useCgroup(cgroup);
+        }
+
+        BuildLogPublisher.Stream logStream = buildLogPublisher.open(request.projectId(), build.getId());
+        BuildLogStore.Writer logWriter = buildLogStore.open(build.getId());
+        BuildLog buildLog = new BuildLog(logStream.andThen(logWriter), logTailChars);
+        WorkDirManager.Lease workDir = null;
+        try {
+            workDir = workDirManager.acquire(request.projectId(), build.getId(), project.getLanguage());
+            var context = BuildContext.builder()
+                .projectId(request.projectId())
+                .buildId(build.getId())
+                .workDir(workDir.directory())
+                .language(project.getLanguage())
+                .framework(project.getFramework())
+                .log(buildLog)
+                .timeline(timeline)
+                .control(control)
+                .build();
+
+            BuildPipeline pipeline = pipelineMap.get(project.getLanguage());
+            if (pipeline == null) {
+                throw new RuntimeException("No build pipeline for language: " + project.getLanguage());
+            }
+
+            timeline.begin("sources");
+            context.setSources(sourceMaterializer.materialize(context));
+            timeline.begin("cache-lookup");
+            String inputHash = buildResultCache.inputHash(context, pipeline);
+            build.setInputHash(inputHash);
+
+            var cached = buildResultCache.lookup(request.projectId(), inputHash, request.forceRebuild());
+            timeline.end();
+            if (cached.isPresent()) {
+                completeFromCache(build, cached.get(), context, startTime);
+                return;
+            }
 
-                    // Generate SBOM
-                    String sbomPath = sbomGenerator.generate(workDir, project.getLanguage(),
-                        request.projectId(), build.getId());
-                    build.setSbomPath(sbomPath);
+            // Execute build
+            BuildResult result = pipeline.execute(context);
+            timeline.end();
+            control.checkActive();
+            long duration = System.currentTimeMillis() - startTime;
+
+            if (result.getStatus() == BuildStatus.SUCCESS) {
+                PostBuildStages.Outcome postBuild = postBuildStages.run(context, result);
+                control.checkActive();
+                CveScanResult cveScan = postBuild.cveScan();
+                duration = System.currentTimeMillis() - startTime;
+                if (cveScan.isScanned()) {
+                    build.setCveReport(cveReport(cveScan));
+
+                    if (postBuild.blocked()) {
+                        build.setStatus(BuildStatus.BLOCKED);
+                        buildLog.append("\nCVE SCAN: ").append(cveScan.getSummary())
+                            .append("\nBuild blocked due to CVE severity gate.\n");
+                        build.setBuildLog(buildLog.toString());
+                        build.setDurationMs((int) duration);
+                        buildRepository.save(build);
+                        metricPublisher.publishFailure("build.blocked", null, request.projectId(), cveScan.getSummary());
+                        return;
+                    }
+                }
+                if (postBuild.failure() != null) {
+                    throw new RuntimeException(postBuild.failure());
                 }
 
-                build.setStatus(result.getStatus());
-                build.setBuildLog(result.getLog());
-                build.setArtifactPath(result.getArtifactPath());
-                build.setDurationMs((int) duration);
-                buildRepository.save(build);
+                build.setSbomPath(postBuild.sbomPath());
+                result.setArtifactPath(postBuild.artifactPath());
+                result.setLog(buildLog.toString());
+            }
+
+            build.setStatus(result.getStatus());
+            build.setBuildLog(result.getLog());
+            build.setArtifactPath(result.getArtifactPath());
+            build.setDurationMs((int) duration);
+            buildRepository.save(build);
 
-                metricPublisher.publishSuccess("build.completed", null, request.projectId(), (int) duration);
-                log.info("Build completed for project: {} in {}ms", request.projectId(), duration);
-            } catch (Exception e) {
-                long duration = System.currentTimeMillis() - startTime;
+            metricPublisher.publishSuccess("build.completed", null, request.projectId(), (int) duration);
+            log.info("Build completed for project: {} in {}ms", request.projectId(), duration);
+        } catch (Exception e) {
+            long duration = System.currentTimeMillis() - startTime;
+            BuildTerminatedException terminated = control.termination();
+            if (terminated != null) {
+                // Whatever failed was a consequence of the termination; report that instead
+                Thread.interrupted();
+                build.setStatus(terminated.isCancelled() ? BuildStatus.CANCELLED : BuildStatus.FAILED);
+                buildLog.append(terminated.isCancelled() ? "Build cancelled: " : "Build timed out: ")
+                    .append(terminated.getMessage()).append("\n");
+            } else {
                 build.setStatus(BuildStatus.FAILED);
-                build.setBuildLog(e.getMessage());
-                build.setDurationMs((int) duration);
-                buildRepository.save(build);
+                buildLog.append("Build failed: ").append(e.getMessage()).append("\n");
+            }
+            build.setBuildLog(buildLog.toString());
+            build.setDurationMs((int) duration);
+            buildRepository.save(build);
 
-                metricPublisher.publishFailure("build.failed", null, request.projectId(), e.getMessage());
+            if (terminated != null && terminated.isCancelled()) {
+                metricPublisher.publishFailure("build.cancelled", null, request.projectId(), terminated.getMessage());
+                log.info("Build cancelled for project: {}", request.projectId());
+            } else {
+                String error = terminated != null ? terminated.getMessage() : e.getMessage();
+                metricPublisher.publishFailure("build.failed", null, request.projectId(), error);
                 log.error("Build failed for project: {}", request.projectId(), e);
             }
-        };
+        } finally {
+            buildControls.unregister(control);
+            timeline.end();
+            build.setStageTimings(timeline.stages());
+            timeline.publish(meterRegistry, project.getLanguage());
+            recordUsage(build, project, control.usage());
+            if (cgroup != null) {
+                cgroup.close();
+            }
+            long logSize = logWriter.close();
+            if (logSize >= 0) {
+                build.setLogPath(BuildLogIndex.prefix(build.getId()));
+                build.setLogSize(logSize);
+            }
+            buildRepository.save(build);
+            logStream.close(build.getStatus());
+            if (workDir != null) {
+                workDir.close();
+            }
+        }
+    }
+
+    /**
+     * Stores what the build's processes used and feeds it to the language's footprint. Cache hits
+     * and builds that ended before running a tool have nothing measured.
+     */
+    private void recordUsage(Build build, Project project, ResourceUsage usage) {
+        if (!usage.isMeasured()) {
+            return;
+        }
+        build.setPeakMemoryMb(usage.peakMemoryMb());
+        build.setCpuTimeMs(usage.cpuTimeMs());
+        buildFootprints.record(project.getLanguage(), usage);
+        meterRegistry.summary("builder.build.peak.memory", "language", project.getLanguage().name().toLowerCase())
+            .record(usage.peakMemoryMb());
     }
+
+    /**
+     * Records the build as a copy of an earlier successful one with the same inputs, sharing its
+     * artifact and SBOM instead of running the pipeline. The CVE scan is run again, since the
+     * vulnerability DB may have learnt of new vulnerabilities in the same dependencies; it is
+     * cached by lockfiles and DB version, so this is usually a lookup.
+     */
+    private void completeFromCache(Build build, Build source, BuildContext context, long startTime) {
+        context.getLog().append("Build cache hit: reused the result of cached build ").append(source.getId())
+            .append(" (inputs ").append(build.getInputHash().substring(0, 12)).append(" unchanged), ")
+            .append("including its artifact and SBOM.\n")
+            .append("Trigger with force rebuild to build from scratch.\n");
+        long scanStart = System.currentTimeMillis();
+        CveScanResult cveScan = cveScanner.scan(context.getWorkDir());
+        context.getTimeline().record("cve-scan", scanStart, System.currentTimeMillis());
+        build.setCacheHit(true);
+        build.setCveReport(cveScan.isScanned() ? cveReport(cveScan) : null);
+        int duration = (int) (System.currentTimeMillis() - startTime);
+        build.setDurationMs(duration);
+
+        if (cveScan.isScanned() && cveScan.isBlocked()) {
+            build.setStatus(BuildStatus.BLOCKED);
+            context.getLog().append("\nCVE SCAN: ").append(cveScan.getSummary())
+                .append("\nBuild blocked due to CVE severity gate.\n");
+            build.setBuildLog(context.getLog().toString());
+            buildRepository.save(build);
+            metricPublisher.publishFailure("build.blocked", null, context.getProjectId(), cveScan.getSummary());
+            return;
+        }
+
+        build.setStatus(BuildStatus.SUCCESS);
+        build.setArtifactPath(source.getArtifactPath());
+        build.setSbomPath(source.getSbomPath());
+        context.getLog().append("CVE SCAN: ").append(cveScan.getSummary()).append("\n");
+        build.setBuildLog(context.getLog().toString());
+        buildRepository.save(build);
+
+        metricPublisher.publishSuccess("build.completed", null, context.getProjectId(), duration);
+        log.info("Build for project {} served from cache (build {}) in {}ms", context.getProjectId(), source.getId(), duration);
+    }
+
+    private static Map<String, Object> cveReport(CveScanResult cveScan) {
+        Map<String, Object> cveReport = new LinkedHashMap<>();
+        cveReport.put("scanned", true);
+        cveReport.put("summary", cveScan.getSummary());
+        cveReport.put("blocked", cveScan.isBlocked());
+        cveReport.put("cached", cveScan.isCached());
+        cveReport.put("severityCounts", cveScan.getSeverityCounts());
+        cveReport.put("vulnerabilityCount", cveScan.getVulnerabilities().size());
+        return cveReport;
+    }
+
+    /**
+     * @param started set once the build has begun running on this builder
+     */
+    private record Delivery(Project project, AcknowledgmentCallback ack, AtomicBoolean started) {}
 }
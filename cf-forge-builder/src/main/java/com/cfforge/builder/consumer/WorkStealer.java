@@ -0,0 +1,90 @@
+package com.cfforge.builder.consumer;
+
+import com.cfforge.builder.executor.BuildExecutor;
+import com.cfforge.common.dto.BuildRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.stream.binder.PollableMessageSource;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.integration.StaticMessageHeaderAccessor;
+import org.springframework.integration.acks.AcknowledgmentCallback;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes builds from the shared overflow queue while this instance has nothing else to do.
+ *
+ * Build requests normally wait in the queue of the instance owning their project. Ones its owner
+ * doesn't pick up within the affinity wait, because it is busy or gone, are dead-lettered to the
+ * overflow queue. Every {@code steal-interval} this polls that queue for as many requests as the
+ * executor has idle slots; a polled message is acknowledged when its build finishes, just like
+ * one from the instance's own queue.
+ */
+@Component
+@Slf4j
+public class WorkStealer {
+
+    private static final ParameterizedTypeReference<BuildRequest> BUILD_REQUEST = new ParameterizedTypeReference<>() {};
+
+    private final PollableMessageSource overflow;
+    private final BuildExecutor executor;
+    private final BuildPipelineConsumer consumer;
+    private final Counter stolen;
+    private final ScheduledExecutorService poller;
+
+    public WorkStealer(PollableMessageSource overflow, BuildExecutor executor, BuildPipelineConsumer consumer,
+                       MeterRegistry meterRegistry,
+                       @Value("${cf.forge.partitioning.stealing-enabled:true}") boolean enabled,
+                       @Value("${cf.forge.partitioning.steal-interval:PT1S}") Duration interval) {
+        this.overflow = overflow;
+        this.executor = executor;
+        this.consumer = consumer;
+        this.stolen = meterRegistry.counter("builder.build.stolen");
+        this.poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "build-stealer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            long millis = interval.toMillis();
+            poller.scheduleWithFixedDelay(this::steal, millis, millis, TimeUnit.MILLISECONDS);
+        } else {
+            log.info("Work stealing disabled; this instance only builds projects it owns");
+        }
+    }
+
+    /**
+     * @return the number of requests taken from the overflow queue
+     */
+    int steal() {
+        int taken = 0;
+        try {
+            for (int idle = executor.idleSlots(); taken < idle; taken++) {
+                boolean received = overflow.poll(message -> {
+                    AcknowledgmentCallback ack = StaticMessageHeaderAccessor.getAcknowledgmentCallback(message);
+                    ack.noAutoAck();
+                    consumer.accept((BuildRequest) message.getPayload(), ack);
+                }, BUILD_REQUEST);
+                if (!received) {
+                    break;
+                }
+                stolen.increment();
+            }
+        } catch (Exception e) {
+            log.warn("Polling the overflow build queue failed: {}", e.getMessage());
+        }
+        return taken;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        poller.shutdownNow();
+    }
+}
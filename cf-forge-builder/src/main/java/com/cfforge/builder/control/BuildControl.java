@@ -0,0 +1,189 @@
+package com.cfforge.builder.control;
+
+import com.cfforge.builder.model.BuildTimeline;
+import com.cfforge.builder.resources.BuildCgroup;
+import com.cfforge.builder.resources.ProcessUsageSampler;
+import com.cfforge.builder.resources.ResourceUsage;
+import com.cfforge.common.dto.BuildStageTiming;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Cancellation and deadline state of one running build.
+ *
+ * The process runner starts a build's tool processes through {@link #start} so that terminating
+ * the build can kill every process tree it has running; the runner then sees the process exit and
+ * {@link #checkActive} turns the failed exit into a {@link BuildTerminatedException}. The build's
+ * thread is interrupted as well, which stops waits outside of processes (source downloads,
+ * post-build stages).
+ *
+ * A build may also have a {@link BuildCgroup} its processes are started in, and its resource use
+ * is sampled by the watchdog as a fallback for what the cgroup can't report.
+ */
+public class BuildControl {
+
+    public enum Reason { CANCELLED, TIMED_OUT }
+
+    private final UUID buildId;
+    private final BuildTimeline timeline;
+    private final long deadline;
+    private final Duration buildTimeout;
+    private final Function<String, Duration> stageTimeouts;
+    private final Duration killGrace;
+    private final Set<Process> processes = ConcurrentHashMap.newKeySet();
+    private final ProcessUsageSampler sampler = new ProcessUsageSampler();
+    private volatile BuildCgroup cgroup;
+    private Thread worker;
+    private volatile Reason reason;
+    private volatile String message;
+
+    BuildControl(UUID buildId, BuildTimeline timeline, Duration buildTimeout,
+                 Function<String, Duration> stageTimeouts, Duration killGrace) {
+        this.buildId = buildId;
+        this.timeline = timeline;
+        this.deadline = System.currentTimeMillis() + buildTimeout.toMillis();
+        this.buildTimeout = buildTimeout;
+        this.stageTimeouts = stageTimeouts;
+        this.killGrace = killGrace;
+    }
+
+    /**
+     * A control that is never terminated, for builds run outside the consumer.
+     */
+    public static BuildControl unmanaged() {
+        return new BuildControl(null, new BuildTimeline(), Duration.ofDays(365), stage -> null, Duration.ZERO);
+    }
+
+    public UUID buildId() {
+        return buildId;
+    }
+
+    /**
+     * Starts the build's processes in {@code cgroup} from now on.
+     */
+    public void useCgroup(BuildCgroup cgroup) {
+        this.cgroup = cgroup;
+    }
+
+    /**
+     * The group the build's processes join, or null when they run unconfined.
+     */
+    public BuildCgroup cgroup() {
+        return cgroup;
+    }
+
+    /**
+     * Peak memory and CPU time of the build's processes so far: the cgroup's accounting where
+     * there is one, otherwise what sampling the process trees saw.
+     */
+    public ResourceUsage usage() {
+        ResourceUsage sampled = sampler.usage();
+        BuildCgroup group = cgroup;
+        if (group == null) {
+            return sampled;
+        }
+        ResourceUsage measured = group.usage();
+        return new ResourceUsage(
+            measured.peakMemoryBytes() > 0 ? measured.peakMemoryBytes() : sampled.peakMemoryBytes(),
+            measured.cpuTimeMs() > 0 ? measured.cpuTimeMs() : sampled.cpuTimeMs());
+    }
+
+    void sampleUsage() {
+        if (!processes.isEmpty()) {
+            sampler.sample(List.copyOf(processes));
+        }
+    }
+
+    public Process start(ProcessBuilder processBuilder) throws IOException {
+        checkActive();
+        Process process = processBuilder.start();
+        processes.add(process);
+        process.onExit().thenRun(() -> processes.remove(process));
+        // Terminated between the check and the start
+        if (reason != null) {
+            ProcessTree.killNow(process);
+        }
+        return process;
+    }
+
+    /**
+     * @throws BuildTerminatedException if the build was cancelled or ran out of time
+     */
+    public void checkActive() {
+        BuildTerminatedException termination = termination();
+        if (termination != null) {
+            throw termination;
+        }
+    }
+
+    /**
+     * Why the build was terminated, or null while it may keep running.
+     */
+    public synchronized BuildTerminatedException termination() {
+        return reason != null ? new BuildTerminatedException(reason, message) : null;
+    }
+
+    public boolean isTerminated() {
+        return reason != null;
+    }
+
+    /**
+     * Marks the build terminated, kills its processes and interrupts its thread. Only the first
+     * call has an effect.
+     */
+    public boolean terminate(Reason reason, String message) {
+        synchronized (this) {
+            if (this.reason != null) {
+                return false;
+            }
+            this.message = message;
+            this.reason = reason;
+            if (worker != null) {
+                worker.interrupt();
+            }
+        }
+        for (Process process : List.copyOf(processes)) {
+            Thread.ofVirtual().name("kill-" + process.pid()).start(() -> ProcessTree.kill(process, killGrace));
+        }
+        return true;
+    }
+
+    /**
+     * The reason this build should be timed out at {@code now}, or null while it is within its
+     * overall deadline and the current stage's timeout.
+     */
+    String overdue(long now) {
+        if (now > deadline) {
+            return "Build exceeded its " + format(buildTimeout) + " time limit";
+        }
+        BuildStageTiming stage = timeline.running();
+        if (stage != null) {
+            Duration limit = stageTimeouts.apply(stage.stage());
+            if (limit != null && stage.durationMs() > limit.toMillis()) {
+                return "Stage '" + stage.stage() + "' exceeded its " + format(limit) + " time limit";
+            }
+        }
+        return null;
+    }
+
+    synchronized void attach(Thread thread) {
+        worker = thread;
+    }
+
+    /**
+     * Stops interrupts from reaching the worker thread, which goes on to run other builds.
+     */
+    synchronized void detach() {
+        worker = null;
+    }
+
+    private static String format(Duration duration) {
+        return duration.toString().substring(2).toLowerCase();
+    }
+}
@@ -0,0 +1,113 @@
+package com.cfforge.builder.control;
+
+import com.cfforge.builder.model.BuildTimeline;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds running on this instance, for cancellation and deadline enforcement.
+ *
+ * A single watchdog thread checks every running build against its overall deadline and the
+ * timeout of the stage it is in, and terminates the ones that are over. On the same pass it
+ * samples the resource use of each build's processes.
+ */
+@Component
+@Slf4j
+public class BuildControls {
+
+    private final BuildTimeoutProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<UUID, BuildControl> running = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService watchdog;
+
+    public BuildControls(BuildTimeoutProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "build-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getCheckInterval().toMillis();
+        watchdog.scheduleWithFixedDelay(this::enforceDeadlines, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts tracking a build run by the calling thread; pair with {@link #unregister}.
+     */
+    public BuildControl register(UUID buildId, BuildTimeline timeline) {
+        BuildControl control = new BuildControl(buildId, timeline, properties.getBuild(),
+            stage -> properties.getStages().getOrDefault(stage, properties.getStage()), properties.getKillGrace());
+        control.attach(Thread.currentThread());
+        running.put(buildId, control);
+        return control;
+    }
+
+    /**
+     * Stops tracking the build and clears any interrupt it left on the calling thread.
+     */
+    public void unregister(BuildControl control) {
+        running.remove(control.buildId(), control);
+        control.detach();
+        Thread.interrupted();
+    }
+
+    /**
+     * Cancels the build if it is running here.
+     *
+     * @return whether this instance was running the build
+     */
+    public boolean cancel(UUID buildId, String message) {
+        BuildControl control = running.get(buildId);
+        if (control == null) {
+            return false;
+        }
+        if (control.terminate(BuildControl.Reason.CANCELLED, message)) {
+            log.info("Cancelling build {}: {}", buildId, message);
+            record(BuildControl.Reason.CANCELLED);
+        }
+        return true;
+    }
+
+    public int runningCount() {
+        return running.size();
+    }
+
+    void enforceDeadlines() {
+        long now = System.currentTimeMillis();
+        for (BuildControl control : running.values()) {
+            if (control.isTerminated()) {
+                continue;
+            }
+            try {
+                control.sampleUsage();
+                String overdue = control.overdue(now);
+                if (overdue != null && control.terminate(BuildControl.Reason.TIMED_OUT, overdue)) {
+                    log.warn("Terminating build {}: {}", control.buildId(), overdue);
+                    record(BuildControl.Reason.TIMED_OUT);
+                }
+            } catch (RuntimeException e) {
+                // A failure here must not cancel the scheduled check
+                log.warn("Deadline check failed for build {}: {}", control.buildId(), e.getMessage());
+            }
+        }
+    }
+
+    private void record(BuildControl.Reason reason) {
+        meterRegistry.counter("builder.build.terminated", "reason", reason.name().toLowerCase()).increment();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        watchdog.shutdownNow();
+    }
+}
@@ -0,0 +1,22 @@
+package com.cfforge.builder.control;
+
+/**
+ * Thrown on the build's thread once the build has been cancelled or has run past a deadline.
+ */
+public class BuildTerminatedException extends RuntimeException {
+
+    private final BuildControl.Reason reason;
+
+    public BuildTerminatedException(BuildControl.Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public BuildControl.Reason getReason() {
+        return reason;
+    }
+
+    public boolean isCancelled() {
+        return reason == BuildControl.Reason.CANCELLED;
+    }
+}
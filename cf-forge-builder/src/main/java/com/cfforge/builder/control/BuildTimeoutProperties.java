@@ -0,0 +1,66 @@
+package com.cfforge.builder.control;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "cf.forge.timeouts")
+public class BuildTimeoutProperties {
+
+    /** Wall-clock limit for a whole build, from the moment it starts running. */
+    private Duration build = Duration.ofMinutes(45);
+
+    /** Limit for any single pipeline stage without its own entry in {@code stages}. */
+    private Duration stage = Duration.ofMinutes(20);
+
+    /** Per-stage limits keyed by timeline stage name, e.g. {@code test: PT10M}. */
+    private Map<String, Duration> stages = new HashMap<>();
+
+    /** Time a terminated process tree gets to exit before it is killed forcibly. */
+    private Duration killGrace = Duration.ofSeconds(10);
+
+    /** How often running builds are checked against their deadlines. */
+    private Duration checkInterval = Duration.ofSeconds(1);
+
+    public Duration getBuild() {
+        return build;
+    }
+
+    public void setBuild(Duration build) {
+        this.build = build;
+    }
+
+    public Duration getStage() {
+        return stage;
+    }
+
+    public void setStage(Duration stage) {
+        this.stage = stage;
+    }
+
+    public Map<String, Duration> getStages() {
+        return stages;
+    }
+
+    public void setStages(Map<String, Duration> stages) {
+        this.stages = stages;
+    }
+
+    public Duration getKillGrace() {
+        return killGrace;
+    }
+
+    public void setKillGrace(Duration killGrace) {
+        this.killGrace = killGrace;
+    }
+
+    public Duration getCheckInterval() {
+        return checkInterval;
+    }
+
+    public void setCheckInterval(Duration checkInterval) {
+        this.checkInterval = checkInterval;
+    }
+}
@@ -0,0 +1,50 @@
+package com.cfforge.builder.control;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Terminates a process together with everything it started.
+ *
+ * Build tools fork freely (Maven surefire JVMs, npm scripts, go test binaries), and killing only
+ * the direct child leaves those running and holding the pipe open. The descendants are captured
+ * before anything is signalled, since children of a dead parent are re-parented and drop out of
+ * {@link ProcessHandle#descendants()}.
+ */
+public final class ProcessTree {
+
+    private ProcessTree() {
+    }
+
+    /**
+     * Asks the whole tree to exit, then force-kills whatever is still alive after {@code grace}.
+     */
+    public static void kill(ProcessHandle root, Duration grace) {
+        List<ProcessHandle> tree = Stream.concat(root.descendants(), Stream.of(root)).toList();
+        tree.forEach(ProcessHandle::destroy);
+        try {
+            CompletableFuture.allOf(tree.stream().map(ProcessHandle::onExit).toArray(CompletableFuture[]::new))
+                .get(grace.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Grace period over
+        }
+        tree.stream().filter(ProcessHandle::isAlive).forEach(ProcessHandle::destroyForcibly);
+    }
+
+    public static void kill(Process process, Duration grace) {
+        kill(process.toHandle(), grace);
+    }
+
+    /**
+     * Force-kills the tree without waiting.
+     */
+    public static void killNow(Process process) {
+        List<ProcessHandle> tree = Stream.concat(process.descendants(), Stream.of(process.toHandle())).toList();
+        tree.forEach(ProcessHandle::destroyForcibly);
+    }
+}
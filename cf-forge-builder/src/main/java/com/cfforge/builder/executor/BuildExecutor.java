@@ -0,0 +1,337 @@
+package com.cfforge.builder.executor;
+
+import com.cfforge.common.enums.Language;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs builds off the message listener thread with bounded concurrency and fair sharing.
+ *
+ * A global slot limit sized from the instance's CPUs and memory bounds the total, and each
+ * language is capped by {@code language-limits} so slow Java builds can't occupy every slot.
+ * Queued builds are grouped into flows, one per project owner and {@link BuildLane}, and a free
+ * slot goes to the flow with the earliest virtual start time (start-time fair queuing). Each
+ * build started advances its flow by {@code 1 / lane weight}, so an owner with dozens of queued
+ * builds gets the same share as one with a single build, and interactive builds get a larger share
+ * than bulk ones. An owner never has more than {@code max-per-owner} builds running.
+ *
+ * With admission enabled the slot limit comes from the CPUs alone and memory is admitted per
+ * build: a build starts only while its {@link BuildFootprint} and those of the running builds fit
+ * the memory budget, or when nothing is running. A chosen build that doesn't fit holds up the
+ * queue until memory is released, rather than being passed by smaller builds indefinitely.
+ */
+@Component
+@Slf4j
+public class BuildExecutor {
+
+    private static final String UNKNOWN = "unknown";
+
+    private final BuildExecutorProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final BuildFootprint footprint;
+    private final int capacity;
+    private final long memoryBudgetMb;
+    private final int maxPerOwner;
+    private final ExecutorService workers;
+    private final Map<String, LanguageState> languages = new ConcurrentHashMap<>();
+    private final Map<BuildLane, AtomicInteger> laneQueued = new EnumMap<>(BuildLane.class);
+    private final Map<BuildLane, Timer> queueWait = new EnumMap<>(BuildLane.class);
+
+    // Guarded by this
+    private final Map<FlowKey, Flow> flows = new LinkedHashMap<>();
+    private final Map<UUID, Integer> runningByOwner = new HashMap<>();
+    private int running;
+    private long reservedMb;
+    private double virtualTime;
+    private long sequence;
+    private boolean shutdown;
+
+    public BuildExecutor(BuildExecutorProperties properties, MeterRegistry meterRegistry, BuildFootprint footprint) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.footprint = footprint;
+        this.capacity = capacityFor(properties, Runtime.getRuntime().availableProcessors(), totalMemoryMb());
+        this.memoryBudgetMb = memoryBudgetFor(properties, totalMemoryMb(), Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        this.maxPerOwner = properties.getMaxPerOwner() > 0 ? properties.getMaxPerOwner() : Math.max(1, capacity / 2);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newCachedThreadPool(r -> new Thread(r, "build-worker-" + threadIndex.incrementAndGet()));
+        Gauge.builder("builder.executor.capacity", () -> capacity).register(meterRegistry);
+        if (properties.isAdmissionEnabled()) {
+            Gauge.builder("builder.executor.memory.budget", () -> memoryBudgetMb).baseUnit("megabytes").register(meterRegistry);
+            Gauge.builder("builder.executor.memory.reserved", this, BuildExecutor::reservedMb).baseUnit("megabytes")
+                .register(meterRegistry);
+        }
+        for (BuildLane lane : BuildLane.values()) {
+            String tag = lane.name().toLowerCase();
+            AtomicInteger queued = new AtomicInteger();
+            laneQueued.put(lane, queued);
+            Gauge.builder("builder.executor.lane.queued", queued, AtomicInteger::get).tag("lane", tag).register(meterRegistry);
+            queueWait.put(lane, Timer.builder("builder.executor.queue.wait").tag("lane", tag)
+                .publishPercentileHistogram().register(meterRegistry));
+        }
+        if (properties.isAdmissionEnabled()) {
+            log.info("Build executor running up to {} concurrent builds, {} per owner, within {}MB",
+                capacity, maxPerOwner, memoryBudgetMb);
+        } else {
+            log.info("Build executor running up to {} concurrent builds, {} per owner", capacity, maxPerOwner);
+        }
+    }
+
+    public CompletableFuture<Void> submit(Language language, Runnable build) {
+        return submit(BuildTicket.of(language), build);
+    }
+
+    /**
+     * Queues a build; the returned future completes when it has finished running.
+     *
+     * @throws RejectedExecutionException when the executor is shutting down
+     */
+    public CompletableFuture<Void> submit(BuildTicket ticket, Runnable build) {
+        LanguageState language = languages.computeIfAbsent(
+            ticket.language() != null ? ticket.language().name() : UNKNOWN, name -> createLanguage(name, ticket.language()));
+        BuildLane lane = ticket.lane() != null ? ticket.lane() : BuildLane.STANDARD;
+        long footprintMb = properties.isAdmissionEnabled() ? Math.max(0, footprint.memoryMb(ticket.language())) : 0;
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        synchronized (this) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Build executor is shutting down");
+            }
+            Job job = new Job(ticket.owner(), lane, language, footprintMb, build, done,
+                System.nanoTime(), sequence++);
+            flows.computeIfAbsent(new FlowKey(ticket.owner(), lane), key -> new Flow()).jobs.add(job);
+            language.queued().incrementAndGet();
+            laneQueued.get(lane).incrementAndGet();
+            dispatch();
+        }
+        return done;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Free slots with no queued build waiting for them; zero while anything is queued, so an
+     * instance only takes on other work when its own is all running. With admission enabled a
+     * slot also needs the memory of a build of unknown language.
+     */
+    public synchronized int idleSlots() {
+        if (shutdown || laneQueued.values().stream().anyMatch(queued -> queued.get() > 0)) {
+            return 0;
+        }
+        long free = capacity - running;
+        if (properties.isAdmissionEnabled() && running > 0) {
+            free = Math.min(free, (memoryBudgetMb - reservedMb) / Math.max(1, footprint.memoryMb(null)));
+        }
+        return (int) Math.max(0, free);
+    }
+
+    public synchronized long reservedMb() {
+        return reservedMb;
+    }
+
+    /**
+     * Starts queued builds while slots are free and some flow has a build that may run.
+     */
+    private synchronized void dispatch() {
+        while (!shutdown && running < capacity) {
+            Flow chosen = null;
+            Job next = null;
+            double chosenStart = 0;
+            for (Iterator<Map.Entry<FlowKey, Flow>> it = flows.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<FlowKey, Flow> entry = it.next();
+                Flow flow = entry.getValue();
+                if (flow.jobs.isEmpty()) {
+                    // An idle flow behind the virtual clock has no credit left to remember
+                    if (flow.finish <= virtualTime) {
+                        it.remove();
+                    }
+                    continue;
+                }
+                if (!ownerHasRoom(entry.getKey().owner())) {
+                    continue;
+                }
+                Job candidate = firstRunnable(flow);
+                if (candidate == null) {
+                    continue;
+                }
+                double start = Math.max(virtualTime, flow.finish);
+                if (next == null || start < chosenStart
+                        || (start == chosenStart && precedes(candidate, next))) {
+                    chosen = flow;
+                    next = candidate;
+                    chosenStart = start;
+                }
+            }
+            if (next == null || !fitsMemory(next)) {
+                return;
+            }
+            chosen.jobs.remove(next);
+            chosen.finish = chosenStart + 1.0 / properties.laneWeight(next.lane());
+            virtualTime = chosenStart;
+            start(next);
+        }
+    }
+
+    private Job firstRunnable(Flow flow) {
+        for (Job job : flow.jobs) {
+            if (job.language().running().get() < job.language().limit()) {
+                return job;
+            }
+        }
+        return null;
+    }
+
+    private boolean fitsMemory(Job job) {
+        return running == 0 || reservedMb + job.footprintMb() <= memoryBudgetMb;
+    }
+
+    private boolean ownerHasRoom(UUID owner) {
+        return owner == null || runningByOwner.getOrDefault(owner, 0) < maxPerOwner;
+    }
+
+    private boolean precedes(Job a, Job b) {
+        if (a.lane() != b.lane()) {
+            return properties.laneWeight(a.lane()) > properties.laneWeight(b.lane());
+        }
+        return a.sequence() < b.sequence();
+    }
+
+    private void start(Job job) {
+        running++;
+        reservedMb += job.footprintMb();
+        if (job.owner() != null) {
+            runningByOwner.merge(job.owner(), 1, Integer::sum);
+        }
+        job.language().queued().decrementAndGet();
+        job.language().running().incrementAndGet();
+        laneQueued.get(job.lane()).decrementAndGet();
+        queueWait.get(job.lane()).record(Duration.ofNanos(System.nanoTime() - job.queuedAt()));
+        workers.execute(() -> run(job));
+    }
+
+    private void run(Job job) {
+        Throwable failure = null;
+        try {
+            job.build().run();
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            finished(job);
+        }
+        // Completed after the slot is free so the ack never races ahead of the gauges
+        if (failure == null) {
+            job.done().complete(null);
+        } else {
+            job.done().completeExceptionally(failure);
+        }
+    }
+
+    private synchronized void finished(Job job) {
+        running--;
+        reservedMb -= job.footprintMb();
+        if (job.owner() != null) {
+            runningByOwner.computeIfPresent(job.owner(), (owner, count) -> count > 1 ? count - 1 : null);
+        }
+        job.language().running().decrementAndGet();
+        dispatch();
+    }
+
+    private LanguageState createLanguage(String name, Language language) {
+        int limit = Math.max(1, Math.min(capacity,
+            language != null ? properties.getLanguageLimits().getOrDefault(language, capacity) : capacity));
+        LanguageState state = new LanguageState(limit, new AtomicInteger(), new AtomicInteger());
+        Gauge.builder("builder.executor.queued", state.queued(), AtomicInteger::get)
+            .tag("language", name.toLowerCase()).register(meterRegistry);
+        Gauge.builder("builder.executor.running", state.running(), AtomicInteger::get)
+            .tag("language", name.toLowerCase()).register(meterRegistry);
+        log.info("Limiting {} builds to {} at once", name, limit);
+        return state;
+    }
+
+    /**
+     * Unacknowledged builds still queued are redelivered by the broker once this instance's
+     * channel closes, so only running builds get a grace period.
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        synchronized (this) {
+            shutdown = true;
+            for (Flow flow : flows.values()) {
+                for (Job job : flow.jobs) {
+                    job.language().queued().decrementAndGet();
+                    laneQueued.get(job.lane()).decrementAndGet();
+                }
+            }
+            flows.clear();
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    static int capacityFor(BuildExecutorProperties properties, int cpus, long memoryMb) {
+        if (properties.getMaxConcurrent() > 0) {
+            return properties.getMaxConcurrent();
+        }
+        int byCpu = cpus / Math.max(1, properties.getCpusPerBuild());
+        if (properties.isAdmissionEnabled()) {
+            return Math.max(1, byCpu);
+        }
+        long byMemory = memoryMb / Math.max(1, properties.getMemoryPerBuildMb());
+        return (int) Math.max(1, Math.min(byCpu, byMemory));
+    }
+
+    static long memoryBudgetFor(BuildExecutorProperties properties, long totalMemoryMb, long heapMb) {
+        if (properties.getMemoryBudgetMb() > 0) {
+            return properties.getMemoryBudgetMb();
+        }
+        return Math.max(properties.getMemoryPerBuildMb(), totalMemoryMb - heapMb - properties.getReservedMemoryMb());
+    }
+
+    private static long totalMemoryMb() {
+        var os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean sun) {
+            return sun.getTotalMemorySize() / (1024 * 1024);
+        }
+        return Runtime.getRuntime().maxMemory() / (1024 * 1024);
+    }
+
+    private record LanguageState(int limit, AtomicInteger queued, AtomicInteger running) {}
+
+    private record FlowKey(UUID owner, BuildLane lane) {}
+
+    private record Job(UUID owner, BuildLane lane, LanguageState language, long footprintMb, Runnable build,
+                       CompletableFuture<Void> done, long queuedAt, long sequence) {}
+
+    /**
+     * Queued builds of one owner in one lane, and the virtual time its last started build ends.
+     */
+    private static final class Flow {
+        final Deque<Job> jobs = new ArrayDeque<>();
+        double finish;
+    }
+}
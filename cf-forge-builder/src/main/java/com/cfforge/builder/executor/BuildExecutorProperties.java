@@ -0,0 +1,157 @@
+package com.cfforge.builder.executor;
+
+import com.cfforge.common.enums.Language;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "cf.forge.executor")
+public class BuildExecutorProperties {
+
+    /** Builds running at once on this instance; 0 sizes from CPU and memory. */
+    private int maxConcurrent = 0;
+
+    private int cpusPerBuild = 2;
+
+    private int memoryPerBuildMb = 2048;
+
+    /**
+     * Admit builds while their expected footprints fit the memory budget, instead of sizing the
+     * slot count from {@code memory-per-build-mb}.
+     */
+    private boolean admissionEnabled = true;
+
+    /** Memory builds may use at once; 0 is total memory less the builder's heap and {@code reserved-memory-mb}. */
+    private int memoryBudgetMb = 0;
+
+    private int reservedMemoryMb = 512;
+
+    /** Recent builds per language whose peak memory sets its footprint. */
+    private int footprintSamples = 50;
+
+    /** Below this many samples a language's footprint is {@code memory-per-build-mb}. */
+    private int footprintMinSamples = 3;
+
+    private double footprintPercentile = 0.9;
+
+    /** Multiplier on the percentile, for builds that peak a little higher than the last ones. */
+    private double footprintHeadroom = 1.2;
+
+    /** Optional per-language caps below the global limit. */
+    private Map<Language, Integer> languageLimits = new EnumMap<>(Language.class);
+
+    /** Builds one project owner may have running at once; 0 allows half the capacity. */
+    private int maxPerOwner = 0;
+
+    /** Share of the executor per lane relative to the others; defaults to {@link BuildLane#defaultWeight()}. */
+    private Map<BuildLane, Integer> laneWeights = new EnumMap<>(BuildLane.class);
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public int getCpusPerBuild() {
+        return cpusPerBuild;
+    }
+
+    public void setCpusPerBuild(int cpusPerBuild) {
+        this.cpusPerBuild = cpusPerBuild;
+    }
+
+    public int getMemoryPerBuildMb() {
+        return memoryPerBuildMb;
+    }
+
+    public void setMemoryPerBuildMb(int memoryPerBuildMb) {
+        this.memoryPerBuildMb = memoryPerBuildMb;
+    }
+
+    public boolean isAdmissionEnabled() {
+        return admissionEnabled;
+    }
+
+    public void setAdmissionEnabled(boolean admissionEnabled) {
+        this.admissionEnabled = admissionEnabled;
+    }
+
+    public int getMemoryBudgetMb() {
+        return memoryBudgetMb;
+    }
+
+    public void setMemoryBudgetMb(int memoryBudgetMb) {
+        this.memoryBudgetMb = memoryBudgetMb;
+    }
+
+    public int getReservedMemoryMb() {
+        return reservedMemoryMb;
+    }
+
+    public void setReservedMemoryMb(int reservedMemoryMb) {
+        this.reservedMemoryMb = reservedMemoryMb;
+    }
+
+    public int getFootprintSamples() {
+        return footprintSamples;
+    }
+
+    public void setFootprintSamples(int footprintSamples) {
+        this.footprintSamples = footprintSamples;
+    }
+
+    public int getFootprintMinSamples() {
+        return footprintMinSamples;
+    }
+
+    public void setFootprintMinSamples(int footprintMinSamples) {
+        this.footprintMinSamples = footprintMinSamples;
+    }
+
+    public double getFootprintPercentile() {
+        return footprintPercentile;
+    }
+
+    public void setFootprintPercentile(double footprintPercentile) {
+        this.footprintPercentile = footprintPercentile;
+    }
+
+    public double getFootprintHeadroom() {
+        return footprintHeadroom;
+    }
+
+    public void setFootprintHeadroom(double footprintHeadroom) {
+        this.footprintHeadroom = footprintHeadroom;
+    }
+
+    public Map<Language, Integer> getLanguageLimits() {
+        return languageLimits;
+    }
+
+    public void setLanguageLimits(Map<Language, Integer> languageLimits) {
+        this.languageLimits = languageLimits;
+    }
+
+    public int getMaxPerOwner() {
+        return maxPerOwner;
+    }
+
+    public void setMaxPerOwner(int maxPerOwner) {
+        this.maxPerOwner = maxPerOwner;
+    }
+
+    public Map<BuildLane, Integer> getLaneWeights() {
+        return laneWeights;
+    }
+
+    public void setLaneWeights(Map<BuildLane, Integer> laneWeights) {
+        this.laneWeights = laneWeights;
+    }
+
+    public int laneWeight(BuildLane lane) {
+        return Math.max(1, laneWeights.getOrDefault(lane, lane.defaultWeight()));
+    }
+}
@@ -0,0 +1,15 @@
+package com.cfforge.builder.executor;
+
+import com.cfforge.common.enums.Language;
+
+/**
+ * Memory a build of a language is expected to peak at, for admission to the executor.
+ */
+@FunctionalInterface
+public interface BuildFootprint {
+
+    /**
+     * @param language null when the build's language is unknown
+     */
+    long memoryMb(Language language);
+}
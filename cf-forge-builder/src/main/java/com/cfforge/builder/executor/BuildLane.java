@@ -0,0 +1,37 @@
+package com.cfforge.builder.executor;
+
+import com.cfforge.common.enums.TriggerType;
+
+/**
+ * Priority lane a build is scheduled in. Lanes share the executor by weight rather than strictly,
+ * so bulk builds still progress while interactive ones are waiting.
+ */
+public enum BuildLane {
+    /** Builds a user is watching: {@link TriggerType#MANUAL}. */
+    INTERACTIVE(8),
+    /** Pushes from source control: {@link TriggerType#WEBHOOK}. */
+    STANDARD(4),
+    /** Agent loops and scheduled builds. */
+    BULK(1);
+
+    private final int defaultWeight;
+
+    BuildLane(int defaultWeight) {
+        this.defaultWeight = defaultWeight;
+    }
+
+    public int defaultWeight() {
+        return defaultWeight;
+    }
+
+    public static BuildLane of(TriggerType triggerType) {
+        if (triggerType == null) {
+            return STANDARD;
+        }
+        return switch (triggerType) {
+            case MANUAL -> INTERACTIVE;
+            case WEBHOOK -> STANDARD;
+            case AGENT, SCHEDULE -> BULK;
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package com.cfforge.builder.executor;
+
+import com.cfforge.common.enums.Language;
+
+import java.util.UUID;
+
+/**
+ * What the executor needs to know to schedule a build.
+ *
+ * @param owner the project owner builds are shared fairly between; null is not capped
+ */
+public record BuildTicket(Language language, UUID owner, BuildLane lane) {
+
+    public static BuildTicket of(Language language) {
+        return new BuildTicket(language, null, BuildLane.STANDARD);
+    }
+}
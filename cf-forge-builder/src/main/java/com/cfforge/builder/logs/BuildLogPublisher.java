@@ -0,0 +1,136 @@
+package com.cfforge.builder.logs;
+
+import com.cfforge.common.dto.BuildLogEvent;
+import com.cfforge.common.enums.BuildStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Publishes build log lines to {@code cf-forge.build.logs} while builds run.
+ *
+ * Lines are batched: a batch goes out when it reaches {@code max-batch-lines} or, at the latest,
+ * after {@code flush-interval-ms}, which keeps latency sub-second without a message per line.
+ * Publishing is best effort and never fails a build; the full log is still saved on the build.
+ */
+@Component
+@Slf4j
+public class BuildLogPublisher {
+
+    private static final String BINDING = "buildLog-out-0";
+
+    private final StreamBridge streamBridge;
+    private final boolean enabled;
+    private final int maxBatchLines;
+    private final int maxLineLength;
+    private final Set<Stream> open = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService flusher;
+
+    public BuildLogPublisher(StreamBridge streamBridge,
+                             @Value("${cf.forge.logs.streaming-enabled:true}") boolean enabled,
+                             @Value("${cf.forge.logs.flush-interval-ms:250}") long flushIntervalMs,
+                             @Value("${cf.forge.logs.max-batch-lines:200}") int maxBatchLines,
+                             @Value("${cf.forge.logs.max-line-length:4096}") int maxLineLength) {
+        this.streamBridge = streamBridge;
+        this.enabled = enabled;
+        this.maxBatchLines = maxBatchLines;
+        this.maxLineLength = maxLineLength;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "build-log-flusher"));
+        flusher.scheduleWithFixedDelay(() -> open.forEach(Stream::flush),
+            flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public Stream open(UUID projectId, UUID buildId) {
+        Stream stream = new Stream(projectId, buildId);
+        if (enabled) {
+            open.add(stream);
+        }
+        return stream;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flusher.shutdownNow();
+    }
+
+    private void send(BuildLogEvent event) {
+        try {
+            streamBridge.send(BINDING, event);
+        } catch (Exception e) {
+            log.debug("Failed to publish log batch {} of build {}: {}", event.sequence(), event.buildId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Line sink for one build; {@link #close} publishes the final batch with the build status.
+     */
+    public class Stream implements Consumer<String> {
+
+        private final UUID projectId;
+        private final UUID buildId;
+        private List<String> pending = new ArrayList<>();
+        private long sequence;
+        private boolean closed;
+
+        private Stream(UUID projectId, UUID buildId) {
+            this.projectId = projectId;
+            this.buildId = buildId;
+        }
+
+        @Override
+        public void accept(String line) {
+            if (!enabled) {
+                return;
+            }
+            boolean full;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                pending.add(line.length() > maxLineLength ? line.substring(0, maxLineLength) + "..." : line);
+                full = pending.size() >= maxBatchLines;
+            }
+            if (full) {
+                flush();
+            }
+        }
+
+        public void close(BuildStatus status) {
+            if (!enabled) {
+                return;
+            }
+            open.remove(this);
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                send(new BuildLogEvent(buildId, projectId, sequence++, pending, status.name()));
+                pending = List.of();
+            }
+        }
+
+        // Sends under the lock so batches go out in sequence order and none follows the status batch
+        void flush() {
+            synchronized (this) {
+                if (pending.isEmpty() || closed) {
+                    return;
+                }
+                send(new BuildLogEvent(buildId, projectId, sequence++, pending, null));
+                pending = new ArrayList<>();
+            }
+        }
+    }
+}
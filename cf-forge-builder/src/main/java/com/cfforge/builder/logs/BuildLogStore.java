@@ -0,0 +1,121 @@
+package com.cfforge.builder.logs;
+
+import com.cfforge.common.buildlog.BuildLogIndex;
+import com.cfforge.common.storage.S3StorageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes full build logs to object storage as append-only gzip chunks plus a small index, so
+ * the database only needs to keep a bounded tail.
+ *
+ * The index is rewritten after every chunk, which lets readers page through a log while the
+ * build is still running. A storage failure stops the writer for that build but never fails it.
+ */
+@Component
+@Slf4j
+public class BuildLogStore {
+
+    private static final Pattern STAGE_MARKER = Pattern.compile("^\\[\\d+/\\d+] ");
+
+    private final S3StorageService storageService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int chunkBytes;
+
+    public BuildLogStore(S3StorageService storageService, ObjectMapper objectMapper,
+                         @Value("${cf.forge.logs.storage-enabled:true}") boolean enabled,
+                         @Value("${cf.forge.logs.chunk-bytes:262144}") int chunkBytes) {
+        this.storageService = storageService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.chunkBytes = chunkBytes;
+    }
+
+    public Writer open(UUID buildId) {
+        return new Writer(buildId);
+    }
+
+    public class Writer implements Consumer<String> {
+
+        private final UUID buildId;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final List<BuildLogIndex.Chunk> chunks = new ArrayList<>();
+        private final List<BuildLogIndex.Stage> stages = new ArrayList<>();
+        private long totalBytes;
+        private long storedBytes;
+        private boolean failed = !enabled;
+
+        private Writer(UUID buildId) {
+            this.buildId = buildId;
+        }
+
+        @Override
+        public synchronized void accept(String line) {
+            if (failed) {
+                return;
+            }
+            if (STAGE_MARKER.matcher(line).lookingAt()) {
+                stages.add(new BuildLogIndex.Stage(line.strip(), totalBytes));
+            }
+            byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+            buffer.writeBytes(bytes);
+            totalBytes += bytes.length;
+            if (buffer.size() >= chunkBytes) {
+                store(false);
+            }
+        }
+
+        /**
+         * Stores the remaining output and marks the log complete.
+         *
+         * @return the log's size in bytes, or -1 if it could not be stored
+         */
+        public synchronized long close() {
+            if (failed) {
+                return -1;
+            }
+            store(true);
+            return failed ? -1 : storedBytes;
+        }
+
+        private void store(boolean complete) {
+            try {
+                if (buffer.size() > 0) {
+                    String key = BuildLogIndex.chunkKey(buildId, chunks.size());
+                    storageService.putObject(key, gzip(buffer.toByteArray()));
+                    chunks.add(new BuildLogIndex.Chunk(key, storedBytes, buffer.size()));
+                    storedBytes += buffer.size();
+                    buffer.reset();
+                }
+                long limit = storedBytes;
+                var index = new BuildLogIndex(List.copyOf(chunks),
+                    stages.stream().filter(s -> s.offset() < limit).toList(), storedBytes, complete);
+                storageService.putObject(BuildLogIndex.indexKey(buildId), objectMapper.writeValueAsBytes(index));
+            } catch (Exception e) {
+                failed = true;
+                log.warn("Failed to store log of build {}, keeping only the database tail: {}", buildId, e.getMessage());
+            }
+        }
+
+        private static byte[] gzip(byte[] content) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(content);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.cfforge.builder.model;
 
+import com.cfforge.builder.control.BuildControl;
+import com.cfforge.builder.source.SourceMaterializer;
 import com.cfforge.common.enums.Language;
 import lombok.Builder;
 import lombok.Data;
@@ -15,4 +17,11 @@ public class BuildContext {
     private Path workDir;
     private Language language;
     private String framework;
+    private SourceMaterializer.Result sources;
+    @Builder.Default
+    private BuildLog log = new BuildLog();
+    @Builder.Default
+    private BuildTimeline timeline = new BuildTimeline();
+    @Builder.Default
+    private BuildControl control = BuildControl.unmanaged();
 }
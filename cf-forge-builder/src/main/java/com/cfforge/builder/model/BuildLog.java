@@ -0,0 +1,53 @@
+package com.cfforge.builder.model;
+
+import java.util.function.Consumer;
+
+/**
+ * A build's log output. Each completed line goes to a listener as soon as it is written, which
+ * streams and stores the full log; in memory only the last {@code tailChars} characters are kept,
+ * which is what ends up on the build record.
+ */
+public class BuildLog {
+
+    public static final int DEFAULT_TAIL_CHARS = 64 * 1024;
+
+    private final StringBuilder text = new StringBuilder();
+    private final Consumer<String> lineListener;
+    private final int tailChars;
+    private int lineStart;
+    private boolean truncated;
+
+    public BuildLog() {
+        this(line -> {}, DEFAULT_TAIL_CHARS);
+    }
+
+    public BuildLog(Consumer<String> lineListener, int tailChars) {
+        this.lineListener = lineListener;
+        this.tailChars = tailChars;
+    }
+
+    public synchronized BuildLog append(Object value) {
+        text.append(value);
+        int newline;
+        while ((newline = text.indexOf("\n", lineStart)) >= 0) {
+            lineListener.accept(text.substring(lineStart, newline));
+            lineStart = newline + 1;
+        }
+        // Trim in bulk once the buffer is twice the tail, cutting at a line boundary
+        if (lineStart > 2 * tailChars) {
+            int cut = text.indexOf("\n", lineStart - tailChars) + 1;
+            text.delete(0, cut);
+            lineStart -= cut;
+            truncated = true;
+        }
+        return this;
+    }
+
+    /**
+     * The retained tail of the log, prefixed with a marker if earlier output was dropped.
+     */
+    @Override
+    public synchronized String toString() {
+        return truncated ? "[earlier output truncated, see full log]\n" + text : text.toString();
+    }
+}
@@ -10,6 +10,8 @@ public class BuildResult {
     private BuildStatus status;
     private String log;
     private String artifactPath;
+    /** Local artifact the post-build stages upload to {@link #artifactPath}. */
+    private java.nio.file.Path artifactFile;
     private String sbomPath;
     private java.util.Map<String, Object> cveReport;
     private long durationMs;
@@ -0,0 +1,83 @@
+package com.cfforge.builder.model;
+
+import com.cfforge.common.dto.BuildStageTiming;
+import com.cfforge.common.enums.Language;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Start and end of each stage of one build, relative to when the build was queued.
+ *
+ * Sequential pipeline steps use {@link #begin}, which also ends the previous step; stages that
+ * run concurrently report their own bounds through {@link #record}.
+ */
+public class BuildTimeline {
+
+    private final long origin;
+    private final List<BuildStageTiming> stages = new ArrayList<>();
+    private String current;
+    private long currentStart;
+
+    public BuildTimeline() {
+        this(System.currentTimeMillis());
+    }
+
+    /**
+     * @param origin epoch millis the stage offsets are measured from
+     */
+    public BuildTimeline(long origin) {
+        this.origin = origin;
+    }
+
+    public synchronized void begin(String stage) {
+        end();
+        current = stage;
+        currentStart = System.currentTimeMillis();
+    }
+
+    /**
+     * Ends the stage started by {@link #begin}, if any.
+     */
+    public synchronized void end() {
+        if (current != null) {
+            record(current, currentStart, System.currentTimeMillis());
+            current = null;
+        }
+    }
+
+    public synchronized void record(String stage, long startMillis, long endMillis) {
+        stages.add(new BuildStageTiming(stage, startMillis - origin, Math.max(0, endMillis - startMillis)));
+    }
+
+    /**
+     * The stage started by {@link #begin} that has not ended yet, with its duration so far.
+     */
+    public synchronized BuildStageTiming running() {
+        if (current == null) {
+            return null;
+        }
+        return new BuildStageTiming(current, currentStart - origin, System.currentTimeMillis() - currentStart);
+    }
+
+    public synchronized List<BuildStageTiming> stages() {
+        return stages.stream().sorted(Comparator.comparingLong(BuildStageTiming::startMs)).toList();
+    }
+
+    /**
+     * Records every stage in the {@code builder.build.stage} timer, tagged by language and stage.
+     */
+    public void publish(MeterRegistry registry, Language language) {
+        for (BuildStageTiming timing : stages()) {
+            Timer.builder("builder.build.stage")
+                .tag("language", String.valueOf(language))
+                .tag("stage", timing.stage())
+                .register(registry)
+                .record(Duration.ofMillis(timing.durationMs()));
+        }
+    }
+}
@@ -7,4 +7,12 @@ import com.cfforge.common.enums.Language;
 public interface BuildPipeline {
     BuildResult execute(BuildContext context);
     Language supportedLanguage();
+
+    /**
+     * Part of the build cache key. Bump when a change to the pipeline would produce a different
+     * artifact from the same sources, so earlier results are no longer reused.
+     */
+    default String version() {
+        return "1";
+    }
 }
@@ -1,60 +1,88 @@
 package com.cfforge.builder.pipeline;
 
+import com.cfforge.builder.cache.DependencyCacheManager;
+import com.cfforge.builder.cache.Ecosystem;
+import com.cfforge.builder.control.BuildControl;
 import com.cfforge.builder.model.BuildContext;
+import com.cfforge.builder.model.BuildLog;
 import com.cfforge.builder.model.BuildResult;
+import com.cfforge.builder.process.ProcessResult;
+import com.cfforge.builder.process.ProcessRunner;
+import com.cfforge.builder.process.ProcessSpec;
+import com.cfforge.builder.testimpact.GoTestEvents;
+import com.cfforge.builder.testimpact.GoTestScanner;
+import com.cfforge.builder.testimpact.TestImpactAnalyzer;
+import com.cfforge.builder.testimpact.TestPlan;
 import com.cfforge.common.enums.BuildStatus;
 import com.cfforge.common.enums.Language;
 import com.cfforge.common.storage.S3StorageService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Component
 @Slf4j
 public class GoBuildPipeline implements BuildPipeline {
 
     private final S3StorageService storageService;
+    private final DependencyCacheManager dependencyCache;
+    private final ProcessRunner processRunner;
+    private final TestImpactAnalyzer testImpact;
 
-    public GoBuildPipeline(S3StorageService storageService) {
+    public GoBuildPipeline(S3StorageService storageService, DependencyCacheManager dependencyCache,
+                           ProcessRunner processRunner, TestImpactAnalyzer testImpact) {
         this.storageService = storageService;
+        this.dependencyCache = dependencyCache;
+        this.processRunner = processRunner;
+        this.testImpact = testImpact;
     }
 
     @Override
     public BuildResult execute(BuildContext context) {
-        StringBuilder buildLog = new StringBuilder();
+        BuildLog buildLog = context.getLog();
         long start = System.currentTimeMillis();
+        DependencyCacheManager.Lease cache = null;
 
         try {
-            buildLog.append("[1/5] Downloading dependencies...\n");
-            runCommand(context.getWorkDir(), "go mod download", buildLog);
+            buildLog.append("[1/6] Pulling project files from storage...\n");
+            buildLog.append("  ").append(context.getSources().describe()).append("\n");
 
-            buildLog.append("[2/5] Verifying modules...\n");
-            runCommand(context.getWorkDir(), "go mod verify", buildLog);
+            context.getTimeline().begin("dependency-cache");
+            cache = dependencyCache.acquire(Ecosystem.GO, context.getWorkDir());
+            buildLog.append("  Dependency ").append(cache.describe()).append("\n");
 
-            buildLog.append("[3/5] Running tests...\n");
-            runCommand(context.getWorkDir(), "go test ./...", buildLog);
+            context.getTimeline().begin("dependencies");
+            buildLog.append("[2/6] Downloading dependencies...\n");
+            runCommand(context.getControl(), context.getWorkDir(), "go mod download", cache.environment(), buildLog);
 
-            buildLog.append("[4/5] Building binary...\n");
-            runCommand(context.getWorkDir(), "CGO_ENABLED=0 GOOS=linux go build -o app .", buildLog);
+            buildLog.append("[3/6] Verifying modules...\n");
+            runCommand(context.getControl(), context.getWorkDir(), "go mod verify", cache.environment(), buildLog);
 
-            buildLog.append("[5/5] Uploading artifact...\n");
+            context.getTimeline().begin("test");
+            buildLog.append("[4/6] Running tests...\n");
+            runTests(context, cache.environment(), buildLog);
+
+            context.getTimeline().begin("compile");
+            buildLog.append("[5/6] Building binary...\n");
+            runCommand(context.getControl(), context.getWorkDir(), "CGO_ENABLED=0 GOOS=linux go build -o app .", cache.environment(), buildLog);
+
+            // Uploaded alongside the CVE scan and SBOM once the pipeline returns
+            context.getTimeline().begin("artifact");
+            buildLog.append("[6/6] Staging artifact...\n");
             Path binary = context.getWorkDir().resolve("app");
-            String artifactPath = null;
-            if (Files.exists(binary)) {
-                byte[] artifact = Files.readAllBytes(binary);
-                String key = "artifacts/" + context.getProjectId() + "/" + context.getBuildId() + "/app";
-                storageService.putObject(key, artifact);
-                artifactPath = key;
-            }
+            boolean built = Files.exists(binary);
 
+            cache.markSucceeded();
             return BuildResult.builder()
                 .status(BuildStatus.SUCCESS)
                 .log(buildLog.toString())
-                .artifactPath(artifactPath)
+                .artifactFile(built ? binary : null)
+                .artifactPath(built ? "artifacts/" + context.getProjectId() + "/" + context.getBuildId() + "/app" : null)
                 .durationMs(System.currentTimeMillis() - start)
                 .build();
         } catch (Exception e) {
@@ -65,6 +93,10 @@ public class GoBuildPipeline implements BuildPipeline {
                 .errorMessage(e.getMessage())
                 .durationMs(System.currentTimeMillis() - start)
                 .build();
+        } finally {
+            if (cache != null) {
+                cache.close();
+            }
         }
     }
 
@@ -73,20 +105,44 @@ public class GoBuildPipeline implements BuildPipeline {
         return Language.GO;
     }
 
-    private void runCommand(Path workDir, String command, StringBuilder log) throws Exception {
-        ProcessBuilder pb = new ProcessBuilder("sh", "-c", command);
-        pb.directory(workDir.toFile());
-        pb.redirectErrorStream(true);
-        Process process = pb.start();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                log.append(line).append("\n");
-            }
+    /**
+     * Runs the packages affected by the change, with {@code -json} so each package's outcome and
+     * time are recorded; the events' output goes to the log as plain text.
+     */
+    private void runTests(BuildContext context, Map<String, String> env, BuildLog buildLog) throws Exception {
+        TestPlan tests = testImpact.plan(context, new GoTestScanner());
+        buildLog.append("  ").append(tests.describe()).append("\n");
+        if (tests.runsNone()) {
+            testImpact.record(context, tests, Map.of(), true);
+            return;
+        }
+        String packages = tests.runsAll() ? "./..."
+            : tests.selected().stream().map(ProcessSpec::quote).collect(Collectors.joining(" "));
+        GoTestEvents events = new GoTestEvents(line -> buildLog.append(line).append("\n"));
+        boolean passed = false;
+        try {
+            runCommand(context.getControl(), context.getWorkDir(), "go test -json " + packages, env, events);
+            passed = true;
+        } finally {
+            testImpact.record(context, tests, events.outcomes(), passed);
         }
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-            throw new RuntimeException("Command failed: " + command);
+    }
+
+    private void runCommand(BuildControl control, Path workDir, String command, Map<String, String> env, BuildLog log) throws Exception {
+        runCommand(control, workDir, command, env, line -> log.append(line).append("\n"));
+    }
+
+    private void runCommand(BuildControl control, Path workDir, String command, Map<String, String> env,
+                            Consumer<String> lines) throws Exception {
+        try (ProcessResult result = processRunner.run(ProcessSpec.shell(command)
+                .directory(workDir)
+                .environment(env)
+                .control(control)
+                .lineListener(lines)
+                .build())) {
+            if (result.exitCode() != 0) {
+                throw new RuntimeException("Command failed: " + command);
+            }
         }
     }
 }
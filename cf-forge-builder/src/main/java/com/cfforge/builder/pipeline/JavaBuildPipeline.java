@@ -1,17 +1,35 @@
 package com.cfforge.builder.pipeline;
 
+import com.cfforge.builder.cache.DependencyCacheManager;
+import com.cfforge.builder.cache.Ecosystem;
+import com.cfforge.builder.control.BuildControl;
 import com.cfforge.builder.model.BuildContext;
+import com.cfforge.builder.model.BuildLog;
 import com.cfforge.builder.model.BuildResult;
+import com.cfforge.builder.process.ProcessResult;
+import com.cfforge.builder.process.ProcessRunner;
+import com.cfforge.builder.process.ProcessSpec;
+import com.cfforge.builder.testimpact.JavaTestScanner;
+import com.cfforge.builder.testimpact.TestImpactAnalyzer;
+import com.cfforge.builder.testimpact.TestPlan;
+import com.cfforge.builder.testimpact.TestReports;
+import com.cfforge.builder.workdir.WorkDirManager;
 import com.cfforge.common.enums.BuildStatus;
 import com.cfforge.common.enums.Language;
 import com.cfforge.common.storage.S3StorageService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Component
@@ -19,45 +37,104 @@ import java.util.stream.Collectors;
 public class JavaBuildPipeline implements BuildPipeline {
 
     private final S3StorageService storageService;
+    private final DependencyCacheManager dependencyCache;
+    private final MavenLauncher mavenLauncher;
+    private final ProcessRunner processRunner;
+    private final TestImpactAnalyzer testImpact;
+    private final boolean singleInvocation;
+    private final boolean sbomInBuild;
 
-    public JavaBuildPipeline(S3StorageService storageService) {
+    public JavaBuildPipeline(S3StorageService storageService,
+                             DependencyCacheManager dependencyCache,
+                             MavenLauncher mavenLauncher,
+                             ProcessRunner processRunner,
+                             TestImpactAnalyzer testImpact,
+                             @Value("${cf.forge.java.single-invocation:true}") boolean singleInvocation,
+                             @Value("${cf.forge.java.sbom-in-build:false}") boolean sbomInBuild) {
         this.storageService = storageService;
+        this.dependencyCache = dependencyCache;
+        this.mavenLauncher = mavenLauncher;
+        this.processRunner = processRunner;
+        this.testImpact = testImpact;
+        this.singleInvocation = singleInvocation;
+        this.sbomInBuild = sbomInBuild;
     }
 
     @Override
     public BuildResult execute(BuildContext context) {
-        StringBuilder buildLog = new StringBuilder();
+        BuildLog buildLog = context.getLog();
         long start = System.currentTimeMillis();
+        DependencyCacheManager.Lease cache = null;
 
         try {
-            // Step 1: Download project files from S3
+            // Step 1: Project files are materialized before the pipeline runs
             buildLog.append("[1/6] Pulling project files from storage...\n");
-            downloadProjectFiles(context);
+            buildLog.append("  ").append(context.getSources().describe()).append("\n");
 
-            // Step 2: Resolve dependencies
-            buildLog.append("[2/6] Resolving Maven dependencies...\n");
-            runMavenCommand(context.getWorkDir(), "dependency:resolve", buildLog);
+            if (context.getSources().removed() > 0) {
+                // Stale classes of deleted sources would otherwise survive an incremental build
+                buildLog.append("  Sources were removed since the last build, cleaning target/\n");
+                WorkDirManager.deleteTree(context.getWorkDir().resolve("target"));
+            }
+
+            context.getTimeline().begin("dependency-cache");
+            cache = dependencyCache.acquire(Ecosystem.MAVEN, context.getWorkDir());
+            buildLog.append("  Dependency ").append(cache.describe()).append("\n");
+
+            TestPlan tests = testImpact.plan(context, new JavaTestScanner());
+            buildLog.append("  ").append(tests.describe()).append("\n");
+            // Reports and SBOMs of earlier builds in a warm directory would be read as this run's
+            deleteSurefireReports(context.getWorkDir());
+            deleteSbom(context.getWorkDir());
 
-            // Step 3: Compile
-            buildLog.append("[3/6] Compiling...\n");
-            runMavenCommand(context.getWorkDir(), "compile", buildLog);
+            if (singleInvocation) {
+                // Steps 2-5 as one lifecycle run; markers are derived from the Maven output
+                runLifecycle(context, cache, tests, buildLog);
+            } else {
+                // Step 2: Resolve dependencies
+                context.getTimeline().begin("dependencies");
+                buildLog.append("[2/6] Resolving Maven dependencies...\n");
+                runMavenCommand(context.getControl(), context.getWorkDir(), "dependency:resolve", cache.environment(), buildLog);
 
-            // Step 4: Run tests
-            buildLog.append("[4/6] Running tests...\n");
-            runMavenCommand(context.getWorkDir(), "test", buildLog);
+                // Step 3: Compile
+                context.getTimeline().begin("compile");
+                buildLog.append("[3/6] Compiling...\n");
+                runMavenCommand(context.getControl(), context.getWorkDir(), "compile", cache.environment(), buildLog);
 
-            // Step 5: Package
-            buildLog.append("[5/6] Packaging...\n");
-            runMavenCommand(context.getWorkDir(), "package -DskipTests", buildLog);
+                // Step 4: Run tests
+                context.getTimeline().begin("test");
+                buildLog.append("[4/6] Running tests...\n");
+                if (tests.runsNone()) {
+                    testImpact.record(context, tests, Map.of(), true);
+                } else {
+                    boolean passed = false;
+                    try {
+                        runMavenCommand(context.getControl(), context.getWorkDir(),
+                            String.join(" ", testGoals("test", tests)), cache.environment(), buildLog);
+                        passed = true;
+                    } finally {
+                        testImpact.record(context, tests, TestReports.surefire(context.getWorkDir()), passed);
+                    }
+                }
 
-            // Step 6: Upload artifact
-            buildLog.append("[6/6] Uploading artifact...\n");
-            String artifactPath = uploadArtifact(context);
+                // Step 5: Package
+                context.getTimeline().begin("package");
+                buildLog.append("[5/6] Packaging...\n");
+                runMavenCommand(context.getControl(), context.getWorkDir(), "package -DskipTests", cache.environment(), buildLog);
+            }
+
+            // Step 6: Locate the artifact; it is uploaded alongside the CVE scan and SBOM
+            context.getTimeline().begin("artifact");
+            buildLog.append("[6/6] Staging artifact...\n");
+            Path artifactFile = findArtifact(context);
 
+            cache.markSucceeded();
             return BuildResult.builder()
                 .status(BuildStatus.SUCCESS)
                 .log(buildLog.toString())
-                .artifactPath(artifactPath)
+                .artifactFile(artifactFile)
+                .artifactPath(artifactFile != null
+                    ? "artifacts/" + context.getProjectId() + "/" + context.getBuildId() + ".jar" : null)
                 .durationMs(System.currentTimeMillis() - start)
                 .build();
         } catch (Exception e) {
@@ -68,6 +145,10 @@ public class JavaBuildPipeline implements BuildPipeline {
                 .errorMessage(e.getMessage())
                 .durationMs(System.currentTimeMillis() - start)
                 .build();
+        } finally {
+            if (cache != null) {
+                cache.close();
+            }
         }
     }
 
@@ -76,56 +157,112 @@ public class JavaBuildPipeline implements BuildPipeline {
         return Language.JAVA;
     }
 
-    private void downloadProjectFiles(BuildContext context) {
-        var keys = storageService.listObjects("workspaces/" + context.getProjectId() + "/");
-        for (String key : keys) {
-            byte[] content = storageService.getObject(key);
-            String relativePath = key.replace("workspaces/" + context.getProjectId() + "/", "");
-            Path target = context.getWorkDir().resolve(relativePath);
-            try {
-                Files.createDirectories(target.getParent());
-                Files.write(target, content);
-            } catch (Exception e) {
-                log.warn("Failed to download file: {}", key, e);
-            }
+    /**
+     * Compile, test and package in one parallel Maven run (optionally on a warm daemon). With
+     * {@code sbom-in-build} the CycloneDX SBOM is produced by the same JVM, but then a plugin that
+     * can't be resolved or fails fails the whole build, so it is off by default and SbomGenerator
+     * builds the SBOM after the fact, where a failure only leaves the build without one.
+     */
+    private void runLifecycle(BuildContext context, DependencyCacheManager.Lease cache, TestPlan tests,
+                              BuildLog buildLog) throws Exception {
+        List<String> arguments = new ArrayList<>();
+        // Passed on the command line as well, since mvnd daemons don't read MAVEN_OPTS per build
+        arguments.add("-Dmaven.repo.local=" + cache.directory().resolve("repository"));
+        arguments.addAll(testGoals("package", tests));
+        if (sbomInBuild) {
+            arguments.addAll(List.of("org.cyclonedx:cyclonedx-maven-plugin:makeAggregateBom",
+                "-DoutputFormat=json", "-DoutputName=sbom"));
+        }
+        MavenStageTracker tracker = new MavenStageTracker(buildLog, context.getTimeline(), 2, 6);
+        boolean passed = false;
+        try {
+            runProcess(context.getControl(), context.getWorkDir(), mavenLauncher.command(arguments), cache.environment(), tracker::accept);
+            passed = true;
+        } finally {
+            tracker.finish();
+            buildLog.append("  Stage timings: ").append(tracker.summary()).append("\n");
+            testImpact.record(context, tests, TestReports.surefire(context.getWorkDir()), passed);
         }
     }
 
-    private void runMavenCommand(Path workDir, String goals, StringBuilder log) throws Exception {
-        ProcessBuilder pb = new ProcessBuilder("mvn", goals.split(" ")[0]);
-        if (goals.contains(" ")) {
-            pb.command().addAll(java.util.List.of(goals.split(" ")).subList(1, goals.split(" ").length));
+    /**
+     * The goal followed by the Surefire options that run only the plan's tests.
+     */
+    static List<String> testGoals(String goal, TestPlan tests) {
+        List<String> goals = new ArrayList<>(List.of(goal));
+        if (tests.runsNone()) {
+            goals.add("-DskipTests");
+        } else if (!tests.runsAll()) {
+            goals.add("-Dtest=" + String.join(",", tests.selected()));
+            // Modules holding none of the selected classes would otherwise fail the build
+            goals.add("-Dsurefire.failIfNoSpecifiedTests=false");
         }
-        pb.directory(workDir.toFile());
-        pb.redirectErrorStream(true);
-
-        Process process = pb.start();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                log.append(line).append("\n");
-            }
+        return goals;
+    }
+
+    /**
+     * SbomGenerator uploads {@code target/sbom.json} when it exists, so only this build may have written it.
+     */
+    private static void deleteSbom(Path workDir) {
+        try {
+            Files.deleteIfExists(workDir.resolve("target/sbom.json"));
+        } catch (IOException e) {
+            log.warn("Could not clear the SBOM in {}: {}", workDir, e.getMessage());
+        }
+    }
+
+    private static void deleteSurefireReports(Path workDir) {
+        try (var dirs = Files.find(workDir, 4, (path, attributes) ->
+                attributes.isDirectory() && path.endsWith(Path.of("target", "surefire-reports")))) {
+            dirs.toList().forEach(WorkDirManager::deleteTree);
+        } catch (IOException e) {
+            log.warn("Could not clear test reports in {}: {}", workDir, e.getMessage());
         }
+    }
+
+    private void runMavenCommand(BuildControl control, Path workDir, String goals, Map<String, String> env, BuildLog log) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add("mvn");
+        command.addAll(List.of(goals.split(" ")));
+        runProcess(control, workDir, command, env, line -> log.append(line).append("\n"));
+    }
 
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-            throw new RuntimeException("Maven command failed with exit code: " + exitCode);
+    private void runProcess(BuildControl control, Path workDir, List<String> command, Map<String, String> env,
+                            Consumer<String> lines) throws Exception {
+        try (ProcessResult result = processRunner.run(ProcessSpec.of(command)
+                .directory(workDir)
+                .environment(env)
+                .control(control)
+                .lineListener(lines)
+                .build())) {
+            if (result.exitCode() != 0) {
+                throw new RuntimeException("Maven command failed with exit code: " + result.exitCode());
+            }
         }
     }
 
-    private String uploadArtifact(BuildContext context) throws Exception {
+    private Path findArtifact(BuildContext context) throws Exception {
         Path targetDir = context.getWorkDir().resolve("target");
         if (Files.exists(targetDir)) {
-            var jars = Files.list(targetDir)
-                .filter(p -> p.toString().endsWith(".jar"))
-                .collect(Collectors.toList());
-            if (!jars.isEmpty()) {
-                byte[] artifact = Files.readAllBytes(jars.get(0));
-                String key = "artifacts/" + context.getProjectId() + "/" + context.getBuildId() + ".jar";
-                storageService.putObject(key, artifact);
-                return key;
+            try (var files = Files.list(targetDir)) {
+                // The work directory may still hold jars of earlier versions; take the newest
+                var jars = files
+                    .filter(p -> p.toString().endsWith(".jar"))
+                    .sorted(Comparator.comparing(JavaBuildPipeline::lastModified).reversed())
+                    .collect(Collectors.toList());
+                if (!jars.isEmpty()) {
+                    return jars.get(0);
+                }
             }
         }
         return null;
     }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
 }
@@ -0,0 +1,84 @@
+package com.cfforge.builder.pipeline;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds Maven command lines for Java builds, either plain {@code mvn} or the Maven Daemon
+ * ({@code mvnd}). In daemon mode the builder starts {@code pool-size} daemons when it comes up
+ * so the first builds already hit a warm JVM with loaded plugins, and stops them on shutdown.
+ * mvnd itself reuses idle daemons and spawns extra ones when builds overlap.
+ */
+@Component
+@Slf4j
+public class MavenLauncher {
+
+    private final boolean daemonEnabled;
+    private final String daemonCommand;
+    private final int poolSize;
+    private final String threads;
+
+    public MavenLauncher(@Value("${cf.forge.java.maven-daemon.enabled:false}") boolean daemonEnabled,
+                         @Value("${cf.forge.java.maven-daemon.command:mvnd}") String daemonCommand,
+                         @Value("${cf.forge.java.maven-daemon.pool-size:2}") int poolSize,
+                         @Value("${cf.forge.java.threads:${cf.forge.executor.cpus-per-build:2}}") String threads) {
+        this.daemonEnabled = daemonEnabled;
+        this.daemonCommand = daemonCommand;
+        this.poolSize = poolSize;
+        this.threads = threads;
+    }
+
+    /**
+     * Full command for one batch-mode, parallel ({@code -T}) Maven invocation.
+     */
+    public List<String> command(List<String> arguments) {
+        List<String> command = new ArrayList<>();
+        command.add(daemonEnabled ? daemonCommand : "mvn");
+        command.add("-B");
+        command.add("-T");
+        command.add(threads);
+        command.addAll(arguments);
+        return command;
+    }
+
+    public boolean isDaemonEnabled() {
+        return daemonEnabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!daemonEnabled) {
+            return;
+        }
+        for (int i = 0; i < poolSize; i++) {
+            Thread.ofVirtual().name("mvnd-warmup-" + i).start(() -> run(daemonCommand, "-B", "--version"));
+        }
+        log.info("Warming {} Maven daemon(s) with {}", poolSize, daemonCommand);
+    }
+
+    @PreDestroy
+    public void stopDaemons() {
+        if (daemonEnabled) {
+            run(daemonCommand, "--stop");
+        }
+    }
+
+    private static void run(String... command) {
+        try {
+            Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            process.waitFor();
+        } catch (Exception e) {
+            log.warn("Maven daemon command {} failed: {}", String.join(" ", command), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.cfforge.builder.pipeline;
+
+import com.cfforge.builder.model.BuildLog;
+import com.cfforge.builder.model.BuildTimeline;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Recovers per-stage log markers and timings from a single Maven lifecycle run by watching
+ * the plugin execution headers Maven prints ({@code --- compiler:3.13.0:compile ... ---}).
+ *
+ * Stages only move forward: with parallel module builds one module may still be compiling
+ * while another runs tests, so a stage is timed from its first execution to the first
+ * execution of a later stage.
+ */
+class MavenStageTracker {
+
+    enum Stage {
+        RESOLVE("Resolving Maven dependencies", "dependencies"),
+        COMPILE("Compiling", "compile"),
+        TEST("Running tests", "test"),
+        PACKAGE("Packaging", "package");
+
+        final String label;
+        final String timelineName;
+
+        Stage(String label, String timelineName) {
+            this.label = label;
+            this.timelineName = timelineName;
+        }
+    }
+
+    private static final Pattern EXECUTION = Pattern.compile(
+        "^\\[INFO] --- (?:maven-)?([\\w.-]+?)(?:-maven)?(?:-plugin)?:[^:\\s]+:([\\w-]+) ");
+
+    private final BuildLog log;
+    private final BuildTimeline timeline;
+    private final int firstStep;
+    private final int totalSteps;
+    private final Map<Stage, Long> startedAt = new LinkedHashMap<>();
+    private final Map<Stage, Long> durations = new LinkedHashMap<>();
+    private Stage current;
+
+    /**
+     * @param firstStep step number used for {@link Stage#RESOLVE} in the {@code [n/total]} markers
+     */
+    MavenStageTracker(BuildLog log, BuildTimeline timeline, int firstStep, int totalSteps) {
+        this.log = log;
+        this.timeline = timeline;
+        this.firstStep = firstStep;
+        this.totalSteps = totalSteps;
+        enter(Stage.RESOLVE);
+    }
+
+    void accept(String line) {
+        Stage stage = stageOf(line);
+        if (stage != null && stage.ordinal() > current.ordinal()) {
+            enter(stage);
+        }
+        log.append(line).append("\n");
+    }
+
+    /**
+     * Closes the last stage and returns how long each stage took, in milliseconds.
+     */
+    Map<Stage, Long> finish() {
+        long now = System.currentTimeMillis();
+        durations.put(current, now - startedAt.get(current));
+        return durations;
+    }
+
+    String summary() {
+        return durations.entrySet().stream()
+            .map(e -> e.getKey().name().toLowerCase() + " " + String.format("%.1fs", e.getValue() / 1000.0))
+            .collect(Collectors.joining(", "));
+    }
+
+    static Stage stageOf(String line) {
+        Matcher matcher = EXECUTION.matcher(line);
+        if (!matcher.find()) {
+            return null;
+        }
+        String plugin = matcher.group(1);
+        String goal = matcher.group(2);
+        return switch (plugin) {
+            case "resources" -> goal.equals("testResources") ? Stage.TEST : Stage.COMPILE;
+            case "compiler" -> goal.equals("testCompile") ? Stage.TEST : Stage.COMPILE;
+            case "surefire", "failsafe" -> Stage.TEST;
+            case "jar", "war", "spring-boot", "assembly", "shade", "source", "install", "cyclonedx" -> Stage.PACKAGE;
+            default -> null;
+        };
+    }
+
+    private void enter(Stage stage) {
+        long now = System.currentTimeMillis();
+        if (current != null) {
+            durations.put(current, now - startedAt.get(current));
+        }
+        current = stage;
+        startedAt.put(stage, now);
+        timeline.begin(stage.timelineName);
+        log.append("[").append(firstStep + stage.ordinal()).append("/").append(totalSteps).append("] ")
+            .append(stage.label).append("...\n");
+    }
+}
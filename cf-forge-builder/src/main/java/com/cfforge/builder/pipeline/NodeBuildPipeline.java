@@ -1,44 +1,79 @@
 package com.cfforge.builder.pipeline;
 
+import com.cfforge.builder.cache.DependencyCacheManager;
+import com.cfforge.builder.cache.Ecosystem;
+import com.cfforge.builder.control.BuildControl;
 import com.cfforge.builder.model.BuildContext;
+import com.cfforge.builder.model.BuildLog;
 import com.cfforge.builder.model.BuildResult;
+import com.cfforge.builder.process.ProcessResult;
+import com.cfforge.builder.process.ProcessRunner;
+import com.cfforge.builder.process.ProcessSpec;
+import com.cfforge.builder.testimpact.JestTestScanner;
+import com.cfforge.builder.testimpact.TestImpactAnalyzer;
+import com.cfforge.builder.testimpact.TestPlan;
+import com.cfforge.builder.testimpact.TestReports;
 import com.cfforge.common.enums.BuildStatus;
 import com.cfforge.common.enums.Language;
 import com.cfforge.common.storage.S3StorageService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
 
 @Component
 @Slf4j
 public class NodeBuildPipeline implements BuildPipeline {
 
     private final S3StorageService storageService;
+    private final DependencyCacheManager dependencyCache;
+    private final ProcessRunner processRunner;
+    private final TestImpactAnalyzer testImpact;
 
-    public NodeBuildPipeline(S3StorageService storageService) {
+    public NodeBuildPipeline(S3StorageService storageService, DependencyCacheManager dependencyCache,
+                           ProcessRunner processRunner, TestImpactAnalyzer testImpact) {
         this.storageService = storageService;
+        this.dependencyCache = dependencyCache;
+        this.processRunner = processRunner;
+        this.testImpact = testImpact;
     }
 
     @Override
     public BuildResult execute(BuildContext context) {
-        StringBuilder buildLog = new StringBuilder();
+        BuildLog buildLog = context.getLog();
         long start = System.currentTimeMillis();
+        DependencyCacheManager.Lease cache = null;
 
         try {
-            buildLog.append("[1/4] Installing dependencies...\n");
-            runCommand(context.getWorkDir(), "npm install", buildLog);
+            buildLog.append("[1/5] Pulling project files from storage...\n");
+            buildLog.append("  ").append(context.getSources().describe()).append("\n");
 
-            buildLog.append("[2/4] Running tests...\n");
-            runCommand(context.getWorkDir(), "npm test --if-present", buildLog);
+            context.getTimeline().begin("dependency-cache");
+            cache = dependencyCache.acquire(Ecosystem.NPM, context.getWorkDir());
+            buildLog.append("  Dependency ").append(cache.describe()).append("\n");
 
-            buildLog.append("[3/4] Building...\n");
-            runCommand(context.getWorkDir(), "npm run build --if-present", buildLog);
+            context.getTimeline().begin("dependencies");
+            buildLog.append("[2/5] Installing dependencies...\n");
+            runCommand(context.getControl(), context.getWorkDir(), "npm install", cache.environment(), buildLog);
 
-            buildLog.append("[4/4] Packaging...\n");
+            context.getTimeline().begin("test");
+            buildLog.append("[3/5] Running tests...\n");
+            if (JestTestScanner.usesJest(context.getWorkDir())) {
+                runJest(context, cache.environment(), buildLog);
+            } else {
+                runCommand(context.getControl(), context.getWorkDir(), "npm test --if-present", cache.environment(), buildLog);
+            }
+
+            context.getTimeline().begin("compile");
+            buildLog.append("[4/5] Building...\n");
+            runCommand(context.getControl(), context.getWorkDir(), "npm run build --if-present", cache.environment(), buildLog);
+
+            context.getTimeline().begin("package");
+            buildLog.append("[5/5] Packaging...\n");
 
+            cache.markSucceeded();
             return BuildResult.builder()
                 .status(BuildStatus.SUCCESS)
                 .log(buildLog.toString())
@@ -52,6 +87,10 @@ public class NodeBuildPipeline implements BuildPipeline {
                 .errorMessage(e.getMessage())
                 .durationMs(System.currentTimeMillis() - start)
                 .build();
+        } finally {
+            if (cache != null) {
+                cache.close();
+            }
         }
     }
 
@@ -60,20 +99,43 @@ public class NodeBuildPipeline implements BuildPipeline {
         return Language.NODEJS;
     }
 
-    private void runCommand(Path workDir, String command, StringBuilder log) throws Exception {
-        ProcessBuilder pb = new ProcessBuilder("sh", "-c", command);
-        pb.directory(workDir.toFile());
-        pb.redirectErrorStream(true);
-        Process process = pb.start();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                log.append(line).append("\n");
-            }
+    /**
+     * Runs the test files affected by the change, with a JSON report for their outcomes and times.
+     * Test selection needs Jest's {@code --runTestsByPath}; other runners always run everything.
+     */
+    private void runJest(BuildContext context, Map<String, String> env, BuildLog buildLog) throws Exception {
+        TestPlan tests = testImpact.plan(context, new JestTestScanner());
+        buildLog.append("  ").append(tests.describe()).append("\n");
+        if (tests.runsNone()) {
+            testImpact.record(context, tests, Map.of(), true);
+            return;
+        }
+        Path report = Files.createTempFile("cfforge-jest", ".json");
+        StringBuilder command = new StringBuilder("npm test -- --json --outputFile=").append(ProcessSpec.quote(report.toString()));
+        if (!tests.runsAll()) {
+            command.append(" --runTestsByPath");
+            tests.selected().forEach(file -> command.append(' ').append(ProcessSpec.quote(file)));
         }
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-            throw new RuntimeException("Command failed: " + command);
+        boolean passed = false;
+        try {
+            runCommand(context.getControl(), context.getWorkDir(), command.toString(), env, buildLog);
+            passed = true;
+        } finally {
+            testImpact.record(context, tests, TestReports.jestJson(report, context.getWorkDir()), passed);
+            Files.deleteIfExists(report);
+        }
+    }
+
+    private void runCommand(BuildControl control, Path workDir, String command, Map<String, String> env, BuildLog log) throws Exception {
+        try (ProcessResult result = processRunner.run(ProcessSpec.shell(command)
+                .directory(workDir)
+                .environment(env)
+                .control(control)
+                .lineListener(line -> log.append(line).append("\n"))
+                .build())) {
+            if (result.exitCode() != 0) {
+                throw new RuntimeException("Command failed: " + command);
+            }
         }
     }
 }
@@ -1,51 +1,86 @@
 package com.cfforge.builder.pipeline;
 
+import com.cfforge.builder.cache.DependencyCacheManager;
+import com.cfforge.builder.cache.Ecosystem;
+import com.cfforge.builder.control.BuildControl;
 import com.cfforge.builder.model.BuildContext;
+import com.cfforge.builder.model.BuildLog;
 import com.cfforge.builder.model.BuildResult;
+import com.cfforge.builder.process.ProcessResult;
+import com.cfforge.builder.process.ProcessRunner;
+import com.cfforge.builder.process.ProcessSpec;
+import com.cfforge.builder.testimpact.PythonTestScanner;
+import com.cfforge.builder.testimpact.TestImpactAnalyzer;
+import com.cfforge.builder.testimpact.TestPlan;
+import com.cfforge.builder.testimpact.TestReports;
 import com.cfforge.common.enums.BuildStatus;
 import com.cfforge.common.enums.Language;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 
 @Component
 @Slf4j
 public class PythonBuildPipeline implements BuildPipeline {
 
+    private final DependencyCacheManager dependencyCache;
+    private final ProcessRunner processRunner;
+    private final TestImpactAnalyzer testImpact;
+
+    public PythonBuildPipeline(DependencyCacheManager dependencyCache, ProcessRunner processRunner,
+                               TestImpactAnalyzer testImpact) {
+        this.dependencyCache = dependencyCache;
+        this.processRunner = processRunner;
+        this.testImpact = testImpact;
+    }
+
     @Override
     public BuildResult execute(BuildContext context) {
-        StringBuilder buildLog = new StringBuilder();
+        BuildLog buildLog = context.getLog();
         long start = System.currentTimeMillis();
+        DependencyCacheManager.Lease cache = null;
 
         try {
-            buildLog.append("[1/4] Creating virtual environment...\n");
-            runCommand(context.getWorkDir(), "python3 -m venv .venv", buildLog);
+            buildLog.append("[1/5] Pulling project files from storage...\n");
+            buildLog.append("  ").append(context.getSources().describe()).append("\n");
 
-            buildLog.append("[2/4] Installing dependencies...\n");
+            context.getTimeline().begin("dependency-cache");
+            cache = dependencyCache.acquire(Ecosystem.PIP, context.getWorkDir());
+            buildLog.append("  Dependency ").append(cache.describe()).append("\n");
+
+            context.getTimeline().begin("environment");
+            buildLog.append("[2/5] Creating virtual environment...\n");
+            runCommand(context.getControl(), context.getWorkDir(), "python3 -m venv .venv", cache.environment(), buildLog);
+
+            context.getTimeline().begin("dependencies");
+            buildLog.append("[3/5] Installing dependencies...\n");
             if (Files.exists(context.getWorkDir().resolve("requirements.txt"))) {
-                runCommand(context.getWorkDir(), ".venv/bin/pip install -r requirements.txt", buildLog);
+                runCommand(context.getControl(), context.getWorkDir(), ".venv/bin/pip install -r requirements.txt", cache.environment(), buildLog);
             } else if (Files.exists(context.getWorkDir().resolve("pyproject.toml"))) {
-                runCommand(context.getWorkDir(), ".venv/bin/pip install .", buildLog);
+                runCommand(context.getControl(), context.getWorkDir(), ".venv/bin/pip install .", cache.environment(), buildLog);
             }
 
-            buildLog.append("[3/4] Running tests...\n");
+            context.getTimeline().begin("test");
+            buildLog.append("[4/5] Running tests...\n");
             if (Files.exists(context.getWorkDir().resolve("tests")) ||
                 Files.exists(context.getWorkDir().resolve("test"))) {
-                runCommand(context.getWorkDir(), ".venv/bin/python -m pytest --tb=short", buildLog);
+                runPytest(context, cache.environment(), buildLog);
             } else {
                 buildLog.append("  No tests directory found, skipping.\n");
             }
 
-            buildLog.append("[4/4] Packaging...\n");
+            context.getTimeline().begin("package");
+            buildLog.append("[5/5] Packaging...\n");
             // Ensure Procfile exists
             if (!Files.exists(context.getWorkDir().resolve("Procfile"))) {
                 buildLog.append("  Warning: No Procfile found. CF needs a Procfile for Python apps.\n");
             }
 
+            cache.markSucceeded();
             return BuildResult.builder()
                 .status(BuildStatus.SUCCESS)
                 .log(buildLog.toString())
@@ -59,6 +94,10 @@ public class PythonBuildPipeline implements BuildPipeline {
                 .errorMessage(e.getMessage())
                 .durationMs(System.currentTimeMillis() - start)
                 .build();
+        } finally {
+            if (cache != null) {
+                cache.close();
+            }
         }
     }
 
@@ -67,20 +106,41 @@ public class PythonBuildPipeline implements BuildPipeline {
         return Language.PYTHON;
     }
 
-    private void runCommand(Path workDir, String command, StringBuilder log) throws Exception {
-        ProcessBuilder pb = new ProcessBuilder("sh", "-c", command);
-        pb.directory(workDir.toFile());
-        pb.redirectErrorStream(true);
-        Process process = pb.start();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                log.append(line).append("\n");
-            }
+    /**
+     * Runs the test files affected by the change, with a JUnit XML report for their outcomes and
+     * times.
+     */
+    private void runPytest(BuildContext context, Map<String, String> env, BuildLog buildLog) throws Exception {
+        TestPlan tests = testImpact.plan(context, new PythonTestScanner());
+        buildLog.append("  ").append(tests.describe()).append("\n");
+        if (tests.runsNone()) {
+            testImpact.record(context, tests, Map.of(), true);
+            return;
+        }
+        Path report = Files.createTempFile("cfforge-pytest", ".xml");
+        StringBuilder command = new StringBuilder(".venv/bin/python -m pytest --tb=short --junitxml=")
+            .append(ProcessSpec.quote(report.toString()));
+        tests.selected().forEach(file -> command.append(' ').append(ProcessSpec.quote(file)));
+        boolean passed = false;
+        try {
+            runCommand(context.getControl(), context.getWorkDir(), command.toString(), env, buildLog);
+            passed = true;
+        } finally {
+            testImpact.record(context, tests, TestReports.junitXml(List.of(report)), passed);
+            Files.deleteIfExists(report);
         }
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-            throw new RuntimeException("Command failed: " + command);
+    }
+
+    private void runCommand(BuildControl control, Path workDir, String command, Map<String, String> env, BuildLog log) throws Exception {
+        try (ProcessResult result = processRunner.run(ProcessSpec.shell(command)
+                .directory(workDir)
+                .environment(env)
+                .control(control)
+                .lineListener(line -> log.append(line).append("\n"))
+                .build())) {
+            if (result.exitCode() != 0) {
+                throw new RuntimeException("Command failed: " + command);
+            }
         }
     }
 }
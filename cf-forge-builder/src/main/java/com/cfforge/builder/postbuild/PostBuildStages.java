@@ -0,0 +1,214 @@
+package com.cfforge.builder.postbuild;
+
+import com.cfforge.builder.model.BuildContext;
+import com.cfforge.builder.model.BuildResult;
+import com.cfforge.builder.security.CveScanResult;
+import com.cfforge.builder.security.CveScanner;
+import com.cfforge.builder.security.SbomGenerator;
+import com.cfforge.common.artifact.ArtifactManifest;
+import com.cfforge.common.artifact.ArtifactStore;
+import com.cfforge.common.storage.S3StorageService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the CVE scan, SBOM generation and artifact upload of a successful build concurrently,
+ * each with its own timeout, so post-build time is the slowest of the three rather than their sum.
+ *
+ * The CVE scan is the gate: a blocking verdict cancels the other two and removes anything they
+ * already stored. A scan that times out counts as not scanned, like an unavailable scanner.
+ * SBOM failures leave the build without an SBOM; upload failures fail the build. Spring Boot jars
+ * are uploaded as layers through the {@link ArtifactStore} when {@code layered-upload} is set.
+ */
+@Component
+@Slf4j
+public class PostBuildStages {
+
+    private final CveScanner cveScanner;
+    private final SbomGenerator sbomGenerator;
+    private final S3StorageService storageService;
+    private final ArtifactStore artifactStore;
+    private final Duration cveTimeout;
+    private final Duration sbomTimeout;
+    private final Duration uploadTimeout;
+    private final boolean layeredUpload;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("post-build-", 0).factory());
+
+    public PostBuildStages(CveScanner cveScanner, SbomGenerator sbomGenerator, S3StorageService storageService,
+                           ArtifactStore artifactStore,
+                           @Value("${cf.forge.post-build.cve-timeout:PT10M}") Duration cveTimeout,
+                           @Value("${cf.forge.post-build.sbom-timeout:PT10M}") Duration sbomTimeout,
+                           @Value("${cf.forge.post-build.upload-timeout:PT5M}") Duration uploadTimeout,
+                           @Value("${cf.forge.post-build.layered-upload:true}") boolean layeredUpload) {
+        this.cveScanner = cveScanner;
+        this.sbomGenerator = sbomGenerator;
+        this.storageService = storageService;
+        this.artifactStore = artifactStore;
+        this.cveTimeout = cveTimeout;
+        this.sbomTimeout = sbomTimeout;
+        this.uploadTimeout = uploadTimeout;
+        this.layeredUpload = layeredUpload;
+    }
+
+    /**
+     * @param artifactPath the uploaded artifact, or null if there was none
+     * @param failure      why the build must fail despite the pipeline succeeding, or null
+     */
+    public record Outcome(CveScanResult cveScan, String sbomPath, String artifactPath, String failure) {
+
+        public boolean blocked() {
+            return cveScan.isBlocked();
+        }
+    }
+
+    public Outcome run(BuildContext context, BuildResult result) throws InterruptedException {
+        long start = System.nanoTime();
+        context.getLog().append("Post-build: CVE scan, SBOM and artifact upload in parallel...\n");
+
+        Future<CveScanResult> cve = executor.submit(timed("cve-scan", context,
+            () -> cveScanner.scan(context.getWorkDir())));
+        Future<String> sbom = executor.submit(timed("sbom", context, () -> sbomGenerator.generate(context.getWorkDir(),
+            context.getLanguage(), result.getArtifactFile(), context.getProjectId(), context.getBuildId())));
+        Future<ArtifactStore.Stored> upload = executor.submit(timed("upload", context, () -> upload(result)));
+
+        try {
+            CveScanResult cveScan = await(cve, start, cveTimeout, "CVE scan", context);
+            if (cveScan == null) {
+                cveScan = unscanned("CVE scan timed out after " + cveTimeout.toSeconds() + "s");
+            }
+            if (cveScan.isBlocked()) {
+                sbom.cancel(true);
+                upload.cancel(true);
+                discard(result.getArtifactPath(), manifestKey(result), sbomKey(context));
+                return new Outcome(cveScan, null, null, null);
+            }
+
+            String sbomPath = await(sbom, start, sbomTimeout, "SBOM generation", context);
+            String artifactPath = null;
+            String failure = null;
+            try {
+                ArtifactStore.Stored stored = await(upload, start, uploadTimeout, "Artifact upload", context);
+                if (stored != null) {
+                    artifactPath = stored.key();
+                    logUpload(context, stored);
+                } else if (result.getArtifactFile() != null) {
+                    failure = "Artifact upload timed out after " + uploadTimeout.toSeconds() + "s";
+                }
+            } catch (ExecutionException e) {
+                failure = "Artifact upload failed: " + e.getCause().getMessage();
+            }
+            return new Outcome(cveScan, sbomPath, artifactPath, failure);
+        } catch (ExecutionException e) {
+            // Scanner and generator report their own failures, so this is unexpected
+            throw new RuntimeException("Post-build stage failed", e.getCause());
+        } finally {
+            for (Future<?> future : List.of(cve, sbom, upload)) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static <T> Callable<T> timed(String stage, BuildContext context, Callable<T> task) {
+        return () -> {
+            long start = System.currentTimeMillis();
+            try {
+                return task.call();
+            } finally {
+                context.getTimeline().record(stage, start, System.currentTimeMillis());
+            }
+        };
+    }
+
+    private ArtifactStore.Stored upload(BuildResult result) throws Exception {
+        if (result.getArtifactFile() == null) {
+            return null;
+        }
+        return artifactStore.store(result.getArtifactFile(), result.getArtifactPath(), layeredUpload);
+    }
+
+    private static void logUpload(BuildContext context, ArtifactStore.Stored stored) {
+        if (stored.layers() == 0) {
+            context.getLog().append("  Artifact: uploaded ").append(megabytes(stored.uploadedBytes())).append("\n");
+            return;
+        }
+        context.getLog().append(String.format("  Artifact: %d of %d layers already stored, uploaded %s of %s%n",
+            stored.reusedLayers(), stored.layers(), megabytes(stored.uploadedBytes()), megabytes(stored.size())));
+    }
+
+    /**
+     * Waits until {@code timeout} after {@code start}, so stages waited on later aren't charged
+     * for time spent waiting on earlier ones. Returns null and cancels the stage on timeout.
+     */
+    private <T> T await(Future<T> future, long start, Duration timeout, String stage, BuildContext context)
+            throws InterruptedException, ExecutionException {
+        long remaining = timeout.toNanos() - (System.nanoTime() - start);
+        try {
+            T value = future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+            context.getLog().append("  ").append(stage).append(" finished after ")
+                .append(elapsedSeconds(start)).append("\n");
+            return value;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            context.getLog().append("  ").append(stage).append(" timed out after ")
+                .append(timeout.toSeconds()).append("s\n");
+            log.warn("{} for build {} timed out after {}", stage, context.getBuildId(), timeout);
+            return null;
+        }
+    }
+
+    private void discard(String... keys) {
+        for (String key : keys) {
+            if (key == null) {
+                continue;
+            }
+            try {
+                storageService.deleteObject(key);
+            } catch (Exception e) {
+                log.debug("Could not remove {} of blocked build: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    private static String manifestKey(BuildResult result) {
+        return result.getArtifactPath() == null ? null : ArtifactManifest.key(result.getArtifactPath());
+    }
+
+    private static String sbomKey(BuildContext context) {
+        return SbomGenerator.key(context.getProjectId(), context.getBuildId());
+    }
+
+    private static String megabytes(long bytes) {
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    private static String elapsedSeconds(long start) {
+        return String.format("%.1fs", (System.nanoTime() - start) / 1e9);
+    }
+
+    private static CveScanResult unscanned(String summary) {
+        return CveScanResult.builder()
+            .scanned(false)
+            .vulnerabilities(List.of())
+            .blocked(false)
+            .summary(summary)
+            .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
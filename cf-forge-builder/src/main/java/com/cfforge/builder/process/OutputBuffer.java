@@ -0,0 +1,160 @@
+package com.cfforge.builder.process;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A process's output in a fixed-size ring buffer. Bytes pushed out of the ring are appended to a
+ * spill file, created on first overflow, so memory stays at the buffer size however much the
+ * process prints while the complete output can still be read back. Closing deletes the spill file.
+ */
+@Slf4j
+public class OutputBuffer implements Closeable {
+
+    private final byte[] ring;
+    private final Path spillDir;
+    private int start;
+    private int length;
+    private long spilled;
+    private long dropped;
+    private Path spillFile;
+    private OutputStream spill;
+    private boolean closed;
+
+    public OutputBuffer(int capacity, Path spillDir) {
+        this.ring = new byte[Math.max(1, capacity)];
+        this.spillDir = spillDir;
+    }
+
+    public synchronized void write(byte[] bytes, int offset, int count) {
+        if (closed) {
+            return;
+        }
+        if (count >= ring.length) {
+            // Only the last ring-full of this write stays in memory
+            evict(length);
+            int direct = count - ring.length;
+            spill(bytes, offset, direct);
+            offset += direct;
+            count = ring.length;
+        } else if (length + count > ring.length) {
+            evict(length + count - ring.length);
+        }
+        int end = (start + length) % ring.length;
+        int first = Math.min(count, ring.length - end);
+        System.arraycopy(bytes, offset, ring, end, first);
+        System.arraycopy(bytes, offset + first, ring, 0, count - first);
+        length += count;
+    }
+
+    /**
+     * Total bytes written, including those spilled.
+     */
+    public synchronized long size() {
+        return spilled + length;
+    }
+
+    public synchronized boolean hasSpilled() {
+        return spilled > 0;
+    }
+
+    /**
+     * The output still in memory, starting at a line boundary when earlier output was spilled.
+     */
+    public synchronized String tail() {
+        String text = new String(ringBytes(), StandardCharsets.UTF_8);
+        if (spilled > 0) {
+            int newline = text.indexOf('\n');
+            return newline >= 0 ? text.substring(newline + 1) : text;
+        }
+        return text;
+    }
+
+    /**
+     * Writes the complete output: the spill file followed by the ring. Output that could not be
+     * spilled, for example on a full disk, is missing.
+     */
+    public synchronized void transferTo(OutputStream out) throws IOException {
+        if (spill != null) {
+            spill.flush();
+            try (InputStream in = Files.newInputStream(spillFile)) {
+                in.transferTo(out);
+            }
+        }
+        out.write(ringBytes());
+    }
+
+    /**
+     * The complete output as text; meant for tools whose output is small, such as version queries.
+     */
+    public String text() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            transferTo(out);
+        } catch (IOException e) {
+            return tail();
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (spill != null) {
+            try {
+                spill.close();
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                log.debug("Could not delete spilled output {}: {}", spillFile, e.getMessage());
+            }
+            spill = null;
+        }
+    }
+
+    private void evict(int count) {
+        int first = Math.min(count, ring.length - start);
+        spill(ring, start, first);
+        spill(ring, 0, count - first);
+        start = (start + count) % ring.length;
+        length -= count;
+    }
+
+    private void spill(byte[] bytes, int offset, int count) {
+        if (count <= 0) {
+            return;
+        }
+        spilled += count;
+        if (dropped > 0) {
+            dropped += count;
+            return;
+        }
+        try {
+            if (spill == null) {
+                Files.createDirectories(spillDir);
+                spillFile = Files.createTempFile(spillDir, "output-", ".log");
+                spill = Files.newOutputStream(spillFile);
+            }
+            spill.write(bytes, offset, count);
+        } catch (IOException e) {
+            // Keep running with memory-only output rather than failing the build
+            log.warn("Could not spill process output to {}: {}", spillDir, e.getMessage());
+            dropped += count;
+        }
+    }
+
+    private byte[] ringBytes() {
+        byte[] bytes = new byte[length];
+        int first = Math.min(length, ring.length - start);
+        System.arraycopy(ring, start, bytes, 0, first);
+        System.arraycopy(ring, 0, bytes, first, length - first);
+        return bytes;
+    }
+}
@@ -0,0 +1,19 @@
+package com.cfforge.builder.process;
+
+/**
+ * How a process ended and what it printed. Close it to release the spilled output.
+ *
+ * @param timedOut whether it was killed for running past its spec's timeout
+ */
+public record ProcessResult(int exitCode, boolean timedOut, long durationMs, OutputBuffer output)
+        implements AutoCloseable {
+
+    public boolean succeeded() {
+        return exitCode == 0 && !timedOut;
+    }
+
+    @Override
+    public void close() {
+        output.close();
+    }
+}
@@ -0,0 +1,238 @@
+package com.cfforge.builder.process;
+
+import com.cfforge.builder.control.BuildControl;
+import com.cfforge.builder.control.ProcessTree;
+import com.cfforge.builder.resources.BuildCgroup;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Runs the builder's tool processes.
+ *
+ * Output is pumped on a virtual thread into an {@link OutputBuffer} of {@code buffer-kb}, which
+ * spills older output to disk, and handed line by line to the spec's listener, so a build's log
+ * memory is fixed however much a tool prints. A process past its timeout has its whole tree
+ * terminated; processes started for a build are registered with its {@link BuildControl}, which
+ * does the same on cancellation or when the build's deadline passes. Resource limits are applied
+ * with {@code prlimit} when it is installed, and a build's processes join its cgroup, when it has
+ * one, before they exec the tool.
+ */
+@Component
+@Slf4j
+public class ProcessRunner {
+
+    private static final Set<String> CLEAN_ENVIRONMENT = Set.of("PATH", "HOME", "LANG", "LC_ALL", "TMPDIR");
+    private static final int READ_CHUNK = 8192;
+
+    private final ProcessRunnerProperties properties;
+    private final boolean prlimitAvailable;
+    private final ScheduledExecutorService deadlines;
+
+    public ProcessRunner(ProcessRunnerProperties properties) {
+        this.properties = properties;
+        this.prlimitAvailable = onPath("prlimit");
+        this.deadlines = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "process-deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!prlimitAvailable && !properties.defaultLimits().isEmpty()) {
+            log.warn("prlimit not found; tool processes run without resource limits");
+        }
+    }
+
+    /**
+     * Starts the process; its output is pumped in the background until it exits.
+     */
+    public RunningProcess start(ProcessSpec spec) throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(command(spec));
+        if (spec.getDirectory() != null) {
+            pb.directory(spec.getDirectory().toFile());
+        }
+        Map<String, String> env = pb.environment();
+        if (spec.isCleanEnvironment()) {
+            env.keySet().retainAll(CLEAN_ENVIRONMENT);
+        } else {
+            properties.getUnsetEnvironment().forEach(env::remove);
+        }
+        env.putAll(spec.getEnvironment());
+        if (spec.isDiscardErrors()) {
+            pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+        } else {
+            pb.redirectErrorStream(true);
+        }
+
+        long started = System.currentTimeMillis();
+        Process process = spec.getControl().start(pb);
+        OutputBuffer output = new OutputBuffer(properties.getBufferKb() * 1024, properties.getSpillDir());
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> deadline = spec.getTimeout() == null ? null : deadlines.schedule(() -> {
+            if (process.isAlive()) {
+                timedOut.set(true);
+                log.info("Process {} ran past its {} timeout, terminating", process.pid(), spec.getTimeout());
+                Thread.ofVirtual().start(() -> ProcessTree.kill(process, properties.getKillGrace()));
+            }
+        }, spec.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+
+        CompletableFuture<ProcessResult> result = new CompletableFuture<>();
+        Thread.ofVirtual().name("process-pump-" + process.pid()).start(() -> {
+            try {
+                pump(process.getInputStream(), output, spec.getLineListener());
+                int exitCode = process.waitFor();
+                result.complete(new ProcessResult(exitCode, timedOut.get(), System.currentTimeMillis() - started, output));
+            } catch (Throwable t) {
+                output.close();
+                result.completeExceptionally(t);
+            } finally {
+                if (deadline != null) {
+                    deadline.cancel(false);
+                }
+            }
+        });
+        return new RunningProcess(process, result);
+    }
+
+    /**
+     * Runs the process to completion. If the calling thread is interrupted the process tree is
+     * killed; when that is because the build was terminated, the build's termination is thrown.
+     */
+    public ProcessResult run(ProcessSpec spec) throws IOException, InterruptedException {
+        RunningProcess running = start(spec);
+        ProcessResult result;
+        try {
+            result = running.result().get();
+        } catch (InterruptedException e) {
+            running.kill();
+            if (spec.getControl().isTerminated()) {
+                Thread.currentThread().interrupt();
+                spec.getControl().checkActive();
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+        try {
+            spec.getControl().checkActive();
+        } catch (RuntimeException e) {
+            result.close();
+            throw e;
+        }
+        return result;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        deadlines.shutdownNow();
+    }
+
+    private List<String> command(ProcessSpec spec) {
+        List<String> command = new ArrayList<>();
+        BuildCgroup cgroup = spec.getControl().cgroup();
+        if (cgroup != null) {
+            // Join the group first so everything the tool forks is accounted and limited with it
+            command.addAll(List.of("sh", "-c", "echo $$ > \"$0\" 2>/dev/null; exec \"$@\"", cgroup.procsFile().toString()));
+        }
+        ResourceLimits limits = spec.getLimits() != null ? spec.getLimits() : properties.defaultLimits();
+        if (!limits.isEmpty() && prlimitAvailable) {
+            command.add("prlimit");
+            command.addAll(limits.prlimitOptions());
+            command.add("--");
+        }
+        command.addAll(spec.getCommand());
+        return command;
+    }
+
+    /**
+     * Copies the stream into the buffer and splits it into lines for the listener. Lines longer
+     * than {@code max-line-chars} are passed on in pieces so one runaway line can't grow the heap.
+     */
+    private void pump(InputStream in, OutputBuffer output, Consumer<String> listener) throws IOException {
+        int maxLine = Math.max(1, properties.getMaxLineChars());
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        byte[] chunk = new byte[READ_CHUNK];
+        try (in) {
+            int read;
+            while ((read = in.read(chunk)) >= 0) {
+                output.write(chunk, 0, read);
+                int from = 0;
+                for (int i = 0; i < read; i++) {
+                    if (chunk[i] == '\n') {
+                        line.write(chunk, from, i - from);
+                        emit(line, listener);
+                        from = i + 1;
+                    } else if (line.size() + i - from >= maxLine && (chunk[i] & 0xC0) != 0x80) {
+                        // Split before a character's first byte, never inside it
+                        line.write(chunk, from, i - from);
+                        emit(line, listener);
+                        from = i;
+                    }
+                }
+                line.write(chunk, from, read - from);
+            }
+        }
+        if (line.size() > 0) {
+            emit(line, listener);
+        }
+    }
+
+    private static void emit(ByteArrayOutputStream line, Consumer<String> listener) {
+        String text = line.toString(StandardCharsets.UTF_8);
+        line.reset();
+        if (text.endsWith("\r")) {
+            text = text.substring(0, text.length() - 1);
+        }
+        try {
+            listener.accept(text);
+        } catch (RuntimeException e) {
+            // A failing listener must not stop the pump, or the process blocks on a full pipe
+            log.debug("Process line listener failed: {}", e.getMessage());
+        }
+    }
+
+    private static boolean onPath(String executable) {
+        String path = System.getenv("PATH");
+        if (path == null) {
+            return false;
+        }
+        for (String dir : path.split(File.pathSeparator)) {
+            if (!dir.isEmpty() && Files.isExecutable(Path.of(dir, executable))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A started process and its eventual result.
+     */
+    public record RunningProcess(Process process, CompletableFuture<ProcessResult> result) {
+
+        /**
+         * Force-kills the process tree without waiting.
+         */
+        public void kill() {
+            ProcessTree.killNow(process);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.cfforge.builder.process;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "cf.forge.process")
+public class ProcessRunnerProperties {
+
+    /** Output of one process kept in memory; older output is spilled to disk. */
+    private int bufferKb = 256;
+
+    /** Longer lines are split before they reach line listeners. */
+    private int maxLineChars = 8192;
+
+    /** Where output beyond the in-memory buffer is spilled. */
+    private Path spillDir = Path.of(System.getProperty("java.io.tmpdir"), "cfforge-process-spill");
+
+    /** Time a process past its deadline gets to exit before it is killed forcibly. */
+    private Duration killGrace = Duration.ofSeconds(10);
+
+    /** Variables of the builder's own environment that tool processes don't inherit. */
+    private List<String> unsetEnvironment = new ArrayList<>(List.of("VCAP_SERVICES"));
+
+    /** Limits applied to every tool process unless its spec sets its own. */
+    private long maxOpenFiles = 0;
+
+    private long maxProcesses = 0;
+
+    private long maxFileSizeMb = 0;
+
+    private long maxCpuSeconds = 0;
+
+    public ResourceLimits defaultLimits() {
+        return new ResourceLimits(maxOpenFiles, maxProcesses, maxFileSizeMb, maxCpuSeconds);
+    }
+
+    public int getBufferKb() {
+        return bufferKb;
+    }
+
+    public void setBufferKb(int bufferKb) {
+        this.bufferKb = bufferKb;
+    }
+
+    public int getMaxLineChars() {
+        return maxLineChars;
+    }
+
+    public void setMaxLineChars(int maxLineChars) {
+        this.maxLineChars = maxLineChars;
+    }
+
+    public Path getSpillDir() {
+        return spillDir;
+    }
+
+    public void setSpillDir(Path spillDir) {
+        this.spillDir = spillDir;
+    }
+
+    public Duration getKillGrace() {
+        return killGrace;
+    }
+
+    public void setKillGrace(Duration killGrace) {
+        this.killGrace = killGrace;
+    }
+
+    public List<String> getUnsetEnvironment() {
+        return unsetEnvironment;
+    }
+
+    public void setUnsetEnvironment(List<String> unsetEnvironment) {
+        this.unsetEnvironment = unsetEnvironment;
+    }
+
+    public long getMaxOpenFiles() {
+        return maxOpenFiles;
+    }
+
+    public void setMaxOpenFiles(long maxOpenFiles) {
+        this.maxOpenFiles = maxOpenFiles;
+    }
+
+    public long getMaxProcesses() {
+        return maxProcesses;
+    }
+
+    public void setMaxProcesses(long maxProcesses) {
+        this.maxProcesses = maxProcesses;
+    }
+
+    public long getMaxFileSizeMb() {
+        return maxFileSizeMb;
+    }
+
+    public void setMaxFileSizeMb(long maxFileSizeMb) {
+        this.maxFileSizeMb = maxFileSizeMb;
+    }
+
+    public long getMaxCpuSeconds() {
+        return maxCpuSeconds;
+    }
+
+    public void setMaxCpuSeconds(long maxCpuSeconds) {
+        this.maxCpuSeconds = maxCpuSeconds;
+    }
+}
@@ -0,0 +1,71 @@
+package com.cfforge.builder.process;
+
+import com.cfforge.builder.control.BuildControl;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * What to run and how; see {@link ProcessRunner}. Standard error is merged into standard output
+ * unless {@code discardErrors} is set.
+ */
+@Getter
+@Builder
+public class ProcessSpec {
+
+    @Singular("arg")
+    private final List<String> command;
+
+    private final Path directory;
+
+    /** Added to, and overriding, the inherited environment. */
+    @Singular("env")
+    private final Map<String, String> environment;
+
+    /** Start from an environment holding only {@code PATH}, {@code HOME} and the locale. */
+    private final boolean cleanEnvironment;
+
+    private final boolean discardErrors;
+
+    /** Registers the process with a build so cancelling or timing out the build kills it. */
+    @Builder.Default
+    private final BuildControl control = BuildControl.unmanaged();
+
+    /** Kill the process tree once it has run this long; null for no limit of its own. */
+    private final Duration timeout;
+
+    /** Gets each line of output as it is printed, on the process's pump thread. */
+    @Builder.Default
+    private final Consumer<String> lineListener = line -> {};
+
+    /** Null applies the runner's default limits. */
+    private final ResourceLimits limits;
+
+    /**
+     * Runs {@code command} through {@code sh -c}.
+     */
+    public static ProcessSpecBuilder shell(String command) {
+        return builder().arg("sh").arg("-c").arg(command);
+    }
+
+    /**
+     * Quotes {@code value} as one word for {@link #shell}.
+     */
+    public static String quote(String value) {
+        return "'" + value.replace("'", "'\\''") + "'";
+    }
+
+    public static ProcessSpecBuilder of(List<String> command) {
+        return builder().command(command);
+    }
+
+    public String describe() {
+        return String.join(" ", command);
+    }
+}
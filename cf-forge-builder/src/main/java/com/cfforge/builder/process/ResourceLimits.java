@@ -0,0 +1,44 @@
+package com.cfforge.builder.process;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kernel resource limits applied to a tool process and everything it starts, via {@code prlimit}.
+ * A value of 0 leaves the limit inherited from the builder.
+ *
+ * @param openFiles  open file descriptors per process
+ * @param processes  processes of the builder's user; shared by concurrent builds, so set it with care
+ * @param fileSizeMb largest file a process may write
+ * @param cpuSeconds CPU time per process
+ */
+public record ResourceLimits(long openFiles, long processes, long fileSizeMb, long cpuSeconds) {
+
+    public static ResourceLimits none() {
+        return new ResourceLimits(0, 0, 0, 0);
+    }
+
+    public boolean isEmpty() {
+        return openFiles <= 0 && processes <= 0 && fileSizeMb <= 0 && cpuSeconds <= 0;
+    }
+
+    /**
+     * The {@code prlimit} options for the limits that are set.
+     */
+    List<String> prlimitOptions() {
+        List<String> options = new ArrayList<>();
+        if (openFiles > 0) {
+            options.add("--nofile=" + openFiles);
+        }
+        if (processes > 0) {
+            options.add("--nproc=" + processes);
+        }
+        if (fileSizeMb > 0) {
+            options.add("--fsize=" + fileSizeMb * 1024 * 1024);
+        }
+        if (cpuSeconds > 0) {
+            options.add("--cpu=" + cpuSeconds);
+        }
+        return options;
+    }
+}
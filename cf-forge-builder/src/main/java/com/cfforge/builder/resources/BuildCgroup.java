@@ -0,0 +1,89 @@
+package com.cfforge.builder.resources;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * The cgroup v2 group one build's tool processes run in; see {@link BuildCgroups}. Closing it
+ * kills anything left in the group and removes it.
+ */
+@Slf4j
+public class BuildCgroup implements AutoCloseable {
+
+    private static final long CLOSE_WAIT_MS = 2000;
+
+    private final Path path;
+
+    BuildCgroup(Path path) {
+        this.path = path;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /**
+     * The file a process writes its pid to in order to join the group.
+     */
+    public Path procsFile() {
+        return path.resolve("cgroup.procs");
+    }
+
+    /**
+     * Peak memory from {@code memory.peak} (Linux 5.19+; zero when missing) and CPU time from
+     * {@code cpu.stat}, covering every process that ran in the group.
+     */
+    public ResourceUsage usage() {
+        long peak = readLong(path.resolve("memory.peak"));
+        long cpuUsec = 0;
+        try (Stream<String> lines = Files.lines(path.resolve("cpu.stat"))) {
+            cpuUsec = lines.filter(line -> line.startsWith("usage_usec "))
+                .findFirst()
+                .map(line -> Long.parseLong(line.substring("usage_usec ".length()).trim()))
+                .orElse(0L);
+        } catch (IOException | RuntimeException e) {
+            log.debug("No CPU usage for {}: {}", path, e.getMessage());
+        }
+        return new ResourceUsage(Math.max(0, peak), cpuUsec / 1000);
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (Files.exists(path.resolve("cgroup.kill"))) {
+                Files.writeString(path.resolve("cgroup.kill"), "1");
+            }
+            // A group can only be removed once its processes are gone
+            long deadline = System.currentTimeMillis() + CLOSE_WAIT_MS;
+            while (!isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            Files.delete(path);
+        } catch (NoSuchFileException e) {
+            // Already removed
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Failed to remove cgroup {}: {}", path, e.getMessage());
+        }
+    }
+
+    private boolean isEmpty() throws IOException {
+        Path procs = procsFile();
+        return !Files.exists(procs) || Files.readString(procs).isBlank();
+    }
+
+    static long readLong(Path file) {
+        try {
+            String value = Files.readString(file).trim();
+            return "max".equals(value) ? Long.MAX_VALUE : Long.parseLong(value);
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.cfforge.builder.resources;
+
+import com.cfforge.builder.executor.BuildExecutorProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Per-build cgroup v2 groups with CPU and memory limits, when the host delegates them.
+ *
+ * The kernel only lets a group hand controllers to its children while it has no processes of its
+ * own, so at startup everything in the builder's group moves into a {@code builder} child and
+ * {@code +cpu +memory} is enabled for the children. Each build then gets a {@code build-<id>}
+ * sibling whose {@code memory.max} is its expected footprint times {@code memory-limit-factor},
+ * never below {@code memory-per-build-mb}; {@code memory.high} at 90% of that makes the kernel
+ * reclaim before it OOM-kills, and {@code memory.oom.group} makes an OOM kill take the whole build
+ * rather than one of its processes. {@code cpu.max} caps the build at {@code cpus-per-build}.
+ * Without cgroup v2 (or with {@code enabled: false}) builds run unconfined and their usage is
+ * sampled from their process trees instead.
+ */
+@Component
+@Slf4j
+public class BuildCgroups {
+
+    private static final long MB = 1024 * 1024;
+    private static final long CPU_PERIOD_USEC = 100_000;
+    private static final String BUILD_PREFIX = "build-";
+
+    private final BuildExecutorProperties executorProperties;
+    private final double memoryLimitFactor;
+    private final Path root;
+
+    public BuildCgroups(BuildExecutorProperties executorProperties,
+                        @Value("${cf.forge.cgroups.enabled:true}") boolean enabled,
+                        @Value("${cf.forge.cgroups.mount:/sys/fs/cgroup}") Path mount,
+                        @Value("${cf.forge.cgroups.self:/proc/self/cgroup}") Path selfCgroup,
+                        @Value("${cf.forge.cgroups.memory-limit-factor:2.0}") double memoryLimitFactor) {
+        this.executorProperties = executorProperties;
+        this.memoryLimitFactor = memoryLimitFactor;
+        this.root = enabled ? delegate(mount, selfCgroup) : null;
+    }
+
+    public boolean isEnabled() {
+        return root != null;
+    }
+
+    /**
+     * Creates the build's group, or returns null when cgroups are unavailable or the group can't
+     * be set up; the build then runs unconfined.
+     */
+    public BuildCgroup create(UUID buildId, long footprintMb) {
+        if (root == null) {
+            return null;
+        }
+        Path path = root.resolve(BUILD_PREFIX + buildId);
+        long limitMb = Math.max(executorProperties.getMemoryPerBuildMb(), (long) Math.ceil(footprintMb * memoryLimitFactor));
+        try {
+            Files.createDirectories(path);
+            Files.writeString(path.resolve("memory.max"), Long.toString(limitMb * MB));
+            Files.writeString(path.resolve("memory.high"), Long.toString(limitMb * MB / 10 * 9));
+            Files.writeString(path.resolve("memory.oom.group"), "1");
+            int cpus = executorProperties.getCpusPerBuild();
+            if (cpus > 0) {
+                Files.writeString(path.resolve("cpu.max"), (cpus * CPU_PERIOD_USEC) + " " + CPU_PERIOD_USEC);
+            }
+            log.debug("Build {} limited to {}MB and {} CPUs", buildId, limitMb, cpus);
+            return new BuildCgroup(path);
+        } catch (IOException e) {
+            log.warn("Failed to create cgroup for build {}, running it unconfined: {}", buildId, e.getMessage());
+            new BuildCgroup(path).close();
+            return null;
+        }
+    }
+
+    private Path delegate(Path mount, Path selfCgroup) {
+        if (!Files.isRegularFile(mount.resolve("cgroup.controllers"))) {
+            log.info("No cgroup v2 hierarchy at {}; builds run without resource limits", mount);
+            return null;
+        }
+        try {
+            String self;
+            try (Stream<String> lines = Files.lines(selfCgroup)) {
+                self = lines.filter(line -> line.startsWith("0::")).findFirst().map(line -> line.substring(3)).orElse(null);
+            }
+            if (self == null) {
+                log.info("Builder is not in a cgroup v2 group; builds run without resource limits");
+                return null;
+            }
+            Path own = self.equals("/") ? mount : mount.resolve(self.substring(1));
+            Set<String> controllers = Set.of(Files.readString(own.resolve("cgroup.controllers")).trim().split("\\s+"));
+            if (!controllers.containsAll(List.of("cpu", "memory"))) {
+                log.info("cgroup {} has no cpu and memory controllers to delegate ({}); builds run without resource limits",
+                    own, controllers);
+                return null;
+            }
+            Path leaf = own.resolve("builder");
+            Files.createDirectories(leaf);
+            for (String pid : Files.readAllLines(own.resolve("cgroup.procs"))) {
+                if (!pid.isBlank()) {
+                    moveProcess(pid.trim(), leaf);
+                }
+            }
+            Files.writeString(own.resolve("cgroup.subtree_control"), "+cpu +memory");
+            removeStale(own);
+            log.info("Running builds in cgroups under {}", own);
+            return own;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Can't delegate cgroups to builds, running them without resource limits: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static void moveProcess(String pid, Path leaf) {
+        try {
+            Files.writeString(leaf.resolve("cgroup.procs"), pid);
+        } catch (IOException e) {
+            // Exited meanwhile
+            log.debug("Could not move process {} to {}: {}", pid, leaf, e.getMessage());
+        }
+    }
+
+    /**
+     * Removes groups left behind by builds of a previous run of this instance.
+     */
+    private static void removeStale(Path root) throws IOException {
+        try (Stream<Path> children = Files.list(root)) {
+            children.filter(child -> Files.isDirectory(child) && child.getFileName().toString().startsWith(BUILD_PREFIX))
+                .forEach(child -> new BuildCgroup(child).close());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.cfforge.builder.resources;
+
+import com.cfforge.builder.executor.BuildExecutorProperties;
+import com.cfforge.builder.executor.BuildFootprint;
+import com.cfforge.common.enums.Language;
+import com.cfforge.common.repository.BuildRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expected peak memory per language, from the builds that recorded one.
+ *
+ * The last {@code footprint-samples} peaks of each language are kept, seeded from the database at
+ * startup and extended as builds finish here. A language's footprint is their
+ * {@code footprint-percentile} times {@code footprint-headroom}; with fewer than
+ * {@code footprint-min-samples} it is {@code memory-per-build-mb}.
+ */
+@Component
+@Slf4j
+public class BuildFootprints implements BuildFootprint {
+
+    private final BuildRepository buildRepository;
+    private final BuildExecutorProperties properties;
+
+    // Guarded by this
+    private final Map<Language, Deque<Integer>> peaks = new EnumMap<>(Language.class);
+
+    public BuildFootprints(BuildRepository buildRepository, BuildExecutorProperties properties) {
+        this.buildRepository = buildRepository;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (Language language : Language.values()) {
+            try {
+                List<Integer> recent = buildRepository.findRecentPeakMemoryMb(language,
+                    PageRequest.of(0, Math.max(1, properties.getFootprintSamples())));
+                synchronized (this) {
+                    Deque<Integer> samples = peaks.computeIfAbsent(language, l -> new ArrayDeque<>());
+                    // Newest first from the query; keep the deque oldest first
+                    recent.forEach(samples::addFirst);
+                    trim(samples);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to load {} build footprints: {}", language, e.getMessage());
+            }
+        }
+    }
+
+    public synchronized void record(Language language, ResourceUsage usage) {
+        if (language == null || !usage.isMeasured()) {
+            return;
+        }
+        Deque<Integer> samples = peaks.computeIfAbsent(language, l -> new ArrayDeque<>());
+        samples.addLast(usage.peakMemoryMb());
+        trim(samples);
+    }
+
+    @Override
+    public synchronized long memoryMb(Language language) {
+        Deque<Integer> samples = language != null ? peaks.get(language) : null;
+        if (samples == null || samples.size() < Math.max(1, properties.getFootprintMinSamples())) {
+            return properties.getMemoryPerBuildMb();
+        }
+        int[] sorted = samples.stream().mapToInt(Integer::intValue).sorted().toArray();
+        int index = (int) Math.ceil(properties.getFootprintPercentile() * sorted.length) - 1;
+        int percentile = sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        return (long) Math.ceil(percentile * properties.getFootprintHeadroom());
+    }
+
+    private void trim(Deque<Integer> samples) {
+        while (samples.size() > Math.max(1, properties.getFootprintSamples())) {
+            samples.removeFirst();
+        }
+    }
+}
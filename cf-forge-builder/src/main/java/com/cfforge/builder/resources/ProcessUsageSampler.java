@@ -0,0 +1,56 @@
+package com.cfforge.builder.resources;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Tracks a build's resource use by sampling its process trees, for hosts without cgroup v2.
+ *
+ * Memory is the resident set summed over every live process in the trees, read from
+ * {@code /proc/<pid>/status}, and the peak is the largest sum seen. CPU time is the last
+ * reading of each process seen, so processes that start and exit between samples are missed.
+ */
+public class ProcessUsageSampler {
+
+    private static final Path PROC = Path.of("/proc");
+
+    private final Map<Long, Long> cpuMsByPid = new ConcurrentHashMap<>();
+    private volatile long peakMemoryBytes;
+
+    public void sample(Collection<Process> roots) {
+        long rss = 0;
+        for (Process root : roots) {
+            List<ProcessHandle> tree = Stream.concat(Stream.of(root.toHandle()), root.descendants()).toList();
+            for (ProcessHandle process : tree) {
+                rss += residentBytes(process.pid());
+                process.info().totalCpuDuration()
+                    .ifPresent(cpu -> cpuMsByPid.merge(process.pid(), cpu.toMillis(), Math::max));
+            }
+        }
+        if (rss > peakMemoryBytes) {
+            peakMemoryBytes = rss;
+        }
+    }
+
+    public ResourceUsage usage() {
+        return new ResourceUsage(peakMemoryBytes, cpuMsByPid.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    static long residentBytes(long pid) {
+        try (Stream<String> lines = Files.lines(PROC.resolve(Long.toString(pid)).resolve("status"))) {
+            return lines.filter(line -> line.startsWith("VmRSS:"))
+                .findFirst()
+                .map(line -> Long.parseLong(line.substring(6).trim().split("\\s+")[0]) * 1024)
+                .orElse(0L);
+        } catch (IOException | RuntimeException e) {
+            // Exited since the tree was listed, or not Linux
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.cfforge.builder.resources;
+
+/**
+ * What a build's tool processes used, zero where nothing was measured.
+ */
+public record ResourceUsage(long peakMemoryBytes, long cpuTimeMs) {
+
+    public static ResourceUsage none() {
+        return new ResourceUsage(0, 0);
+    }
+
+    public boolean isMeasured() {
+        return peakMemoryBytes > 0;
+    }
+
+    public int peakMemoryMb() {
+        return (int) ((peakMemoryBytes + 1024 * 1024 - 1) / (1024 * 1024));
+    }
+}
@@ -10,6 +10,8 @@ import java.util.Map;
 @Builder
 public class CveScanResult {
     private boolean scanned;
+    /** Findings reused from an earlier scan of the same lockfiles and vulnerability DB. */
+    private boolean cached;
     private List<CveScanner.Vulnerability> vulnerabilities;
     private Map<String, Integer> severityCounts;
     private boolean blocked;
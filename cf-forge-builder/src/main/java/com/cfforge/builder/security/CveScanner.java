@@ -1,23 +1,79 @@
 package com.cfforge.builder.security;
 
+import com.cfforge.builder.process.ProcessResult;
+import com.cfforge.builder.process.ProcessRunner;
+import com.cfforge.builder.process.ProcessSpec;
+import com.cfforge.common.storage.S3StorageService;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
+/**
+ * Scans a build's dependencies with Trivy and applies the severity gate.
+ *
+ * Vulnerability findings depend only on the dependency lockfiles and the vulnerability DB, so
+ * results are cached in object storage under a hash of both and reused until either changes.
+ * The gate itself is re-evaluated on every scan. With {@code server-url} set, Trivy runs in
+ * client mode against a long-running {@code trivy server} that keeps the DB loaded.
+ */
 @Component
 @Slf4j
 public class CveScanner {
 
-    @Value("${cf.forge.cve.scan-enabled:true}")
-    private boolean scanEnabled;
+    private static final Set<String> LOCKFILES = Set.of(
+        "pom.xml", "build.gradle", "build.gradle.kts", "gradle.lockfile",
+        "package.json", "package-lock.json", "yarn.lock", "pnpm-lock.yaml",
+        "requirements.txt", "poetry.lock", "Pipfile.lock",
+        "go.mod", "go.sum");
+    private static final Set<String> SKIPPED_DIRS = Set.of(".git", "node_modules", "target", "build", "venv", ".venv");
+    private static final int MAX_DEPTH = 8;
+    // Trivy publishes a new DB every six hours; used as the DB version when a client can't report one
+    private static final long DB_UPDATE_HOURS = 6;
 
-    @Value("${cf.forge.cve.block-severity:critical}")
-    private String blockSeverity;
+    private final S3StorageService storageService;
+    private final ObjectMapper objectMapper;
+    private final ProcessRunner processRunner;
+    private final boolean scanEnabled;
+    private final String blockSeverity;
+    private final boolean cacheEnabled;
+    private final String serverUrl;
+    private final Duration dbVersionTtl;
+
+    private volatile String dbVersion;
+    private volatile Instant dbVersionCheckedAt = Instant.EPOCH;
+
+    public CveScanner(S3StorageService storageService, ObjectMapper objectMapper, ProcessRunner processRunner,
+                      @Value("${cf.forge.cve.scan-enabled:true}") boolean scanEnabled,
+                      @Value("${cf.forge.cve.block-severity:critical}") String blockSeverity,
+                      @Value("${cf.forge.cve.cache-enabled:true}") boolean cacheEnabled,
+                      @Value("${cf.forge.cve.server-url:}") String serverUrl,
+                      @Value("${cf.forge.cve.db-version-ttl:PT15M}") Duration dbVersionTtl) {
+        this.storageService = storageService;
+        this.objectMapper = objectMapper;
+        this.processRunner = processRunner;
+        this.scanEnabled = scanEnabled;
+        this.blockSeverity = blockSeverity;
+        this.cacheEnabled = cacheEnabled;
+        this.serverUrl = serverUrl;
+        this.dbVersionTtl = dbVersionTtl;
+    }
 
     public CveScanResult scan(Path projectDir) {
         if (!scanEnabled) {
@@ -31,54 +87,35 @@ public class CveScanner {
         }
 
         try {
-            log.info("Running Trivy CVE scan on: {}", projectDir);
-            ProcessBuilder pb = new ProcessBuilder(
-                "trivy", "fs", "--format", "json", "--severity",
-                "CRITICAL,HIGH,MEDIUM,LOW", projectDir.toString()
-            );
-            pb.redirectErrorStream(true);
-
-            Process process = pb.start();
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line);
+            String cacheKey = cacheEnabled ? cacheKey(projectDir) : null;
+            List<Vulnerability> vulnerabilities = cacheKey != null ? loadCached(cacheKey) : null;
+            boolean cached = vulnerabilities != null;
+            int exitCode = 0;
+            if (!cached) {
+                log.info("Running Trivy CVE scan on: {}", projectDir);
+                Path report = Files.createTempFile("cfforge-trivy-", ".json");
+                try {
+                    exitCode = runTrivy(projectDir, report);
+                    try (InputStream in = Files.newInputStream(report)) {
+                        vulnerabilities = parseReport(objectMapper.getFactory().createParser(in));
+                    }
+                } finally {
+                    Files.deleteIfExists(report);
+                }
+                if (cacheKey != null && exitCode == 0) {
+                    store(cacheKey, vulnerabilities);
                 }
             }
+            return result(vulnerabilities, exitCode, cached);
 
-            int exitCode = process.waitFor();
-            List<Vulnerability> vulnerabilities = parseVulnerabilities(output.toString());
-            boolean blocked = shouldBlock(vulnerabilities);
-
-            Map<String, Integer> severityCounts = new LinkedHashMap<>();
-            severityCounts.put("CRITICAL", 0);
-            severityCounts.put("HIGH", 0);
-            severityCounts.put("MEDIUM", 0);
-            severityCounts.put("LOW", 0);
-            for (Vulnerability v : vulnerabilities) {
-                severityCounts.merge(v.severity().toUpperCase(), 1, Integer::sum);
-            }
-
-            String summary = String.format("Found %d vulnerabilities (C:%d H:%d M:%d L:%d)%s",
-                vulnerabilities.size(),
-                severityCounts.get("CRITICAL"),
-                severityCounts.get("HIGH"),
-                severityCounts.get("MEDIUM"),
-                severityCounts.get("LOW"),
-                blocked ? " — BLOCKED" : "");
-
-            log.info("CVE scan complete: {}", summary);
-
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             return CveScanResult.builder()
-                .scanned(true)
-                .vulnerabilities(vulnerabilities)
-                .severityCounts(severityCounts)
-                .blocked(blocked)
-                .summary(summary)
-                .exitCode(exitCode)
+                .scanned(false)
+                .vulnerabilities(List.of())
+                .blocked(false)
+                .summary("CVE scan cancelled")
                 .build();
-
         } catch (Exception e) {
             log.warn("Trivy not available or scan failed: {}", e.getMessage());
             return CveScanResult.builder()
@@ -90,6 +127,57 @@ public class CveScanner {
         }
     }
 
+    private CveScanResult result(List<Vulnerability> vulnerabilities, int exitCode, boolean cached) {
+        boolean blocked = shouldBlock(vulnerabilities);
+
+        Map<String, Integer> severityCounts = new LinkedHashMap<>();
+        severityCounts.put("CRITICAL", 0);
+        severityCounts.put("HIGH", 0);
+        severityCounts.put("MEDIUM", 0);
+        severityCounts.put("LOW", 0);
+        for (Vulnerability v : vulnerabilities) {
+            severityCounts.merge(v.severity().toUpperCase(), 1, Integer::sum);
+        }
+
+        String summary = String.format("Found %d vulnerabilities (C:%d H:%d M:%d L:%d)%s%s",
+            vulnerabilities.size(),
+            severityCounts.get("CRITICAL"),
+            severityCounts.get("HIGH"),
+            severityCounts.get("MEDIUM"),
+            severityCounts.get("LOW"),
+            cached ? " [cached]" : "",
+            blocked ? " — BLOCKED" : "");
+
+        log.info("CVE scan complete: {}", summary);
+
+        return CveScanResult.builder()
+            .scanned(true)
+            .cached(cached)
+            .vulnerabilities(vulnerabilities)
+            .severityCounts(severityCounts)
+            .blocked(blocked)
+            .summary(summary)
+            .exitCode(exitCode)
+            .build();
+    }
+
+    private int runTrivy(Path projectDir, Path report) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of(
+            "trivy", "fs", "--format", "json", "--severity", "CRITICAL,HIGH,MEDIUM,LOW",
+            "--output", report.toString()));
+        if (!serverUrl.isBlank()) {
+            command.addAll(List.of("--server", serverUrl));
+        }
+        command.add(projectDir.toString());
+        // An interrupted scan kills Trivy so a cancelled or timed-out build doesn't leave it running
+        try (ProcessResult result = processRunner.run(ProcessSpec.of(command).build())) {
+            if (result.exitCode() != 0) {
+                log.warn("Trivy exited with {}: {}", result.exitCode(), result.output().tail());
+            }
+            return result.exitCode();
+        }
+    }
+
     private boolean shouldBlock(List<Vulnerability> vulnerabilities) {
         if ("none".equalsIgnoreCase(blockSeverity)) return false;
 
@@ -105,32 +193,156 @@ public class CveScanner {
             .anyMatch(v -> blockLevels.contains(v.severity().toUpperCase()));
     }
 
-    private List<Vulnerability> parseVulnerabilities(String json) {
+    /**
+     * Reads every {@code Vulnerabilities} entry of a Trivy JSON report token by token, without
+     * materializing the report.
+     */
+    static List<Vulnerability> parseReport(JsonParser parser) throws IOException {
         List<Vulnerability> result = new ArrayList<>();
-        try {
-            // Simple JSON parsing for Trivy output format
-            // Trivy outputs {"Results": [{"Vulnerabilities": [...]}]}
-            int idx = json.indexOf("\"Vulnerabilities\"");
-            if (idx < 0) return result;
-
-            // Extract vulnerability IDs and severities via pattern matching
-            String remaining = json.substring(idx);
-            java.util.regex.Pattern idPattern = java.util.regex.Pattern.compile(
-                "\"VulnerabilityID\"\\s*:\\s*\"([^\"]+)\"[^}]*?\"Severity\"\\s*:\\s*\"([^\"]+)\"[^}]*?\"PkgName\"\\s*:\\s*\"([^\"]+)\"");
-            var matcher = idPattern.matcher(remaining);
-            while (matcher.find()) {
-                result.add(new Vulnerability(
-                    matcher.group(1),
-                    matcher.group(2),
-                    matcher.group(3),
-                    ""
-                ));
+        try (parser) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.FIELD_NAME || !"Vulnerabilities".equals(parser.currentName())) {
+                    continue;
+                }
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    result.add(readVulnerability(parser));
+                }
             }
-        } catch (Exception e) {
-            log.debug("Failed to parse Trivy JSON output", e);
         }
         return result;
     }
 
+    private static Vulnerability readVulnerability(JsonParser parser) throws IOException {
+        String id = null;
+        String severity = "UNKNOWN";
+        String packageName = null;
+        String fixedVersion = "";
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "VulnerabilityID" -> id = parser.getValueAsString();
+                case "Severity" -> severity = parser.getValueAsString(severity);
+                case "PkgName" -> packageName = parser.getValueAsString();
+                case "FixedVersion" -> fixedVersion = parser.getValueAsString(fixedVersion);
+                default -> parser.skipChildren();
+            }
+        }
+        return new Vulnerability(id, severity, packageName, fixedVersion);
+    }
+
+    /**
+     * Hash of the dependency lockfiles and the vulnerability DB version, or null when either
+     * is unknown and the result must not be cached.
+     */
+    String cacheKey(Path projectDir) throws IOException {
+        String lockfiles = lockfileHash(projectDir);
+        String db = currentDbVersion();
+        if (lockfiles == null || db == null) {
+            return null;
+        }
+        return sha256(lockfiles + "\0" + db + "\0" + serverUrl);
+    }
+
+    static String lockfileHash(Path projectDir) throws IOException {
+        List<Path> lockfiles;
+        try (Stream<Path> paths = Files.find(projectDir, MAX_DEPTH,
+                (path, attrs) -> attrs.isRegularFile() && LOCKFILES.contains(path.getFileName().toString())
+                    && !isSkipped(projectDir.relativize(path)))) {
+            lockfiles = paths.sorted().toList();
+        }
+        if (lockfiles.isEmpty()) {
+            return null;
+        }
+        MessageDigest digest = newDigest();
+        for (Path lockfile : lockfiles) {
+            digest.update(projectDir.relativize(lockfile).toString().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(Files.readAllBytes(lockfile));
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static boolean isSkipped(Path relative) {
+        for (Path segment : relative) {
+            if (SKIPPED_DIRS.contains(segment.toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The DB's last update time as reported by {@code trivy version}, re-checked every
+     * {@code db-version-ttl}. In client mode the DB lives on the server, so the six-hour DB
+     * publishing window stands in for it.
+     */
+    private String currentDbVersion() {
+        if (Instant.now().isAfter(dbVersionCheckedAt.plus(dbVersionTtl))) {
+            dbVersion = queryDbVersion();
+            dbVersionCheckedAt = Instant.now();
+        }
+        if (dbVersion == null && !serverUrl.isBlank()) {
+            return "window-" + TimeUnit.MILLISECONDS.toHours(System.currentTimeMillis()) / DB_UPDATE_HOURS;
+        }
+        return dbVersion;
+    }
+
+    private String queryDbVersion() {
+        try (ProcessResult result = processRunner.run(ProcessSpec.of(List.of("trivy", "version", "--format", "json"))
+                .discardErrors(true)
+                .timeout(Duration.ofSeconds(30))
+                .build())) {
+            JsonNode version = objectMapper.readTree(result.output().text());
+            JsonNode updatedAt = version.path("VulnerabilityDB").path("UpdatedAt");
+            return updatedAt.isTextual() ? updatedAt.asText() : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            log.debug("Could not determine Trivy DB version: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private List<Vulnerability> loadCached(String cacheKey) {
+        try {
+            byte[] json = storageService.getObject(objectKey(cacheKey));
+            return objectMapper.readValue(json, new TypeReference<List<Vulnerability>>() {});
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private void store(String cacheKey, List<Vulnerability> vulnerabilities) {
+        try {
+            storageService.putObject(objectKey(cacheKey), objectMapper.writeValueAsBytes(vulnerabilities));
+        } catch (Exception e) {
+            log.warn("Failed to cache CVE scan result: {}", e.getMessage());
+        }
+    }
+
+    static String objectKey(String cacheKey) {
+        return "cve-scans/" + cacheKey + ".json";
+    }
+
+    private static String sha256(String value) {
+        return HexFormat.of().formatHex(newDigest().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     public record Vulnerability(String id, String severity, String packageName, String fixedVersion) {}
 }
@@ -1,61 +1,129 @@
 package com.cfforge.builder.security;
 
+import com.cfforge.builder.process.ProcessResult;
+import com.cfforge.builder.process.ProcessRunner;
+import com.cfforge.builder.process.ProcessSpec;
+import com.cfforge.builder.security.sbom.LockfileSbomEngine;
 import com.cfforge.common.enums.Language;
 import com.cfforge.common.storage.S3StorageService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.UUID;
 
+/**
+ * Produces the CycloneDX SBOM of a build. Java builds that ran the CycloneDX plugin reuse its
+ * output; otherwise the in-process {@link LockfileSbomEngine} reads the lockfiles, and the
+ * ecosystem's external CycloneDX tool is only started when the engine has nothing to read.
+ */
 @Component
 @Slf4j
 public class SbomGenerator {
 
     private final S3StorageService storageService;
-
-    public SbomGenerator(S3StorageService storageService) {
+    private final LockfileSbomEngine nativeEngine;
+    private final ProcessRunner processRunner;
+    private final boolean nativeEnabled;
+    private final boolean toolFallback;
+
+    public SbomGenerator(S3StorageService storageService, LockfileSbomEngine nativeEngine, ProcessRunner processRunner,
+                         @Value("${cf.forge.sbom.native-enabled:true}") boolean nativeEnabled,
+                         @Value("${cf.forge.sbom.tool-fallback:true}") boolean toolFallback) {
         this.storageService = storageService;
+        this.nativeEngine = nativeEngine;
+        this.processRunner = processRunner;
+        this.nativeEnabled = nativeEnabled;
+        this.toolFallback = toolFallback;
     }
 
-    public String generate(Path workDir, Language language, UUID projectId, UUID buildId) {
+    /**
+     * @param artifact the file the build produced, or null
+     */
+    public String generate(Path workDir, Language language, Path artifact, UUID projectId, UUID buildId) {
+        Path nativeSbom = null;
         try {
-            Path sbomFile = switch (language) {
-                case JAVA -> generateMavenSbom(workDir);
-                case NODEJS -> generateNpmSbom(workDir);
-                case PYTHON -> generatePipSbom(workDir);
-                case GO -> generateGoSbom(workDir);
-                default -> null;
-            };
+            // Java builds with sbom-in-build already ran the CycloneDX plugin; the pipeline clears older output
+            Path sbomFile = language == Language.JAVA ? existing(workDir.resolve("target/sbom.json")) : null;
+            if (sbomFile == null && nativeEnabled) {
+                nativeSbom = Files.createTempFile("cfforge-sbom-", ".json");
+                sbomFile = generateNative(workDir, language, artifact, projectId, nativeSbom);
+            }
+            if (sbomFile == null && toolFallback) {
+                sbomFile = switch (language) {
+                    case JAVA -> generateMavenSbom(workDir);
+                    case NODEJS -> generateNpmSbom(workDir);
+                    case PYTHON -> generatePipSbom(workDir);
+                    case GO -> generateGoSbom(workDir);
+                    default -> null;
+                };
+            }
 
             if (sbomFile != null && Files.exists(sbomFile)) {
-                byte[] sbomContent = Files.readAllBytes(sbomFile);
-                String key = "sboms/" + projectId + "/" + buildId + "/sbom.json";
-                storageService.putObject(key, sbomContent);
-                log.info("SBOM generated and uploaded: {} ({} bytes)", key, sbomContent.length);
+                long size = Files.size(sbomFile);
+                String key = key(projectId, buildId);
+                try (var in = Files.newInputStream(sbomFile)) {
+                    storageService.putObject(key, in, size);
+                }
+                log.info("SBOM generated and uploaded: {} ({} bytes)", key, size);
                 return key;
             }
 
             log.warn("SBOM generation produced no output for language: {}", language);
             return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("SBOM generation for build {} cancelled", buildId);
+            return null;
         } catch (Exception e) {
             log.warn("SBOM generation failed: {}", e.getMessage());
             return null;
+        } finally {
+            if (nativeSbom != null) {
+                try {
+                    Files.deleteIfExists(nativeSbom);
+                } catch (Exception ignored) {
+                }
+            }
         }
     }
 
+    /**
+     * Written outside the work directory so the concurrently running CVE scan doesn't pick it up.
+     */
+    private Path generateNative(Path workDir, Language language, Path artifact, UUID projectId, Path output) {
+        long start = System.nanoTime();
+        try (OutputStream out = Files.newOutputStream(output)) {
+            int components = nativeEngine.generate(workDir, language, artifact, projectId.toString(), out);
+            if (components < 0) {
+                return null;
+            }
+            log.info("Native SBOM for project {} with {} components in {}ms", projectId, components,
+                (System.nanoTime() - start) / 1_000_000);
+            return output;
+        } catch (Exception e) {
+            log.warn("Native SBOM generation failed, falling back to CycloneDX tooling: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static Path existing(Path path) {
+        return Files.exists(path) ? path : null;
+    }
+
+    public static String key(UUID projectId, UUID buildId) {
+        return "sboms/" + projectId + "/" + buildId + "/sbom.json";
+    }
+
     private Path generateMavenSbom(Path workDir) throws Exception {
         // Use CycloneDX Maven plugin
-        ProcessBuilder pb = new ProcessBuilder(
-            "mvn", "org.cyclonedx:cyclonedx-maven-plugin:makeBom",
-            "-DoutputFormat=json", "-DoutputName=sbom"
-        );
-        pb.directory(workDir.toFile());
-        pb.redirectErrorStream(true);
-        runProcess(pb);
+        Files.deleteIfExists(workDir.resolve("target/sbom.json"));
+        runProcess(List.of("mvn", "org.cyclonedx:cyclonedx-maven-plugin:makeBom",
+            "-DoutputFormat=json", "-DoutputName=sbom"), workDir);
 
         Path sbomPath = workDir.resolve("target/sbom.json");
         return Files.exists(sbomPath) ? sbomPath : null;
@@ -64,47 +132,36 @@ public class SbomGenerator {
     private Path generateNpmSbom(Path workDir) throws Exception {
         // Use npm sbom or cyclonedx-npm
         Path sbomPath = workDir.resolve("sbom.json");
-        ProcessBuilder pb = new ProcessBuilder(
-            "npx", "@cyclonedx/cyclonedx-npm", "--output-file", sbomPath.toString()
-        );
-        pb.directory(workDir.toFile());
-        pb.redirectErrorStream(true);
-        runProcess(pb);
+        Files.deleteIfExists(sbomPath);
+        runProcess(List.of("npx", "@cyclonedx/cyclonedx-npm", "--output-file", sbomPath.toString()), workDir);
 
         return Files.exists(sbomPath) ? sbomPath : null;
     }
 
     private Path generatePipSbom(Path workDir) throws Exception {
         Path sbomPath = workDir.resolve("sbom.json");
-        ProcessBuilder pb = new ProcessBuilder(
-            "cyclonedx-py", "-r", "--format", "json", "-o", sbomPath.toString()
-        );
-        pb.directory(workDir.toFile());
-        pb.redirectErrorStream(true);
-        runProcess(pb);
+        Files.deleteIfExists(sbomPath);
+        runProcess(List.of("cyclonedx-py", "-r", "--format", "json", "-o", sbomPath.toString()), workDir);
 
         return Files.exists(sbomPath) ? sbomPath : null;
     }
 
     private Path generateGoSbom(Path workDir) throws Exception {
         Path sbomPath = workDir.resolve("sbom.json");
-        ProcessBuilder pb = new ProcessBuilder(
-            "cyclonedx-gomod", "app", "-json", "-output", sbomPath.toString()
-        );
-        pb.directory(workDir.toFile());
-        pb.redirectErrorStream(true);
-        runProcess(pb);
+        Files.deleteIfExists(sbomPath);
+        runProcess(List.of("cyclonedx-gomod", "app", "-json", "-output", sbomPath.toString()), workDir);
 
         return Files.exists(sbomPath) ? sbomPath : null;
     }
 
-    private void runProcess(ProcessBuilder pb) throws Exception {
-        Process process = pb.start();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            while (reader.readLine() != null) {
-                // consume output
+    /**
+     * An interrupted generation kills the tool and its children.
+     */
+    private void runProcess(List<String> command, Path workDir) throws Exception {
+        try (ProcessResult result = processRunner.run(ProcessSpec.of(command).directory(workDir).build())) {
+            if (result.exitCode() != 0) {
+                log.debug("{} exited with {}: {}", command.get(0), result.exitCode(), result.output().tail());
             }
         }
-        process.waitFor();
     }
 }
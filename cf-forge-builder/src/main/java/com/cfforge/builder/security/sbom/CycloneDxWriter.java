@@ -0,0 +1,89 @@
+package com.cfforge.builder.security.sbom;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Writes a CycloneDX 1.5 JSON document component by component, so the SBOM is never held in
+ * memory. Components with a purl already written are skipped.
+ */
+public class CycloneDxWriter implements Consumer<SbomComponent>, Closeable {
+
+    private final JsonGenerator json;
+    private final Set<String> written = new HashSet<>();
+
+    public CycloneDxWriter(JsonFactory factory, OutputStream out, String applicationName) throws IOException {
+        this.json = factory.createGenerator(out, JsonEncoding.UTF8);
+        json.writeStartObject();
+        json.writeStringField("bomFormat", "CycloneDX");
+        json.writeStringField("specVersion", "1.5");
+        json.writeStringField("serialNumber", "urn:uuid:" + UUID.randomUUID());
+        json.writeNumberField("version", 1);
+        json.writeObjectFieldStart("metadata");
+        json.writeStringField("timestamp", Instant.now().toString());
+        json.writeObjectFieldStart("tools");
+        json.writeArrayFieldStart("components");
+        json.writeStartObject();
+        json.writeStringField("type", "application");
+        json.writeStringField("name", "cf-forge-builder");
+        json.writeEndObject();
+        json.writeEndArray();
+        json.writeEndObject();
+        json.writeObjectFieldStart("component");
+        json.writeStringField("type", "application");
+        json.writeStringField("name", applicationName);
+        json.writeEndObject();
+        json.writeEndObject();
+        json.writeArrayFieldStart("components");
+    }
+
+    @Override
+    public void accept(SbomComponent component) {
+        if (component.version() == null || component.version().isBlank() || !written.add(component.purl())) {
+            return;
+        }
+        try {
+            json.writeStartObject();
+            json.writeStringField("type", "library");
+            json.writeStringField("bom-ref", component.purl());
+            if (component.group() != null) {
+                json.writeStringField("group", component.group());
+            }
+            json.writeStringField("name", component.name());
+            json.writeStringField("version", component.version());
+            json.writeStringField("purl", component.purl());
+            if (component.hash() != null) {
+                json.writeArrayFieldStart("hashes");
+                json.writeStartObject();
+                json.writeStringField("alg", component.hashAlgorithm());
+                json.writeStringField("content", component.hash());
+                json.writeEndObject();
+                json.writeEndArray();
+            }
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write SBOM component " + component.purl(), e);
+        }
+    }
+
+    public int count() {
+        return written.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        json.writeEndArray();
+        json.writeEndObject();
+        json.close();
+    }
+}
@@ -0,0 +1,409 @@
+package com.cfforge.builder.security.sbom;
+
+import com.cfforge.common.enums.Language;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Builds a CycloneDX SBOM in-process from what the build already left on disk, without starting
+ * any external tool or touching the network:
+ * <ul>
+ *   <li>Java: the libraries nested in the build's packaged jar ({@code BOOT-INF/lib}, {@code WEB-INF/lib}),
+ *       i.e. the resolved runtime tree, falling back to the versioned dependencies in {@code pom.xml}</li>
+ *   <li>Node.js: {@code package-lock.json} (v1 to v3), excluding dev dependencies</li>
+ *   <li>Python: {@code poetry.lock}, or the pinned entries of {@code requirements.txt}</li>
+ *   <li>Go: the modules listed in {@code go.sum}</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class LockfileSbomEngine {
+
+    private static final Pattern REQUIREMENT = Pattern.compile("^([A-Za-z0-9][A-Za-z0-9._-]*)(?:\\[[^]]*])?\\s*===?\\s*([^\\s;#]+)");
+    private static final Pattern TOML_STRING = Pattern.compile("^(name|version)\\s*=\\s*\"([^\"]*)\"");
+    private static final Pattern PROPERTY = Pattern.compile("\\$\\{([^}]+)}");
+
+    private final JsonFactory jsonFactory;
+    private final ObjectMapper objectMapper;
+
+    public LockfileSbomEngine(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Writes the SBOM of the build in {@code workDir} to {@code out}.
+     *
+     * @param artifact the file the build produced, or null; a Java jar is read instead of the pom
+     * @return the number of components, or -1 if there was no input to read; nothing is written then
+     */
+    public int generate(Path workDir, Language language, Path artifact, String applicationName,
+                        OutputStream out) throws IOException {
+        Path input = input(workDir, language, artifact);
+        if (input == null) {
+            return -1;
+        }
+        try (CycloneDxWriter writer = new CycloneDxWriter(jsonFactory, out, applicationName)) {
+            switch (language) {
+                case JAVA -> {
+                    if (input.toString().endsWith(".jar")) {
+                        readPackagedJar(input, writer);
+                    } else {
+                        readPom(input, writer);
+                    }
+                }
+                case NODEJS -> readPackageLock(input, writer);
+                case PYTHON -> {
+                    if (input.getFileName().toString().equals("poetry.lock")) {
+                        readPoetryLock(input, writer);
+                    } else {
+                        readRequirements(input, writer);
+                    }
+                }
+                case GO -> readGoSum(input, writer);
+                default -> { }
+            }
+            log.debug("Native SBOM for {} read {} components from {}", applicationName, writer.count(), input);
+            return writer.count();
+        }
+    }
+
+    private static Path input(Path workDir, Language language, Path artifact) {
+        return switch (language) {
+            case JAVA -> {
+                // The work directory may still hold jars of earlier builds, so only the build's own artifact is read
+                Path jar = artifact != null && artifact.toString().endsWith(".jar") ? existing(artifact) : null;
+                yield jar != null ? jar : existing(workDir.resolve("pom.xml"));
+            }
+            case NODEJS -> existing(workDir.resolve("package-lock.json"));
+            case PYTHON -> {
+                Path poetry = existing(workDir.resolve("poetry.lock"));
+                yield poetry != null ? poetry : existing(workDir.resolve("requirements.txt"));
+            }
+            case GO -> existing(workDir.resolve("go.sum"));
+            default -> null;
+        };
+    }
+
+    private static Path existing(Path path) {
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    /**
+     * Reads each nested library's {@code pom.properties} and hashes it while streaming through
+     * the outer jar once. Falls back to {@code pom.xml} for thin jars without nested libraries.
+     */
+    static void readPackagedJar(Path jar, Consumer<SbomComponent> sink) throws IOException {
+        boolean nested = false;
+        try (ZipInputStream outer = new ZipInputStream(Files.newInputStream(jar))) {
+            ZipEntry entry;
+            while ((entry = outer.getNextEntry()) != null) {
+                String name = entry.getName();
+                if (!name.endsWith(".jar") || !(name.startsWith("BOOT-INF/lib/") || name.startsWith("WEB-INF/lib/"))) {
+                    continue;
+                }
+                nested = true;
+                String fileName = name.substring(name.lastIndexOf('/') + 1);
+                MessageDigest digest = sha256();
+                Properties coordinates = readPomProperties(new DigestInputStream(new NonClosing(outer), digest), fileName);
+                if (coordinates == null) {
+                    log.debug("No Maven coordinates in {}, leaving it out of the SBOM", name);
+                    continue;
+                }
+                sink.accept(SbomComponent.maven(coordinates.getProperty("groupId"), coordinates.getProperty("artifactId"),
+                    coordinates.getProperty("version"), HexFormat.of().formatHex(digest.digest())));
+            }
+        }
+        if (!nested) {
+            Path pom = jar.getParent().getParent().resolve("pom.xml");
+            if (Files.isRegularFile(pom)) {
+                readPom(pom, sink);
+            }
+        }
+    }
+
+    /**
+     * Coordinates of a nested jar, preferring the {@code pom.properties} whose artifactId the file
+     * name starts with when shading put several in one jar. Always drains the stream so the
+     * digest covers the whole file.
+     */
+    private static Properties readPomProperties(InputStream in, String fileName) throws IOException {
+        Properties match = null;
+        Properties first = null;
+        ZipInputStream zip = new ZipInputStream(in);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            if (entry.getName().startsWith("META-INF/maven/") && entry.getName().endsWith("/pom.properties")) {
+                Properties properties = new Properties();
+                properties.load(zip);
+                if (first == null) {
+                    first = properties;
+                }
+                String artifactId = properties.getProperty("artifactId");
+                if (match == null && artifactId != null && fileName.startsWith(artifactId + "-")) {
+                    match = properties;
+                }
+            }
+        }
+        in.transferTo(OutputStream.nullOutputStream());
+        return match != null ? match : first;
+    }
+
+    /**
+     * Declared runtime dependencies with a version that resolves from the pom's own properties.
+     * Versions managed by a parent or BOM are unknown here and those dependencies are skipped.
+     */
+    static void readPom(Path pom, Consumer<SbomComponent> sink) throws IOException {
+        Document document;
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            document = factory.newDocumentBuilder().parse(pom.toFile());
+        } catch (Exception e) {
+            throw new IOException("Failed to parse " + pom, e);
+        }
+        Element project = document.getDocumentElement();
+        Map<String, String> properties = new HashMap<>();
+        Element props = child(project, "properties");
+        if (props != null) {
+            NodeList list = props.getChildNodes();
+            for (int i = 0; i < list.getLength(); i++) {
+                if (list.item(i) instanceof Element property) {
+                    properties.put(property.getTagName(), property.getTextContent().trim());
+                }
+            }
+        }
+        Element parent = child(project, "parent");
+        String projectVersion = text(project, "version");
+        if (projectVersion == null && parent != null) {
+            projectVersion = text(parent, "version");
+        }
+        if (projectVersion != null) {
+            properties.put("project.version", projectVersion);
+        }
+
+        Element dependencies = child(project, "dependencies");
+        if (dependencies == null) {
+            return;
+        }
+        NodeList list = dependencies.getElementsByTagName("dependency");
+        for (int i = 0; i < list.getLength(); i++) {
+            Element dependency = (Element) list.item(i);
+            String scope = text(dependency, "scope");
+            if ("test".equals(scope) || "provided".equals(scope)) {
+                continue;
+            }
+            String version = resolve(text(dependency, "version"), properties);
+            if (version == null || version.contains("${")) {
+                continue;
+            }
+            sink.accept(SbomComponent.maven(resolve(text(dependency, "groupId"), properties),
+                resolve(text(dependency, "artifactId"), properties), version, null));
+        }
+    }
+
+    private static Element child(Element parent, String name) {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element element && element.getTagName().equals(name)) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private static String text(Element parent, String name) {
+        Element element = child(parent, name);
+        return element != null ? element.getTextContent().trim() : null;
+    }
+
+    private static String resolve(String value, Map<String, String> properties) {
+        if (value == null) {
+            return null;
+        }
+        Matcher matcher = PROPERTY.matcher(value);
+        StringBuilder resolved = new StringBuilder();
+        while (matcher.find()) {
+            String replacement = properties.getOrDefault(matcher.group(1), matcher.group());
+            matcher.appendReplacement(resolved, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(resolved);
+        return resolved.toString();
+    }
+
+    /**
+     * Streams through the lockfile reading one package entry at a time. Lockfile v2/v3 list
+     * every installed package under {@code packages}; v1 nests them under {@code dependencies}.
+     */
+    void readPackageLock(Path lockfile, Consumer<SbomComponent> sink) throws IOException {
+        boolean sawPackages = false;
+        try (JsonParser parser = jsonFactory.createParser(lockfile.toFile())) {
+            parser.setCodec(objectMapper);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected package-lock.json layout");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("packages") && value == JsonToken.START_OBJECT) {
+                    sawPackages = true;
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String path = parser.currentName();
+                        parser.nextToken();
+                        JsonNode entry = parser.readValueAsTree();
+                        if (path.isEmpty() || entry.path("link").asBoolean() || entry.path("dev").asBoolean()) {
+                            continue;
+                        }
+                        String name = entry.hasNonNull("name") ? entry.get("name").asText()
+                            : path.substring(path.lastIndexOf("node_modules/") + "node_modules/".length());
+                        sink.accept(npm(name, entry));
+                    }
+                } else if (field.equals("dependencies") && value == JsonToken.START_OBJECT && !sawPackages) {
+                    readLegacyDependencies(parser.readValueAsTree(), sink);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    private static void readLegacyDependencies(JsonNode dependencies, Consumer<SbomComponent> sink) {
+        Iterator<Map.Entry<String, JsonNode>> fields = dependencies.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> dependency = fields.next();
+            JsonNode entry = dependency.getValue();
+            if (!entry.path("dev").asBoolean()) {
+                sink.accept(npm(dependency.getKey(), entry));
+            }
+            if (entry.has("dependencies")) {
+                readLegacyDependencies(entry.get("dependencies"), sink);
+            }
+        }
+    }
+
+    private static SbomComponent npm(String name, JsonNode entry) {
+        String version = entry.path("version").asText(null);
+        String integrity = entry.path("integrity").asText("");
+        int dash = integrity.indexOf('-');
+        if (dash > 0) {
+            try {
+                String algorithm = integrity.substring(0, dash).toUpperCase().replace("SHA", "SHA-");
+                String hex = HexFormat.of().formatHex(Base64.getDecoder().decode(integrity.substring(dash + 1)));
+                return SbomComponent.npm(name, version, algorithm, hex);
+            } catch (IllegalArgumentException e) {
+                // Malformed integrity, keep the component without a hash
+            }
+        }
+        return SbomComponent.npm(name, version, null, null);
+    }
+
+    static void readPoetryLock(Path lockfile, Consumer<SbomComponent> sink) throws IOException {
+        String name = null;
+        String version = null;
+        try (Stream<String> lines = Files.lines(lockfile)) {
+            for (Iterator<String> it = lines.iterator(); it.hasNext(); ) {
+                String line = it.next().strip();
+                if (line.startsWith("[")) {
+                    if (name != null && !name.isEmpty() && version != null) {
+                        sink.accept(SbomComponent.pypi(name, version));
+                    }
+                    // Only the top-level keys of a [[package]] table describe the package
+                    boolean packageTable = line.equals("[[package]]");
+                    name = packageTable ? "" : null;
+                    version = null;
+                    continue;
+                }
+                Matcher matcher = TOML_STRING.matcher(line);
+                if (name != null && matcher.find()) {
+                    if (matcher.group(1).equals("name") && name.isEmpty()) {
+                        name = matcher.group(2);
+                    } else if (matcher.group(1).equals("version") && version == null) {
+                        version = matcher.group(2);
+                    }
+                }
+            }
+        }
+        if (name != null && !name.isEmpty() && version != null) {
+            sink.accept(SbomComponent.pypi(name, version));
+        }
+    }
+
+    /**
+     * Only pinned requirements ({@code ==} or {@code ===}) carry an exact version; ranges and
+     * options are skipped.
+     */
+    static void readRequirements(Path requirements, Consumer<SbomComponent> sink) throws IOException {
+        for (String line : Files.readAllLines(requirements)) {
+            Matcher matcher = REQUIREMENT.matcher(line.strip());
+            if (matcher.find()) {
+                sink.accept(SbomComponent.pypi(matcher.group(1), matcher.group(2)));
+            }
+        }
+    }
+
+    /**
+     * Lines ending in {@code /go.mod} only record a module's go.mod, needed for version
+     * selection; the others are modules whose code is part of the build.
+     */
+    static void readGoSum(Path goSum, Consumer<SbomComponent> sink) throws IOException {
+        for (String line : Files.readAllLines(goSum)) {
+            List<String> parts = List.of(line.strip().split("\\s+"));
+            if (parts.size() == 3 && !parts.get(1).endsWith("/go.mod")) {
+                sink.accept(SbomComponent.golang(parts.get(0), parts.get(1)));
+            }
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /** Keeps the nested ZipInputStream from closing the outer jar's stream. */
+    private static final class NonClosing extends FilterInputStream {
+
+        NonClosing(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
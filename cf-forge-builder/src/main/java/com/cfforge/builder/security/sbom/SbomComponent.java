@@ -0,0 +1,45 @@
+package com.cfforge.builder.security.sbom;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * A library entry of a CycloneDX SBOM.
+ *
+ * @param group         Maven group or npm scope, null if the ecosystem has none
+ * @param hashAlgorithm CycloneDX algorithm name such as {@code SHA-512}, null without a hash
+ * @param hash          lowercase hex digest
+ */
+public record SbomComponent(String group, String name, String version, String purl,
+                            String hashAlgorithm, String hash) {
+
+    public static SbomComponent maven(String groupId, String artifactId, String version, String sha256) {
+        return new SbomComponent(groupId, artifactId, version,
+            "pkg:maven/" + groupId + "/" + artifactId + "@" + version, sha256 != null ? "SHA-256" : null, sha256);
+    }
+
+    public static SbomComponent npm(String packageName, String version, String hashAlgorithm, String hash) {
+        String scope = null;
+        String name = packageName;
+        if (packageName.startsWith("@") && packageName.contains("/")) {
+            scope = packageName.substring(0, packageName.indexOf('/'));
+            name = packageName.substring(packageName.indexOf('/') + 1);
+        }
+        String purl = "pkg:npm/" + (scope != null ? encode(scope) + "/" : "") + name + "@" + version;
+        return new SbomComponent(scope, name, version, purl, hashAlgorithm, hash);
+    }
+
+    public static SbomComponent pypi(String name, String version) {
+        String normalized = name.toLowerCase(Locale.ROOT).replaceAll("[-_.]+", "-");
+        return new SbomComponent(null, normalized, version, "pkg:pypi/" + normalized + "@" + version, null, null);
+    }
+
+    public static SbomComponent golang(String module, String version) {
+        return new SbomComponent(null, module, version, "pkg:golang/" + module + "@" + version, null, null);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,289 @@
+package com.cfforge.builder.source;
+
+import com.cfforge.builder.model.BuildContext;
+import com.cfforge.common.storage.S3StorageService;
+import com.cfforge.common.storage.StoredObject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * First stage of every build pipeline: writes the project's workspace files into the build
+ * directory.
+ *
+ * Downloads start while the listing is still paging and run on virtual threads, at most
+ * {@code concurrency} at a time, each streamed straight to disk. Every file is checked against
+ * the listed size and, for single-part uploads whose ETag is the content MD5, against its hash.
+ * The SHA-256 of every file feeds a tree hash that identifies the exact source snapshot.
+ *
+ * The work directory may hold the sources of an earlier build. A manifest records each file's
+ * stored version (ETag, or size and modification time) and content hash. A file is downloaded
+ * again only if its stored version changed or its copy on disk was modified. Files no longer in
+ * the workspace are deleted, and nothing else in the directory is touched, so build outputs stay
+ * for incremental compilation.
+ */
+@Component
+@Slf4j
+public class SourceMaterializer {
+
+    private static final Pattern MD5_ETAG = Pattern.compile("[0-9a-fA-F]{32}");
+    static final String MANIFEST = ".cfforge-sources";
+
+    private final S3StorageService storageService;
+    private final String bucket;
+    private final int concurrency;
+
+    public SourceMaterializer(S3StorageService storageService,
+                              @Value("${cf.forge.sources.bucket:cf-forge-workspaces}") String bucket,
+                              @Value("${cf.forge.sources.concurrency:16}") int concurrency) {
+        this.storageService = storageService;
+        this.bucket = bucket;
+        this.concurrency = concurrency;
+    }
+
+    public Result materialize(BuildContext context) {
+        String prefix = "workspaces/" + context.getProjectId() + "/";
+        Path workDir = context.getWorkDir();
+        long start = System.currentTimeMillis();
+        AtomicLong bytes = new AtomicLong();
+        AtomicInteger downloaded = new AtomicInteger();
+        Map<String, SyncedFile> previous = readManifest(workDir);
+        Map<String, SyncedFile> synced = new ConcurrentSkipListMap<>();
+        Semaphore permits = new Semaphore(concurrency);
+        List<Future<?>> downloads = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             Stream<StoredObject> objects = storageService.streamObjects(bucket, prefix)) {
+            Iterator<StoredObject> it = objects.iterator();
+            while (it.hasNext()) {
+                StoredObject object = it.next();
+                String relativePath = object.key().substring(prefix.length());
+                Path target = resolve(workDir, relativePath);
+                if (target == null || relativePath.equals(MANIFEST)) {
+                    log.warn("Skipping unsafe source path {}", object.key());
+                    continue;
+                }
+                bytes.addAndGet(object.size());
+                String version = version(object);
+                SyncedFile known = previous.get(relativePath);
+                if (known != null && known.version().equals(version) && known.matches(target)) {
+                    synced.put(relativePath, known);
+                    continue;
+                }
+                // Bounds in-flight downloads and holds back the listing when storage is the bottleneck
+                permits.acquire();
+                downloads.add(executor.submit(() -> {
+                    try {
+                        MessageDigest sha256 = digest("SHA-256");
+                        long size = download(object, target, sha256);
+                        synced.put(relativePath, new SyncedFile(version, HexFormat.of().formatHex(sha256.digest()),
+                            size, Files.getLastModifiedTime(target).toMillis()));
+                        downloaded.incrementAndGet();
+                        return null;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<?> download : downloads) {
+                download.get();
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to materialize sources: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while materializing sources", e);
+        }
+
+        int removed = removeStale(workDir, previous, synced);
+        writeManifest(workDir, synced);
+        Map<String, String> digests = new TreeMap<>();
+        synced.forEach((path, file) -> digests.put(path, file.sha256()));
+        Result result = new Result(digests.size(), bytes.get(), System.currentTimeMillis() - start,
+            treeHash(digests), downloaded.get(), removed, digests);
+        log.info("Materialized project {}: {}", context.getProjectId(), result.describe());
+        return result;
+    }
+
+    /**
+     * Deletes files that were synced by an earlier build but are no longer in the workspace.
+     */
+    private static int removeStale(Path workDir, Map<String, SyncedFile> previous, Map<String, SyncedFile> synced) {
+        int removed = 0;
+        for (String path : previous.keySet()) {
+            Path target = resolve(workDir, path);
+            if (synced.containsKey(path) || target == null) {
+                continue;
+            }
+            try {
+                if (Files.deleteIfExists(target)) {
+                    removed++;
+                }
+            } catch (IOException e) {
+                log.warn("Could not remove stale source {}: {}", target, e.getMessage());
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Identifies the stored version of an object: the ETag where storage provides one, otherwise
+     * size and modification time.
+     */
+    private static String version(StoredObject object) {
+        if (object.etag() != null) {
+            return object.etag().replace("\"", "");
+        }
+        long modified = object.lastModified() != null ? object.lastModified().toEpochMilli() : 0;
+        return object.size() + "@" + modified;
+    }
+
+    static Map<String, SyncedFile> readManifest(Path workDir) {
+        Map<String, SyncedFile> files = new HashMap<>();
+        Path manifest = workDir.resolve(MANIFEST);
+        if (!Files.isRegularFile(manifest)) {
+            return files;
+        }
+        try (Stream<String> lines = Files.lines(manifest, StandardCharsets.UTF_8)) {
+            lines.map(line -> line.split("\t"))
+                .filter(fields -> fields.length == 5)
+                .forEach(fields -> files.put(fields[0],
+                    new SyncedFile(fields[1], fields[2], Long.parseLong(fields[3]), Long.parseLong(fields[4]))));
+        } catch (IOException | RuntimeException e) {
+            // Treated as a fresh directory: every file is downloaded again
+            log.warn("Ignoring unreadable source manifest {}: {}", manifest, e.getMessage());
+            files.clear();
+        }
+        return files;
+    }
+
+    private static void writeManifest(Path workDir, Map<String, SyncedFile> synced) {
+        StringBuilder text = new StringBuilder();
+        synced.forEach((path, file) -> {
+            if (path.indexOf('\t') < 0 && path.indexOf('\n') < 0) {
+                text.append(path).append('\t').append(file.version()).append('\t').append(file.sha256())
+                    .append('\t').append(file.size()).append('\t').append(file.modified()).append('\n');
+            }
+        });
+        try {
+            Path temp = Files.createTempFile(workDir, MANIFEST, ".tmp");
+            Files.writeString(temp, text, StandardCharsets.UTF_8);
+            Files.move(temp, workDir.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The next build downloads everything again
+            log.warn("Could not write source manifest in {}: {}", workDir, e.getMessage());
+        }
+    }
+
+    private long download(StoredObject object, Path target, MessageDigest sha256) throws IOException {
+        MessageDigest md5 = digest("MD5");
+        Files.createDirectories(target.getParent());
+        long size;
+        try (InputStream in = new DigestInputStream(
+                new DigestInputStream(storageService.openObject(bucket, object.key()), md5), sha256)) {
+            size = Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (size != object.size()) {
+            throw new IOException("Size mismatch for " + object.key() + ": expected " + object.size() + ", got " + size);
+        }
+        String etag = object.etag() != null ? object.etag().replace("\"", "") : null;
+        if (etag != null && MD5_ETAG.matcher(etag).matches()
+                && !etag.equalsIgnoreCase(HexFormat.of().formatHex(md5.digest()))) {
+            throw new IOException("Checksum mismatch for " + object.key());
+        }
+        return size;
+    }
+
+    private static Path resolve(Path workDir, String relativePath) {
+        if (relativePath.isEmpty() || relativePath.endsWith("/")) {
+            return null;
+        }
+        Path target = workDir.resolve(relativePath).normalize();
+        return target.startsWith(workDir) && !target.equals(workDir) ? target : null;
+    }
+
+    /**
+     * Hash of the sorted (path, content hash) pairs: equal for identical trees regardless of
+     * download order or timestamps.
+     */
+    static String treeHash(Map<String, String> digests) {
+        MessageDigest tree = digest("SHA-256");
+        digests.forEach((path, hash) -> {
+            tree.update(path.getBytes(StandardCharsets.UTF_8));
+            tree.update((byte) 0);
+            tree.update(hash.getBytes(StandardCharsets.US_ASCII));
+            tree.update((byte) '\n');
+        });
+        return HexFormat.of().formatHex(tree.digest());
+    }
+
+    private static MessageDigest digest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (Exception e) {
+            throw new IllegalStateException(algorithm + " not available", e);
+        }
+    }
+
+    /**
+     * A file as last written into the work directory.
+     *
+     * @param version  stored version it was downloaded from
+     * @param modified its modification time on disk right after download
+     */
+    record SyncedFile(String version, String sha256, long size, long modified) {
+
+        boolean matches(Path file) {
+            try {
+                return Files.size(file) == size && Files.getLastModifiedTime(file).toMillis() == modified;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @param downloaded files fetched from storage; the rest were already up to date on disk
+     * @param removed    files deleted because they are no longer in the workspace
+     * @param digests    SHA-256 of every workspace file by its relative path
+     */
+    public record Result(int files, long bytes, long durationMs, String treeHash, int downloaded, int removed,
+                         Map<String, String> digests) {
+
+        public Result(int files, long bytes, long durationMs, String treeHash) {
+            this(files, bytes, durationMs, treeHash, files, 0, Map.of());
+        }
+
+        public String describe() {
+            String changes = downloaded < files || removed > 0
+                ? String.format(" (%d changed, %d removed)", downloaded, removed) : "";
+            return String.format("%d files%s, %.1f KB in %d ms", files, changes, bytes / 1024.0, durationMs);
+        }
+    }
+}
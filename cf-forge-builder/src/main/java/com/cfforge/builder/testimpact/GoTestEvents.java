@@ -0,0 +1,59 @@
+package com.cfforge.builder.testimpact;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Line listener for {@code go test -json}: passes the tests' own output on to the build log and
+ * collects an outcome per package, by import path. Lines that aren't events (build errors) are
+ * passed on as they are.
+ */
+public class GoTestEvents implements Consumer<String> {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final Consumer<String> output;
+    private final Map<String, TestOutcome> outcomes = new ConcurrentHashMap<>();
+    private final Map<String, Integer> cases = new ConcurrentHashMap<>();
+
+    public GoTestEvents(Consumer<String> output) {
+        this.output = output;
+    }
+
+    @Override
+    public void accept(String line) {
+        if (!line.startsWith("{")) {
+            output.accept(line);
+            return;
+        }
+        JsonNode event;
+        try {
+            event = JSON.readTree(line);
+        } catch (Exception e) {
+            output.accept(line);
+            return;
+        }
+        String action = event.path("Action").asText();
+        String pkg = event.path("Package").asText();
+        String test = event.path("Test").asText("");
+        if ("output".equals(action)) {
+            String text = event.path("Output").asText();
+            output.accept(text.endsWith("\n") ? text.substring(0, text.length() - 1) : text);
+        } else if (("pass".equals(action) || "fail".equals(action)) && !pkg.isEmpty()) {
+            if (test.isEmpty()) {
+                long durationMs = Math.round(event.path("Elapsed").asDouble() * 1000);
+                outcomes.put(pkg, new TestOutcome(durationMs, cases.getOrDefault(pkg, 0), "fail".equals(action)));
+            } else if (!test.contains("/")) {
+                cases.merge(pkg, 1, Integer::sum);
+            }
+        }
+    }
+
+    public Map<String, TestOutcome> outcomes() {
+        return Map.copyOf(outcomes);
+    }
+}
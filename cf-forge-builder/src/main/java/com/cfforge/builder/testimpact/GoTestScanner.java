@@ -0,0 +1,120 @@
+package com.cfforge.builder.testimpact;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Test packages of a Go module, one unit per directory with {@code _test.go} files, named as
+ * {@code go test} takes them ({@code ./pkg}).
+ *
+ * A package depends on its own files and on the non-test files of every module package it
+ * imports, transitively; imports come from the files' import declarations. Changes to
+ * {@code go.mod}, {@code go.sum} or embedded and test data files aren't Go sources and make the
+ * run a full one.
+ */
+public class GoTestScanner implements TestScanner {
+
+    private static final Pattern MODULE = Pattern.compile("(?m)^module\\s+(\\S+)");
+    private static final Pattern IMPORT_BLOCK = Pattern.compile("(?ms)^import\\s*\\((.*?)\\)");
+    private static final Pattern SINGLE_IMPORT = Pattern.compile("(?m)^import\\s+(?:[\\w.]+\\s+)?\"([^\"]+)\"");
+    private static final Pattern QUOTED = Pattern.compile("\"([^\"]+)\"");
+
+    private String module = "";
+
+    @Override
+    public List<TestUnit> scan(Path workDir, Collection<String> files) {
+        Matcher moduleLine = MODULE.matcher(TestScanner.read(workDir, "go.mod"));
+        module = moduleLine.find() ? moduleLine.group(1) : "";
+
+        Map<String, List<String>> packages = new TreeMap<>();
+        Map<String, Set<String>> imports = new HashMap<>();
+        Map<String, Set<String>> testImports = new HashMap<>();
+        for (String file : files) {
+            if (!isSource(file)) {
+                continue;
+            }
+            String dir = TestScanner.parent(file);
+            packages.computeIfAbsent(dir, d -> new ArrayList<>()).add(file);
+            Set<String> target = (isTest(file) ? testImports : imports).computeIfAbsent(dir, d -> new HashSet<>());
+            for (String imported : imports(TestScanner.read(workDir, file))) {
+                String importedDir = moduleDir(imported);
+                if (importedDir != null && !importedDir.equals(dir)) {
+                    target.add(importedDir);
+                }
+            }
+        }
+
+        List<TestUnit> units = new ArrayList<>();
+        packages.forEach((dir, packageFiles) -> {
+            if (packageFiles.stream().noneMatch(GoTestScanner::isTest)) {
+                return;
+            }
+            Set<String> start = new HashSet<>(imports.getOrDefault(dir, Set.of()));
+            start.addAll(testImports.getOrDefault(dir, Set.of()));
+            Set<String> dependencies = new HashSet<>(packageFiles);
+            for (String reached : TestScanner.closure(imports, start)) {
+                packages.getOrDefault(reached, List.of()).stream()
+                    .filter(file -> !isTest(file))
+                    .forEach(dependencies::add);
+            }
+            units.add(new TestUnit(dir.isEmpty() ? "." : "./" + dir, dependencies, false));
+        });
+        return units;
+    }
+
+    @Override
+    public boolean isSource(String path) {
+        return path.endsWith(".go") && !path.startsWith("vendor/");
+    }
+
+    /**
+     * Maps the import path {@code go test -json} reports a package by to its unit.
+     */
+    @Override
+    public String unitId(String importPath) {
+        if (importPath.equals(module)) {
+            return ".";
+        }
+        return !module.isEmpty() && importPath.startsWith(module + "/")
+            ? "./" + importPath.substring(module.length() + 1) : importPath;
+    }
+
+    private String moduleDir(String importPath) {
+        if (module.isEmpty()) {
+            return null;
+        }
+        if (importPath.equals(module)) {
+            return "";
+        }
+        return importPath.startsWith(module + "/") ? importPath.substring(module.length() + 1) : null;
+    }
+
+    static List<String> imports(String source) {
+        List<String> imports = new ArrayList<>();
+        Matcher block = IMPORT_BLOCK.matcher(source);
+        while (block.find()) {
+            Matcher quoted = QUOTED.matcher(block.group(1));
+            while (quoted.find()) {
+                imports.add(quoted.group(1));
+            }
+        }
+        Matcher single = SINGLE_IMPORT.matcher(source);
+        while (single.find()) {
+            imports.add(single.group(1));
+        }
+        return imports;
+    }
+
+    private static boolean isTest(String file) {
+        return file.endsWith("_test.go");
+    }
+}
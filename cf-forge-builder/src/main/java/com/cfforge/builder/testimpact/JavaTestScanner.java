@@ -0,0 +1,102 @@
+package com.cfforge.builder.testimpact;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Test classes of a Maven project, one unit per class as Surefire names it.
+ *
+ * A source file depends on every project class whose simple name appears in it, which covers
+ * imports, same-package references and static imports without resolving types; a name shared by
+ * several classes links to all of them. A test class depends on the closure of that relation.
+ * Classes starting a Spring test context (Boot tests, auto-configured slices such as
+ * {@code @WebMvcTest}, {@code @ContextConfiguration} or the Spring extension) see beans the scan
+ * can't follow and are opaque.
+ */
+public class JavaTestScanner implements TestScanner {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("\\b[A-Z][A-Za-z0-9_]*\\b");
+    private static final Pattern SPRING_CONTEXT = Pattern.compile(
+        "@(SpringBootTest|ContextConfiguration|ContextHierarchy|SpringJUnitConfig|SpringJUnitWebConfig)\\b"
+            + "|@(ExtendWith|RunWith)\\([^)]*\\b(SpringExtension|SpringRunner|SpringJUnit4ClassRunner)\\b"
+            + "|\\borg\\.springframework\\.boot\\.test\\.autoconfigure\\.[\\w.]*(Test\\b|\\*)");
+    private static final Pattern SUREFIRE_INCLUDES = Pattern.compile("Test.*|.*Test|.*Tests|.*TestCase");
+    private static final String MAIN = "src/main/java/";
+    private static final String TEST = "src/test/java/";
+
+    @Override
+    public List<TestUnit> scan(Path workDir, Collection<String> files) {
+        Map<String, List<String>> bySimpleName = new HashMap<>();
+        for (String file : files) {
+            if (isSource(file)) {
+                bySimpleName.computeIfAbsent(simpleName(file), name -> new ArrayList<>()).add(file);
+            }
+        }
+        Map<String, Set<String>> edges = new HashMap<>();
+        Map<String, String> contents = new HashMap<>();
+        for (List<String> sameName : bySimpleName.values()) {
+            for (String file : sameName) {
+                String content = TestScanner.read(workDir, file);
+                contents.put(file, content);
+                Set<String> references = new HashSet<>();
+                Matcher identifiers = IDENTIFIER.matcher(content);
+                while (identifiers.find()) {
+                    List<String> referenced = bySimpleName.get(identifiers.group());
+                    if (referenced != null) {
+                        references.addAll(referenced);
+                    }
+                }
+                references.remove(file);
+                edges.put(file, references);
+            }
+        }
+
+        List<TestUnit> units = new ArrayList<>();
+        contents.forEach((file, content) -> {
+            String name = simpleName(file);
+            if (file.contains(TEST) && SUREFIRE_INCLUDES.matcher(name).matches()
+                    && !content.contains("abstract class " + name)) {
+                units.add(new TestUnit(className(file), TestScanner.closure(edges, List.of(file)),
+                    SPRING_CONTEXT.matcher(content).find()));
+            }
+        });
+        return units;
+    }
+
+    @Override
+    public boolean isSource(String path) {
+        return path.endsWith(".java") && (underRoot(path, MAIN) || underRoot(path, TEST));
+    }
+
+    /**
+     * Surefire reports nested classes as {@code Outer$Nested}; they run as part of the outer class.
+     */
+    @Override
+    public String unitId(String reportedName) {
+        int nested = reportedName.indexOf('$');
+        return nested < 0 ? reportedName : reportedName.substring(0, nested);
+    }
+
+    static String className(String file) {
+        int root = file.indexOf(TEST);
+        String relative = root >= 0 ? file.substring(root + TEST.length()) : file;
+        return relative.substring(0, relative.length() - ".java".length()).replace('/', '.');
+    }
+
+    private static String simpleName(String file) {
+        String name = TestScanner.fileName(file);
+        return name.substring(0, name.length() - ".java".length());
+    }
+
+    private static boolean underRoot(String path, String root) {
+        return path.startsWith(root) || path.contains("/" + root);
+    }
+}
@@ -0,0 +1,137 @@
+package com.cfforge.builder.testimpact;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Jest test files, one unit per file as {@code --runTestsByPath} takes them.
+ *
+ * A file depends on the project files it imports or requires by relative path, resolved the way
+ * Node and bundlers do (extension and {@code index} lookup). Package imports are covered by
+ * {@code package.json}, whose change makes the run a full one. A test reaching an import through
+ * a path alias ({@code @/}, {@code ~/}, {@code #}) can't be followed and is opaque, and so are
+ * configuration and setup files, which aren't treated as sources.
+ */
+public class JestTestScanner implements TestScanner {
+
+    private static final List<String> EXTENSIONS = List.of(".js", ".jsx", ".ts", ".tsx", ".mjs", ".cjs");
+    private static final Pattern TEST_FILE = Pattern.compile(".*\\.(test|spec)\\.[cm]?[jt]sx?");
+    private static final Pattern IMPORT = Pattern.compile(
+        "(?:\\bfrom\\s*|\\bimport\\s*\\(?\\s*|\\brequire\\s*\\(\\s*)['\"]([^'\"]+)['\"]");
+
+    /**
+     * Whether the project's {@code test} script runs Jest, which selection depends on.
+     */
+    public static boolean usesJest(Path workDir) {
+        try {
+            JsonNode test = new ObjectMapper().readTree(TestScanner.read(workDir, "package.json")).path("scripts").path("test");
+            return test.isTextual() && test.asText().matches(".*\\bjest\\b.*");
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Override
+    public List<TestUnit> scan(Path workDir, Collection<String> files) {
+        Set<String> sources = new HashSet<>();
+        for (String file : files) {
+            if (isSource(file)) {
+                sources.add(file);
+            }
+        }
+        Map<String, Set<String>> edges = new HashMap<>();
+        Set<String> aliased = new HashSet<>();
+        for (String file : sources) {
+            Set<String> dependencies = new HashSet<>();
+            Matcher specifiers = IMPORT.matcher(TestScanner.read(workDir, file));
+            while (specifiers.find()) {
+                String specifier = specifiers.group(1);
+                if (specifier.startsWith("./") || specifier.startsWith("../")) {
+                    String resolved = resolve(TestScanner.parent(file), specifier, sources);
+                    if (resolved != null) {
+                        dependencies.add(resolved);
+                    }
+                } else if (specifier.startsWith("@/") || specifier.startsWith("~/") || specifier.startsWith("#")) {
+                    aliased.add(file);
+                }
+            }
+            edges.put(file, dependencies);
+        }
+
+        List<TestUnit> units = new ArrayList<>();
+        for (String file : sources) {
+            if (TEST_FILE.matcher(TestScanner.fileName(file)).matches() || file.contains("__tests__/")) {
+                Set<String> dependencies = TestScanner.closure(edges, List.of(file));
+                units.add(new TestUnit(file, dependencies, dependencies.stream().anyMatch(aliased::contains)));
+            }
+        }
+        return units;
+    }
+
+    @Override
+    public boolean isSource(String path) {
+        if (path.startsWith("node_modules/") || path.contains("/node_modules/")
+                || EXTENSIONS.stream().noneMatch(path::endsWith)) {
+            return false;
+        }
+        String name = TestScanner.fileName(path);
+        return !name.contains(".config.") && !name.startsWith("jest.") && !name.startsWith("setupTests")
+            && !name.startsWith(".");
+    }
+
+    private static String resolve(String dir, String specifier, Set<String> sources) {
+        String path = normalize(dir.isEmpty() ? specifier : dir + "/" + specifier);
+        if (path == null) {
+            return null;
+        }
+        if (sources.contains(path)) {
+            return path;
+        }
+        for (String extension : EXTENSIONS) {
+            if (sources.contains(path + extension)) {
+                return path + extension;
+            }
+        }
+        if (path.endsWith(".js")) {
+            // TypeScript sources imported by their compiled name
+            String base = path.substring(0, path.length() - ".js".length());
+            for (String extension : List.of(".ts", ".tsx")) {
+                if (sources.contains(base + extension)) {
+                    return base + extension;
+                }
+            }
+        }
+        for (String extension : EXTENSIONS) {
+            if (sources.contains(path + "/index" + extension)) {
+                return path + "/index" + extension;
+            }
+        }
+        return null;
+    }
+
+    private static String normalize(String path) {
+        List<String> parts = new ArrayList<>();
+        for (String part : path.split("/")) {
+            if (part.equals("..")) {
+                if (parts.isEmpty()) {
+                    return null;
+                }
+                parts.remove(parts.size() - 1);
+            } else if (!part.isEmpty() && !part.equals(".")) {
+                parts.add(part);
+            }
+        }
+        return String.join("/", parts);
+    }
+}
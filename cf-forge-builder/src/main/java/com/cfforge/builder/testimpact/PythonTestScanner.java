@@ -0,0 +1,167 @@
+package com.cfforge.builder.testimpact;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * pytest test files, one unit per file.
+ *
+ * Modules are found relative to the project root and {@code src/}. A file depends on the project
+ * modules it imports, absolute or relative, and on the {@code __init__.py} of each package on the
+ * way; a test file also depends on the {@code conftest.py} files of its directory and the ones
+ * above it. Imports are read statically, so modules loaded with {@code importlib} are missed.
+ */
+public class PythonTestScanner implements TestScanner {
+
+    private static final List<String> ROOTS = List.of("", "src/");
+    private static final Pattern TEST_FILE = Pattern.compile("test_.*\\.py|.*_test\\.py");
+    private static final Pattern IMPORT = Pattern.compile("(?m)^\\s*import\\s+(.+)$");
+    private static final Pattern FROM_IMPORT = Pattern.compile("(?m)^\\s*from\\s+(\\.*)([\\w.]*)\\s+import\\s+(.+)$");
+    private static final Pattern PARENTHESIZED = Pattern.compile("\\(([^)]*)\\)");
+
+    private final Map<String, String> unitsByModule = new HashMap<>();
+
+    @Override
+    public List<TestUnit> scan(Path workDir, Collection<String> files) {
+        Map<String, String> modules = new HashMap<>();
+        Map<String, String> moduleOf = new HashMap<>();
+        for (String file : files) {
+            if (!isSource(file)) {
+                continue;
+            }
+            for (String root : ROOTS) {
+                if (file.startsWith(root)) {
+                    String name = file.substring(root.length(), file.length() - ".py".length()).replace('/', '.');
+                    if (name.endsWith("__init__")) {
+                        name = name.length() > "__init__".length() ? name.substring(0, name.length() - ".__init__".length()) : "";
+                    }
+                    modules.putIfAbsent(name, file);
+                    moduleOf.putIfAbsent(file, name);
+                }
+            }
+        }
+
+        Map<String, Set<String>> edges = new HashMap<>();
+        for (Map.Entry<String, String> entry : moduleOf.entrySet()) {
+            String file = entry.getKey();
+            String pkg = file.endsWith("__init__.py") ? entry.getValue() : parentModule(entry.getValue());
+            Set<String> dependencies = new HashSet<>();
+            for (String imported : imports(TestScanner.read(workDir, file), pkg)) {
+                resolve(imported, modules, dependencies);
+            }
+            dependencies.remove(file);
+            edges.put(file, dependencies);
+        }
+
+        unitsByModule.clear();
+        List<TestUnit> units = new ArrayList<>();
+        for (String file : moduleOf.keySet()) {
+            if (!TEST_FILE.matcher(TestScanner.fileName(file)).matches()) {
+                continue;
+            }
+            List<String> start = new ArrayList<>(List.of(file));
+            for (String dir = TestScanner.parent(file); ; dir = TestScanner.parent(dir)) {
+                String conftest = dir.isEmpty() ? "conftest.py" : dir + "/conftest.py";
+                if (moduleOf.containsKey(conftest)) {
+                    start.add(conftest);
+                }
+                if (dir.isEmpty()) {
+                    break;
+                }
+            }
+            units.add(new TestUnit(file, TestScanner.closure(edges, start), false));
+            unitsByModule.put(file.substring(0, file.length() - ".py".length()).replace('/', '.'), file);
+        }
+        return units;
+    }
+
+    @Override
+    public boolean isSource(String path) {
+        return path.endsWith(".py") && !path.startsWith(".venv/");
+    }
+
+    /**
+     * pytest's JUnit report names a test by its module, plus its class if it has one.
+     */
+    @Override
+    public String unitId(String classname) {
+        for (String name = classname; !name.isEmpty(); name = parentModule(name)) {
+            String unit = unitsByModule.get(name);
+            if (unit != null) {
+                return unit;
+            }
+        }
+        return classname;
+    }
+
+    /**
+     * Names of the modules the source imports, made absolute against its package; a name after
+     * {@code from x import} may be a submodule, so both are listed.
+     */
+    static List<String> imports(String source, String pkg) {
+        String joined = PARENTHESIZED.matcher(source).replaceAll(match ->
+            Matcher.quoteReplacement(match.group(1).replace('\n', ' ')));
+        List<String> imports = new ArrayList<>();
+        Matcher plain = IMPORT.matcher(joined);
+        while (plain.find()) {
+            for (String name : names(plain.group(1))) {
+                imports.add(name);
+            }
+        }
+        Matcher from = FROM_IMPORT.matcher(joined);
+        while (from.find()) {
+            String base = from.group(2);
+            int dots = from.group(1).length();
+            if (dots > 0) {
+                String anchor = pkg;
+                for (int i = 1; i < dots; i++) {
+                    anchor = parentModule(anchor);
+                }
+                base = anchor.isEmpty() ? base : base.isEmpty() ? anchor : anchor + "." + base;
+            }
+            if (!base.isEmpty()) {
+                imports.add(base);
+            }
+            for (String name : names(from.group(3))) {
+                imports.add(base.isEmpty() ? name : base + "." + name);
+            }
+        }
+        return imports;
+    }
+
+    /**
+     * Adds the module's file and those of the packages it is in, which run on import.
+     */
+    private static void resolve(String module, Map<String, String> modules, Set<String> into) {
+        for (String name = module; !name.isEmpty(); name = parentModule(name)) {
+            String file = modules.get(name);
+            if (file != null) {
+                into.add(file);
+            }
+        }
+    }
+
+    private static List<String> names(String list) {
+        List<String> names = new ArrayList<>();
+        for (String part : list.split(",")) {
+            String name = part.trim().split("\\s+")[0];
+            if (name.matches("[\\w.]+")) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    private static String parentModule(String module) {
+        int dot = module.lastIndexOf('.');
+        return dot < 0 ? "" : module.substring(0, dot);
+    }
+}
@@ -0,0 +1,23 @@
+package com.cfforge.builder.testimpact;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What the builder knows about a project's tests, kept between builds.
+ *
+ * @param sources       content hash of every source file as of the last passing test run; files
+ *                      changed since are what selects tests
+ * @param tests         each test unit by id, with the files it depended on when last scanned
+ * @param selectiveRuns passing selective runs since the last full one
+ * @param lastFullRunAt epoch millis of the last passing full run, 0 if there was none
+ */
+public record TestHistory(Map<String, String> sources, Map<String, TestRecord> tests,
+                          int selectiveRuns, long lastFullRunAt) {
+
+    /**
+     * @param durationMs time the unit's tests took when last run
+     * @param failed     whether they failed then; failed units run again until they pass
+     */
+    public record TestRecord(long durationMs, int cases, boolean failed, List<String> dependencies) {}
+}
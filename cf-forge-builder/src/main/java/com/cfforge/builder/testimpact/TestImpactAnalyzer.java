@@ -0,0 +1,204 @@
+package com.cfforge.builder.testimpact;
+
+import com.cfforge.builder.model.BuildContext;
+import com.cfforge.common.storage.S3StorageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Selects the tests a build needs to run from the files changed since the project's last passing
+ * test run.
+ *
+ * Each project has a {@link TestHistory} in storage: the content hashes of its sources as of that
+ * run, and each test unit's duration, outcome and dependencies. A unit runs when one of its
+ * dependencies changed, now or as last recorded (so removing a file it used still selects it),
+ * when it is new or failed last time, or when it is opaque and anything changed. A change the
+ * language's scanner can't attribute, such as a build file, runs everything, as does the first
+ * build, every {@code full-run-every}-th passing run and a run after {@code full-run-interval}
+ * without a full one; these periodic full runs are the safety net for dependencies the static
+ * scan misses. A failed run leaves the baseline where it was, so the next build selects against
+ * the same sources again.
+ */
+@Component
+@Slf4j
+public class TestImpactAnalyzer {
+
+    private final S3StorageService storageService;
+    private final ObjectMapper objectMapper;
+    private final TestImpactProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final List<PathMatcher> ignored;
+
+    public TestImpactAnalyzer(S3StorageService storageService, ObjectMapper objectMapper,
+                              TestImpactProperties properties, MeterRegistry meterRegistry) {
+        this.storageService = storageService;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.ignored = properties.getIgnoredPaths().stream()
+            .map(glob -> FileSystems.getDefault().getPathMatcher("glob:" + glob))
+            .toList();
+    }
+
+    public TestPlan plan(BuildContext context, TestScanner scanner) {
+        Map<String, String> sources = context.getSources() != null ? context.getSources().digests() : Map.of();
+        List<TestUnit> units;
+        try {
+            units = scanner.scan(context.getWorkDir(), sources.keySet());
+        } catch (RuntimeException e) {
+            log.warn("Test scan failed for project {}: {}", context.getProjectId(), e.getMessage());
+            return TestPlan.full("the test scan failed");
+        }
+        TestHistory history = properties.isEnabled() && !sources.isEmpty() ? load(context.getProjectId()) : null;
+        TestPlan plan = select(scanner, units, history, sources);
+        meterRegistry.counter("builder.test.runs", "mode", plan.mode().name().toLowerCase()).increment();
+        return plan;
+    }
+
+    TestPlan select(TestScanner scanner, List<TestUnit> units, TestHistory history, Map<String, String> sources) {
+        if (!properties.isEnabled()) {
+            return full("test impact analysis is disabled", scanner, units, history, sources);
+        }
+        if (history == null) {
+            return full("no test history for this project yet", scanner, units, history, sources);
+        }
+        long sinceFullRun = System.currentTimeMillis() - history.lastFullRunAt();
+        if (history.lastFullRunAt() == 0 || sinceFullRun > properties.getFullRunInterval().toMillis()) {
+            return full("no full run in the last " + properties.getFullRunInterval().toHours() + "h",
+                scanner, units, history, sources);
+        }
+        if (history.selectiveRuns() >= properties.getFullRunEvery()) {
+            return full("periodic full run after " + history.selectiveRuns() + " selective runs",
+                scanner, units, history, sources);
+        }
+
+        Set<String> changed = changedFiles(history.sources(), sources);
+        for (String file : new TreeSet<>(changed)) {
+            if (!scanner.isSource(file)) {
+                return full(file + " changed", scanner, units, history, sources);
+            }
+        }
+
+        List<String> selected = new ArrayList<>();
+        long selectedMs = 0;
+        long totalMs = 0;
+        for (TestUnit unit : units) {
+            TestHistory.TestRecord recorded = history.tests().get(unit.id());
+            long durationMs = recorded != null ? recorded.durationMs() : 0;
+            totalMs += durationMs;
+            if (recorded == null || recorded.failed()
+                    || (unit.opaque() && !changed.isEmpty())
+                    || intersects(unit.dependencies(), changed)
+                    || intersects(recorded.dependencies(), changed)) {
+                selected.add(unit.id());
+                selectedMs += durationMs;
+            }
+        }
+        if (totalMs > 0 && selectedMs > totalMs * properties.getMaxSelectedRatio()) {
+            return full("the affected tests are most of the suite", scanner, units, history, sources);
+        }
+        selected.sort(null);
+        return new TestPlan(selected.isEmpty() ? TestPlan.Mode.NONE : TestPlan.Mode.SELECTED, null, selected,
+            changed.size(), selectedMs, totalMs, scanner, units, history, sources);
+    }
+
+    /**
+     * Records the run's outcomes by the names its reports use.
+     *
+     * @param passed whether the test run succeeded as a whole
+     */
+    public void record(BuildContext context, TestPlan plan, Map<String, TestOutcome> reported, boolean passed) {
+        if (!plan.isAnalyzed() || !properties.isEnabled()) {
+            return;
+        }
+        Map<String, TestOutcome> outcomes = new HashMap<>();
+        reported.forEach((name, outcome) -> outcomes.merge(plan.scanner.unitId(name), outcome, TestOutcome::plus));
+        try {
+            storageService.putObject(objectKey(context.getProjectId()),
+                objectMapper.writeValueAsBytes(update(plan, outcomes, passed, System.currentTimeMillis())));
+        } catch (Exception e) {
+            // The next build runs everything
+            log.warn("Failed to store test history for project {}: {}", context.getProjectId(), e.getMessage());
+        }
+    }
+
+    static TestHistory update(TestPlan plan, Map<String, TestOutcome> outcomes, boolean passed, long now) {
+        TestHistory previous = plan.history;
+        Map<String, TestHistory.TestRecord> tests = new HashMap<>();
+        for (TestUnit unit : plan.units) {
+            TestOutcome outcome = outcomes.get(unit.id());
+            TestHistory.TestRecord recorded = previous != null ? previous.tests().get(unit.id()) : null;
+            List<String> dependencies = List.copyOf(new TreeSet<>(unit.dependencies()));
+            if (outcome != null) {
+                tests.put(unit.id(), new TestHistory.TestRecord(outcome.durationMs(), outcome.cases(), outcome.failed(), dependencies));
+            } else if (recorded != null) {
+                // Not selected, or the run stopped before it; either way the baseline still selects it when due
+                tests.put(unit.id(), new TestHistory.TestRecord(recorded.durationMs(), recorded.cases(), recorded.failed(), dependencies));
+            } else if (passed) {
+                // Ran without a report entry: a class without tests, or one the runner filtered out
+                tests.put(unit.id(), new TestHistory.TestRecord(0, 0, false, dependencies));
+            }
+            // Otherwise a new unit the failed run didn't report; left out so it counts as new again
+        }
+        if (!passed) {
+            return new TestHistory(previous != null ? previous.sources() : Map.of(), tests,
+                previous != null ? previous.selectiveRuns() : 0, previous != null ? previous.lastFullRunAt() : 0);
+        }
+        return plan.runsAll()
+            ? new TestHistory(plan.sources, tests, 0, now)
+            : new TestHistory(plan.sources, tests, previous.selectiveRuns() + 1, previous.lastFullRunAt());
+    }
+
+    private TestHistory load(UUID projectId) {
+        try {
+            return objectMapper.readValue(storageService.getObject(objectKey(projectId)), TestHistory.class);
+        } catch (Exception e) {
+            // Missing on a project's first build
+            return null;
+        }
+    }
+
+    private Set<String> changedFiles(Map<String, String> before, Map<String, String> after) {
+        Set<String> changed = new HashSet<>();
+        after.forEach((file, hash) -> {
+            if (!hash.equals(before.get(file))) {
+                changed.add(file);
+            }
+        });
+        before.keySet().stream().filter(file -> !after.containsKey(file)).forEach(changed::add);
+        changed.removeIf(file -> ignored.stream().anyMatch(matcher -> matcher.matches(Path.of(file))));
+        return changed;
+    }
+
+    private static boolean intersects(Iterable<String> dependencies, Set<String> changed) {
+        for (String dependency : dependencies) {
+            if (changed.contains(dependency)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static TestPlan full(String reason, TestScanner scanner, List<TestUnit> units, TestHistory history,
+                                 Map<String, String> sources) {
+        return new TestPlan(TestPlan.Mode.FULL, reason, List.of(), 0, 0, 0, scanner, units, history, sources);
+    }
+
+    static String objectKey(UUID projectId) {
+        return "test-history/" + projectId + ".json";
+    }
+}
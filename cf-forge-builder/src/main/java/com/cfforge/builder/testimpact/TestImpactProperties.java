@@ -0,0 +1,66 @@
+package com.cfforge.builder.testimpact;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "cf.forge.test-impact")
+public class TestImpactProperties {
+
+    /** Run only the tests affected by changed files; false always runs the whole suite. */
+    private boolean enabled = true;
+
+    /** Passing selective runs after which the next run is a full one. */
+    private int fullRunEvery = 10;
+
+    /** Age of the last full run after which the next run is a full one. */
+    private Duration fullRunInterval = Duration.ofHours(24);
+
+    /** Run everything when the affected tests took more than this share of the suite's time. */
+    private double maxSelectedRatio = 0.5;
+
+    /** Changed files that never affect tests, as globs relative to the project root. */
+    private List<String> ignoredPaths = new ArrayList<>(List.of("*.md", "**/*.md", "docs/**", "LICENSE*", ".gitignore"));
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getFullRunEvery() {
+        return fullRunEvery;
+    }
+
+    public void setFullRunEvery(int fullRunEvery) {
+        this.fullRunEvery = fullRunEvery;
+    }
+
+    public Duration getFullRunInterval() {
+        return fullRunInterval;
+    }
+
+    public void setFullRunInterval(Duration fullRunInterval) {
+        this.fullRunInterval = fullRunInterval;
+    }
+
+    public double getMaxSelectedRatio() {
+        return maxSelectedRatio;
+    }
+
+    public void setMaxSelectedRatio(double maxSelectedRatio) {
+        this.maxSelectedRatio = maxSelectedRatio;
+    }
+
+    public List<String> getIgnoredPaths() {
+        return ignoredPaths;
+    }
+
+    public void setIgnoredPaths(List<String> ignoredPaths) {
+        this.ignoredPaths = ignoredPaths;
+    }
+}
@@ -0,0 +1,11 @@
+package com.cfforge.builder.testimpact;
+
+/**
+ * Result of one test unit in a run, from the runner's report.
+ */
+public record TestOutcome(long durationMs, int cases, boolean failed) {
+
+    public TestOutcome plus(TestOutcome other) {
+        return new TestOutcome(durationMs + other.durationMs, cases + other.cases, failed || other.failed);
+    }
+}
@@ -0,0 +1,88 @@
+package com.cfforge.builder.testimpact;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which tests a build runs; see {@link TestImpactAnalyzer}.
+ */
+public class TestPlan {
+
+    public enum Mode { FULL, SELECTED, NONE }
+
+    private final Mode mode;
+    private final String reason;
+    private final List<String> selected;
+    private final int total;
+    private final int changed;
+    private final long selectedMs;
+    private final long totalMs;
+
+    // For recording the run's outcome
+    final TestScanner scanner;
+    final List<TestUnit> units;
+    final TestHistory history;
+    final Map<String, String> sources;
+
+    TestPlan(Mode mode, String reason, List<String> selected, int changed, long selectedMs, long totalMs,
+             TestScanner scanner, List<TestUnit> units, TestHistory history, Map<String, String> sources) {
+        this.mode = mode;
+        this.reason = reason;
+        this.selected = selected;
+        this.total = units.size();
+        this.changed = changed;
+        this.selectedMs = selectedMs;
+        this.totalMs = totalMs;
+        this.scanner = scanner;
+        this.units = units;
+        this.history = history;
+        this.sources = sources;
+    }
+
+    /**
+     * A full run, for callers that don't analyze the project's tests.
+     */
+    public static TestPlan full(String reason) {
+        return new TestPlan(Mode.FULL, reason, List.of(), 0, 0, 0, null, List.of(), null, Map.of());
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public boolean runsAll() {
+        return mode == Mode.FULL;
+    }
+
+    public boolean runsNone() {
+        return mode == Mode.NONE;
+    }
+
+    /**
+     * Ids of the units to run, sorted, when the run is a selective one.
+     */
+    public List<String> selected() {
+        return selected;
+    }
+
+    public String describe() {
+        return switch (mode) {
+            case FULL -> "Running all tests: " + reason;
+            case NONE -> "No tests affected by " + files(changed) + ", skipping tests";
+            case SELECTED -> String.format("Running %d of %d test units affected by %s (~%s of ~%s)",
+                selected.size(), total, files(changed), seconds(selectedMs), seconds(totalMs));
+        };
+    }
+
+    boolean isAnalyzed() {
+        return scanner != null;
+    }
+
+    private static String files(int count) {
+        return count == 1 ? "1 changed file" : count + " changed files";
+    }
+
+    private static String seconds(long millis) {
+        return String.format("%.1fs", millis / 1000.0);
+    }
+}
@@ -0,0 +1,123 @@
+package com.cfforge.builder.testimpact;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Reads test runners' reports into outcomes per reported name. An unreadable report is skipped
+ * with a warning; its tests count as not run.
+ */
+@Slf4j
+public final class TestReports {
+
+    private static final int MAX_SEARCH_DEPTH = 6;
+
+    private TestReports() {
+    }
+
+    /**
+     * JUnit XML as written by Surefire and {@code pytest --junitxml}, by each test case's
+     * {@code classname}.
+     */
+    public static Map<String, TestOutcome> junitXml(Collection<Path> reports) {
+        Map<String, TestOutcome> outcomes = new HashMap<>();
+        for (Path report : reports) {
+            try (InputStream in = Files.newInputStream(report)) {
+                readJunitXml(in, outcomes);
+            } catch (IOException | XMLStreamException | RuntimeException e) {
+                log.warn("Skipping unreadable test report {}: {}", report, e.getMessage());
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Surefire's {@code TEST-*.xml} reports in every module of the project.
+     */
+    public static Map<String, TestOutcome> surefire(Path workDir) {
+        try (Stream<Path> files = Files.find(workDir, MAX_SEARCH_DEPTH, (path, attributes) ->
+                attributes.isRegularFile() && path.getParent().endsWith(Path.of("target", "surefire-reports"))
+                    && path.getFileName().toString().matches("TEST-.*\\.xml"))) {
+            return junitXml(files.toList());
+        } catch (IOException e) {
+            log.warn("Could not search {} for test reports: {}", workDir, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /**
+     * Jest's {@code --json} report, by test file relative to the work directory.
+     */
+    public static Map<String, TestOutcome> jestJson(Path report, Path workDir) {
+        Map<String, TestOutcome> outcomes = new HashMap<>();
+        try {
+            JsonNode root = new ObjectMapper().readTree(report.toFile());
+            for (JsonNode file : root.path("testResults")) {
+                Path path = Path.of(file.path("name").asText());
+                String name = path.isAbsolute() && path.startsWith(workDir)
+                    ? workDir.relativize(path).toString().replace('\\', '/') : path.toString();
+                long duration = Math.max(0, file.path("endTime").asLong() - file.path("startTime").asLong());
+                outcomes.merge(name, new TestOutcome(duration, file.path("assertionResults").size(),
+                    !"passed".equals(file.path("status").asText())), TestOutcome::plus);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Skipping unreadable test report {}: {}", report, e.getMessage());
+        }
+        return outcomes;
+    }
+
+    private static void readJunitXml(InputStream in, Map<String, TestOutcome> outcomes) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = factory.createXMLStreamReader(in);
+        try {
+            String classname = null;
+            long durationMs = 0;
+            boolean failed = false;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "testcase" -> {
+                            classname = reader.getAttributeValue(null, "classname");
+                            durationMs = seconds(reader.getAttributeValue(null, "time"));
+                            failed = false;
+                        }
+                        case "failure", "error" -> failed = true;
+                        default -> { }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "testcase".equals(reader.getLocalName())) {
+                    if (classname != null && !classname.isEmpty()) {
+                        outcomes.merge(classname, new TestOutcome(durationMs, 1, failed), TestOutcome::plus);
+                    }
+                    classname = null;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static long seconds(String value) {
+        try {
+            return value == null ? 0 : Math.round(Double.parseDouble(value.replace(",", "")) * 1000);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
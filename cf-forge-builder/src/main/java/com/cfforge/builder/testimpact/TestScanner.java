@@ -0,0 +1,76 @@
+package com.cfforge.builder.testimpact;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds a language's test units and the source files each depends on, statically from the
+ * sources, so no instrumented run is needed to know which tests a change affects.
+ */
+public interface TestScanner {
+
+    /**
+     * @param files relative paths of the project's source files
+     */
+    List<TestUnit> scan(Path workDir, Collection<String> files);
+
+    /**
+     * Whether the scan accounts for what a change to the file affects. A changed file that isn't
+     * (a build file, a resource) makes the run a full one.
+     */
+    boolean isSource(String path);
+
+    /**
+     * The id of the unit a test report names; the report's own name unless the runner names units
+     * differently from the scan.
+     */
+    default String unitId(String reportedName) {
+        return reportedName;
+    }
+
+    /**
+     * Everything reachable from {@code start} over {@code edges}, including itself.
+     */
+    static Set<String> closure(Map<String, Set<String>> edges, Collection<String> start) {
+        Set<String> reached = new HashSet<>(start);
+        Deque<String> pending = new ArrayDeque<>(start);
+        while (!pending.isEmpty()) {
+            for (String next : edges.getOrDefault(pending.pop(), Set.of())) {
+                if (reached.add(next)) {
+                    pending.push(next);
+                }
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * The file's text, or empty when it can't be read; a file the scan can't read contributes no
+     * dependencies of its own.
+     */
+    static String read(Path workDir, String file) {
+        try {
+            return Files.readString(workDir.resolve(file), StandardCharsets.UTF_8);
+        } catch (IOException | RuntimeException e) {
+            return "";
+        }
+    }
+
+    static String fileName(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    static String parent(String path) {
+        int slash = path.lastIndexOf('/');
+        return slash < 0 ? "" : path.substring(0, slash);
+    }
+}
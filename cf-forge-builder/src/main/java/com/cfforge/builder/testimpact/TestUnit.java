@@ -0,0 +1,13 @@
+package com.cfforge.builder.testimpact;
+
+import java.util.Set;
+
+/**
+ * The smallest set of tests a run can select: a Java test class, a Go package, a test file.
+ *
+ * @param id           how the test runner and its reports name the unit
+ * @param dependencies source files the unit's tests use, including their own files
+ * @param opaque       depends on sources the scan can't see (a Spring Boot context, an import
+ *                     alias), so any source change selects it
+ */
+public record TestUnit(String id, Set<String> dependencies, boolean opaque) {}
@@ -0,0 +1,265 @@
+package com.cfforge.builder.workdir;
+
+import com.cfforge.common.enums.Language;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Working directories for builds on builder-local disk.
+ *
+ * Languages listed in {@code persistent-languages} get one warm working copy per project, kept
+ * between builds so sources only need syncing and compiler outputs ({@code target/}) allow
+ * incremental builds. Once the total exceeds {@code max-disk-mb}, the least recently used copies
+ * that no build holds are evicted. Other builds, and a build whose project copy is already in
+ * use, get a scratch directory that is deleted when the build ends. Scratch directories left
+ * behind by a previous process are removed at startup.
+ */
+@Component
+@Slf4j
+public class WorkDirManager {
+
+    private static final String PROJECTS = "projects";
+    private static final String SCRATCH = "scratch";
+    private static final String LEGACY_PREFIX = "cfforge-build-";
+
+    private final Path root;
+    private final long maxDiskBytes;
+    private final Set<Language> persistentLanguages;
+    private final MeterRegistry meterRegistry;
+    private final Map<UUID, Long> sizes = new ConcurrentHashMap<>();
+    private final Set<UUID> leased = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    public WorkDirManager(MeterRegistry meterRegistry,
+                          @Value("${cf.forge.workdirs.dir:${java.io.tmpdir}/cfforge-workdirs}") String dir,
+                          @Value("${cf.forge.workdirs.max-disk-mb:8192}") long maxDiskMb,
+                          @Value("${cf.forge.workdirs.persistent-languages:JAVA,GO}") Set<Language> persistentLanguages) {
+        this.meterRegistry = meterRegistry;
+        this.root = Paths.get(dir);
+        this.maxDiskBytes = maxDiskMb * 1024 * 1024;
+        this.persistentLanguages = persistentLanguages;
+        Gauge.builder("builder.workdir.bytes", sizes, s -> s.values().stream().mapToLong(Long::longValue).sum())
+            .register(meterRegistry);
+        cleanUpScratch();
+    }
+
+    /**
+     * A directory for the build to work in, to be closed when the build ends.
+     */
+    public Lease acquire(UUID projectId, UUID buildId, Language language) throws IOException {
+        if (projectId != null && persistentLanguages.contains(language) && leased.add(projectId)) {
+            Path dir = root.resolve(PROJECTS).resolve(projectId.toString());
+            try {
+                boolean warm = Files.isDirectory(dir);
+                Files.createDirectories(dir);
+                Files.setLastModifiedTime(dir, FileTime.from(Instant.now()));
+                meterRegistry.counter("builder.workdir", "result", warm ? "warm" : "cold").increment();
+                return new Lease(projectId, dir, warm);
+            } catch (IOException | RuntimeException e) {
+                leased.remove(projectId);
+                throw e;
+            }
+        }
+        meterRegistry.counter("builder.workdir", "result", "scratch").increment();
+        Path scratch = root.resolve(SCRATCH).resolve(buildId != null ? buildId.toString() : UUID.randomUUID().toString());
+        Files.createDirectories(scratch);
+        return new Lease(null, scratch, false);
+    }
+
+    private void release(Lease lease) {
+        if (lease.projectId == null) {
+            deleteTree(lease.directory);
+            return;
+        }
+        try {
+            Files.setLastModifiedTime(lease.directory, FileTime.from(Instant.now()));
+            sizes.put(lease.projectId, sizeOf(lease.directory));
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Could not update work directory {}: {}", lease.directory, e.getMessage());
+        } finally {
+            leased.remove(lease.projectId);
+        }
+        if (evicting.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("workdir-evict").start(() -> {
+                try {
+                    enforceBudget();
+                } finally {
+                    evicting.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Deletes the least recently used project copies until the rest fit the disk budget.
+     */
+    synchronized void enforceBudget() {
+        List<Path> dirs = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root.resolve(PROJECTS))) {
+            stream.forEach(dir -> {
+                if (projectId(dir) != null) {
+                    dirs.add(dir);
+                }
+            });
+        } catch (IOException e) {
+            return;
+        }
+        dirs.sort(Comparator.comparing(WorkDirManager::lastUsed));
+        long total = 0;
+        for (Path dir : dirs) {
+            total += sizes.computeIfAbsent(projectId(dir), id -> sizeOf(dir));
+        }
+        for (Path dir : dirs) {
+            if (total <= maxDiskBytes) {
+                break;
+            }
+            UUID projectId = projectId(dir);
+            // Claimed like a build would, so no build can start in it while it is deleted
+            if (!leased.add(projectId)) {
+                continue;
+            }
+            try {
+                deleteTree(dir);
+                Long size = sizes.remove(projectId);
+                total -= size != null ? size : 0;
+                meterRegistry.counter("builder.workdir.evictions").increment();
+                log.info("Evicted work directory of project {}", projectId);
+            } finally {
+                leased.remove(projectId);
+            }
+        }
+    }
+
+    private void cleanUpScratch() {
+        deleteTree(root.resolve(SCRATCH));
+        // Per-build temp directories from before work directories were managed
+        Path tmp = Paths.get(System.getProperty("java.io.tmpdir"));
+        try (Stream<Path> legacy = Files.list(tmp)) {
+            List<Path> leaked = legacy.filter(p -> p.getFileName().toString().startsWith(LEGACY_PREFIX))
+                .collect(Collectors.toList());
+            leaked.forEach(WorkDirManager::deleteTree);
+            if (!leaked.isEmpty()) {
+                log.info("Removed {} leaked build directories from {}", leaked.size(), tmp);
+            }
+        } catch (IOException e) {
+            log.debug("Could not list {}: {}", tmp, e.getMessage());
+        }
+    }
+
+    private static UUID projectId(Path dir) {
+        try {
+            return UUID.fromString(dir.getFileName().toString());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Instant lastUsed(Path dir) {
+        try {
+            return Files.getLastModifiedTime(dir).toInstant();
+        } catch (IOException e) {
+            return Instant.EPOCH;
+        }
+    }
+
+    private static long sizeOf(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> {
+                try {
+                    return Files.size(file);
+                } catch (IOException e) {
+                    return 0;
+                }
+            }).sum();
+        } catch (IOException | UncheckedIOException e) {
+            return 0;
+        }
+    }
+
+    public static void deleteTree(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try {
+            Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Files.deleteIfExists(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path d, IOException exc) throws IOException {
+                    Files.deleteIfExists(d);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * A build's hold on its working directory.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final UUID projectId;
+        private final Path directory;
+        private final boolean warm;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Lease(UUID projectId, Path directory, boolean warm) {
+            this.projectId = projectId;
+            this.directory = directory;
+            this.warm = warm;
+        }
+
+        public Path directory() {
+            return directory;
+        }
+
+        /**
+         * Whether the directory holds the sources and outputs of an earlier build.
+         */
+        public boolean warm() {
+            return warm;
+        }
+
+        public boolean persistent() {
+            return projectId != null;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(this);
+            }
+        }
+    }
+}
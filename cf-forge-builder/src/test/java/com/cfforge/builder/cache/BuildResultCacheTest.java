@@ -0,0 +1,93 @@
+package com.cfforge.builder.cache;
+
+import com.cfforge.builder.model.BuildContext;
+import com.cfforge.builder.pipeline.BuildPipeline;
+import com.cfforge.builder.source.SourceMaterializer;
+import com.cfforge.common.entity.Build;
+import com.cfforge.common.enums.BuildStatus;
+import com.cfforge.common.enums.Language;
+import com.cfforge.common.repository.BuildRepository;
+import com.cfforge.common.storage.S3StorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BuildResultCacheTest {
+
+    private final UUID projectId = UUID.randomUUID();
+    private BuildRepository buildRepository;
+    private S3StorageService storageService;
+    private SimpleMeterRegistry meterRegistry;
+    private BuildResultCache cache;
+    private BuildPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        buildRepository = mock(BuildRepository.class);
+        storageService = mock(S3StorageService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new BuildResultCache(buildRepository, storageService, meterRegistry, true, true, "critical");
+        pipeline = mock(BuildPipeline.class);
+        when(pipeline.version()).thenReturn("1");
+    }
+
+    @Test
+    void inputHash_dependsOnSourcesLanguageAndPipelineVersion() {
+        String base = cache.inputHash(context("tree-a", Language.PYTHON), pipeline);
+
+        assertThat(cache.inputHash(context("tree-a", Language.PYTHON), pipeline)).isEqualTo(base);
+        assertThat(cache.inputHash(context("tree-b", Language.PYTHON), pipeline)).isNotEqualTo(base);
+        assertThat(cache.inputHash(context("tree-a", Language.NODEJS), pipeline)).isNotEqualTo(base);
+
+        when(pipeline.version()).thenReturn("2");
+        assertThat(cache.inputHash(context("tree-a", Language.PYTHON), pipeline)).isNotEqualTo(base);
+    }
+
+    @Test
+    void lookup_returnsSuccessfulBuildWhoseArtifactStillExists() {
+        Build previous = Build.builder().id(UUID.randomUUID()).artifactPath("artifacts/p/b/app.jar").build();
+        when(buildRepository.findFirstByProjectIdAndInputHashAndStatusOrderByCreatedAtDesc(
+            projectId, "hash", BuildStatus.SUCCESS)).thenReturn(Optional.of(previous));
+        when(storageService.objectExists("artifacts/p/b/app.jar")).thenReturn(true);
+
+        assertThat(cache.lookup(projectId, "hash", false)).containsSame(previous);
+        assertThat(meterRegistry.counter("builder.build.cache", "result", "hit").count()).isEqualTo(1);
+    }
+
+    @Test
+    void lookup_missingArtifact_isAMiss() {
+        Build previous = Build.builder().id(UUID.randomUUID()).artifactPath("artifacts/gone").build();
+        when(buildRepository.findFirstByProjectIdAndInputHashAndStatusOrderByCreatedAtDesc(
+            projectId, "hash", BuildStatus.SUCCESS)).thenReturn(Optional.of(previous));
+        when(storageService.objectExists("artifacts/gone")).thenReturn(false);
+
+        assertThat(cache.lookup(projectId, "hash", false)).isEmpty();
+        assertThat(meterRegistry.counter("builder.build.cache", "result", "miss").count()).isEqualTo(1);
+    }
+
+    @Test
+    void lookup_forceRebuild_skipsRepository() {
+        assertThat(cache.lookup(projectId, "hash", true)).isEmpty();
+
+        verify(buildRepository, never()).findFirstByProjectIdAndInputHashAndStatusOrderByCreatedAtDesc(any(), any(), any());
+        assertThat(meterRegistry.counter("builder.build.cache", "result", "bypass").count()).isEqualTo(1);
+    }
+
+    private BuildContext context(String treeHash, Language language) {
+        return BuildContext.builder()
+            .projectId(projectId)
+            .workDir(Path.of("/tmp"))
+            .language(language)
+            .framework("flask")
+            .sources(new SourceMaterializer.Result(1, 1, 1, treeHash))
+            .build();
+    }
+}
@@ -0,0 +1,158 @@
+package com.cfforge.builder.cache;
+
+import com.cfforge.common.storage.S3StorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class DependencyCacheManagerTest {
+
+    @TempDir
+    Path cacheRoot;
+
+    @TempDir
+    Path project;
+
+    private DependencyCacheManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new DependencyCacheManager(mock(S3StorageService.class), new SimpleMeterRegistry(),
+            cacheRoot.toString(), 1, false);
+    }
+
+    @Test
+    void cacheKey_followsLockfileContent() throws Exception {
+        Files.writeString(project.resolve("package-lock.json"), "{\"a\":1}");
+        String first = DependencyCacheManager.cacheKey(Ecosystem.NPM, project);
+        assertThat(DependencyCacheManager.cacheKey(Ecosystem.NPM, project)).isEqualTo(first);
+
+        Files.writeString(project.resolve("package-lock.json"), "{\"a\":2}");
+        assertThat(DependencyCacheManager.cacheKey(Ecosystem.NPM, project)).isNotEqualTo(first);
+    }
+
+    @Test
+    void cacheKey_mavenIncludesModulePomsButNotBuildOutput() throws Exception {
+        Files.writeString(project.resolve("pom.xml"), "<project/>");
+        Files.createDirectories(project.resolve("core"));
+        Files.createDirectories(project.resolve("target/classes"));
+        String rootOnly = DependencyCacheManager.cacheKey(Ecosystem.MAVEN, project);
+
+        Files.writeString(project.resolve("target/classes/pom.xml"), "<copied/>");
+        assertThat(DependencyCacheManager.cacheKey(Ecosystem.MAVEN, project)).isEqualTo(rootOnly);
+
+        Files.writeString(project.resolve("core/pom.xml"), "<module/>");
+        assertThat(DependencyCacheManager.cacheKey(Ecosystem.MAVEN, project)).isNotEqualTo(rootOnly);
+    }
+
+    @Test
+    void changedLockfile_isSeededFromPreviousEntry() throws Exception {
+        Files.writeString(project.resolve("go.sum"), "v1");
+        try (var lease = manager.acquire(Ecosystem.GO, project)) {
+            assertThat(lease.source()).isEqualTo(DependencyCacheManager.Source.COLD);
+            Files.createDirectories(lease.directory().resolve("mod/example.com"));
+            Files.writeString(lease.directory().resolve("mod/example.com/lib.zip"), "module bytes");
+            lease.markSucceeded();
+        }
+
+        try (var again = manager.acquire(Ecosystem.GO, project)) {
+            assertThat(again.source()).isEqualTo(DependencyCacheManager.Source.HIT);
+        }
+
+        Files.writeString(project.resolve("go.sum"), "v2");
+        try (var lease = manager.acquire(Ecosystem.GO, project)) {
+            assertThat(lease.source()).isEqualTo(DependencyCacheManager.Source.SEEDED);
+            assertThat(lease.directory().resolve("mod/example.com/lib.zip")).hasContent("module bytes");
+            assertThat(lease.environment()).containsEntry("GOMODCACHE", lease.directory().resolve("mod").toString());
+        }
+    }
+
+    @Test
+    void seededEntry_copiesFilesRewrittenInPlace() throws Exception {
+        Files.writeString(project.resolve("pom.xml"), "<project>v1</project>");
+        Path seed;
+        try (var lease = manager.acquire(Ecosystem.MAVEN, project)) {
+            seed = lease.directory();
+            Files.createDirectories(seed.resolve("org/example/lib/1.0"));
+            Files.writeString(seed.resolve("org/example/lib/maven-metadata-central.xml"), "<metadata>v1</metadata>");
+            Files.writeString(seed.resolve("org/example/lib/1.0/lib-1.0.jar"), "jar bytes");
+        }
+
+        Files.writeString(project.resolve("pom.xml"), "<project>v2</project>");
+        try (var lease = manager.acquire(Ecosystem.MAVEN, project)) {
+            assertThat(lease.source()).isEqualTo(DependencyCacheManager.Source.SEEDED);
+            Path metadata = lease.directory().resolve("org/example/lib/maven-metadata-central.xml");
+            Files.writeString(metadata, "<metadata>v2</metadata>");
+
+            assertThat(seed.resolve("org/example/lib/maven-metadata-central.xml")).hasContent("<metadata>v1</metadata>");
+            assertThat(Files.isSameFile(seed.resolve("org/example/lib/1.0/lib-1.0.jar"),
+                lease.directory().resolve("org/example/lib/1.0/lib-1.0.jar"))).isTrue();
+        }
+    }
+
+    @Test
+    void enforceBudget_evictsLeastRecentlyUsedUnleasedEntries() throws Exception {
+        Path oldEntry = entryWith("package-lock.json", "old", 700_000);
+        Files.setLastModifiedTime(oldEntry.resolve(DependencyCacheManager.MARKER), FileTime.fromMillis(1_000));
+        Path newEntry = entryWith("package-lock.json", "new", 700_000);
+
+        manager.enforceBudget();
+
+        assertThat(oldEntry).doesNotExist();
+        assertThat(newEntry).exists();
+    }
+
+    @Test
+    void enforceBudget_countsHardLinkedFilesOnce() throws Exception {
+        Path first = entryWith("package-lock.json", "v1", 700_000);
+        Files.writeString(project.resolve("package-lock.json"), "v2");
+        Path second;
+        try (var lease = manager.acquire(Ecosystem.NPM, project)) {
+            assertThat(lease.source()).isEqualTo(DependencyCacheManager.Source.SEEDED);
+            second = lease.directory();
+        }
+
+        manager.enforceBudget();
+
+        assertThat(first).exists();
+        assertThat(second.resolve("blob")).exists();
+    }
+
+    @Test
+    void enforceBudget_neverEvictsAnEntryLeasedAgainAfterEviction() throws Exception {
+        Path oldEntry = entryWith("package-lock.json", "old", 700_000);
+        Files.setLastModifiedTime(oldEntry.resolve(DependencyCacheManager.MARKER), FileTime.fromMillis(1_000));
+        entryWith("package-lock.json", "new", 700_000);
+        manager.enforceBudget();
+        assertThat(oldEntry).doesNotExist();
+
+        Files.writeString(project.resolve("package-lock.json"), "old");
+        try (var lease = manager.acquire(Ecosystem.NPM, project)) {
+            Files.deleteIfExists(lease.directory().resolve("blob"));
+            Files.write(lease.directory().resolve("blob"), new byte[700_000]);
+            Files.setLastModifiedTime(lease.directory().resolve(DependencyCacheManager.MARKER), FileTime.fromMillis(1_000));
+
+            manager.enforceBudget();
+
+            assertThat(lease.directory().resolve("blob")).exists();
+        }
+    }
+
+    private Path entryWith(String lockfile, String content, int bytes) throws Exception {
+        Files.writeString(project.resolve(lockfile), content);
+        try (var lease = manager.acquire(Ecosystem.NPM, project)) {
+            // A new file, as tools write them, rather than rewriting one hard-linked from the seed
+            Files.deleteIfExists(lease.directory().resolve("blob"));
+            Files.write(lease.directory().resolve("blob"), new byte[bytes]);
+            return lease.directory();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.cfforge.builder.consumer;
+
+import com.cfforge.builder.executor.BuildExecutor;
+import com.cfforge.builder.executor.BuildExecutorProperties;
+import com.cfforge.builder.executor.BuildTicket;
+import com.cfforge.common.dto.BuildRequest;
+import com.cfforge.common.enums.Language;
+import com.cfforge.common.enums.TriggerType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BuildCoalescerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID projectId = UUID.randomUUID();
+    private final List<BuildRequest> ran = new CopyOnWriteArrayList<>();
+    private final Map<UUID, UUID> supersededBy = new ConcurrentHashMap<>();
+    private final Map<String, Throwable> done = new ConcurrentHashMap<>();
+    private final CountDownLatch firstStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirst = new CountDownLatch(1);
+    private BuildExecutor executor;
+    private BuildCoalescer<String> coalescer;
+
+    @BeforeEach
+    void setUp() {
+        BuildExecutorProperties properties = new BuildExecutorProperties();
+        properties.setMaxConcurrent(1);
+        executor = new BuildExecutor(properties, meterRegistry, language -> 0);
+        coalescer = new BuildCoalescer<>(executor, meterRegistry,
+            queued -> {
+                ran.add(queued.request());
+                if (queued.delivery().equals("block")) {
+                    firstStarted.countDown();
+                    await(releaseFirst);
+                }
+            },
+            (older, newer) -> supersededBy.put(older.request().buildId(), newer.request().buildId()),
+            (queued, error) -> done.put(queued.delivery(), error != null ? error : new NoError()));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        releaseFirst.countDown();
+    }
+
+    @Test
+    void offer_whileRunning_onlyNewestPendingRequestRuns() throws Exception {
+        BuildRequest running = request(false);
+        coalescer.offer(queued(running, "block"));
+        assertThat(firstStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        BuildRequest second = request(true);
+        BuildRequest third = request(false);
+        BuildRequest fourth = request(false);
+        coalescer.offer(queued(second, "second"));
+        coalescer.offer(queued(third, "third"));
+        coalescer.offer(queued(fourth, "fourth"));
+        releaseFirst.countDown();
+        awaitDone(4);
+
+        assertThat(ran).extracting(BuildRequest::buildId).containsExactly(running.buildId(), fourth.buildId());
+        // The superseded force rebuild carries over to the request that runs
+        assertThat(ran.get(1).forceRebuild()).isTrue();
+        assertThat(supersededBy).containsEntry(second.buildId(), third.buildId())
+            .containsEntry(third.buildId(), fourth.buildId()).hasSize(2);
+        assertThat(done.values()).allMatch(NoError.class::isInstance);
+        assertThat(meterRegistry.counter("builder.build.superseded").count()).isEqualTo(2);
+        assertThat(coalescer.trackedProjects()).isZero();
+    }
+
+    @Test
+    void offer_queuedBehindOtherProject_isReplacedBeforeItStarts() throws Exception {
+        BuildRequest other = new BuildRequest(UUID.randomUUID(), TriggerType.MANUAL, false, UUID.randomUUID());
+        coalescer.offer(queued(other, "block"));
+        assertThat(firstStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        BuildRequest first = request(false);
+        BuildRequest second = request(false);
+        coalescer.offer(queued(first, "first"));
+        coalescer.offer(queued(second, "second"));
+        releaseFirst.countDown();
+        awaitDone(3);
+
+        assertThat(ran).extracting(BuildRequest::buildId).containsExactly(other.buildId(), second.buildId());
+        assertThat(supersededBy).containsExactly(Map.entry(first.buildId(), second.buildId()));
+    }
+
+    private BuildRequest request(boolean force) {
+        return new BuildRequest(projectId, TriggerType.AGENT, force, UUID.randomUUID());
+    }
+
+    private static BuildCoalescer.Queued<String> queued(BuildRequest request, String delivery) {
+        return new BuildCoalescer.Queued<>(request, BuildTicket.of(Language.JAVA), delivery);
+    }
+
+    private void awaitDone(int count) throws InterruptedException {
+        for (int i = 0; i < 200 && done.size() < count; i++) {
+            Thread.sleep(25);
+        }
+        assertThat(done).hasSize(count);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class NoError extends RuntimeException {}
+}
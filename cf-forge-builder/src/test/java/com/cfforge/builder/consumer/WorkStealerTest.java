@@ -0,0 +1,80 @@
+package com.cfforge.builder.consumer;
+
+import com.cfforge.builder.executor.BuildExecutor;
+import com.cfforge.common.dto.BuildRequest;
+import com.cfforge.common.enums.TriggerType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.stream.binder.PollableMessageSource;
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.acks.AcknowledgmentCallback;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WorkStealerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PollableMessageSource overflow = mock(PollableMessageSource.class);
+    private final BuildExecutor executor = mock(BuildExecutor.class);
+    private final BuildPipelineConsumer consumer = mock(BuildPipelineConsumer.class);
+    private final AcknowledgmentCallback ack = mock(AcknowledgmentCallback.class);
+    private final WorkStealer stealer = new WorkStealer(overflow, executor, consumer, meterRegistry, false, Duration.ofSeconds(1));
+
+    @AfterEach
+    void tearDown() {
+        stealer.shutdown();
+    }
+
+    @Test
+    void steal_takesOneRequestPerIdleSlotAndLeavesItUnacknowledged() {
+        BuildRequest request = new BuildRequest(UUID.randomUUID(), TriggerType.WEBHOOK, false, UUID.randomUUID());
+        when(executor.idleSlots()).thenReturn(2);
+        when(overflow.poll(any(), any())).thenAnswer(invocation -> {
+            MessageHandler handler = invocation.getArgument(0);
+            handler.handleMessage(MessageBuilder.withPayload(request)
+                .setHeader(IntegrationMessageHeaderAccessor.ACKNOWLEDGMENT_CALLBACK, ack)
+                .build());
+            return true;
+        });
+
+        assertThat(stealer.steal()).isEqualTo(2);
+
+        verify(consumer, times(2)).accept(eq(request), eq(ack));
+        verify(ack, times(2)).noAutoAck();
+        verify(ack, never()).acknowledge(any());
+        assertThat(meterRegistry.get("builder.build.stolen").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void steal_leavesTheOverflowQueueAloneWhileBusy() {
+        when(executor.idleSlots()).thenReturn(0);
+
+        assertThat(stealer.steal()).isZero();
+
+        verify(overflow, never()).poll(any(), any());
+    }
+
+    @Test
+    void steal_stopsWhenTheOverflowQueueIsEmpty() {
+        when(executor.idleSlots()).thenReturn(4);
+        when(overflow.poll(any(), any())).thenReturn(false);
+
+        assertThat(stealer.steal()).isZero();
+
+        verify(overflow, times(1)).poll(any(), any());
+        verify(consumer, never()).accept(any(), any());
+    }
+}
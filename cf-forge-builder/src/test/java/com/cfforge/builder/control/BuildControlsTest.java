@@ -0,0 +1,101 @@
+package com.cfforge.builder.control;
+
+import com.cfforge.builder.model.BuildTimeline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BuildControlsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BuildControls controls;
+
+    @BeforeEach
+    void setUp() {
+        BuildTimeoutProperties properties = new BuildTimeoutProperties();
+        properties.setStages(new HashMap<>(Map.of("test", Duration.ofMillis(300))));
+        properties.setKillGrace(Duration.ofSeconds(2));
+        properties.setCheckInterval(Duration.ofMillis(50));
+        controls = new BuildControls(properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        controls.shutdown();
+    }
+
+    @Test
+    void cancel_killsWholeProcessTreeAndInterruptsBuildThread() throws Exception {
+        UUID buildId = UUID.randomUUID();
+        BuildControl control = controls.register(buildId, new BuildTimeline());
+        // The shell forks a child that would keep the pipe open if only the shell were killed
+        Process process = control.start(new ProcessBuilder("sh", "-c", "sleep 30 & wait"));
+        List<ProcessHandle> children = awaitDescendants(process);
+
+        assertThat(controls.cancel(buildId, "Cancelled by user")).isTrue();
+        assertThat(Thread.interrupted()).isTrue();
+
+        assertThat(process.waitFor(5, TimeUnit.SECONDS)).isTrue();
+        for (ProcessHandle child : children) {
+            assertThat(child.onExit().get(5, TimeUnit.SECONDS).isAlive()).isFalse();
+        }
+        assertThatThrownBy(control::checkActive)
+            .isInstanceOfSatisfying(BuildTerminatedException.class, e -> assertThat(e.isCancelled()).isTrue())
+            .hasMessage("Cancelled by user");
+        assertThatThrownBy(() -> control.start(new ProcessBuilder("true")))
+            .isInstanceOf(BuildTerminatedException.class);
+
+        controls.unregister(control);
+        assertThat(controls.cancel(buildId, "again")).isFalse();
+        assertThat(meterRegistry.counter("builder.build.terminated", "reason", "cancelled").count()).isEqualTo(1);
+    }
+
+    @Test
+    void watchdog_terminatesBuildWhoseStageRunsPastItsTimeout() throws Exception {
+        BuildTimeline timeline = new BuildTimeline();
+        // Registered from another thread, which takes the interrupt instead of the test
+        BuildControl control = CompletableFuture.supplyAsync(() -> controls.register(UUID.randomUUID(), timeline))
+            .get(5, TimeUnit.SECONDS);
+        try {
+            timeline.begin("compile");
+            Process compile = control.start(new ProcessBuilder("sh", "-c", "sleep 0.5"));
+            assertThat(compile.waitFor(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(compile.exitValue()).isZero();
+            assertThat(control.isTerminated()).isFalse();
+
+            timeline.begin("test");
+            Process test = control.start(new ProcessBuilder("sleep", "30"));
+
+            assertThat(test.waitFor(5, TimeUnit.SECONDS)).isTrue();
+            BuildTerminatedException termination = control.termination();
+            assertThat(termination).isNotNull();
+            assertThat(termination.isCancelled()).isFalse();
+            assertThat(termination.getMessage()).contains("Stage 'test'");
+        } finally {
+            controls.unregister(control);
+        }
+    }
+
+    private static List<ProcessHandle> awaitDescendants(Process process) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            List<ProcessHandle> descendants = process.descendants().toList();
+            if (!descendants.isEmpty()) {
+                return descendants;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("shell did not start its child");
+    }
+}
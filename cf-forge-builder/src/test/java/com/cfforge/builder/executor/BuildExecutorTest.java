@@ -0,0 +1,280 @@
+package com.cfforge.builder.executor;
+
+import com.cfforge.common.enums.Language;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BuildExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BuildExecutor executor;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void capacityFor_takesTheTighterOfCpuAndMemory() {
+        BuildExecutorProperties properties = new BuildExecutorProperties();
+        properties.setAdmissionEnabled(false);
+
+        assertThat(BuildExecutor.capacityFor(properties, 16, 64 * 1024)).isEqualTo(8);
+        assertThat(BuildExecutor.capacityFor(properties, 16, 6 * 1024)).isEqualTo(3);
+        assertThat(BuildExecutor.capacityFor(properties, 1, 512)).isEqualTo(1);
+
+        properties.setMaxConcurrent(5);
+        assertThat(BuildExecutor.capacityFor(properties, 1, 512)).isEqualTo(5);
+    }
+
+    @Test
+    void capacityFor_leavesMemoryToAdmissionWhenEnabled() {
+        BuildExecutorProperties properties = new BuildExecutorProperties();
+
+        assertThat(BuildExecutor.capacityFor(properties, 16, 6 * 1024)).isEqualTo(8);
+        assertThat(BuildExecutor.memoryBudgetFor(properties, 16 * 1024, 1024)).isEqualTo(16 * 1024 - 1024 - 512);
+        assertThat(BuildExecutor.memoryBudgetFor(properties, 2048, 1024)).isEqualTo(2048);
+
+        properties.setMemoryBudgetMb(4000);
+        assertThat(BuildExecutor.memoryBudgetFor(properties, 16 * 1024, 1024)).isEqualTo(4000);
+    }
+
+    @Test
+    void submit_admitsBuildsWhileTheirFootprintsFitTheBudget() throws Exception {
+        BuildExecutorProperties properties = new BuildExecutorProperties();
+        properties.setMaxConcurrent(4);
+        properties.setMemoryBudgetMb(3000);
+        executor = new BuildExecutor(properties, meterRegistry, language -> language == Language.JAVA ? 2000 : 1000);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger javaRunning = new AtomicInteger();
+        AtomicInteger javaMax = new AtomicInteger();
+
+        List<CompletableFuture<Void>> builds = new ArrayList<>();
+        builds.add(executor.submit(Language.JAVA, () -> {
+            javaMax.accumulateAndGet(javaRunning.incrementAndGet(), Math::max);
+            started.countDown();
+            await(release);
+            javaRunning.decrementAndGet();
+        }));
+        builds.add(executor.submit(Language.NODEJS, () -> {
+            started.countDown();
+            await(release);
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        builds.add(executor.submit(Language.JAVA, () -> javaMax.accumulateAndGet(javaRunning.incrementAndGet(), Math::max)));
+
+        assertThat(executor.reservedMb()).isEqualTo(3000);
+        assertThat(executor.idleSlots()).isZero();
+        assertThat(meterRegistry.get("builder.executor.queued").tag("language", "java").gauge().value()).isEqualTo(1);
+        release.countDown();
+        CompletableFuture.allOf(builds.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertThat(javaMax.get()).isEqualTo(1);
+        assertThat(executor.reservedMb()).isZero();
+    }
+
+    @Test
+    void submit_admitsAnOversizedBuildWhenNothingIsRunning() throws Exception {
+        BuildExecutorProperties properties = new BuildExecutorProperties();
+        properties.setMaxConcurrent(2);
+        properties.setMemoryBudgetMb(1000);
+        executor = new BuildExecutor(properties, meterRegistry, language -> 4000);
+
+        executor.submit(Language.JAVA, () -> {}).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void submit_respectsLanguageLimitAndGlobalCapacity() throws Exception {
+        BuildExecutorProperties properties = new BuildExecutorProperties();
+        properties.setMaxConcurrent(3);
+        properties.getLanguageLimits().put(Language.JAVA, 1);
+        executor = new BuildExecutor(properties, meterRegistry, language -> 0);
+
+        AtomicInteger runningJava = new AtomicInteger();
+        AtomicInteger maxJava = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<Void>> builds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            builds.add(executor.submit(Language.JAVA, tracked(runningJava, maxJava, running, maxRunning)));
+            builds.add(executor.submit(Language.NODEJS, tracked(new AtomicInteger(), new AtomicInteger(), running, maxRunning)));
+        }
+        CompletableFuture.allOf(builds.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        assertThat(maxJava.get()).isEqualTo(1);
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(3);
+        assertThat(meterRegistry.get("builder.executor.running").tag("language", "java").gauge().value()).isZero();
+    }
+
+    @Test
+    void submit_failedBuildCompletesFutureExceptionally() {
+        BuildExecutorProperties properties = new BuildExecutorProperties();
+        properties.setMaxConcurrent(1);
+        executor = new BuildExecutor(properties, meterRegistry, language -> 0);
+
+        CompletableFuture<Void> build = executor.submit(Language.GO, () -> {
+            throw new IllegalStateException("boom");
+        });
+
+        assertThatThrownBy(() -> build.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void submit_queuedBuildsAreCountedUntilTheyStart() throws Exception {
+        BuildExecutorProperties properties = new BuildExecutorProperties();
+        properties.setMaxConcurrent(1);
+        executor = new BuildExecutor(properties, meterRegistry, language -> 0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> first = executor.submit(Language.PYTHON, () -> {
+            started.countDown();
+            await(release);
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> second = executor.submit(Language.PYTHON, () -> {});
+
+        assertThat(meterRegistry.get("builder.executor.queued").tag("language", "python").gauge().value()).isEqualTo(1);
+        release.countDown();
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+        assertThat(meterRegistry.get("builder.executor.queued").tag("language", "python").gauge().value()).isZero();
+    }
+
+    @Test
+    void submit_sharesSlotsFairlyBetweenOwners() throws Exception {
+        executor = singleSlotExecutor();
+        UUID busy = UUID.randomUUID();
+        UUID quiet = UUID.randomUUID();
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        List<CompletableFuture<Void>> builds = new ArrayList<>();
+        builds.add(executor.submit(new BuildTicket(Language.JAVA, busy, BuildLane.BULK), () -> await(release)));
+        for (int i = 1; i <= 4; i++) {
+            String name = "busy-" + i;
+            builds.add(executor.submit(new BuildTicket(Language.JAVA, busy, BuildLane.BULK), () -> order.add(name)));
+        }
+        builds.add(executor.submit(new BuildTicket(Language.JAVA, quiet, BuildLane.BULK), () -> order.add("quiet")));
+        release.countDown();
+        CompletableFuture.allOf(builds.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertThat(order).containsExactly("quiet", "busy-1", "busy-2", "busy-3", "busy-4");
+    }
+
+    @Test
+    void submit_interactiveLaneOvertakesQueuedBulkBuilds() throws Exception {
+        executor = singleSlotExecutor();
+        UUID owner = UUID.randomUUID();
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        List<CompletableFuture<Void>> builds = new ArrayList<>();
+        builds.add(executor.submit(new BuildTicket(Language.NODEJS, UUID.randomUUID(), BuildLane.BULK), () -> await(release)));
+        for (int i = 1; i <= 3; i++) {
+            String name = "agent-" + i;
+            builds.add(executor.submit(new BuildTicket(Language.NODEJS, owner, BuildLane.BULK), () -> order.add(name)));
+        }
+        builds.add(executor.submit(new BuildTicket(Language.NODEJS, owner, BuildLane.INTERACTIVE), () -> order.add("manual")));
+        release.countDown();
+        CompletableFuture.allOf(builds.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertThat(order.get(0)).isEqualTo("manual");
+        assertThat(meterRegistry.get("builder.executor.queue.wait").tag("lane", "interactive").timer().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void submit_capsRunningBuildsPerOwner() throws Exception {
+        BuildExecutorProperties properties = new BuildExecutorProperties();
+        properties.setMaxConcurrent(4);
+        properties.setMaxPerOwner(1);
+        executor = new BuildExecutor(properties, meterRegistry, language -> 0);
+        UUID owner = UUID.randomUUID();
+        AtomicInteger ownerRunning = new AtomicInteger();
+        AtomicInteger ownerMax = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<CompletableFuture<Void>> builds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            builds.add(executor.submit(new BuildTicket(Language.GO, owner, BuildLane.INTERACTIVE),
+                tracked(ownerRunning, ownerMax, running, maxRunning)));
+        }
+        for (int i = 0; i < 3; i++) {
+            builds.add(executor.submit(new BuildTicket(Language.GO, UUID.randomUUID(), BuildLane.BULK),
+                tracked(new AtomicInteger(), new AtomicInteger(), running, maxRunning)));
+        }
+        CompletableFuture.allOf(builds.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        assertThat(ownerMax.get()).isEqualTo(1);
+        assertThat(maxRunning.get()).isGreaterThan(1);
+    }
+
+    @Test
+    void idleSlots_isZeroWhileBuildsAreQueued() throws Exception {
+        BuildExecutorProperties properties = new BuildExecutorProperties();
+        properties.setMaxConcurrent(2);
+        properties.getLanguageLimits().put(Language.JAVA, 1);
+        executor = new BuildExecutor(properties, meterRegistry, language -> 0);
+        CountDownLatch release = new CountDownLatch(1);
+        assertThat(executor.idleSlots()).isEqualTo(2);
+
+        CompletableFuture<Void> first = executor.submit(Language.JAVA, () -> await(release));
+        assertThat(executor.idleSlots()).isEqualTo(1);
+        CompletableFuture<Void> second = executor.submit(Language.JAVA, () -> await(release));
+        assertThat(executor.idleSlots()).isZero();
+
+        release.countDown();
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+        assertThat(executor.idleSlots()).isEqualTo(2);
+    }
+
+    private BuildExecutor singleSlotExecutor() {
+        BuildExecutorProperties properties = new BuildExecutorProperties();
+        properties.setMaxConcurrent(1);
+        return new BuildExecutor(properties, meterRegistry, language -> 0);
+    }
+
+    private static Runnable tracked(AtomicInteger languageRunning, AtomicInteger languageMax,
+                                    AtomicInteger running, AtomicInteger max) {
+        return () -> {
+            languageMax.accumulateAndGet(languageRunning.incrementAndGet(), Math::max);
+            max.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(50);
+            running.decrementAndGet();
+            languageRunning.decrementAndGet();
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
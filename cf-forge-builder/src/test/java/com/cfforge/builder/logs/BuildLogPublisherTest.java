@@ -0,0 +1,82 @@
+package com.cfforge.builder.logs;
+
+import com.cfforge.builder.model.BuildLog;
+import com.cfforge.common.dto.BuildLogEvent;
+import com.cfforge.common.enums.BuildStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cloud.stream.function.StreamBridge;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BuildLogPublisherTest {
+
+    private final StreamBridge streamBridge = mock(StreamBridge.class);
+    // Long flush interval so only size-triggered and final batches are sent
+    private final BuildLogPublisher publisher = new BuildLogPublisher(streamBridge, true, 60_000, 2, 10);
+
+    @AfterEach
+    void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Test
+    void stream_batchesCompleteLinesAndFinishesWithStatus() {
+        BuildLogPublisher.Stream stream = publisher.open(UUID.randomUUID(), UUID.randomUUID());
+        BuildLog log = new BuildLog(stream, BuildLog.DEFAULT_TAIL_CHARS);
+
+        log.append("[1/4] Installing").append("...\n").append("added 12 packages\nnot yet");
+        log.append(" finished\n");
+        stream.close(BuildStatus.SUCCESS);
+
+        ArgumentCaptor<BuildLogEvent> events = ArgumentCaptor.forClass(BuildLogEvent.class);
+        verify(streamBridge, times(2)).send(eq("buildLog-out-0"), events.capture());
+        assertThat(events.getAllValues().get(0).lines()).containsExactly("[1/4] Inst...", "added 12 p...");
+        assertThat(events.getAllValues().get(0).status()).isNull();
+        assertThat(events.getAllValues().get(1).lines()).containsExactly("not yet fi...");
+        assertThat(events.getAllValues().get(1).sequence()).isEqualTo(1);
+        assertThat(events.getAllValues().get(1).status()).isEqualTo("SUCCESS");
+        assertThat(log.toString()).isEqualTo("[1/4] Installing...\nadded 12 packages\nnot yet finished\n");
+    }
+
+    @Test
+    void close_publishesStatusBatchAfterAFlushAlreadyInProgress() throws Exception {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> published = new CopyOnWriteArrayList<>();
+        when(streamBridge.send(eq("buildLog-out-0"), any())).thenAnswer(invocation -> {
+            BuildLogEvent event = invocation.getArgument(1);
+            if (event.status() == null) {
+                flushing.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            published.add(event.sequence());
+            return true;
+        });
+        BuildLogPublisher.Stream stream = publisher.open(UUID.randomUUID(), UUID.randomUUID());
+
+        Thread flusher = new Thread(() -> {
+            stream.accept("one");
+            stream.accept("two");
+        });
+        flusher.start();
+        assertThat(flushing.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread closer = new Thread(() -> stream.close(BuildStatus.SUCCESS));
+        closer.start();
+        closer.join(200);
+        release.countDown();
+        flusher.join(5_000);
+        closer.join(5_000);
+
+        assertThat(published).containsExactly(0L, 1L);
+    }
+}
@@ -0,0 +1,86 @@
+package com.cfforge.builder.logs;
+
+import com.cfforge.builder.model.BuildLog;
+import com.cfforge.common.buildlog.BuildLogIndex;
+import com.cfforge.common.storage.S3StorageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BuildLogStoreTest {
+
+    @TempDir
+    Path storageDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private S3StorageService s3;
+    private final UUID buildId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        s3 = new S3StorageService();
+        ReflectionTestUtils.setField(s3, "endpoint", "");
+        ReflectionTestUtils.setField(s3, "fallbackDir", storageDir.toString());
+        ReflectionTestUtils.setField(s3, "defaultBucket", "cf-forge-artifacts");
+    }
+
+    @Test
+    void writer_storesFullLogAsChunksWhileBuildLogKeepsOnlyTail() throws Exception {
+        BuildLogStore store = new BuildLogStore(s3, objectMapper, true, 1024);
+        BuildLogStore.Writer writer = store.open(buildId);
+        BuildLog buildLog = new BuildLog(writer, 2048);
+
+        StringBuilder expected = new StringBuilder();
+        buildLog.append("[1/2] Compiling\n");
+        expected.append("[1/2] Compiling\n");
+        for (int i = 0; i < 500; i++) {
+            buildLog.append("line ").append(i).append('\n');
+            expected.append("line ").append(i).append('\n');
+        }
+        buildLog.append("[2/2] Packaging\n");
+        expected.append("[2/2] Packaging\n");
+        long size = writer.close();
+
+        BuildLogIndex index = objectMapper.readValue(s3.getObject(BuildLogIndex.indexKey(buildId)), BuildLogIndex.class);
+        assertThat(index.complete()).isTrue();
+        assertThat(index.totalBytes()).isEqualTo(size).isEqualTo(expected.length());
+        assertThat(index.chunks()).hasSizeGreaterThan(1);
+        assertThat(index.stages()).extracting(BuildLogIndex.Stage::name)
+            .containsExactly("[1/2] Compiling", "[2/2] Packaging");
+        assertThat(index.stages().get(1).offset()).isEqualTo(expected.indexOf("[2/2]"));
+
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        for (BuildLogIndex.Chunk chunk : index.chunks()) {
+            try (InputStream in = new GZIPInputStream(s3.openObject(chunk.key()))) {
+                in.transferTo(stored);
+            }
+        }
+        assertThat(stored.toString(StandardCharsets.UTF_8)).isEqualTo(expected.toString());
+
+        String tail = buildLog.toString();
+        assertThat(tail).startsWith("[earlier output truncated, see full log]\n");
+        assertThat(tail.length()).isLessThan(3 * 2048);
+        assertThat(tail).endsWith("line 499\n[2/2] Packaging\n");
+    }
+
+    @Test
+    void writer_disabled_storesNothing() {
+        BuildLogStore store = new BuildLogStore(s3, objectMapper, false, 1024);
+        BuildLogStore.Writer writer = store.open(buildId);
+        writer.accept("hello");
+
+        assertThat(writer.close()).isEqualTo(-1);
+        assertThat(s3.listObjects(BuildLogIndex.prefix(buildId))).isEmpty();
+    }
+}
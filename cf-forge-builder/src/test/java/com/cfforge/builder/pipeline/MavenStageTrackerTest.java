@@ -0,0 +1,55 @@
+package com.cfforge.builder.pipeline;
+
+import com.cfforge.builder.model.BuildLog;
+import com.cfforge.builder.model.BuildTimeline;
+import com.cfforge.common.dto.BuildStageTiming;
+import org.junit.jupiter.api.Test;
+
+import static com.cfforge.builder.pipeline.MavenStageTracker.Stage;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MavenStageTrackerTest {
+
+    @Test
+    void stageOf_recognisesOldAndNewPluginHeaders() {
+        assertThat(MavenStageTracker.stageOf(
+            "[INFO] --- maven-compiler-plugin:3.11.0:compile (default-compile) @ demo ---")).isEqualTo(Stage.COMPILE);
+        assertThat(MavenStageTracker.stageOf(
+            "[INFO] --- compiler:3.13.0:testCompile (default-testCompile) @ demo ---")).isEqualTo(Stage.TEST);
+        assertThat(MavenStageTracker.stageOf(
+            "[INFO] --- surefire:3.2.5:test (default-test) @ demo ---")).isEqualTo(Stage.TEST);
+        assertThat(MavenStageTracker.stageOf(
+            "[INFO] --- spring-boot-maven-plugin:3.4.2:repackage (repackage) @ demo ---")).isEqualTo(Stage.PACKAGE);
+        assertThat(MavenStageTracker.stageOf(
+            "[INFO] --- cyclonedx-maven-plugin:2.9.1:makeAggregateBom (default-cli) @ demo ---")).isEqualTo(Stage.PACKAGE);
+        assertThat(MavenStageTracker.stageOf("[INFO] Downloading from central: https://repo/x.pom")).isNull();
+    }
+
+    @Test
+    void markersAreInsertedOnceInOrder() {
+        BuildLog log = new BuildLog();
+        BuildTimeline timeline = new BuildTimeline();
+        MavenStageTracker tracker = new MavenStageTracker(log, timeline, 2, 6);
+
+        tracker.accept("[INFO] Downloading from central: x.pom");
+        tracker.accept("[INFO] --- resources:3.3.1:resources (default-resources) @ core ---");
+        tracker.accept("[INFO] --- compiler:3.13.0:compile (default-compile) @ core ---");
+        tracker.accept("[INFO] --- surefire:3.2.5:test (default-test) @ core ---");
+        // A slower module still compiling in parallel doesn't move the stage back
+        tracker.accept("[INFO] --- compiler:3.13.0:compile (default-compile) @ web ---");
+        tracker.accept("[INFO] --- jar:3.4.1:jar (default-jar) @ core ---");
+        var durations = tracker.finish();
+
+        assertThat(log.toString()).containsSubsequence(
+            "[2/6] Resolving Maven dependencies...", "Downloading from central",
+            "[3/6] Compiling...", "resources:3.3.1",
+            "[4/6] Running tests...", "surefire",
+            "[5/6] Packaging...", "jar:3.4.1");
+        assertThat(log.toString().split("Compiling\\.\\.\\.", -1)).hasSize(2);
+        assertThat(durations).containsOnlyKeys(Stage.RESOLVE, Stage.COMPILE, Stage.TEST, Stage.PACKAGE);
+        assertThat(tracker.summary()).startsWith("resolve ");
+        timeline.end();
+        assertThat(timeline.stages()).extracting(BuildStageTiming::stage)
+            .containsExactly("dependencies", "compile", "test", "package");
+    }
+}
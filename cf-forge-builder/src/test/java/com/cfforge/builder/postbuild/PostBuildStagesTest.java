@@ -0,0 +1,161 @@
+package com.cfforge.builder.postbuild;
+
+import com.cfforge.builder.model.BuildContext;
+import com.cfforge.builder.model.BuildResult;
+import com.cfforge.builder.security.CveScanResult;
+import com.cfforge.builder.security.CveScanner;
+import com.cfforge.builder.security.SbomGenerator;
+import com.cfforge.common.artifact.ArtifactStore;
+import com.cfforge.common.enums.BuildStatus;
+import com.cfforge.common.enums.Language;
+import com.cfforge.common.storage.S3StorageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PostBuildStagesTest {
+
+    @TempDir
+    Path workDir;
+
+    private CveScanner cveScanner;
+    private SbomGenerator sbomGenerator;
+    private S3StorageService storageService;
+    private PostBuildStages stages;
+    private BuildContext context;
+    private BuildResult result;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cveScanner = mock(CveScanner.class);
+        sbomGenerator = mock(SbomGenerator.class);
+        storageService = mock(S3StorageService.class);
+        stages = new PostBuildStages(cveScanner, sbomGenerator, storageService,
+            new ArtifactStore(storageService, new ObjectMapper()),
+            Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofSeconds(5), true);
+        context = BuildContext.builder()
+            .projectId(UUID.randomUUID())
+            .buildId(UUID.randomUUID())
+            .workDir(workDir)
+            .language(Language.GO)
+            .build();
+        Path artifact = Files.writeString(workDir.resolve("app"), "binary");
+        result = BuildResult.builder()
+            .status(BuildStatus.SUCCESS)
+            .artifactFile(artifact)
+            .artifactPath("artifacts/app")
+            .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stages.shutdown();
+    }
+
+    @Test
+    void run_executesAllStagesConcurrently() throws Exception {
+        // Each stage only finishes once all three are running at the same time
+        CyclicBarrier barrier = new CyclicBarrier(3);
+        when(cveScanner.scan(workDir)).thenAnswer(inv -> {
+            barrier.await(2, TimeUnit.SECONDS);
+            return scan(false);
+        });
+        when(sbomGenerator.generate(any(), any(), any(), any(), any())).thenAnswer(inv -> {
+            barrier.await(2, TimeUnit.SECONDS);
+            return "sboms/sbom.json";
+        });
+        doAnswer(inv -> {
+            barrier.await(2, TimeUnit.SECONDS);
+            return null;
+        }).when(storageService).putObject(eq("artifacts/app"), any(InputStream.class), anyLong());
+
+        PostBuildStages.Outcome outcome = stages.run(context, result);
+
+        assertThat(outcome.blocked()).isFalse();
+        assertThat(outcome.failure()).isNull();
+        assertThat(outcome.sbomPath()).isEqualTo("sboms/sbom.json");
+        assertThat(outcome.artifactPath()).isEqualTo("artifacts/app");
+    }
+
+    @Test
+    void run_blockingScanCancelsOtherStagesAndDiscardsOutputs() throws Exception {
+        CountDownLatch sbomStarted = new CountDownLatch(1);
+        CountDownLatch sbomInterrupted = new CountDownLatch(1);
+        when(cveScanner.scan(workDir)).thenAnswer(inv -> {
+            sbomStarted.await(2, TimeUnit.SECONDS);
+            return scan(true);
+        });
+        when(sbomGenerator.generate(any(), any(), any(), any(), any())).thenAnswer(inv -> {
+            sbomStarted.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                sbomInterrupted.countDown();
+            }
+            return null;
+        });
+
+        PostBuildStages.Outcome outcome = stages.run(context, result);
+
+        assertThat(outcome.blocked()).isTrue();
+        assertThat(outcome.artifactPath()).isNull();
+        assertThat(sbomInterrupted.await(2, TimeUnit.SECONDS)).isTrue();
+        verify(storageService).deleteObject("artifacts/app");
+    }
+
+    @Test
+    void run_scanTimeoutCountsAsNotScanned() throws Exception {
+        stages = new PostBuildStages(cveScanner, sbomGenerator, storageService,
+            new ArtifactStore(storageService, new ObjectMapper()),
+            Duration.ofMillis(100), Duration.ofSeconds(5), Duration.ofSeconds(5), true);
+        when(cveScanner.scan(workDir)).thenAnswer(inv -> {
+            Thread.sleep(10_000);
+            return scan(true);
+        });
+
+        PostBuildStages.Outcome outcome = stages.run(context, result);
+
+        assertThat(outcome.cveScan().isScanned()).isFalse();
+        assertThat(outcome.cveScan().getSummary()).contains("timed out");
+        assertThat(outcome.artifactPath()).isEqualTo("artifacts/app");
+    }
+
+    @Test
+    void run_uploadFailureIsReported() throws Exception {
+        when(cveScanner.scan(workDir)).thenReturn(scan(false));
+        doThrow(new RuntimeException("bucket gone"))
+            .when(storageService).putObject(eq("artifacts/app"), any(InputStream.class), anyLong());
+
+        PostBuildStages.Outcome outcome = stages.run(context, result);
+
+        assertThat(outcome.failure()).isEqualTo("Artifact upload failed: bucket gone");
+        assertThat(outcome.artifactPath()).isNull();
+    }
+
+    private static CveScanResult scan(boolean blocked) {
+        return CveScanResult.builder()
+            .scanned(true)
+            .vulnerabilities(List.of())
+            .blocked(blocked)
+            .summary(blocked ? "Found 1 vulnerabilities — BLOCKED" : "Found 0 vulnerabilities")
+            .build();
+    }
+}
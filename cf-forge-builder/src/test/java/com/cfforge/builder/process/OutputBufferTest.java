@@ -0,0 +1,67 @@
+package com.cfforge.builder.process;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutputBufferTest {
+
+    @TempDir
+    Path spillDir;
+
+    @Test
+    void write_keepsTheTailInMemoryAndSpillsTheRest() throws Exception {
+        StringBuilder expected = new StringBuilder();
+        try (OutputBuffer buffer = new OutputBuffer(64, spillDir)) {
+            for (int i = 0; i < 100; i++) {
+                String line = "line " + i + "\n";
+                expected.append(line);
+                write(buffer, line);
+            }
+
+            assertThat(buffer.size()).isEqualTo(expected.length());
+            assertThat(buffer.hasSpilled()).isTrue();
+            assertThat(buffer.tail()).endsWith("line 99\n").startsWith("line ");
+            assertThat(buffer.tail().length()).isLessThanOrEqualTo(64);
+            assertThat(buffer.text()).isEqualTo(expected.toString());
+        }
+        try (var files = Files.list(spillDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void write_largerThanTheRingSpillsDirectly() throws Exception {
+        String big = "x".repeat(200) + "end";
+        try (OutputBuffer buffer = new OutputBuffer(16, spillDir)) {
+            write(buffer, "start\n");
+            write(buffer, big);
+
+            assertThat(buffer.text()).isEqualTo("start\n" + big);
+            assertThat(buffer.size()).isEqualTo(6 + big.length());
+        }
+    }
+
+    @Test
+    void write_withinTheRingNeverTouchesDisk() throws Exception {
+        try (OutputBuffer buffer = new OutputBuffer(1024, spillDir)) {
+            write(buffer, "hello\n");
+
+            assertThat(buffer.hasSpilled()).isFalse();
+            assertThat(buffer.tail()).isEqualTo("hello\n");
+            try (var files = Files.list(spillDir)) {
+                assertThat(files).isEmpty();
+            }
+        }
+    }
+
+    private static void write(OutputBuffer buffer, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        buffer.write(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,82 @@
+package com.cfforge.builder.process;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProcessRunnerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ProcessRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        ProcessRunnerProperties properties = new ProcessRunnerProperties();
+        properties.setBufferKb(1);
+        properties.setMaxLineChars(100);
+        properties.setSpillDir(tempDir.resolve("spill"));
+        properties.setKillGrace(Duration.ofMillis(200));
+        runner = new ProcessRunner(properties);
+    }
+
+    @Test
+    void run_passesEachLineToTheListenerAndBoundsMemory() throws Exception {
+        List<String> lines = new CopyOnWriteArrayList<>();
+        try (ProcessResult result = runner.run(ProcessSpec.shell("for i in $(seq 1 500); do echo \"line $i\"; done; echo oops >&2")
+                .directory(tempDir)
+                .lineListener(lines::add)
+                .build())) {
+
+            assertThat(result.exitCode()).isZero();
+            assertThat(lines).hasSize(501).startsWith("line 1").endsWith("oops");
+            assertThat(result.output().hasSpilled()).isTrue();
+            assertThat(result.output().tail()).endsWith("line 500\noops\n");
+            assertThat(result.output().text()).startsWith("line 1\nline 2\n");
+        }
+    }
+
+    @Test
+    void run_splitsOverlongLines() throws Exception {
+        List<String> lines = new CopyOnWriteArrayList<>();
+        try (ProcessResult result = runner.run(ProcessSpec.shell("printf '%0250d\\n' 0")
+                .lineListener(lines::add)
+                .build())) {
+
+            assertThat(lines).hasSize(3);
+            assertThat(lines.get(0)).hasSize(100);
+            assertThat(String.join("", lines)).hasSize(250);
+        }
+    }
+
+    @Test
+    void run_killsTheProcessTreeAtItsTimeout() throws Exception {
+        long start = System.currentTimeMillis();
+        try (ProcessResult result = runner.run(ProcessSpec.shell("sleep 30 & sleep 30; wait")
+                .timeout(Duration.ofMillis(300))
+                .build())) {
+
+            assertThat(result.timedOut()).isTrue();
+            assertThat(result.succeeded()).isFalse();
+            assertThat(System.currentTimeMillis() - start).isLessThan(10_000);
+        }
+    }
+
+    @Test
+    void run_appliesTheEnvironment() throws Exception {
+        try (ProcessResult result = runner.run(ProcessSpec.shell("echo \"$GREETING ${VCAP_SERVICES:-unset}\"")
+                .env("GREETING", "hello")
+                .build())) {
+
+            assertThat(result.output().text()).isEqualTo("hello unset\n");
+        }
+    }
+}
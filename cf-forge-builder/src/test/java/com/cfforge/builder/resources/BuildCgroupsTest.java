@@ -0,0 +1,71 @@
+package com.cfforge.builder.resources;
+
+import com.cfforge.builder.executor.BuildExecutorProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BuildCgroupsTest {
+
+    @TempDir
+    Path mount;
+
+    @Test
+    void create_limitsTheBuildGroupByItsFootprint() throws Exception {
+        Path self = delegatedHierarchy("cpuset cpu io memory pids");
+        BuildCgroups cgroups = new BuildCgroups(new BuildExecutorProperties(), true, mount, self, 2.0);
+
+        assertThat(cgroups.isEnabled()).isTrue();
+        assertThat(mount.resolve("cgroup.subtree_control")).hasContent("+cpu +memory");
+        assertThat(mount.resolve("builder/cgroup.procs")).hasContent("42");
+
+        UUID buildId = UUID.randomUUID();
+        BuildCgroup cgroup = cgroups.create(buildId, 1500);
+        Path group = mount.resolve("build-" + buildId);
+        assertThat(cgroup.procsFile()).isEqualTo(group.resolve("cgroup.procs"));
+        assertThat(group.resolve("memory.max")).hasContent(Long.toString(3000L * 1024 * 1024));
+        assertThat(group.resolve("memory.oom.group")).hasContent("1");
+        assertThat(group.resolve("cpu.max")).hasContent("200000 100000");
+
+        // Small footprints still get the default per-build memory
+        BuildCgroup small = cgroups.create(UUID.randomUUID(), 100);
+        assertThat(small.path().resolve("memory.max")).hasContent(Long.toString(2048L * 1024 * 1024));
+    }
+
+    @Test
+    void usage_readsPeakMemoryAndCpuTime() throws Exception {
+        Path group = Files.createDirectories(mount.resolve("build-1"));
+        Files.writeString(group.resolve("memory.peak"), "734003200\n");
+        Files.writeString(group.resolve("cpu.stat"), "usage_usec 12345678\nuser_usec 10000000\n");
+
+        ResourceUsage usage = new BuildCgroup(group).usage();
+
+        assertThat(usage.peakMemoryMb()).isEqualTo(700);
+        assertThat(usage.cpuTimeMs()).isEqualTo(12345);
+    }
+
+    @Test
+    void create_returnsNullWithoutTheControllers() throws Exception {
+        Path self = delegatedHierarchy("pids");
+        BuildCgroups cgroups = new BuildCgroups(new BuildExecutorProperties(), true, mount, self, 2.0);
+
+        assertThat(cgroups.isEnabled()).isFalse();
+        assertThat(cgroups.create(UUID.randomUUID(), 1000)).isNull();
+        assertThat(new BuildCgroups(new BuildExecutorProperties(), true, mount.resolve("missing"), self, 2.0).isEnabled())
+            .isFalse();
+    }
+
+    /**
+     * A cgroup namespace root as seen from inside a container, with one process in it.
+     */
+    private Path delegatedHierarchy(String controllers) throws Exception {
+        Files.writeString(mount.resolve("cgroup.controllers"), controllers + "\n");
+        Files.writeString(mount.resolve("cgroup.procs"), "42\n");
+        return Files.writeString(mount.resolve("self-cgroup"), "0::/\n");
+    }
+}
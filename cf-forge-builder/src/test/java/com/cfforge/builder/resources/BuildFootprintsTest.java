@@ -0,0 +1,60 @@
+package com.cfforge.builder.resources;
+
+import com.cfforge.builder.executor.BuildExecutorProperties;
+import com.cfforge.common.enums.Language;
+import com.cfforge.common.repository.BuildRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BuildFootprintsTest {
+
+    private static final long MB = 1024 * 1024;
+
+    private BuildRepository buildRepository;
+    private BuildExecutorProperties properties;
+    private BuildFootprints footprints;
+
+    @BeforeEach
+    void setUp() {
+        buildRepository = mock(BuildRepository.class);
+        properties = new BuildExecutorProperties();
+        properties.setFootprintSamples(10);
+        footprints = new BuildFootprints(buildRepository, properties);
+    }
+
+    @Test
+    void memoryMb_defaultsUntilALanguageHasEnoughSamples() {
+        footprints.record(Language.GO, new ResourceUsage(300 * MB, 1000));
+        footprints.record(Language.GO, new ResourceUsage(400 * MB, 1000));
+
+        assertThat(footprints.memoryMb(Language.GO)).isEqualTo(2048);
+        assertThat(footprints.memoryMb(null)).isEqualTo(2048);
+
+        footprints.record(Language.GO, new ResourceUsage(500 * MB, 1000));
+        assertThat(footprints.memoryMb(Language.GO)).isEqualTo(600);
+    }
+
+    @Test
+    void memoryMb_isTheRecentPercentileWithHeadroom() {
+        when(buildRepository.findRecentPeakMemoryMb(any(), any())).thenReturn(List.of());
+        // Newest first, as the query orders them
+        when(buildRepository.findRecentPeakMemoryMb(eq(Language.JAVA), any()))
+            .thenReturn(List.of(1000, 900, 800, 700, 600, 500, 400, 300, 200, 100));
+        footprints.load();
+
+        assertThat(footprints.memoryMb(Language.JAVA)).isEqualTo(1080);
+
+        // The oldest sample drops out of the window; unmeasured builds are ignored
+        footprints.record(Language.JAVA, new ResourceUsage(3000 * MB, 1000));
+        footprints.record(Language.JAVA, ResourceUsage.none());
+        assertThat(footprints.memoryMb(Language.JAVA)).isEqualTo(1200);
+    }
+}
@@ -0,0 +1,92 @@
+package com.cfforge.builder.security;
+
+import com.cfforge.builder.process.ProcessRunner;
+import com.cfforge.builder.process.ProcessRunnerProperties;
+import com.cfforge.common.storage.S3StorageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CveScannerTest {
+
+    private static final String REPORT = """
+        {"SchemaVersion": 2, "Results": [
+          {"Target": "package-lock.json", "Class": "lang-pkgs", "Vulnerabilities": [
+            {"VulnerabilityID": "CVE-2024-0001", "PkgName": "lodash", "InstalledVersion": "4.17.20",
+             "FixedVersion": "4.17.21", "Severity": "CRITICAL",
+             "CVSS": {"nvd": {"V3Score": 9.8}}, "References": ["https://example.com"]},
+            {"PkgName": "minimist", "VulnerabilityID": "CVE-2024-0002", "Severity": "LOW"}
+          ]},
+          {"Target": "go.sum", "Vulnerabilities": null}
+        ]}
+        """;
+
+    @TempDir
+    Path storageDir;
+
+    @TempDir
+    Path projectDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private S3StorageService s3;
+
+    @BeforeEach
+    void setUp() {
+        s3 = new S3StorageService();
+        ReflectionTestUtils.setField(s3, "endpoint", "");
+        ReflectionTestUtils.setField(s3, "fallbackDir", storageDir.toString());
+        ReflectionTestUtils.setField(s3, "defaultBucket", "cf-forge-artifacts");
+    }
+
+    @Test
+    void parseReport_readsAllFieldsAndSkipsNestedObjects() throws Exception {
+        List<CveScanner.Vulnerability> vulnerabilities =
+            CveScanner.parseReport(objectMapper.getFactory().createParser(REPORT));
+
+        assertThat(vulnerabilities).containsExactly(
+            new CveScanner.Vulnerability("CVE-2024-0001", "CRITICAL", "lodash", "4.17.21"),
+            new CveScanner.Vulnerability("CVE-2024-0002", "LOW", "minimist", ""));
+    }
+
+    @Test
+    void lockfileHash_tracksLockfilesOnly() throws Exception {
+        Files.writeString(projectDir.resolve("package-lock.json"), "{\"lockfileVersion\": 3}");
+        Files.writeString(projectDir.resolve("index.js"), "console.log(1)");
+        String base = CveScanner.lockfileHash(projectDir);
+
+        Files.writeString(projectDir.resolve("index.js"), "console.log(2)");
+        Files.createDirectories(projectDir.resolve("node_modules/x"));
+        Files.writeString(projectDir.resolve("node_modules/x/package.json"), "{}");
+        assertThat(CveScanner.lockfileHash(projectDir)).isEqualTo(base);
+
+        Files.writeString(projectDir.resolve("package-lock.json"), "{\"lockfileVersion\": 2}");
+        assertThat(CveScanner.lockfileHash(projectDir)).isNotEqualTo(base);
+    }
+
+    @Test
+    void scan_reusesCachedFindingsAndReappliesGate() throws Exception {
+        Files.writeString(projectDir.resolve("go.sum"), "example.com/mod v1.0.0 h1:abc=");
+        CveScanner scanner = new CveScanner(s3, objectMapper, new ProcessRunner(new ProcessRunnerProperties()),
+            true, "high", true, "http://localhost:4954", Duration.ofMinutes(15));
+        String key = scanner.cacheKey(projectDir);
+        s3.putObject(CveScanner.objectKey(key), objectMapper.writeValueAsBytes(List.of(
+            new CveScanner.Vulnerability("CVE-2024-0003", "HIGH", "example.com/mod", "v1.0.1"))));
+
+        CveScanResult result = scanner.scan(projectDir);
+
+        assertThat(result.isScanned()).isTrue();
+        assertThat(result.isCached()).isTrue();
+        assertThat(result.isBlocked()).isTrue();
+        assertThat(result.getVulnerabilities()).extracting(CveScanner.Vulnerability::fixedVersion)
+            .containsExactly("v1.0.1");
+    }
+}
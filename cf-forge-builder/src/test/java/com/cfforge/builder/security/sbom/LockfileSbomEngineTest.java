@@ -0,0 +1,166 @@
+package com.cfforge.builder.security.sbom;
+
+import com.cfforge.common.enums.Language;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LockfileSbomEngineTest {
+
+    @TempDir
+    Path workDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LockfileSbomEngine engine = new LockfileSbomEngine(objectMapper);
+
+    @Test
+    void generate_packageLockV3_writesRuntimePackagesWithHashes() throws Exception {
+        Files.writeString(workDir.resolve("package-lock.json"), """
+            {"name": "app", "lockfileVersion": 3, "packages": {
+              "": {"name": "app", "version": "1.0.0"},
+              "node_modules/express": {"version": "4.19.2", "integrity": "sha512-AAEC"},
+              "node_modules/@types/node": {"version": "20.1.0"},
+              "node_modules/jest": {"version": "29.7.0", "dev": true},
+              "node_modules/local": {"resolved": "../local", "link": true}
+            }, "dependencies": {"ignored": {"version": "0.0.1"}}}
+            """);
+
+        JsonNode bom = generate(Language.NODEJS, 2);
+
+        assertThat(bom.path("bomFormat").asText()).isEqualTo("CycloneDX");
+        assertThat(purls(bom)).containsExactly("pkg:npm/express@4.19.2", "pkg:npm/%40types/node@20.1.0");
+        JsonNode hash = bom.path("components").get(0).path("hashes").get(0);
+        assertThat(hash.path("alg").asText()).isEqualTo("SHA-512");
+        assertThat(hash.path("content").asText()).isEqualTo("000102");
+    }
+
+    @Test
+    void generate_poetryLockTakesPrecedenceOverRequirements() throws Exception {
+        Files.writeString(workDir.resolve("requirements.txt"), "flask==3.0.0\n");
+        Files.writeString(workDir.resolve("poetry.lock"), """
+            [[package]]
+            name = "Flask"
+            version = "3.0.3"
+
+            [package.dependencies]
+            click = ">=8.1.3"
+
+            [[package]]
+            name = "click"
+            version = "8.1.7"
+
+            [metadata]
+            lock-version = "2.0"
+            """);
+
+        assertThat(purls(generate(Language.PYTHON, 2))).containsExactly("pkg:pypi/flask@3.0.3", "pkg:pypi/click@8.1.7");
+    }
+
+    @Test
+    void generate_requirementsKeepsOnlyPinnedEntries() throws Exception {
+        Files.writeString(workDir.resolve("requirements.txt"), """
+            # web
+            Flask==3.0.3
+            requests[socks] == 2.31.0 ; python_version >= "3.8"
+            gunicorn>=21
+            -r other.txt
+            """);
+
+        assertThat(purls(generate(Language.PYTHON, 2))).containsExactly("pkg:pypi/flask@3.0.3", "pkg:pypi/requests@2.31.0");
+    }
+
+    @Test
+    void generate_goSumSkipsGoModOnlyEntries() throws Exception {
+        Files.writeString(workDir.resolve("go.sum"), """
+            github.com/gin-gonic/gin v1.9.1 h1:abc=
+            github.com/gin-gonic/gin v1.9.1/go.mod h1:def=
+            golang.org/x/net v0.17.0/go.mod h1:ghi=
+            """);
+
+        assertThat(purls(generate(Language.GO, 1))).containsExactly("pkg:golang/github.com/gin-gonic/gin@v1.9.1");
+    }
+
+    @Test
+    void generate_javaReadsLibrariesNestedInTheBuildsJar() throws Exception {
+        Files.createDirectories(workDir.resolve("target"));
+        // Left in target/ by an earlier build in a warm work directory
+        try (ZipOutputStream stale = new ZipOutputStream(Files.newOutputStream(workDir.resolve("target/app-0.9.jar")))) {
+            stale.putNextEntry(new ZipEntry("BOOT-INF/lib/jackson-core-2.9.0.jar"));
+            stale.write(library("com.fasterxml.jackson.core", "jackson-core", "2.9.0"));
+        }
+        try (ZipOutputStream jar = new ZipOutputStream(Files.newOutputStream(workDir.resolve("target/app.jar")))) {
+            jar.putNextEntry(new ZipEntry("BOOT-INF/lib/jackson-core-2.17.0.jar"));
+            jar.write(library("com.fasterxml.jackson.core", "jackson-core", "2.17.0"));
+            jar.putNextEntry(new ZipEntry("BOOT-INF/classes/App.class"));
+            jar.write(new byte[] {1, 2, 3});
+        }
+
+        JsonNode bom = generate(Language.JAVA, workDir.resolve("target/app.jar"), 1);
+
+        JsonNode component = bom.path("components").get(0);
+        assertThat(component.path("purl").asText()).isEqualTo("pkg:maven/com.fasterxml.jackson.core/jackson-core@2.17.0");
+        assertThat(component.path("hashes").get(0).path("content").asText()).hasSize(64);
+    }
+
+    @Test
+    void generate_javaWithoutJarUsesVersionedPomDependencies() throws Exception {
+        Files.writeString(workDir.resolve("pom.xml"), """
+            <project>
+              <version>1.0.0</version>
+              <properties><guava.version>33.0.0-jre</guava.version></properties>
+              <dependencies>
+                <dependency><groupId>com.google.guava</groupId><artifactId>guava</artifactId><version>${guava.version}</version></dependency>
+                <dependency><groupId>org.example</groupId><artifactId>managed</artifactId></dependency>
+                <dependency><groupId>junit</groupId><artifactId>junit</artifactId><version>4.13.2</version><scope>test</scope></dependency>
+              </dependencies>
+            </project>
+            """);
+
+        assertThat(purls(generate(Language.JAVA, 1))).containsExactly("pkg:maven/com.google.guava/guava@33.0.0-jre");
+    }
+
+    @Test
+    void generate_withoutLockfile_returnsMinusOne() throws Exception {
+        assertThat(engine.generate(workDir, Language.GO, null, "app", new ByteArrayOutputStream())).isEqualTo(-1);
+    }
+
+    private JsonNode generate(Language language, int expectedComponents) throws Exception {
+        return generate(language, null, expectedComponents);
+    }
+
+    private JsonNode generate(Language language, Path artifact, int expectedComponents) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(engine.generate(workDir, language, artifact, "app", out)).isEqualTo(expectedComponents);
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    private static List<String> purls(JsonNode bom) {
+        List<String> purls = new ArrayList<>();
+        bom.path("components").forEach(c -> purls.add(c.path("purl").asText()));
+        return purls;
+    }
+
+    private static byte[] library(String groupId, String artifactId, String version) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("META-INF/maven/" + groupId + "/" + artifactId + "/pom.properties"));
+            zip.write(("groupId=" + groupId + "\nartifactId=" + artifactId + "\nversion=" + version + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("com/example/Lib.class"));
+            zip.write(new byte[64]);
+        }
+        return bytes.toByteArray();
+    }
+}
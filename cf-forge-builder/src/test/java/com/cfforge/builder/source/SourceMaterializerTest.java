@@ -0,0 +1,116 @@
+package com.cfforge.builder.source;
+
+import com.cfforge.builder.model.BuildContext;
+import com.cfforge.common.storage.S3StorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SourceMaterializerTest {
+
+    private static final String BUCKET = "cf-forge-workspaces";
+
+    @TempDir
+    Path storageDir;
+
+    @TempDir
+    Path workDir;
+
+    private S3StorageService s3;
+    private SourceMaterializer materializer;
+    private final UUID projectId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        s3 = new S3StorageService();
+        ReflectionTestUtils.setField(s3, "endpoint", "");
+        ReflectionTestUtils.setField(s3, "fallbackDir", storageDir.toString());
+        materializer = new SourceMaterializer(s3, BUCKET, 2);
+    }
+
+    @Test
+    void materialize_writesEveryWorkspaceFileAndReportsTotals() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            s3.putObject(BUCKET, "workspaces/" + projectId + "/src/file" + i + ".txt", ("content-" + i).getBytes());
+        }
+        s3.putObject(BUCKET, "workspaces/" + projectId + "/pom.xml", "<project/>".getBytes());
+        s3.putObject(BUCKET, "workspaces/" + UUID.randomUUID() + "/other.txt", "x".getBytes());
+
+        SourceMaterializer.Result result = materializer.materialize(context());
+
+        assertThat(result.files()).isEqualTo(11);
+        assertThat(result.bytes()).isEqualTo(10 * "content-0".length() + "<project/>".length());
+        assertThat(Files.readString(workDir.resolve("src/file7.txt"))).isEqualTo("content-7");
+        assertThat(Files.readString(workDir.resolve("pom.xml"))).isEqualTo("<project/>");
+        assertThat(workDir.resolve("other.txt")).doesNotExist();
+        assertThat(result.describe()).startsWith("11 files");
+    }
+
+    @Test
+    void materialize_treeHashTracksContentNotUploadOrder() throws Exception {
+        s3.putObject(BUCKET, "workspaces/" + projectId + "/a.txt", "a".getBytes());
+        s3.putObject(BUCKET, "workspaces/" + projectId + "/b.txt", "b".getBytes());
+        String first = materializer.materialize(context()).treeHash();
+
+        s3.putObject(BUCKET, "workspaces/" + projectId + "/a.txt", "a".getBytes());
+        assertThat(materializer.materialize(context()).treeHash()).isEqualTo(first);
+
+        s3.putObject(BUCKET, "workspaces/" + projectId + "/b.txt", "changed".getBytes());
+        assertThat(materializer.materialize(context()).treeHash()).isNotEqualTo(first);
+    }
+
+    @Test
+    void materialize_intoEarlierCopy_downloadsOnlyChangesAndKeepsOutputs() throws Exception {
+        String prefix = "workspaces/" + projectId + "/";
+        s3.putObject(BUCKET, prefix + "src/Keep.java", "class Keep {}".getBytes());
+        s3.putObject(BUCKET, prefix + "src/Change.java", "class Change {}".getBytes());
+        s3.putObject(BUCKET, prefix + "src/Gone.java", "class Gone {}".getBytes());
+        materializer.materialize(context());
+        Files.createDirectories(workDir.resolve("target"));
+        Files.writeString(workDir.resolve("target/Keep.class"), "bytecode");
+
+        s3.putObject(BUCKET, prefix + "src/Change.java", "class Change { int x; }".getBytes());
+        s3.deleteObject(BUCKET, prefix + "src/Gone.java");
+        SourceMaterializer.Result result = materializer.materialize(context());
+
+        assertThat(result.files()).isEqualTo(2);
+        assertThat(result.downloaded()).isEqualTo(1);
+        assertThat(result.removed()).isEqualTo(1);
+        assertThat(Files.readString(workDir.resolve("src/Change.java"))).isEqualTo("class Change { int x; }");
+        assertThat(workDir.resolve("src/Gone.java")).doesNotExist();
+        assertThat(workDir.resolve("target/Keep.class")).exists();
+        assertThat(result.describe()).startsWith("2 files (1 changed, 1 removed)");
+    }
+
+    @Test
+    void materialize_redownloadsFilesModifiedInTheWorkDirectory() throws Exception {
+        s3.putObject(BUCKET, "workspaces/" + projectId + "/package.json", "{}".getBytes());
+        String expected = materializer.materialize(context()).treeHash();
+        Files.writeString(workDir.resolve("package.json"), "{\"rewritten\": true}");
+
+        SourceMaterializer.Result result = materializer.materialize(context());
+
+        assertThat(result.downloaded()).isEqualTo(1);
+        assertThat(result.treeHash()).isEqualTo(expected);
+        assertThat(Files.readString(workDir.resolve("package.json"))).isEqualTo("{}");
+    }
+
+    @Test
+    void materialize_emptyWorkspace_producesNothing() {
+        SourceMaterializer.Result result = materializer.materialize(context());
+
+        assertThat(result.files()).isZero();
+        assertThat(result.bytes()).isZero();
+    }
+
+    private BuildContext context() {
+        return BuildContext.builder().projectId(projectId).buildId(UUID.randomUUID()).workDir(workDir).build();
+    }
+}
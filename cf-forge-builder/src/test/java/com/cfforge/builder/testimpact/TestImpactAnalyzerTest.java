@@ -0,0 +1,150 @@
+package com.cfforge.builder.testimpact;
+
+import com.cfforge.builder.model.BuildContext;
+import com.cfforge.builder.source.SourceMaterializer;
+import com.cfforge.common.storage.S3StorageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestImpactAnalyzerTest {
+
+    @TempDir
+    Path storageDir;
+
+    private final UUID projectId = UUID.randomUUID();
+    private final Map<String, String> sources = new HashMap<>(Map.of(
+        "src/Cart.java", "a1", "src/Price.java", "b1",
+        "test/CartTest.java", "c1", "test/PriceTest.java", "d1", "pom.xml", "e1"));
+    private TestImpactProperties properties;
+    private TestImpactAnalyzer analyzer;
+
+    @BeforeEach
+    void setUp() {
+        S3StorageService s3 = new S3StorageService();
+        ReflectionTestUtils.setField(s3, "endpoint", "");
+        ReflectionTestUtils.setField(s3, "fallbackDir", storageDir.toString());
+        ReflectionTestUtils.setField(s3, "defaultBucket", "cf-forge-artifacts");
+        properties = new TestImpactProperties();
+        properties.setMaxSelectedRatio(1.0);
+        analyzer = new TestImpactAnalyzer(s3, new ObjectMapper(), properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void plan_runsEverythingWithoutHistoryThenOnlyAffectedTests() {
+        TestPlan first = plan();
+        assertThat(first.runsAll()).isTrue();
+        analyzer.record(context(), first, outcomes(false), true);
+
+        assertThat(plan().runsNone()).isTrue();
+
+        sources.put("src/Cart.java", "a2");
+        TestPlan second = plan();
+        assertThat(second.mode()).isEqualTo(TestPlan.Mode.SELECTED);
+        assertThat(second.selected()).containsExactly("CartTest");
+        assertThat(second.describe()).contains("1 of 2 test units", "1 changed file");
+        analyzer.record(context(), second, Map.of("CartTest", new TestOutcome(1000, 3, false)), true);
+
+        // The passing run moved the baseline
+        assertThat(plan().runsNone()).isTrue();
+    }
+
+    @Test
+    void plan_runsEverythingWhenAChangeCantBeAttributed() {
+        analyzer.record(context(), plan(), outcomes(false), true);
+
+        sources.put("pom.xml", "e2");
+        sources.put("README.md", "new");
+
+        TestPlan plan = plan();
+        assertThat(plan.runsAll()).isTrue();
+        assertThat(plan.describe()).contains("pom.xml changed");
+    }
+
+    @Test
+    void plan_keepsSelectingFailedTestsUntilTheyPass() {
+        analyzer.record(context(), plan(), outcomes(false), true);
+        sources.put("src/Cart.java", "a2");
+        TestPlan failing = plan();
+        analyzer.record(context(), failing, Map.of("CartTest", new TestOutcome(500, 1, true)), false);
+
+        // The baseline stays put, so the same change selects the test again
+        sources.put("src/Cart.java", "a2");
+        TestPlan retry = plan();
+        assertThat(retry.selected()).containsExactly("CartTest");
+    }
+
+    @Test
+    void plan_forcesAPeriodicFullRun() {
+        properties.setFullRunEvery(2);
+        analyzer.record(context(), plan(), outcomes(false), true);
+        for (int i = 0; i < 2; i++) {
+            sources.put("src/Price.java", "b" + (i + 2));
+            TestPlan plan = plan();
+            assertThat(plan.runsAll()).isFalse();
+            analyzer.record(context(), plan, Map.of("PriceTest", new TestOutcome(1000, 3, false)), true);
+        }
+
+        TestPlan plan = plan();
+        assertThat(plan.runsAll()).isTrue();
+        assertThat(plan.describe()).contains("periodic full run");
+    }
+
+    @Test
+    void plan_runsEverythingWhenMostOfTheSuiteIsAffected() {
+        properties.setMaxSelectedRatio(0.5);
+        analyzer.record(context(), plan(), Map.of("CartTest", new TestOutcome(9000, 10, false),
+            "PriceTest", new TestOutcome(1000, 3, false)), true);
+
+        sources.put("src/Cart.java", "a2");
+
+        assertThat(plan().runsAll()).isTrue();
+    }
+
+    private TestPlan plan() {
+        return analyzer.plan(context(), new FixedScanner());
+    }
+
+    private BuildContext context() {
+        return BuildContext.builder()
+            .projectId(projectId)
+            .workDir(storageDir)
+            .sources(new SourceMaterializer.Result(sources.size(), 0, 0, "tree", 0, 0, Map.copyOf(sources)))
+            .build();
+    }
+
+    private static Map<String, TestOutcome> outcomes(boolean failed) {
+        return Map.of("CartTest", new TestOutcome(2000, 4, failed), "PriceTest", new TestOutcome(1000, 3, failed));
+    }
+
+    /**
+     * CartTest uses Cart and Price, PriceTest only Price; only .java files are sources.
+     */
+    private static class FixedScanner implements TestScanner {
+
+        @Override
+        public List<TestUnit> scan(Path workDir, Collection<String> files) {
+            return List.of(
+                new TestUnit("CartTest", Set.of("test/CartTest.java", "src/Cart.java", "src/Price.java"), false),
+                new TestUnit("PriceTest", Set.of("test/PriceTest.java", "src/Price.java"), false));
+        }
+
+        @Override
+        public boolean isSource(String path) {
+            return path.endsWith(".java");
+        }
+    }
+}
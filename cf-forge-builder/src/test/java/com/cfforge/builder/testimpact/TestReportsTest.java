@@ -0,0 +1,79 @@
+package com.cfforge.builder.testimpact;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestReportsTest {
+
+    @TempDir
+    Path workDir;
+
+    @Test
+    void surefire_readsEveryModulesReports() throws Exception {
+        write("target/surefire-reports/TEST-com.shop.CartTest.xml", """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <testsuite name="com.shop.CartTest" tests="2" failures="1">
+              <properties><property name="java.version" value="21"/></properties>
+              <testcase name="adds" classname="com.shop.CartTest" time="0.250"/>
+              <testcase name="removes" classname="com.shop.CartTest" time="1.5">
+                <failure message="expected 1">stack</failure>
+              </testcase>
+            </testsuite>
+            """);
+        write("api/target/surefire-reports/TEST-com.shop.ApiTest.xml", """
+            <testsuite name="com.shop.ApiTest">
+              <testcase name="ok" classname="com.shop.ApiTest" time="0.1"/>
+            </testsuite>
+            """);
+        write("target/surefire-reports/com.shop.CartTest.txt", "not a report");
+
+        Map<String, TestOutcome> outcomes = TestReports.surefire(workDir);
+
+        assertThat(outcomes).containsOnlyKeys("com.shop.CartTest", "com.shop.ApiTest");
+        assertThat(outcomes.get("com.shop.CartTest")).isEqualTo(new TestOutcome(1750, 2, true));
+        assertThat(outcomes.get("com.shop.ApiTest")).isEqualTo(new TestOutcome(100, 1, false));
+    }
+
+    @Test
+    void jestJson_readsFilesRelativeToTheWorkDir() throws Exception {
+        Path report = write("jest.json", """
+            {"numTotalTests": 2, "testResults": [
+              {"name": "%s", "status": "failed", "startTime": 1000, "endTime": 1800,
+               "assertionResults": [{"status": "passed"}, {"status": "failed"}]}
+            ]}
+            """.formatted(workDir.resolve("src/cart.test.ts")));
+
+        assertThat(TestReports.jestJson(report, workDir))
+            .containsExactly(Map.entry("src/cart.test.ts", new TestOutcome(800, 2, true)));
+    }
+
+    @Test
+    void goTestEvents_passesOutputOnAndCollectsPackageOutcomes() {
+        List<String> log = new ArrayList<>();
+        GoTestEvents events = new GoTestEvents(log::add);
+
+        events.accept("# example.com/shop/util");
+        events.accept("{\"Action\":\"run\",\"Package\":\"example.com/shop/cart\",\"Test\":\"TestAdd\"}");
+        events.accept("{\"Action\":\"output\",\"Package\":\"example.com/shop/cart\",\"Output\":\"=== RUN   TestAdd\\n\"}");
+        events.accept("{\"Action\":\"pass\",\"Package\":\"example.com/shop/cart\",\"Test\":\"TestAdd\",\"Elapsed\":0.1}");
+        events.accept("{\"Action\":\"pass\",\"Package\":\"example.com/shop/cart\",\"Test\":\"TestAdd/sub\",\"Elapsed\":0}");
+        events.accept("{\"Action\":\"fail\",\"Package\":\"example.com/shop/cart\",\"Elapsed\":0.42}");
+
+        assertThat(log).containsExactly("# example.com/shop/util", "=== RUN   TestAdd");
+        assertThat(events.outcomes()).containsExactly(Map.entry("example.com/shop/cart", new TestOutcome(420, 1, true)));
+    }
+
+    private Path write(String relative, String content) throws Exception {
+        Path file = workDir.resolve(relative);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+}
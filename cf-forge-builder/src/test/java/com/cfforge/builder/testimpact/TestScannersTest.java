@@ -0,0 +1,129 @@
+package com.cfforge.builder.testimpact;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestScannersTest {
+
+    @TempDir
+    Path workDir;
+
+    @Test
+    void java_followsClassReferencesTransitively() throws Exception {
+        Map<String, TestUnit> units = scan(new JavaTestScanner(),
+            "src/main/java/com/shop/Cart.java", "package com.shop;\nclass Cart { Price total; }",
+            "src/main/java/com/shop/Price.java", "package com.shop;\nclass Price {}",
+            "src/main/java/com/shop/Unused.java", "package com.shop;\nclass Unused {}",
+            "src/test/java/com/shop/CartTest.java", "package com.shop;\nclass CartTest { Cart cart; }",
+            "src/test/java/com/shop/AppTest.java", "@SpringBootTest\nclass AppTest {}",
+            "src/test/java/com/shop/Fixtures.java", "class Fixtures {}");
+
+        assertThat(units).containsOnlyKeys("com.shop.CartTest", "com.shop.AppTest");
+        assertThat(units.get("com.shop.CartTest").dependencies()).containsExactlyInAnyOrder(
+            "src/test/java/com/shop/CartTest.java", "src/main/java/com/shop/Cart.java", "src/main/java/com/shop/Price.java");
+        assertThat(units.get("com.shop.AppTest").opaque()).isTrue();
+        assertThat(new JavaTestScanner().isSource("src/main/resources/application.yml")).isFalse();
+        assertThat(new JavaTestScanner().unitId("com.shop.CartTest$Totals")).isEqualTo("com.shop.CartTest");
+    }
+
+    @Test
+    void java_springTestContextsAreOpaque() throws Exception {
+        Map<String, TestUnit> units = scan(new JavaTestScanner(),
+            "src/main/java/com/shop/CartController.java", "package com.shop;\nclass CartController {}",
+            "src/test/java/com/shop/CartControllerTest.java", """
+                package com.shop;
+                import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+                @WebMvcTest(CartController.class)
+                class CartControllerTest {}
+                """,
+            "src/test/java/com/shop/RepositoryTest.java", """
+                package com.shop;
+                import org.springframework.boot.test.autoconfigure.orm.jpa.*;
+                @DataJpaTest
+                class RepositoryTest {}
+                """,
+            "src/test/java/com/shop/ConfigTest.java", "@ExtendWith(SpringExtension.class)\nclass ConfigTest {}",
+            "src/test/java/com/shop/WiringTest.java", "@ContextConfiguration(classes = Wiring.class)\nclass WiringTest {}",
+            "src/test/java/com/shop/PlainTest.java", "@ExtendWith(MockitoExtension.class)\nclass PlainTest { @Test void runs() {} }");
+
+        assertThat(units.get("com.shop.CartControllerTest").opaque()).isTrue();
+        assertThat(units.get("com.shop.RepositoryTest").opaque()).isTrue();
+        assertThat(units.get("com.shop.ConfigTest").opaque()).isTrue();
+        assertThat(units.get("com.shop.WiringTest").opaque()).isTrue();
+        assertThat(units.get("com.shop.PlainTest").opaque()).isFalse();
+    }
+
+    @Test
+    void go_dependsOnImportedModulePackages() throws Exception {
+        GoTestScanner scanner = new GoTestScanner();
+        Map<String, TestUnit> units = scan(scanner,
+            "go.mod", "module example.com/shop\n\ngo 1.22\n",
+            "main.go", "package main\n\nimport \"example.com/shop/cart\"\n",
+            "cart/cart.go", "package cart\n\nimport (\n\t\"fmt\"\n\tp \"example.com/shop/price\"\n)\n",
+            "cart/cart_test.go", "package cart\n\nimport \"testing\"\n",
+            "price/price.go", "package price\n",
+            "price/price_test.go", "package price\n",
+            "util/util.go", "package util\n");
+
+        assertThat(units).containsOnlyKeys("./cart", "./price");
+        assertThat(units.get("./cart").dependencies())
+            .containsExactlyInAnyOrder("cart/cart.go", "cart/cart_test.go", "price/price.go");
+        assertThat(scanner.unitId("example.com/shop/cart")).isEqualTo("./cart");
+        assertThat(scanner.isSource("go.sum")).isFalse();
+    }
+
+    @Test
+    void python_resolvesAbsoluteAndRelativeImportsAndConftest() throws Exception {
+        PythonTestScanner scanner = new PythonTestScanner();
+        Map<String, TestUnit> units = scan(scanner,
+            "app/__init__.py", "",
+            "app/cart.py", "from .price import total\n",
+            "app/price.py", "import decimal\n",
+            "app/unused.py", "",
+            "tests/conftest.py", "import pytest\n",
+            "tests/test_cart.py", "from app import (\n    cart,\n)\n");
+
+        assertThat(units).containsOnlyKeys("tests/test_cart.py");
+        assertThat(units.get("tests/test_cart.py").dependencies()).containsExactlyInAnyOrder(
+            "tests/test_cart.py", "tests/conftest.py", "app/__init__.py", "app/cart.py", "app/price.py");
+        assertThat(scanner.unitId("tests.test_cart.TestCheckout")).isEqualTo("tests/test_cart.py");
+    }
+
+    @Test
+    void jest_resolvesRelativeImportsAndFlagsAliases() throws Exception {
+        Files.writeString(workDir.resolve("package.json"), "{\"scripts\": {\"test\": \"jest --ci\"}}");
+        Map<String, TestUnit> units = scan(new JestTestScanner(),
+            "src/cart.ts", "import { total } from './price';\nimport React from 'react';\n",
+            "src/price/index.ts", "export const total = 1;\n",
+            "src/cart.test.ts", "import { cart } from './cart.js';\n",
+            "src/__tests__/app.js", "const app = require('@/app');\n",
+            "jest.config.js", "module.exports = {};\n");
+
+        assertThat(JestTestScanner.usesJest(workDir)).isTrue();
+        assertThat(units).containsOnlyKeys("src/cart.test.ts", "src/__tests__/app.js");
+        assertThat(units.get("src/cart.test.ts").dependencies())
+            .containsExactlyInAnyOrder("src/cart.test.ts", "src/cart.ts", "src/price/index.ts");
+        assertThat(units.get("src/__tests__/app.js").opaque()).isTrue();
+        assertThat(new JestTestScanner().isSource("jest.config.js")).isFalse();
+    }
+
+    private Map<String, TestUnit> scan(TestScanner scanner, String... pathsAndContents) throws Exception {
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < pathsAndContents.length; i += 2) {
+            Path file = workDir.resolve(pathsAndContents[i]);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, pathsAndContents[i + 1]);
+            files.add(pathsAndContents[i]);
+        }
+        return scanner.scan(workDir, files).stream().collect(Collectors.toMap(TestUnit::id, unit -> unit));
+    }
+}
@@ -0,0 +1,92 @@
+package com.cfforge.builder.workdir;
+
+import com.cfforge.common.enums.Language;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkDirManagerTest {
+
+    @TempDir
+    Path root;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void acquire_persistentLanguage_reusesProjectCopyAcrossBuilds() throws Exception {
+        WorkDirManager manager = manager(1024);
+        UUID projectId = UUID.randomUUID();
+
+        Path first;
+        try (WorkDirManager.Lease lease = manager.acquire(projectId, UUID.randomUUID(), Language.JAVA)) {
+            assertThat(lease.persistent()).isTrue();
+            assertThat(lease.warm()).isFalse();
+            first = lease.directory();
+            Files.writeString(first.resolve("Main.class"), "bytecode");
+        }
+        try (WorkDirManager.Lease lease = manager.acquire(projectId, UUID.randomUUID(), Language.JAVA)) {
+            assertThat(lease.directory()).isEqualTo(first);
+            assertThat(lease.warm()).isTrue();
+            assertThat(lease.directory().resolve("Main.class")).exists();
+        }
+    }
+
+    @Test
+    void acquire_scratchDirectoriesAreDeletedOnClose() throws Exception {
+        WorkDirManager manager = manager(1024);
+        UUID projectId = UUID.randomUUID();
+
+        WorkDirManager.Lease python = manager.acquire(projectId, UUID.randomUUID(), Language.PYTHON);
+        WorkDirManager.Lease held = manager.acquire(projectId, UUID.randomUUID(), Language.GO);
+        // Same project already building here: the second build must not share the copy
+        WorkDirManager.Lease concurrent = manager.acquire(projectId, UUID.randomUUID(), Language.GO);
+        assertThat(python.persistent()).isFalse();
+        assertThat(held.persistent()).isTrue();
+        assertThat(concurrent.persistent()).isFalse();
+
+        python.close();
+        concurrent.close();
+        held.close();
+        assertThat(python.directory()).doesNotExist();
+        assertThat(concurrent.directory()).doesNotExist();
+        assertThat(held.directory()).exists();
+    }
+
+    @Test
+    void enforceBudget_evictsLeastRecentlyUsedCopies() throws Exception {
+        WorkDirManager manager = manager(1);
+        UUID older = UUID.randomUUID();
+        UUID newer = UUID.randomUUID();
+        Path olderDir = writeCopy(older, 700 * 1024);
+        Path newerDir = writeCopy(newer, 700 * 1024);
+        Files.setLastModifiedTime(olderDir, FileTime.from(Instant.now().minusSeconds(3600)));
+
+        manager.enforceBudget();
+
+        assertThat(olderDir).doesNotExist();
+        assertThat(newerDir).exists();
+        assertThat(meterRegistry.counter("builder.workdir.evictions").count()).isEqualTo(1);
+    }
+
+    /**
+     * A copy left on disk by earlier builds, e.g. before a restart.
+     */
+    private Path writeCopy(UUID projectId, int bytes) throws Exception {
+        Path dir = Files.createDirectories(root.resolve("projects").resolve(projectId.toString()));
+        Files.write(dir.resolve("app.jar"), new byte[bytes]);
+        return dir;
+    }
+
+    private WorkDirManager manager(long maxDiskMb) {
+        return new WorkDirManager(meterRegistry, root.toString(), maxDiskMb, Set.of(Language.JAVA, Language.GO));
+    }
+}
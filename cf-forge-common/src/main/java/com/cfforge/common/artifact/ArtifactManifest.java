@@ -0,0 +1,35 @@
+package com.cfforge.common.artifact;
+
+import java.util.List;
+
+/**
+ * Describes an artifact stored as content-addressed layers under {@code artifact-layers/}. It is
+ * stored next to the artifact's own key, as {@code <key>.layers.json}, and names the layers in
+ * the order their entries are written back.
+ *
+ * @param name the artifact's file name
+ * @param size the size of the artifact as built
+ */
+public record ArtifactManifest(String name, long size, List<Layer> layers) {
+
+    public static final String SUFFIX = ".layers.json";
+
+    /**
+     * @param digest  SHA-256 of the layer's entry names and contents
+     * @param size    the stored layer's size
+     * @param entries how many jar entries it holds
+     */
+    public record Layer(String name, String digest, long size, int entries) {}
+
+    public static String key(String artifactKey) {
+        return artifactKey + SUFFIX;
+    }
+
+    public static boolean isManifest(String key) {
+        return key.endsWith(SUFFIX);
+    }
+
+    public static String layerKey(String digest) {
+        return "artifact-layers/" + digest + ".zip";
+    }
+}
@@ -0,0 +1,170 @@
+package com.cfforge.common.artifact;
+
+import com.cfforge.common.storage.S3StorageService;
+import com.cfforge.common.storage.StoredObject;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Stores build artifacts in object storage. Spring Boot jars are split into their layers, each
+ * stored once under {@code artifact-layers/<sha256>.zip}, and only layers not stored yet are
+ * uploaded; an {@link ArtifactManifest} lists the layers that make up the jar. Since the
+ * dependency layers rarely change, an incremental build usually uploads just its application
+ * layer. Anything else is stored as is.
+ */
+@Service
+@Slf4j
+public class ArtifactStore {
+
+    private final S3StorageService storageService;
+    private final ObjectMapper objectMapper;
+
+    public ArtifactStore(S3StorageService storageService, ObjectMapper objectMapper) {
+        this.storageService = storageService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param key           where the artifact is stored, or its manifest when it was layered
+     * @param size          the artifact's size
+     * @param uploadedBytes what was actually uploaded
+     * @param layers        how many layers it was split into; 0 when stored whole
+     * @param reusedLayers  how many of them were already stored
+     */
+    public record Stored(String key, long size, long uploadedBytes, int layers, int reusedLayers) {}
+
+    /**
+     * Stores {@code file} under {@code key}, or as layers with a manifest at
+     * {@link ArtifactManifest#key} when {@code layered} and the file is a layered Spring Boot jar.
+     */
+    public Stored store(Path file, String key, boolean layered) throws IOException {
+        long size = Files.size(file);
+        if (layered) {
+            Stored stored = storeLayers(file, key, size);
+            if (stored != null) {
+                return stored;
+            }
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            storageService.putObject(key, in, size);
+        }
+        return new Stored(key, size, size, 0, 0);
+    }
+
+    /**
+     * Writes the artifact stored under {@code key} to {@code out}, reassembling it from its
+     * layers when {@code key} is a manifest. The reassembled jar has the same entries and
+     * contents as the one built, with each layer's entries kept together.
+     */
+    public void copyTo(String key, OutputStream out) throws IOException {
+        if (!ArtifactManifest.isManifest(key)) {
+            try (InputStream in = storageService.openObject(key)) {
+                in.transferTo(out);
+            }
+            return;
+        }
+        ArtifactManifest manifest = objectMapper.readValue(storageService.getObject(key), ArtifactManifest.class);
+        ZipOutputStream jar = new ZipOutputStream(out);
+        for (ArtifactManifest.Layer layer : manifest.layers()) {
+            try (ZipInputStream in = new ZipInputStream(storageService.openObject(ArtifactManifest.layerKey(layer.digest())))) {
+                ZipEntry entry;
+                while ((entry = in.getNextEntry()) != null) {
+                    jar.putNextEntry(BootJarLayers.copyOf(entry));
+                    in.transferTo(jar);
+                    jar.closeEntry();
+                }
+            }
+        }
+        jar.finish();
+        jar.flush();
+    }
+
+    /**
+     * The artifact's file name, without the manifest suffix.
+     */
+    public static String fileName(String key) {
+        String name = ArtifactManifest.isManifest(key)
+            ? key.substring(0, key.length() - ArtifactManifest.SUFFIX.length()) : key;
+        return name.substring(name.lastIndexOf('/') + 1);
+    }
+
+    private Stored storeLayers(Path file, String key, long size) throws IOException {
+        ZipFile jar;
+        try {
+            jar = new ZipFile(file.toFile());
+        } catch (ZipException e) {
+            return null;
+        }
+        try (jar) {
+            List<BootJarLayers.Layer> layers = BootJarLayers.split(jar);
+            if (layers.isEmpty()) {
+                return null;
+            }
+            List<ArtifactManifest.Layer> described = new ArrayList<>();
+            long uploaded = 0;
+            int reused = 0;
+            for (BootJarLayers.Layer layer : layers) {
+                String digest = BootJarLayers.digest(jar, layer);
+                String layerKey = ArtifactManifest.layerKey(digest);
+                OptionalLong stored = storedSize(layerKey);
+                long layerSize;
+                if (stored.isPresent()) {
+                    reused++;
+                    layerSize = stored.getAsLong();
+                } else {
+                    layerSize = upload(jar, layer, layerKey);
+                    uploaded += layerSize;
+                }
+                described.add(new ArtifactManifest.Layer(layer.name(), digest, layerSize, layer.entries().size()));
+            }
+
+            // Written last, so a manifest only ever names layers that are in storage
+            String manifestKey = ArtifactManifest.key(key);
+            byte[] manifest = objectMapper.writeValueAsBytes(new ArtifactManifest(fileName(key), size, described));
+            storageService.putObject(manifestKey, manifest);
+            log.debug("Stored {} as {} layers, {} already stored, {} of {} bytes uploaded",
+                key, layers.size(), reused, uploaded, size);
+            return new Stored(manifestKey, size, uploaded + manifest.length, layers.size(), reused);
+        }
+    }
+
+    private long upload(ZipFile jar, BootJarLayers.Layer layer, String layerKey) throws IOException {
+        Path temp = Files.createTempFile("artifact-layer-", ".zip");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                BootJarLayers.write(jar, layer, out);
+            }
+            long layerSize = Files.size(temp);
+            try (InputStream in = Files.newInputStream(temp)) {
+                storageService.putObject(layerKey, in, layerSize);
+            }
+            return layerSize;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private OptionalLong storedSize(String layerKey) {
+        try (Stream<StoredObject> objects = storageService.streamObjects(layerKey)) {
+            return objects.filter(object -> object.key().equals(layerKey))
+                .mapToLong(StoredObject::size)
+                .findFirst();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.cfforge.common.artifact;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Splits a Spring Boot jar or war into the layers named by its {@code layers.idx}
+ * ({@code dependencies}, {@code spring-boot-loader}, {@code snapshot-dependencies},
+ * {@code application} by default).
+ */
+final class BootJarLayers {
+
+    private static final List<String> INDEX_ENTRIES = List.of("BOOT-INF/layers.idx", "WEB-INF/layers.idx");
+    private static final int BUFFER = 64 * 1024;
+
+    private BootJarLayers() {
+    }
+
+    /**
+     * A layer's entries, in jar order.
+     */
+    record Layer(String name, List<ZipEntry> entries) {}
+
+    /**
+     * Returns the jar's non-empty layers ordered by their first entry, so {@code META-INF/}
+     * still leads the reassembled jar, or an empty list when the jar has no layer index.
+     */
+    static List<Layer> split(ZipFile jar) throws IOException {
+        Map<String, List<String>> index = readIndex(jar);
+        if (index.isEmpty()) {
+            return List.of();
+        }
+        String fallback = List.copyOf(index.keySet()).get(index.size() - 1);
+        Map<String, List<ZipEntry>> layers = new LinkedHashMap<>();
+        for (ZipEntry entry : Collections.list(jar.entries())) {
+            layers.computeIfAbsent(layerOf(entry.getName(), index, fallback), name -> new ArrayList<>()).add(entry);
+        }
+        List<Layer> result = new ArrayList<>();
+        layers.forEach((name, entries) -> result.add(new Layer(name, entries)));
+        return result;
+    }
+
+    /**
+     * Hashes the layer's entry names, methods and contents, leaving out timestamps so the same
+     * dependencies built at different times get the same digest.
+     */
+    static String digest(ZipFile jar, Layer layer) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[BUFFER];
+        for (ZipEntry entry : layer.entries()) {
+            digest.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update((byte) entry.getMethod());
+            try (InputStream in = jar.getInputStream(entry)) {
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Writes the layer's entries as a zip of their own.
+     */
+    static void write(ZipFile jar, Layer layer, OutputStream out) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (ZipEntry entry : layer.entries()) {
+                zip.putNextEntry(copyOf(entry));
+                try (InputStream in = jar.getInputStream(entry)) {
+                    in.transferTo(zip);
+                }
+                zip.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * A fresh entry with the source's name, time and method. Stored entries keep their size and
+     * CRC, as the Spring Boot launcher needs nested jars uncompressed; deflated ones are
+     * recompressed, so their compressed size is left to the writer.
+     */
+    static ZipEntry copyOf(ZipEntry source) {
+        ZipEntry entry = new ZipEntry(source.getName());
+        entry.setTime(source.getTime());
+        if (source.getMethod() == ZipEntry.STORED) {
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(source.getSize());
+            entry.setCompressedSize(source.getSize());
+            entry.setCrc(source.getCrc());
+        }
+        return entry;
+    }
+
+    /**
+     * Parses {@code - "layer":} headings followed by {@code - "path"} items; paths ending in
+     * {@code /} match everything under them.
+     */
+    private static Map<String, List<String>> readIndex(ZipFile jar) throws IOException {
+        Map<String, List<String>> index = new LinkedHashMap<>();
+        for (String name : INDEX_ENTRIES) {
+            ZipEntry entry = jar.getEntry(name);
+            if (entry == null) {
+                continue;
+            }
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(jar.getInputStream(entry), StandardCharsets.UTF_8))) {
+                List<String> current = null;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String value = unquote(line.trim());
+                    if (value == null) {
+                        continue;
+                    }
+                    if (line.startsWith("- ") && value.endsWith(":")) {
+                        current = index.computeIfAbsent(value.substring(0, value.length() - 1), n -> new ArrayList<>());
+                    } else if (current != null) {
+                        current.add(value);
+                    }
+                }
+            }
+            break;
+        }
+        return index;
+    }
+
+    private static String unquote(String line) {
+        if (!line.startsWith("- ")) {
+            return null;
+        }
+        String value = line.substring(2).trim();
+        if (value.endsWith(":")) {
+            return unquoteValue(value.substring(0, value.length() - 1)) + ":";
+        }
+        return unquoteValue(value);
+    }
+
+    private static String unquoteValue(String value) {
+        return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")
+            ? value.substring(1, value.length() - 1) : value;
+    }
+
+    private static String layerOf(String entryName, Map<String, List<String>> index, String fallback) {
+        for (Map.Entry<String, List<String>> layer : index.entrySet()) {
+            for (String path : layer.getValue()) {
+                if (path.endsWith("/") ? entryName.startsWith(path) : entryName.equals(path)) {
+                    return layer.getKey();
+                }
+            }
+        }
+        return fallback;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
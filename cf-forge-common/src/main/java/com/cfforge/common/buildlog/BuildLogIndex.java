@@ -0,0 +1,30 @@
+package com.cfforge.common.buildlog;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Index of a build log stored in object storage as gzip chunks under
+ * {@code build-logs/{buildId}/}. Offsets are positions in the uncompressed UTF-8 log.
+ *
+ * @param stages   the byte offset where each {@code [n/m] ...} stage marker line starts
+ * @param complete false while the build is still writing chunks
+ */
+public record BuildLogIndex(List<Chunk> chunks, List<Stage> stages, long totalBytes, boolean complete) {
+
+    public record Chunk(String key, long offset, long length) {}
+
+    public record Stage(String name, long offset) {}
+
+    public static String prefix(UUID buildId) {
+        return "build-logs/" + buildId + "/";
+    }
+
+    public static String indexKey(UUID buildId) {
+        return prefix(buildId) + "index.json";
+    }
+
+    public static String chunkKey(UUID buildId, int index) {
+        return prefix(buildId) + String.format("chunk-%05d.log.gz", index);
+    }
+}
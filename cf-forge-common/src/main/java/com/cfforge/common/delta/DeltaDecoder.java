@@ -0,0 +1,94 @@
+package com.cfforge.common.delta;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * Server side of delta sync: rebuilds the new file from the stored base and a delta produced
+ * by {@link DeltaEncoder}, verifying both the base and the result against the hashes the
+ * client sent.
+ */
+public final class DeltaDecoder {
+
+    private DeltaDecoder() {
+    }
+
+    /**
+     * @return length of the reconstructed file
+     * @throws DeltaMismatchException if the base isn't the version the delta was made against,
+     *                                or the result doesn't hash to what the client expected
+     * @throws IOException            if the delta is malformed or the output can't be written
+     */
+    public static long apply(byte[] base, InputStream delta, OutputStream out) throws IOException {
+        DataInputStream in = new DataInputStream(delta);
+        if (in.readInt() != DeltaFormat.MAGIC) {
+            throw new IOException("Not a delta stream");
+        }
+        int blockSize = in.readInt();
+        if (blockSize <= 0) {
+            throw new IOException("Invalid block size " + blockSize);
+        }
+        byte[] expectedBase = readHash(in);
+        if (!Arrays.equals(expectedBase, Hashes.sha256().digest(base))) {
+            throw new DeltaMismatchException("Stored file changed since signatures were taken");
+        }
+        long expectedLength = in.readLong();
+        byte[] expectedHash = readHash(in);
+
+        MessageDigest digest = Hashes.sha256();
+        long written = 0;
+        byte[] buffer = new byte[64 * 1024];
+        while (true) {
+            byte op = in.readByte();
+            if (op == DeltaFormat.OP_END) {
+                break;
+            }
+            if (op == DeltaFormat.OP_COPY) {
+                long offset = (long) in.readInt() * blockSize;
+                long length = (long) in.readInt() * blockSize;
+                if (offset < 0 || length <= 0 || offset >= base.length) {
+                    throw new IOException("Copy outside base file at offset " + offset);
+                }
+                int copyLength = (int) Math.min(length, base.length - offset);
+                out.write(base, (int) offset, copyLength);
+                digest.update(base, (int) offset, copyLength);
+                written += copyLength;
+            } else if (op == DeltaFormat.OP_LITERAL) {
+                int remaining = in.readInt();
+                if (remaining < 0) {
+                    throw new IOException("Negative literal length");
+                }
+                while (remaining > 0) {
+                    int n = in.read(buffer, 0, Math.min(buffer.length, remaining));
+                    if (n < 0) {
+                        throw new EOFException("Delta ended inside a literal");
+                    }
+                    out.write(buffer, 0, n);
+                    digest.update(buffer, 0, n);
+                    remaining -= n;
+                    written += n;
+                }
+            } else {
+                throw new IOException("Unknown delta op " + op);
+            }
+            if (written > expectedLength) {
+                throw new DeltaMismatchException("Reconstructed file longer than expected");
+            }
+        }
+        if (written != expectedLength || !Arrays.equals(expectedHash, digest.digest())) {
+            throw new DeltaMismatchException("Reconstructed file doesn't match the expected hash");
+        }
+        return written;
+    }
+
+    private static byte[] readHash(DataInputStream in) throws IOException {
+        byte[] hash = new byte[32];
+        in.readFully(hash);
+        return hash;
+    }
+}
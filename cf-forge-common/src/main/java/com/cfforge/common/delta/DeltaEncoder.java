@@ -0,0 +1,142 @@
+package com.cfforge.common.delta;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Client side of delta sync: given the signature of the stored file and the new content,
+ * writes copy instructions for blocks the server already has and literal bytes for the rest.
+ */
+public final class DeltaEncoder {
+
+    private final FileSignature base;
+    private final byte[] target;
+    private final DataOutputStream out;
+    private final Map<Integer, List<Integer>> blocksByWeak = new HashMap<>();
+
+    private int runStart = -1;
+    private int runCount;
+    private long literalBytes;
+
+    private DeltaEncoder(FileSignature base, byte[] target, OutputStream out) {
+        this.base = base;
+        this.target = target;
+        this.out = new DataOutputStream(out);
+    }
+
+    /**
+     * @return number of literal bytes written, i.e. how much of the new content had to be sent
+     */
+    public static long encode(FileSignature base, byte[] target, OutputStream out) throws IOException {
+        return new DeltaEncoder(base, target, out).encode();
+    }
+
+    private long encode() throws IOException {
+        int blockSize = base.blockSize();
+        List<FileSignature.Block> blocks = base.blocks();
+        for (int i = 0; i < blocks.size(); i++) {
+            if (isFullBlock(i)) {
+                blocksByWeak.computeIfAbsent(blocks.get(i).weak(), k -> new ArrayList<>(1)).add(i);
+            }
+        }
+
+        out.writeInt(DeltaFormat.MAGIC);
+        out.writeInt(blockSize);
+        out.write(HexFormat.of().parseHex(base.sha256()));
+        out.writeLong(target.length);
+        out.write(Hashes.sha256().digest(target));
+
+        int literalStart = 0;
+        int position = 0;
+        RollingChecksum checksum = target.length >= blockSize ? RollingChecksum.of(target, 0, blockSize) : null;
+        while (position + blockSize <= target.length) {
+            int match = findBlock(checksum.value(), position, blockSize);
+            if (match >= 0) {
+                writeLiteral(literalStart, position);
+                addToRun(match);
+                position += blockSize;
+                literalStart = position;
+                if (position + blockSize <= target.length) {
+                    checksum = RollingChecksum.of(target, position, blockSize);
+                }
+            } else {
+                if (position + blockSize < target.length) {
+                    checksum.roll(target[position], target[position + blockSize]);
+                }
+                position++;
+            }
+        }
+
+        // The base's last block is usually short; it can only match the very end of the target
+        int lastIndex = blocks.size() - 1;
+        int remaining = target.length - position;
+        if (remaining > 0 && lastIndex >= 0 && !isFullBlock(lastIndex)
+                && base.length() - (long) lastIndex * blockSize == remaining
+                && blocks.get(lastIndex).strong().equals(Hashes.strongHash(target, position, remaining))) {
+            writeLiteral(literalStart, position);
+            addToRun(lastIndex);
+            literalStart = target.length;
+        }
+
+        writeLiteral(literalStart, target.length);
+        flushRun();
+        out.writeByte(DeltaFormat.OP_END);
+        out.flush();
+        return literalBytes;
+    }
+
+    private boolean isFullBlock(int index) {
+        return base.length() - (long) index * base.blockSize() >= base.blockSize();
+    }
+
+    private int findBlock(int weak, int offset, int length) {
+        List<Integer> candidates = blocksByWeak.get(weak);
+        if (candidates == null) {
+            return -1;
+        }
+        String strong = Hashes.strongHash(target, offset, length);
+        for (int index : candidates) {
+            if (base.blocks().get(index).strong().equals(strong)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private void addToRun(int index) throws IOException {
+        if (runCount > 0 && runStart + runCount == index) {
+            runCount++;
+            return;
+        }
+        flushRun();
+        runStart = index;
+        runCount = 1;
+    }
+
+    private void flushRun() throws IOException {
+        if (runCount == 0) {
+            return;
+        }
+        out.writeByte(DeltaFormat.OP_COPY);
+        out.writeInt(runStart);
+        out.writeInt(runCount);
+        runCount = 0;
+    }
+
+    private void writeLiteral(int from, int to) throws IOException {
+        if (to <= from) {
+            return;
+        }
+        flushRun();
+        out.writeByte(DeltaFormat.OP_LITERAL);
+        out.writeInt(to - from);
+        out.write(target, from, to - from);
+        literalBytes += to - from;
+    }
+}
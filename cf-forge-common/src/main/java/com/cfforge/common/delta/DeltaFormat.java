@@ -0,0 +1,27 @@
+package com.cfforge.common.delta;
+
+/**
+ * Wire format of a delta, all integers big-endian:
+ * <pre>
+ * int  magic "CFD1"
+ * int  block size the signature was computed with
+ * 32B  SHA-256 of the base file the delta applies to
+ * long length of the reconstructed file
+ * 32B  SHA-256 of the reconstructed file
+ * ops: 0x01 COPY    int firstBlock, int blockCount
+ *      0x02 LITERAL int length, bytes
+ *      0x00 END
+ * </pre>
+ */
+public final class DeltaFormat {
+
+    public static final String MEDIA_TYPE = "application/vnd.cfforge.delta";
+
+    static final int MAGIC = 0x43464431;
+    static final byte OP_END = 0;
+    static final byte OP_COPY = 1;
+    static final byte OP_LITERAL = 2;
+
+    private DeltaFormat() {
+    }
+}
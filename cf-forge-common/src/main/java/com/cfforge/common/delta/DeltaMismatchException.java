@@ -0,0 +1,12 @@
+package com.cfforge.common.delta;
+
+/**
+ * The delta was computed against a different version of the file than the one stored, or
+ * reconstruction didn't produce the expected content. Callers should fall back to a full upload.
+ */
+public class DeltaMismatchException extends RuntimeException {
+
+    public DeltaMismatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,39 @@
+package com.cfforge.common.delta;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Block signatures of a stored file: for each fixed-size block, a weak rolling checksum to find
+ * candidate matches cheaply and a strong hash to confirm them. The final block may be short.
+ */
+public record FileSignature(int blockSize, long length, String sha256, List<Block> blocks) {
+
+    static final int MIN_BLOCK_SIZE = 2 * 1024;
+    static final int MAX_BLOCK_SIZE = 64 * 1024;
+
+    public record Block(int weak, String strong) {}
+
+    /**
+     * Roughly {@code sqrt(length)} rounded up to a kilobyte, as rsync does, which balances
+     * signature size against the granularity of matches.
+     */
+    public static int defaultBlockSize(long length) {
+        long size = ((long) Math.ceil(Math.sqrt(length) / 1024.0)) * 1024;
+        return (int) Math.max(MIN_BLOCK_SIZE, Math.min(MAX_BLOCK_SIZE, size));
+    }
+
+    public static FileSignature compute(byte[] data) {
+        return compute(data, defaultBlockSize(data.length));
+    }
+
+    public static FileSignature compute(byte[] data, int blockSize) {
+        List<Block> blocks = new ArrayList<>((data.length + blockSize - 1) / blockSize);
+        for (int offset = 0; offset < data.length; offset += blockSize) {
+            int length = Math.min(blockSize, data.length - offset);
+            blocks.add(new Block(RollingChecksum.of(data, offset, length).value(),
+                Hashes.strongHash(data, offset, length)));
+        }
+        return new FileSignature(blockSize, data.length, Hashes.sha256Hex(data), blocks);
+    }
+}
@@ -0,0 +1,33 @@
+package com.cfforge.common.delta;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+final class Hashes {
+
+    /** Strong block hashes are truncated SHA-256; the whole-file hash catches anything they miss. */
+    private static final int STRONG_HASH_BYTES = 16;
+
+    private Hashes() {
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static String sha256Hex(byte[] data) {
+        return HexFormat.of().formatHex(sha256().digest(data));
+    }
+
+    static String strongHash(byte[] data, int offset, int length) {
+        MessageDigest digest = sha256();
+        digest.update(data, offset, length);
+        byte[] hash = digest.digest();
+        return HexFormat.of().formatHex(hash, 0, STRONG_HASH_BYTES);
+    }
+}
@@ -0,0 +1,41 @@
+package com.cfforge.common.delta;
+
+/**
+ * rsync's weak rolling checksum: two 16-bit sums over a fixed-size window that can be slid
+ * one byte forward in constant time.
+ */
+public final class RollingChecksum {
+
+    private final int window;
+    private int a;
+    private int b;
+
+    private RollingChecksum(int window) {
+        this.window = window;
+    }
+
+    public static RollingChecksum of(byte[] data, int offset, int length) {
+        RollingChecksum checksum = new RollingChecksum(length);
+        for (int i = 0; i < length; i++) {
+            int x = data[offset + i] & 0xff;
+            checksum.a += x;
+            checksum.b += (length - i) * x;
+        }
+        checksum.a &= 0xffff;
+        checksum.b &= 0xffff;
+        return checksum;
+    }
+
+    /**
+     * Slides the window one byte: {@code out} leaves at the front, {@code in} joins at the end.
+     */
+    public void roll(byte out, byte in) {
+        int o = out & 0xff;
+        a = (a - o + (in & 0xff)) & 0xffff;
+        b = (b - window * o + a) & 0xffff;
+    }
+
+    public int value() {
+        return (b << 16) | a;
+    }
+}
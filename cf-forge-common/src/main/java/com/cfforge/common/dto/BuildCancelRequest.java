@@ -0,0 +1,8 @@
+package com.cfforge.common.dto;
+
+import java.util.UUID;
+
+/**
+ * Broadcast to every builder; the one running the build terminates it.
+ */
+public record BuildCancelRequest(UUID projectId, UUID buildId, String reason) {}
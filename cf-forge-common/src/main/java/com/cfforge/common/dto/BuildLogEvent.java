@@ -0,0 +1,12 @@
+package com.cfforge.common.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A batch of build log lines published while a build runs.
+ *
+ * @param sequence increases by one per batch of a build, so receivers can order and de-duplicate
+ * @param status   final build status on the last batch of a build, otherwise null
+ */
+public record BuildLogEvent(UUID buildId, UUID projectId, long sequence, List<String> lines, String status) {}
@@ -3,4 +3,17 @@ package com.cfforge.common.dto;
 import com.cfforge.common.enums.TriggerType;
 import java.util.UUID;
 
-public record BuildRequest(UUID projectId, TriggerType triggerType) {}
+/**
+ * @param forceRebuild run the full pipeline even when a cached result for the same inputs exists
+ * @param buildId      the queued build record to run; when null the project's latest build is used
+ */
+public record BuildRequest(UUID projectId, TriggerType triggerType, boolean forceRebuild, UUID buildId) {
+
+    public BuildRequest(UUID projectId, TriggerType triggerType, boolean forceRebuild) {
+        this(projectId, triggerType, forceRebuild, null);
+    }
+
+    public BuildRequest(UUID projectId, TriggerType triggerType) {
+        this(projectId, triggerType, false);
+    }
+}
@@ -0,0 +1,15 @@
+package com.cfforge.common.dto;
+
+/**
+ * One stage of a build's timeline.
+ *
+ * @param stage      stage name, e.g. {@code sources}, {@code compile}, {@code cve-scan}
+ * @param startMs    when the stage started, in milliseconds after the build was queued
+ * @param durationMs how long the stage ran
+ */
+public record BuildStageTiming(String stage, long startMs, long durationMs) {
+
+    public long endMs() {
+        return startMs + durationMs;
+    }
+}
@@ -0,0 +1,11 @@
+package com.cfforge.common.dto;
+
+import com.cfforge.common.enums.BuildStatus;
+import com.cfforge.common.enums.TriggerType;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record BuildSummary(UUID id, UUID projectId, TriggerType triggerType, BuildStatus status,
+                           String artifactPath, String sbomPath, Integer durationMs, Boolean cacheHit,
+                           Long logSize, Instant createdAt, Instant updatedAt) {}
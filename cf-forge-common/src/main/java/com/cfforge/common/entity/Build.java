@@ -1,5 +1,6 @@
 package com.cfforge.common.entity;
 
+import com.cfforge.common.dto.BuildStageTiming;
 import com.cfforge.common.enums.BuildStatus;
 import com.cfforge.common.enums.TriggerType;
 import jakarta.persistence.*;
@@ -8,6 +9,7 @@ import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -41,9 +43,16 @@ public class Build {
     @Builder.Default
     private BuildStatus status = BuildStatus.QUEUED;
 
+    /** Bounded tail of the log; the full log is stored in chunks under {@link #logPath}. */
     @Column(name = "build_log", columnDefinition = "TEXT")
     private String buildLog;
 
+    @Column(name = "log_path")
+    private String logPath;
+
+    @Column(name = "log_size")
+    private Long logSize;
+
     @Column(name = "artifact_path")
     private String artifactPath;
 
@@ -54,9 +63,29 @@ public class Build {
     @Column(name = "cve_report", columnDefinition = "jsonb")
     private Map<String, Object> cveReport;
 
+    @Column(name = "input_hash", length = 64)
+    private String inputHash;
+
+    @Column(name = "cache_hit")
+    @Builder.Default
+    private Boolean cacheHit = false;
+
     @Column(name = "duration_ms")
     private Integer durationMs;
 
+    /** Peak memory of the build's tool processes, from its cgroup or sampled. */
+    @Column(name = "peak_memory_mb")
+    private Integer peakMemoryMb;
+
+    /** CPU time used by the build's tool processes. */
+    @Column(name = "cpu_time_ms")
+    private Long cpuTimeMs;
+
+    /** Start and duration of each build stage, measured from {@link #createdAt}. */
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "stage_timings", columnDefinition = "jsonb")
+    private List<BuildStageTiming> stageTimings;
+
     @Column(name = "created_at")
     @Builder.Default
     private Instant createdAt = Instant.now();
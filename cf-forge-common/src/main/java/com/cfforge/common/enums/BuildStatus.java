@@ -1,5 +1,5 @@
 package com.cfforge.common.enums;
 
 public enum BuildStatus {
-    QUEUED, BUILDING, SUCCESS, FAILED, BLOCKED
+    QUEUED, BUILDING, SUCCESS, FAILED, BLOCKED, CANCELLED, SUPERSEDED
 }
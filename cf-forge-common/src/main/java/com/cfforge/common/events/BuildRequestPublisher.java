@@ -0,0 +1,31 @@
+package com.cfforge.common.events;
+
+import com.cfforge.common.dto.BuildRequest;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends build requests to the builders.
+ *
+ * Each message carries the project id in {@link #PARTITION_KEY_HEADER}; the build request
+ * exchange hashes it to pick a builder, so a project's builds keep landing on the instance whose
+ * work directory and caches are already warm.
+ */
+@Component
+public class BuildRequestPublisher {
+
+    public static final String PARTITION_KEY_HEADER = "cfforge_partitionKey";
+
+    private final StreamBridge streamBridge;
+
+    public BuildRequestPublisher(StreamBridge streamBridge) {
+        this.streamBridge = streamBridge;
+    }
+
+    public boolean publish(BuildRequest request) {
+        return streamBridge.send("buildRequest-out-0", MessageBuilder.withPayload(request)
+            .setHeader(PARTITION_KEY_HEADER, request.projectId().toString())
+            .build());
+    }
+}
@@ -1,11 +1,42 @@
 package com.cfforge.common.repository;
 
+import com.cfforge.common.dto.BuildSummary;
 import com.cfforge.common.entity.Build;
+import com.cfforge.common.enums.BuildStatus;
+import com.cfforge.common.enums.Language;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface BuildRepository extends JpaRepository<Build, UUID> {
     List<Build> findByProjectIdOrderByCreatedAtDesc(UUID projectId);
+
+    Optional<Build> findFirstByProjectIdOrderByCreatedAtDesc(UUID projectId);
+
+    Optional<Build> findFirstByProjectIdAndStatusOrderByCreatedAtDesc(UUID projectId, BuildStatus status);
+
+    List<Build> findTop20ByStageTimingsIsNotNullOrderByCreatedAtDesc();
+
+    /**
+     * Build list without logs or reports, for list endpoints.
+     */
+    @Query("SELECT new com.cfforge.common.dto.BuildSummary(b.id, b.project.id, b.triggerType, b.status, " +
+           "b.artifactPath, b.sbomPath, b.durationMs, b.cacheHit, b.logSize, b.createdAt, b.updatedAt) " +
+           "FROM Build b WHERE b.project.id = :projectId ORDER BY b.createdAt DESC")
+    List<BuildSummary> findSummariesByProjectId(@Param("projectId") UUID projectId);
+
+    /**
+     * Peak memory of the most recent builds of a language that recorded one.
+     */
+    @Query("SELECT b.peakMemoryMb FROM Build b WHERE b.project.language = :language " +
+           "AND b.peakMemoryMb IS NOT NULL ORDER BY b.createdAt DESC")
+    List<Integer> findRecentPeakMemoryMb(@Param("language") Language language, Pageable pageable);
+
+    Optional<Build> findFirstByProjectIdAndInputHashAndStatusOrderByCreatedAtDesc(UUID projectId, String inputHash,
+                                                                                  BuildStatus status);
 }
@@ -0,0 +1,71 @@
+package com.cfforge.common.routing;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent-hash ring with virtual nodes.
+ *
+ * Each member is placed on the ring {@code virtualNodes} times so keys spread evenly, and
+ * adding or removing one member only moves roughly {@code 1/n} of the keys. Hashing is MD5
+ * based so every JVM computes the same placement.
+ */
+public final class ConsistentHashRing<T> {
+
+    private final NavigableMap<Long, T> ring = new TreeMap<>();
+    private final Set<T> members;
+
+    public ConsistentHashRing(Collection<T> members, int virtualNodes) {
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes must be positive");
+        }
+        this.members = Set.copyOf(members);
+        // Place members in a stable order so hash collisions resolve the same way everywhere
+        for (T member : members.stream().sorted(Comparator.comparing(Object::toString)).toList()) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.putIfAbsent(hash(member + "#" + i), member);
+            }
+        }
+    }
+
+    public static <T> ConsistentHashRing<T> empty() {
+        return new ConsistentHashRing<>(Set.of(), 1);
+    }
+
+    public Optional<T> nodeFor(String key) {
+        if (ring.isEmpty()) {
+            return Optional.empty();
+        }
+        Map.Entry<Long, T> entry = ring.ceilingEntry(hash(key));
+        return Optional.of(entry != null ? entry.getValue() : ring.firstEntry().getValue());
+    }
+
+    public Set<T> members() {
+        return members;
+    }
+
+    public boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long h = 0;
+            for (int i = 0; i < 8; i++) {
+                h = (h << 8) | (digest[i] & 0xff);
+            }
+            return h;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
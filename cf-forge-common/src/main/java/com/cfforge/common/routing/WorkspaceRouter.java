@@ -0,0 +1,114 @@
+package com.cfforge.common.routing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * WebClient filter that sends every {@code /workspace/{id}/...} request to the workspace
+ * instance owning that id on a consistent-hash ring, so per-instance state (locks, restore
+ * jobs, local caches) stays with one node.
+ *
+ * Membership comes from the workspace service's {@code /cluster/members} endpoint, refreshed
+ * in the background at most once per interval and immediately after an instance refuses a
+ * connection. Until members are known, or if the owner is unreachable, requests go to the
+ * service's load-balanced URL unchanged.
+ */
+@Slf4j
+public class WorkspaceRouter implements ExchangeFilterFunction {
+
+    private static final Pattern WORKSPACE_PATH = Pattern.compile("^/workspace/([0-9a-fA-F-]{36})(/|$)");
+    private static final ParameterizedTypeReference<List<String>> MEMBER_LIST = new ParameterizedTypeReference<>() {};
+
+    private final WebClient membershipClient;
+    private final int virtualNodes;
+    private final Duration refreshInterval;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile ConsistentHashRing<String> ring = ConsistentHashRing.empty();
+    private volatile long nextRefresh;
+
+    public WorkspaceRouter(String serviceUrl, int virtualNodes, Duration refreshInterval) {
+        this.membershipClient = WebClient.create(serviceUrl);
+        this.virtualNodes = virtualNodes;
+        this.refreshInterval = refreshInterval;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        refreshIfDue();
+        Matcher matcher = WORKSPACE_PATH.matcher(request.url().getRawPath());
+        if (!matcher.find()) {
+            return next.exchange(request);
+        }
+        return ring.nodeFor(matcher.group(1).toLowerCase(Locale.ROOT))
+            .map(owner -> {
+                ClientRequest routed = ClientRequest.from(request).url(rebase(request.url(), owner)).build();
+                return next.exchange(routed)
+                    .onErrorResume(WebClientRequestException.class, e -> {
+                        if (!(e.getCause() instanceof ConnectException)) {
+                            return Mono.error(e);
+                        }
+                        log.warn("Workspace instance {} unreachable, falling back to router: {}", owner, e.getMessage());
+                        nextRefresh = 0;
+                        return next.exchange(request);
+                    });
+            })
+            .orElseGet(() -> next.exchange(request));
+    }
+
+    /**
+     * Current owner of a workspace, if membership is known. Exposed for diagnostics.
+     */
+    public String ownerOf(String workspaceId) {
+        return ring.nodeFor(workspaceId.toLowerCase(Locale.ROOT)).orElse(null);
+    }
+
+    void updateMembers(List<String> members) {
+        if (new HashSet<>(members).equals(ring.members())) {
+            return;
+        }
+        ConsistentHashRing<String> previous = ring;
+        ring = new ConsistentHashRing<>(members, virtualNodes);
+        log.info("Workspace ring rebalanced: {} -> {} instances", previous.members().size(), members.size());
+    }
+
+    private void refreshIfDue() {
+        if (System.currentTimeMillis() < nextRefresh || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        membershipClient.get()
+            .uri("/cluster/members")
+            .retrieve()
+            .bodyToMono(MEMBER_LIST)
+            .timeout(Duration.ofSeconds(5))
+            .doFinally(signal -> {
+                nextRefresh = System.currentTimeMillis() + refreshInterval.toMillis();
+                refreshing.set(false);
+            })
+            .subscribe(this::updateMembers,
+                e -> log.debug("Workspace membership refresh failed: {}", e.getMessage()));
+    }
+
+    private static URI rebase(URI original, String base) {
+        String root = base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+        String query = original.getRawQuery();
+        return URI.create(root + original.getRawPath() + (query != null ? "?" + query : ""));
+    }
+}
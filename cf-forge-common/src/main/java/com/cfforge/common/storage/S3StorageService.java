@@ -16,6 +16,7 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -109,18 +110,22 @@ public class S3StorageService {
     }
 
     public void putObject(String key, InputStream inputStream, long contentLength) {
+        putObject(defaultBucket, key, inputStream, contentLength);
+    }
+
+    public void putObject(String bucket, String key, InputStream inputStream, long contentLength) {
         if (isFilesystemMode()) {
             try {
-                Path path = getFallbackPath(defaultBucket, key);
+                Path path = getFallbackPath(bucket, key);
                 Files.createDirectories(path.getParent());
-                Files.copy(inputStream, path);
+                Files.copy(inputStream, path, StandardCopyOption.REPLACE_EXISTING);
             } catch (IOException e) {
                 throw new RuntimeException("Failed to write file: " + key, e);
             }
             return;
         }
         getClient().putObject(
-            PutObjectRequest.builder().bucket(defaultBucket).key(key).build(),
+            PutObjectRequest.builder().bucket(bucket).key(key).build(),
             RequestBody.fromInputStream(inputStream, contentLength)
         );
     }
@@ -146,6 +151,53 @@ public class S3StorageService {
         ).asByteArray();
     }
 
+    public InputStream openObject(String key) {
+        return openObject(defaultBucket, key);
+    }
+
+    /**
+     * Opens the object for streaming reads. The caller must close the returned stream.
+     */
+    public InputStream openObject(String bucket, String key) {
+        if (isFilesystemMode()) {
+            try {
+                Path path = getFallbackPath(bucket, key);
+                if (!Files.exists(path)) {
+                    throw new RuntimeException("File not found: " + key);
+                }
+                return Files.newInputStream(path);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read file: " + key, e);
+            }
+        }
+        return getClient().getObject(
+            GetObjectRequest.builder().bucket(bucket).key(key).build()
+        );
+    }
+
+    /**
+     * Copies an object within a bucket. On S3 this is a server-side copy, so no bytes pass through the caller.
+     */
+    public void copyObject(String bucket, String sourceKey, String destinationKey) {
+        if (isFilesystemMode()) {
+            try {
+                Path source = getFallbackPath(bucket, sourceKey);
+                Path target = getFallbackPath(bucket, destinationKey);
+                Files.createDirectories(target.getParent());
+                Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to copy file: " + sourceKey, e);
+            }
+            return;
+        }
+        getClient().copyObject(
+            CopyObjectRequest.builder()
+                .sourceBucket(bucket).sourceKey(sourceKey)
+                .destinationBucket(bucket).destinationKey(destinationKey)
+                .build()
+        );
+    }
+
     public void deleteObject(String key) {
         deleteObject(defaultBucket, key);
     }
@@ -165,6 +217,25 @@ public class S3StorageService {
         );
     }
 
+    public boolean objectExists(String key) {
+        return objectExists(defaultBucket, key);
+    }
+
+    /**
+     * Whether an object with exactly this key exists, unlike {@link #listObjects} which matches a prefix.
+     */
+    public boolean objectExists(String bucket, String key) {
+        if (isFilesystemMode()) {
+            return Files.isRegularFile(getFallbackPath(bucket, key));
+        }
+        try {
+            getClient().headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build());
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        }
+    }
+
     public List<String> listObjects(String prefix) {
         return listObjects(defaultBucket, prefix);
     }
@@ -193,4 +264,40 @@ public class S3StorageService {
             .map(S3Object::key)
             .collect(Collectors.toList());
     }
+
+    public Stream<StoredObject> streamObjects(String prefix) {
+        return streamObjects(defaultBucket, prefix);
+    }
+
+    /**
+     * Lazily lists objects under a prefix, fetching further pages only as the stream is consumed.
+     * The returned stream must be closed.
+     */
+    public Stream<StoredObject> streamObjects(String bucket, String prefix) {
+        if (isFilesystemMode()) {
+            Path basePath = getFallbackPath(bucket, prefix);
+            if (!Files.exists(basePath)) {
+                return Stream.empty();
+            }
+            Path bucketRoot = getFallbackPath(bucket, "");
+            try {
+                return Files.walk(basePath)
+                    .filter(Files::isRegularFile)
+                    .map(p -> {
+                        try {
+                            return new StoredObject(bucketRoot.relativize(p).toString(), Files.size(p),
+                                null, Files.getLastModifiedTime(p).toInstant());
+                        } catch (IOException e) {
+                            throw new RuntimeException("Failed to stat file: " + p, e);
+                        }
+                    });
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to list files: " + prefix, e);
+            }
+        }
+        return getClient().listObjectsV2Paginator(
+                ListObjectsV2Request.builder().bucket(bucket).prefix(prefix).build())
+            .contents().stream()
+            .map(o -> new StoredObject(o.key(), o.size(), o.eTag(), o.lastModified()));
+    }
 }
@@ -0,0 +1,8 @@
+package com.cfforge.common.storage;
+
+import java.time.Instant;
+
+/**
+ * Listing entry for a stored object. {@code etag} is null in filesystem fallback mode.
+ */
+public record StoredObject(String key, long size, String etag, Instant lastModified) {}
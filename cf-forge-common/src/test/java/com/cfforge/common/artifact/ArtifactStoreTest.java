@@ -0,0 +1,154 @@
+package com.cfforge.common.artifact;
+
+import com.cfforge.common.storage.S3StorageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArtifactStoreTest {
+
+    private static final String LAYERS_IDX = """
+        - "dependencies":
+          - "BOOT-INF/lib/"
+        - "spring-boot-loader":
+          - "org/"
+        - "snapshot-dependencies":
+        - "application":
+          - "BOOT-INF/classes/"
+          - "BOOT-INF/layers.idx"
+          - "META-INF/"
+        """;
+
+    @TempDir
+    Path tempDir;
+
+    private S3StorageService storageService;
+    private ArtifactStore store;
+    private byte[] library;
+
+    @BeforeEach
+    void setUp() {
+        storageService = new S3StorageService();
+        ReflectionTestUtils.setField(storageService, "endpoint", "");
+        ReflectionTestUtils.setField(storageService, "fallbackDir", tempDir.resolve("s3").toString());
+        ReflectionTestUtils.setField(storageService, "defaultBucket", "cf-forge-artifacts");
+        store = new ArtifactStore(storageService, new ObjectMapper());
+        library = new byte[200_000];
+        new Random(7).nextBytes(library);
+    }
+
+    @Test
+    void store_uploadsOnlyLayersThatAreNotStoredYet() throws Exception {
+        ArtifactStore.Stored first = store.store(bootJar("v1"), "artifacts/p/b1.jar", true);
+
+        assertThat(first.key()).isEqualTo("artifacts/p/b1.jar.layers.json");
+        assertThat(first.layers()).isEqualTo(3);
+        assertThat(first.reusedLayers()).isZero();
+        assertThat(first.uploadedBytes()).isGreaterThan(library.length);
+
+        ArtifactStore.Stored second = store.store(bootJar("v2"), "artifacts/p/b2.jar", true);
+
+        assertThat(second.layers()).isEqualTo(3);
+        assertThat(second.reusedLayers()).isEqualTo(2);
+        assertThat(second.uploadedBytes()).isLessThan(library.length / 10);
+        assertThat(storageService.listObjects("artifact-layers/")).hasSize(4);
+    }
+
+    @Test
+    void copyTo_reassemblesTheJarFromItsLayers() throws Exception {
+        Path jar = bootJar("v1");
+        String key = store.store(jar, "artifacts/p/b1.jar", true).key();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        store.copyTo(key, out);
+
+        Map<String, byte[]> original = entries(Files.readAllBytes(jar));
+        Map<String, byte[]> reassembled = entries(out.toByteArray());
+        assertThat(reassembled.keySet()).containsExactlyInAnyOrderElementsOf(original.keySet());
+        assertThat(reassembled.keySet()).first().isEqualTo("META-INF/MANIFEST.MF");
+        original.forEach((name, content) -> assertThat(reassembled.get(name)).as(name).isEqualTo(content));
+        assertThat(methodOf(out.toByteArray(), "BOOT-INF/lib/library.jar")).isEqualTo(ZipEntry.STORED);
+        assertThat(ArtifactStore.fileName(key)).isEqualTo("b1.jar");
+    }
+
+    @Test
+    void store_keepsOtherFilesWhole() throws Exception {
+        Path binary = Files.writeString(tempDir.resolve("app"), "binary");
+
+        ArtifactStore.Stored stored = store.store(binary, "artifacts/p/b1/app", true);
+
+        assertThat(stored.key()).isEqualTo("artifacts/p/b1/app");
+        assertThat(stored.layers()).isZero();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        store.copyTo(stored.key(), out);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("binary");
+    }
+
+    private Path bootJar(String version) throws IOException {
+        Path jar = tempDir.resolve("app-" + version + ".jar");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+            put(zip, "META-INF/MANIFEST.MF", "Main-Class: org.springframework.boot.loader.JarLauncher\n".getBytes(), false);
+            put(zip, "org/springframework/boot/loader/JarLauncher.class", "launcher".getBytes(), false);
+            put(zip, "BOOT-INF/classes/com/example/App.class", ("app " + version).getBytes(), false);
+            put(zip, "BOOT-INF/lib/library.jar", library, true);
+            put(zip, "BOOT-INF/layers.idx", LAYERS_IDX.getBytes(), false);
+        }
+        return jar;
+    }
+
+    private static void put(ZipOutputStream zip, String name, byte[] content, boolean stored) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        if (stored) {
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(content.length);
+            entry.setCompressedSize(content.length);
+            entry.setCrc(crc.getValue());
+        }
+        zip.putNextEntry(entry);
+        zip.write(content);
+        zip.closeEntry();
+    }
+
+    private static Map<String, byte[]> entries(byte[] jar) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(jar))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                entries.put(entry.getName(), in.readAllBytes());
+            }
+        }
+        return entries;
+    }
+
+    private static int methodOf(byte[] jar, String name) throws IOException {
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(jar))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                if (entry.getName().equals(name)) {
+                    return entry.getMethod();
+                }
+            }
+        }
+        return -1;
+    }
+}
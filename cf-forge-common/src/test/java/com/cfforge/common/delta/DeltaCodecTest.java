@@ -0,0 +1,113 @@
+package com.cfforge.common.delta;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeltaCodecTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    void oneLineEdit_sendsRoughlyOneBlock() throws IOException {
+        byte[] base = text(2 * 1024 * 1024);
+        String edited = new String(base, StandardCharsets.US_ASCII);
+        int middle = edited.indexOf('\n', edited.length() / 2) + 1;
+        byte[] target = (edited.substring(0, middle) + "an inserted line\n" + edited.substring(middle))
+            .getBytes(StandardCharsets.US_ASCII);
+
+        FileSignature signature = FileSignature.compute(base);
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        long literal = DeltaEncoder.encode(signature, target, delta);
+
+        assertThat(literal).isLessThanOrEqualTo(2L * signature.blockSize());
+        assertThat(delta.size()).isLessThan(3 * signature.blockSize());
+        assertThat(roundTrip(base, delta.toByteArray())).isEqualTo(target);
+    }
+
+    @Test
+    void shiftedAndTruncatedContent_roundTrips() throws IOException {
+        byte[] base = bytes(100_000);
+        byte[] target = new byte[base.length - 7_000 + 3];
+        System.arraycopy(new byte[] {1, 2, 3}, 0, target, 0, 3);
+        System.arraycopy(base, 5_000, target, 3, base.length - 7_000);
+
+        assertThat(roundTrip(base, encode(base, target))).isEqualTo(target);
+    }
+
+    @Test
+    void shortLastBlockIsReused() throws IOException {
+        byte[] base = bytes(10_000);
+        byte[] target = base.clone();
+        target[10] ^= 1;
+
+        FileSignature signature = FileSignature.compute(base, 2048);
+        long literal = DeltaEncoder.encode(signature, target, new ByteArrayOutputStream());
+
+        assertThat(literal).isEqualTo(2048);
+    }
+
+    @Test
+    void emptyBase_sendsEverythingAsLiteral() throws IOException {
+        byte[] target = bytes(5_000);
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+
+        long literal = DeltaEncoder.encode(FileSignature.compute(new byte[0]), target, delta);
+
+        assertThat(literal).isEqualTo(target.length);
+        assertThat(roundTrip(new byte[0], delta.toByteArray())).isEqualTo(target);
+    }
+
+    @Test
+    void changedBase_isRejected() throws IOException {
+        byte[] base = bytes(50_000);
+        byte[] delta = encode(base, bytes(50_000));
+        base[0] ^= 1;
+
+        assertThatThrownBy(() -> roundTrip(base, delta)).isInstanceOf(DeltaMismatchException.class);
+    }
+
+    @Test
+    void rollingChecksum_matchesRecomputation() {
+        byte[] data = bytes(4_096);
+        RollingChecksum rolling = RollingChecksum.of(data, 0, 1024);
+        for (int i = 1; i + 1024 <= data.length; i++) {
+            rolling.roll(data[i - 1], data[i + 1023]);
+            assertThat(rolling.value()).isEqualTo(RollingChecksum.of(data, i, 1024).value());
+        }
+    }
+
+    private byte[] encode(byte[] base, byte[] target) throws IOException {
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        DeltaEncoder.encode(FileSignature.compute(base), target, delta);
+        return delta.toByteArray();
+    }
+
+    private static byte[] roundTrip(byte[] base, byte[] delta) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DeltaDecoder.apply(base, new ByteArrayInputStream(delta), out);
+        return out.toByteArray();
+    }
+
+    private byte[] bytes(int length) {
+        byte[] data = new byte[length];
+        random.nextBytes(data);
+        return data;
+    }
+
+    private byte[] text(int length) {
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            sb.append("\"dependency-").append(random.nextInt(1_000_000)).append("\": \"^")
+                .append(random.nextInt(20)).append('.').append(random.nextInt(50)).append(".0\",\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,58 @@
+package com.cfforge.common.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsistentHashRingTest {
+
+    private static final List<String> KEYS = new ArrayList<>();
+
+    static {
+        for (int i = 0; i < 10_000; i++) {
+            KEYS.add(UUID.randomUUID().toString());
+        }
+    }
+
+    @Test
+    void emptyRing_hasNoOwner() {
+        assertThat(ConsistentHashRing.<String>empty().nodeFor("anything")).isEmpty();
+    }
+
+    @Test
+    void placementIsIndependentOfMemberOrder() {
+        var a = new ConsistentHashRing<>(List.of("n1", "n2", "n3"), 160);
+        var b = new ConsistentHashRing<>(List.of("n3", "n1", "n2"), 160);
+
+        KEYS.forEach(key -> assertThat(a.nodeFor(key)).isEqualTo(b.nodeFor(key)));
+    }
+
+    @Test
+    void keysSpreadRoughlyEvenly() {
+        var ring = new ConsistentHashRing<>(List.of("n1", "n2", "n3", "n4"), 160);
+        Map<String, Integer> counts = new HashMap<>();
+        KEYS.forEach(key -> counts.merge(ring.nodeFor(key).orElseThrow(), 1, Integer::sum));
+
+        assertThat(counts).hasSize(4);
+        counts.values().forEach(count -> assertThat(count).isBetween(1_800, 3_200));
+    }
+
+    @Test
+    void addingMember_movesOnlyItsShare() {
+        var before = new ConsistentHashRing<>(List.of("n1", "n2", "n3", "n4"), 160);
+        var after = new ConsistentHashRing<>(List.of("n1", "n2", "n3", "n4", "n5"), 160);
+
+        long moved = KEYS.stream().filter(key -> !before.nodeFor(key).equals(after.nodeFor(key))).count();
+
+        // Every moved key must land on the new member, and only about a fifth should move
+        KEYS.stream().filter(key -> !before.nodeFor(key).equals(after.nodeFor(key)))
+            .forEach(key -> assertThat(after.nodeFor(key)).contains("n5"));
+        assertThat(moved).isBetween(1_200L, 2_800L);
+    }
+}
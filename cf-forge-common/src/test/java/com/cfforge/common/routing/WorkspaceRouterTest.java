@@ -0,0 +1,87 @@
+package com.cfforge.common.routing;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkspaceRouterTest {
+
+    private static final String SERVICE = "http://workspace.internal:8080";
+
+    private final List<URI> sent = new ArrayList<>();
+    private final WorkspaceRouter router = new WorkspaceRouter(SERVICE, 160, Duration.ofDays(1));
+
+    private final ExchangeFunction recording = request -> {
+        sent.add(request.url());
+        return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+    };
+
+    @Test
+    void withoutMembers_requestsGoToService() {
+        UUID id = UUID.randomUUID();
+        router.filter(get("/workspace/" + id + "/files"), recording).block();
+
+        assertThat(sent).containsExactly(URI.create(SERVICE + "/workspace/" + id + "/files"));
+    }
+
+    @Test
+    void workspaceRequestsGoToOwner_keepingPathAndQuery() {
+        router.updateMembers(List.of("http://0.ws:8080", "http://1.ws:8080", "http://2.ws:8080"));
+        UUID id = UUID.randomUUID();
+        String owner = router.ownerOf(id.toString());
+
+        router.filter(get("/workspace/" + id + "/files?dir=src%2Fmain"), recording).block();
+        router.filter(get("/workspace/" + id + "/files/pom.xml"), recording).block();
+
+        assertThat(sent).containsExactly(
+            URI.create(owner + "/workspace/" + id + "/files?dir=src%2Fmain"),
+            URI.create(owner + "/workspace/" + id + "/files/pom.xml"));
+    }
+
+    @Test
+    void nonWorkspaceRequestsAreNotRouted() {
+        router.updateMembers(List.of("http://0.ws:8080"));
+
+        router.filter(get("/cluster/members"), recording).block();
+
+        assertThat(sent).containsExactly(URI.create(SERVICE + "/cluster/members"));
+    }
+
+    @Test
+    void unreachableOwner_fallsBackToService() {
+        router.updateMembers(List.of("http://0.ws:8080"));
+        UUID id = UUID.randomUUID();
+        ExchangeFunction ownerDown = request -> {
+            sent.add(request.url());
+            if (request.url().getHost().equals("0.ws")) {
+                return Mono.error(new WebClientRequestException(new ConnectException("refused"),
+                    request.method(), request.url(), request.headers()));
+            }
+            return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+        };
+
+        router.filter(get("/workspace/" + id + "/files"), ownerDown).block();
+
+        assertThat(sent).containsExactly(
+            URI.create("http://0.ws:8080/workspace/" + id + "/files"),
+            URI.create(SERVICE + "/workspace/" + id + "/files"));
+    }
+
+    private static ClientRequest get(String path) {
+        return ClientRequest.create(HttpMethod.GET, URI.create(SERVICE + path)).build();
+    }
+}
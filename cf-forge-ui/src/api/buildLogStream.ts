@@ -0,0 +1,102 @@
+export interface BuildLogBatch {
+  buildId: string
+  projectId: string
+  sequence: number
+  lines: string[]
+  status: string | null
+}
+
+interface StompFrame {
+  command: string
+  headers: Record<string, string>
+  body: string
+}
+
+// Live batches buffered beyond a gap before assuming the missing batch was lost
+const MAX_PENDING = 20
+
+function frame(command: string, headers: Record<string, string>): string {
+  const lines = Object.entries(headers).map(([k, v]) => `${k}:${v}`)
+  return `${command}\n${lines.join('\n')}\n\n\0`
+}
+
+export function parseFrames(data: string): StompFrame[] {
+  return data
+    .split('\0')
+    .map((raw) => raw.replace(/^\n+/, ''))
+    .filter((raw) => raw.length > 0)
+    .map((raw) => {
+      const split = raw.indexOf('\n\n')
+      const head = split >= 0 ? raw.slice(0, split) : raw
+      const body = split >= 0 ? raw.slice(split + 2) : ''
+      const [command, ...headerLines] = head.split('\n')
+      const headers: Record<string, string> = {}
+      for (const line of headerLines) {
+        const colon = line.indexOf(':')
+        if (colon > 0) headers[line.slice(0, colon)] = line.slice(colon + 1)
+      }
+      return { command, headers, body }
+    })
+}
+
+/**
+ * Streams a build's log over STOMP on /ws/build. Subscribes to live batches first, then
+ * fetches the replay snapshot, and emits lines strictly in sequence order without duplicates.
+ * Returns a function that closes the stream.
+ */
+export function streamBuildLogs(
+  buildId: string,
+  onLines: (lines: string[]) => void,
+  onDone?: (status: string) => void,
+): () => void {
+  const protocol = window.location.protocol === 'https:' ? 'wss:' : 'ws:'
+  const socket = new WebSocket(`${protocol}//${window.location.host}/ws/build`)
+  const pending = new Map<number, BuildLogBatch>()
+  let next: number | null = null
+  let replayed = false
+
+  const drain = () => {
+    if (!replayed || pending.size === 0) return
+    let seq = next === null || (pending.size > MAX_PENDING && !pending.has(next))
+      ? Math.min(...pending.keys())
+      : next
+    while (pending.has(seq)) {
+      const batch = pending.get(seq)!
+      pending.delete(seq)
+      seq++
+      if (batch.lines.length > 0) onLines(batch.lines)
+      if (batch.status) onDone?.(batch.status)
+    }
+    next = seq
+  }
+
+  const accept = (batch: BuildLogBatch) => {
+    if (next === null || batch.sequence >= next) pending.set(batch.sequence, batch)
+  }
+
+  socket.onopen = () => {
+    socket.send(frame('CONNECT', { 'accept-version': '1.2', host: window.location.host, 'heart-beat': '0,0' }))
+  }
+
+  socket.onmessage = (event) => {
+    for (const f of parseFrames(String(event.data))) {
+      if (f.command === 'CONNECTED') {
+        socket.send(frame('SUBSCRIBE', { id: 'live', destination: `/topic/builds/${buildId}/logs` }))
+        socket.send(frame('SUBSCRIBE', { id: 'replay', destination: `/app/builds/${buildId}/logs` }))
+      } else if (f.command === 'MESSAGE') {
+        if (f.headers.subscription === 'replay') {
+          for (const batch of JSON.parse(f.body) as BuildLogBatch[]) accept(batch)
+          replayed = true
+        } else {
+          accept(JSON.parse(f.body) as BuildLogBatch)
+        }
+        drain()
+      }
+    }
+  }
+
+  return () => {
+    if (socket.readyState === WebSocket.OPEN) socket.send(frame('DISCONNECT', {}))
+    socket.close()
+  }
+}
@@ -75,12 +75,22 @@ export interface Build {
   projectId: string
   triggerType: string
   status: string
-  buildLog: string | null
   artifactPath: string | null
   durationMs: number | null
+  cacheHit: boolean | null
+  logSize: number | null
   createdAt: string
 }
 
+export interface BuildLogPage {
+  offset: number
+  nextOffset: number
+  totalBytes: number
+  complete: boolean
+  content: string
+  stages: { name: string; offset: number }[]
+}
+
 export interface Deployment {
   id: string
   projectId: string
@@ -279,8 +289,12 @@ export const api = {
     list: (projectId: string) => request<Build[]>(`/projects/${projectId}/builds`),
     get: (projectId: string, buildId: string) =>
       request<Build>(`/projects/${projectId}/builds/${buildId}`),
-    trigger: (projectId: string) =>
-      request<Build>(`/projects/${projectId}/builds`, { method: 'POST' }),
+    trigger: (projectId: string, force = false) =>
+      request<Build>(`/projects/${projectId}/builds${force ? '?force=true' : ''}`, { method: 'POST' }),
+    cancel: (projectId: string, buildId: string) =>
+      request<Build>(`/projects/${projectId}/builds/${buildId}/cancel`, { method: 'POST' }),
+    logs: (projectId: string, buildId: string, offset?: number) =>
+      request<BuildLogPage>(`/projects/${projectId}/builds/${buildId}/logs${offset !== undefined ? `?offset=${offset}` : ''}`),
   },
 
   deployments: {
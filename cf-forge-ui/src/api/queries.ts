@@ -41,6 +41,14 @@ export function useBuilds(projectId: string) {
   })
 }
 
+export function useBuildLog(projectId: string, buildId: string | undefined, enabled: boolean) {
+  return useQuery({
+    queryKey: ['builds', projectId, buildId, 'log'],
+    queryFn: () => api.builds.logs(projectId, buildId!),
+    enabled: !!projectId && !!buildId && enabled,
+  })
+}
+
 export function useTriggerBuild(projectId: string) {
   const qc = useQueryClient()
   return useMutation({
@@ -49,6 +57,14 @@ export function useTriggerBuild(projectId: string) {
   })
 }
 
+export function useCancelBuild(projectId: string) {
+  const qc = useQueryClient()
+  return useMutation({
+    mutationFn: (buildId: string) => api.builds.cancel(projectId, buildId),
+    onSuccess: () => qc.invalidateQueries({ queryKey: ['builds', projectId] }),
+  })
+}
+
 export function useDeployments(projectId: string) {
   return useQuery({
     queryKey: ['deployments', projectId],
@@ -1,11 +1,16 @@
-import { useRef, useEffect } from 'react'
-import { useBuilds } from '../../api/queries.ts'
+import { useRef, useEffect, useState } from 'react'
+import { useBuildLog, useBuilds, useCancelBuild } from '../../api/queries.ts'
+import { streamBuildLogs } from '../../api/buildLogStream.ts'
 
 export function LogPanel({ projectId }: { projectId: string }) {
   const { data: builds, refetch } = useBuilds(projectId)
+  const cancelBuild = useCancelBuild(projectId)
   const latestBuild = builds?.[0]
   const scrollRef = useRef<HTMLDivElement>(null)
-  const isActive = latestBuild?.status === 'BUILDING' || latestBuild?.status === 'PENDING'
+  const isActive = latestBuild?.status === 'BUILDING' || latestBuild?.status === 'QUEUED'
+  const [liveLog, setLiveLog] = useState<{ buildId: string; text: string } | null>(null)
+  const activeBuildId = isActive ? latestBuild?.id : undefined
+  const { data: storedLog } = useBuildLog(projectId, latestBuild?.id, !!latestBuild && !isActive)
 
   // Poll during active builds
   useEffect(() => {
@@ -14,26 +19,55 @@ export function LogPanel({ projectId }: { projectId: string }) {
     return () => clearInterval(interval)
   }, [isActive, refetch])
 
+  // Stream output while the build runs; the stored log takes over once it finishes
+  useEffect(() => {
+    if (!activeBuildId) return
+    return streamBuildLogs(
+      activeBuildId,
+      (lines) => setLiveLog((prev) => ({
+        buildId: activeBuildId,
+        text: (prev?.buildId === activeBuildId ? prev.text : '') + lines.join('\n') + '\n',
+      })),
+      () => refetch(),
+    )
+  }, [activeBuildId, refetch])
+
+  const logText = isActive && liveLog?.buildId === latestBuild?.id && liveLog.text
+    ? liveLog.text
+    : storedLog && storedLog.offset > 0
+      ? '[earlier output omitted, download the full log]\n' + storedLog.content
+      : storedLog?.content
+
   // Auto-scroll when log content changes
   useEffect(() => {
     if (scrollRef.current) {
       scrollRef.current.scrollTop = scrollRef.current.scrollHeight
     }
-  }, [latestBuild?.buildLog])
+  }, [logText])
 
   return (
     <div className="log-panel">
       <div className="log-panel-header">
         <span>Build Logs</span>
+        {latestBuild && isActive && (
+          <button className="btn-icon" disabled={cancelBuild.isPending} onClick={() => cancelBuild.mutate(latestBuild.id)}>
+            Cancel
+          </button>
+        )}
+        {latestBuild && !isActive && (
+          <a href={`/api/v1/projects/${projectId}/builds/${latestBuild.id}/logs/raw`} download>
+            Download
+          </a>
+        )}
         {latestBuild && (
           <span className={latestBuild.status === 'SUCCESS' ? 'text-success' : latestBuild.status === 'FAILED' ? 'text-danger' : 'text-warning'}>
-            {latestBuild.status}
+            {latestBuild.status}{latestBuild.cacheHit ? ' (cached)' : ''}
           </span>
         )}
       </div>
       <div ref={scrollRef} className="log-panel-body">
-        {latestBuild?.buildLog ? (
-          latestBuild.buildLog
+        {logText ? (
+          logText
         ) : (
           <span className="text-muted">No build logs yet. Trigger a build to see output here.</span>
         )}
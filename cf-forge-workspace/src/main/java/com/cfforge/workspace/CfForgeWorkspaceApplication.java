@@ -5,11 +5,13 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EntityScan(basePackages = "com.cfforge.common.entity")
 @EnableJpaRepositories(basePackages = "com.cfforge.common.repository")
 @ComponentScan(basePackages = {"com.cfforge.workspace", "com.cfforge.common"})
+@EnableScheduling
 public class CfForgeWorkspaceApplication {
     public static void main(String[] args) {
         SpringApplication.run(CfForgeWorkspaceApplication.class, args);
@@ -0,0 +1,208 @@
+package com.cfforge.workspace.archive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming reader for ustar/PAX/GNU tar archives, counterpart to {@link TarArchiveWriter}.
+ *
+ * Only regular file entries are returned; directories, links and global headers are skipped.
+ * Each entry's content stream is a bounded view over the archive and must be consumed (or
+ * simply abandoned) before calling {@link #nextEntry()} again.
+ */
+public class TarArchiveReader {
+
+    private static final int BLOCK_SIZE = TarArchiveWriter.BLOCK_SIZE;
+
+    private final InputStream in;
+    private EntryStream current;
+
+    public TarArchiveReader(InputStream in) {
+        this.in = in;
+    }
+
+    public Entry nextEntry() throws IOException {
+        if (current != null) {
+            current.skipRemaining();
+            skipFully(padding(current.size));
+            current = null;
+        }
+
+        String longName = null;
+        byte[] header = new byte[BLOCK_SIZE];
+        while (true) {
+            if (!readBlock(header) || isZeroBlock(header)) {
+                return null;
+            }
+            verifyChecksum(header);
+
+            byte type = header[156];
+            long size = parseNumber(header, 124, 12);
+            switch (type) {
+                case 'x' -> {
+                    String path = parsePaxPath(readData(size));
+                    if (path != null) {
+                        longName = path;
+                    }
+                }
+                case 'L' -> longName = trimNul(new String(readData(size), StandardCharsets.UTF_8));
+                case '0', 0, '7' -> {
+                    String name = longName != null ? longName : headerName(header);
+                    current = new EntryStream(size);
+                    return new Entry(name, size, current);
+                }
+                default -> {
+                    skipFully(size + padding(size));
+                    longName = null;
+                }
+            }
+        }
+    }
+
+    private String headerName(byte[] header) {
+        String name = cString(header, 0, 100);
+        boolean ustar = header[257] == 'u' && header[258] == 's' && header[259] == 't'
+            && header[260] == 'a' && header[261] == 'r';
+        String prefix = ustar ? cString(header, 345, 155) : "";
+        return prefix.isEmpty() ? name : prefix + "/" + name;
+    }
+
+    private byte[] readData(long size) throws IOException {
+        if (size > 1024 * 1024) {
+            throw new IOException("Extended tar header too large: " + size);
+        }
+        byte[] data = in.readNBytes((int) size);
+        if (data.length != size) {
+            throw new IOException("Truncated tar archive");
+        }
+        skipFully(padding(size));
+        return data;
+    }
+
+    private static String parsePaxPath(byte[] records) {
+        // Each record is "<length> <key>=<value>\n" where length counts bytes of the whole record
+        String path = null;
+        int pos = 0;
+        while (pos < records.length) {
+            int space = pos;
+            while (space < records.length && records[space] != ' ') space++;
+            if (space >= records.length) break;
+            int length = Integer.parseInt(new String(records, pos, space - pos, StandardCharsets.US_ASCII));
+            if (length <= 0 || pos + length > records.length) break;
+            String record = new String(records, space + 1, pos + length - space - 2, StandardCharsets.UTF_8);
+            if (record.startsWith("path=")) {
+                path = record.substring(5);
+            }
+            pos += length;
+        }
+        return path;
+    }
+
+    private boolean readBlock(byte[] block) throws IOException {
+        int n = in.readNBytes(block, 0, BLOCK_SIZE);
+        if (n == 0) return false;
+        if (n < BLOCK_SIZE) throw new IOException("Truncated tar header");
+        return true;
+    }
+
+    private void skipFully(long n) throws IOException {
+        in.skipNBytes(n);
+    }
+
+    private static void verifyChecksum(byte[] header) throws IOException {
+        long expected = parseNumber(header, 148, 8);
+        long actual = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            actual += (i >= 148 && i < 156) ? ' ' : (header[i] & 0xff);
+        }
+        if (expected != actual) {
+            throw new IOException("Invalid tar header checksum");
+        }
+    }
+
+    private static long parseNumber(byte[] header, int offset, int length) {
+        if ((header[offset] & 0x80) != 0) {
+            // GNU base-256 encoding for large values
+            long value = 0;
+            for (int i = offset + 1; i < offset + length; i++) {
+                value = (value << 8) | (header[i] & 0xff);
+            }
+            return value;
+        }
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = header[i];
+            if (b == 0 || b == ' ') {
+                if (value == 0 && b == ' ') continue;
+                break;
+            }
+            value = (value << 3) + (b - '0');
+        }
+        return value;
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) return false;
+        }
+        return true;
+    }
+
+    private static String cString(byte[] header, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) end++;
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static String trimNul(String s) {
+        int nul = s.indexOf('\0');
+        return nul >= 0 ? s.substring(0, nul) : s;
+    }
+
+    private static long padding(long size) {
+        long remainder = size % BLOCK_SIZE;
+        return remainder == 0 ? 0 : BLOCK_SIZE - remainder;
+    }
+
+    public record Entry(String path, long size, InputStream content) {}
+
+    private class EntryStream extends InputStream {
+
+        private final long size;
+        private long remaining;
+
+        EntryStream(long size) {
+            this.size = size;
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = in.read();
+            if (b < 0) throw new IOException("Truncated tar entry");
+            remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n < 0) throw new IOException("Truncated tar entry");
+            remaining -= n;
+            return n;
+        }
+
+        void skipRemaining() throws IOException {
+            in.skipNBytes(remaining);
+            remaining = 0;
+        }
+
+        @Override
+        public void close() {
+            // Closing an entry must not close the underlying archive stream
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.cfforge.workspace.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Minimal streaming writer for POSIX ustar archives.
+ *
+ * Paths longer than the 100-byte ustar name field are written with a PAX extended header,
+ * which GNU tar, bsdtar and {@link TarArchiveReader} all understand. Nothing is buffered
+ * beyond one 512-byte block, so memory use is independent of archive size.
+ */
+public class TarArchiveWriter implements Closeable {
+
+    static final int BLOCK_SIZE = 512;
+    private static final long MAX_USTAR_SIZE = 077777777777L;
+
+    private final OutputStream out;
+    private final byte[] copyBuffer = new byte[8192];
+    private boolean finished;
+
+    public TarArchiveWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    public void writeFile(String path, byte[] content, Instant modified) throws IOException {
+        writeHeaders(path, content.length, modified);
+        out.write(content);
+        pad(content.length);
+    }
+
+    /**
+     * Writes exactly {@code size} bytes from the stream, zero-filling if it ends early so the
+     * archive stays well-formed when an object shrinks between listing and download.
+     */
+    public void writeFile(String path, InputStream content, long size, Instant modified) throws IOException {
+        writeHeaders(path, size, modified);
+        long remaining = size;
+        int read;
+        while (remaining > 0 && (read = content.read(copyBuffer, 0, (int) Math.min(copyBuffer.length, remaining))) != -1) {
+            out.write(copyBuffer, 0, read);
+            remaining -= read;
+        }
+        while (remaining > 0) {
+            int n = (int) Math.min(copyBuffer.length, remaining);
+            out.write(new byte[n]);
+            remaining -= n;
+        }
+        pad(size);
+    }
+
+    /**
+     * Writes the two zero blocks that terminate the archive. Further writes are not allowed.
+     */
+    public void finish() throws IOException {
+        if (!finished) {
+            out.write(new byte[BLOCK_SIZE * 2]);
+            out.flush();
+            finished = true;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        out.close();
+    }
+
+    private void writeHeaders(String path, long size, Instant modified) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Archive already finished");
+        }
+        if (size > MAX_USTAR_SIZE) {
+            throw new IOException("Entry too large for tar archive: " + path);
+        }
+        long mtime = modified != null ? modified.getEpochSecond() : Instant.now().getEpochSecond();
+        byte[] name = path.getBytes(StandardCharsets.UTF_8);
+        if (name.length > 100) {
+            byte[] pax = paxRecord("path", path);
+            out.write(header("PaxHeaders/" + lastSegment(path), pax.length, mtime, (byte) 'x'));
+            out.write(pax);
+            pad(pax.length);
+        }
+        out.write(header(path, size, mtime, (byte) '0'));
+    }
+
+    private byte[] header(String path, long size, long mtime, byte type) {
+        byte[] header = new byte[BLOCK_SIZE];
+        byte[] name = path.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(name, 0, header, 0, Math.min(name.length, 100));
+        octal(header, 100, 8, 0644);
+        octal(header, 108, 8, 0);
+        octal(header, 116, 8, 0);
+        octal(header, 124, 12, size);
+        octal(header, 136, 12, mtime);
+        header[156] = type;
+        System.arraycopy("ustar\0".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 6);
+        header[263] = '0';
+        header[264] = '0';
+
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        octal(header, 148, 7, checksum);
+        header[155] = ' ';
+        return header;
+    }
+
+    private static byte[] paxRecord(String key, String value) {
+        // Record length includes its own decimal digits, so iterate until it is stable
+        int body = (" " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8).length;
+        int length = body + String.valueOf(body).length();
+        if (String.valueOf(length).length() != String.valueOf(body).length()) {
+            length = body + String.valueOf(length).length();
+        }
+        return (length + " " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String lastSegment(String path) {
+        String segment = path.substring(path.lastIndexOf('/') + 1);
+        return segment.length() > 80 ? segment.substring(0, 80) : segment;
+    }
+
+    private static void octal(byte[] header, int offset, int length, long value) {
+        String digits = Long.toOctalString(value);
+        int width = length - 1;
+        StringBuilder padded = new StringBuilder();
+        for (int i = digits.length(); i < width; i++) {
+            padded.append('0');
+        }
+        padded.append(digits);
+        byte[] bytes = padded.toString().getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, width);
+        header[offset + width] = 0;
+    }
+
+    private void pad(long size) throws IOException {
+        int remainder = (int) (size % BLOCK_SIZE);
+        if (remainder != 0) {
+            out.write(new byte[BLOCK_SIZE - remainder]);
+        }
+    }
+}
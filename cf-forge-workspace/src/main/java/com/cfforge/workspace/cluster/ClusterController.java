@@ -0,0 +1,23 @@
+package com.cfforge.workspace.cluster;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/cluster")
+public class ClusterController {
+
+    private final InstanceRegistry instanceRegistry;
+
+    public ClusterController(InstanceRegistry instanceRegistry) {
+        this.instanceRegistry = instanceRegistry;
+    }
+
+    @GetMapping("/members")
+    public List<String> members() {
+        return instanceRegistry.liveMembers();
+    }
+}
@@ -0,0 +1,78 @@
+package com.cfforge.workspace.cluster;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Heartbeats this instance's directly addressable URL into Redis so clients can build a
+ * consistent-hash ring of live workspace instances. Members that stop heartbeating drop out
+ * after {@code member-ttl}; a clean shutdown deregisters immediately.
+ *
+ * On Cloud Foundry the advertised URL uses the per-instance internal route
+ * ({@code <index>.cf-forge-workspace.apps.internal}). With no URL configured the instance
+ * doesn't register and clients keep using the load-balanced route.
+ */
+@Component
+@Slf4j
+public class InstanceRegistry {
+
+    static final String MEMBERS_KEY = "ws:instances";
+
+    private final StringRedisTemplate redis;
+    private final String advertiseUrl;
+    private final Duration memberTtl;
+
+    public InstanceRegistry(StringRedisTemplate redis,
+                            @Value("${cfforge.routing.advertise-url:}") String advertiseUrl,
+                            @Value("${cfforge.routing.member-ttl:PT30S}") Duration memberTtl) {
+        this.redis = redis;
+        this.advertiseUrl = advertiseUrl;
+        this.memberTtl = memberTtl;
+    }
+
+    @Scheduled(fixedRateString = "${cfforge.routing.heartbeat-ms:10000}")
+    public void heartbeat() {
+        if (advertiseUrl.isBlank()) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            redis.opsForZSet().add(MEMBERS_KEY, advertiseUrl, now);
+            redis.opsForZSet().removeRangeByScore(MEMBERS_KEY, 0, now - memberTtl.toMillis());
+        } catch (Exception e) {
+            log.warn("Workspace instance heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    public List<String> liveMembers() {
+        try {
+            Set<String> members = redis.opsForZSet()
+                .rangeByScore(MEMBERS_KEY, System.currentTimeMillis() - memberTtl.toMillis(), Double.MAX_VALUE);
+            return members != null ? members.stream().sorted().toList() : List.of();
+        } catch (Exception e) {
+            log.warn("Failed to read workspace membership: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    @PreDestroy
+    public void deregister() {
+        if (advertiseUrl.isBlank()) {
+            return;
+        }
+        try {
+            redis.opsForZSet().remove(MEMBERS_KEY, advertiseUrl);
+            log.info("Deregistered workspace instance {}", advertiseUrl);
+        } catch (Exception e) {
+            log.warn("Failed to deregister workspace instance {}: {}", advertiseUrl, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.cfforge.workspace.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class WorkspaceConfig {
+
+    /**
+     * Bounded pool for parallel object storage I/O (archive prefetch, checkpoint copies).
+     * Storage calls are blocking, so virtual threads keep the pool cheap while the fixed
+     * size caps how many requests we have in flight against MinIO/S3 at once.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService storageExecutor(@Value("${cfforge.storage.io-concurrency:16}") int concurrency) {
+        return Executors.newFixedThreadPool(concurrency, Thread.ofVirtual().name("storage-io-", 0).factory());
+    }
+}
@@ -0,0 +1,61 @@
+package com.cfforge.workspace.controller;
+
+import com.cfforge.workspace.service.ArchiveService;
+import com.cfforge.workspace.service.CheckpointService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Whole-workspace and checkpoint download/upload as tar.gz.
+ */
+@RestController
+@RequestMapping("/workspace/{workspaceId}")
+public class ArchiveController {
+
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
+    private final ArchiveService archiveService;
+    private final CheckpointService checkpointService;
+
+    public ArchiveController(ArchiveService archiveService, CheckpointService checkpointService) {
+        this.archiveService = archiveService;
+        this.checkpointService = checkpointService;
+    }
+
+    @GetMapping("/archive")
+    public ResponseEntity<StreamingResponseBody> exportWorkspace(@PathVariable UUID workspaceId) {
+        StreamingResponseBody body = out -> archiveService.exportWorkspace(workspaceId, out);
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=workspace-" + workspaceId + ".tar.gz")
+            .contentType(GZIP)
+            .body(body);
+    }
+
+    @GetMapping("/checkpoints/{checkpointId}/archive")
+    public ResponseEntity<StreamingResponseBody> exportCheckpoint(@PathVariable UUID workspaceId,
+                                                                   @PathVariable String checkpointId) {
+        if (!checkpointService.checkpointExists(workspaceId, checkpointId)) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = out -> archiveService.exportCheckpoint(workspaceId, checkpointId, out);
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=checkpoint-" + checkpointId + ".tar.gz")
+            .contentType(GZIP)
+            .body(body);
+    }
+
+    @PostMapping(value = "/archive", consumes = {"application/gzip", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public Map<String, Object> importWorkspace(@PathVariable UUID workspaceId,
+                                               HttpServletRequest request) throws IOException {
+        int imported = archiveService.importWorkspace(workspaceId, request.getInputStream());
+        return Map.of("workspaceId", workspaceId, "filesImported", imported);
+    }
+}
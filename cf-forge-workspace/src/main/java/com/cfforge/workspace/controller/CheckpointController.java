@@ -0,0 +1,98 @@
+package com.cfforge.workspace.controller;
+
+import com.cfforge.workspace.service.CheckpointService;
+import com.cfforge.workspace.service.RestoreJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/workspace/{workspaceId}")
+@Slf4j
+public class CheckpointController {
+
+    private static final long PROGRESS_INTERVAL_MS = 500;
+
+    private final CheckpointService checkpointService;
+
+    public CheckpointController(CheckpointService checkpointService) {
+        this.checkpointService = checkpointService;
+    }
+
+    @GetMapping("/checkpoints")
+    public List<CheckpointService.CheckpointInfo> listCheckpoints(@PathVariable UUID workspaceId) {
+        return checkpointService.listCheckpoints(workspaceId);
+    }
+
+    @PostMapping("/checkpoints")
+    public ResponseEntity<CheckpointService.CheckpointInfo> createCheckpoint(@PathVariable UUID workspaceId,
+                                                                             @RequestBody(required = false) Map<String, String> body) {
+        String description = body != null ? body.getOrDefault("description", "") : "";
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .body(checkpointService.createCheckpoint(workspaceId, description));
+    }
+
+    @PostMapping("/checkpoints/{checkpointId}/restore")
+    public ResponseEntity<RestoreJob.Status> restoreCheckpoint(@PathVariable UUID workspaceId,
+                                                               @PathVariable String checkpointId) {
+        try {
+            RestoreJob job = checkpointService.startRestore(workspaceId, checkpointId);
+            return ResponseEntity.accepted()
+                .location(URI.create("/workspace/" + workspaceId + "/restores/" + job.getId()))
+                .body(job.status());
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/restores/{jobId}")
+    public ResponseEntity<RestoreJob.Status> getRestoreStatus(@PathVariable UUID workspaceId,
+                                                              @PathVariable String jobId) {
+        return checkpointService.getRestoreJob(jobId)
+            .filter(job -> job.getWorkspaceId().equals(workspaceId))
+            .map(job -> ResponseEntity.ok(job.status()))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Server-sent progress events, one per interval until the job completes or fails.
+     */
+    @GetMapping("/restores/{jobId}/events")
+    public ResponseEntity<SseEmitter> streamRestoreStatus(@PathVariable UUID workspaceId,
+                                                          @PathVariable String jobId) {
+        var job = checkpointService.getRestoreJob(jobId)
+            .filter(j -> j.getWorkspaceId().equals(workspaceId));
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        SseEmitter emitter = new SseEmitter(0L);
+        Thread.ofVirtual().name("restore-events-" + jobId).start(() -> {
+            try {
+                RestoreJob.Status last = null;
+                while (true) {
+                    RestoreJob.Status status = job.get().status();
+                    if (!status.equals(last)) {
+                        emitter.send(SseEmitter.event().name("progress").data(status));
+                        last = status;
+                    }
+                    if (job.get().isFinished()) break;
+                    Thread.sleep(PROGRESS_INTERVAL_MS);
+                }
+                emitter.complete();
+            } catch (Exception e) {
+                log.debug("Restore progress stream for {} ended: {}", jobId, e.getMessage());
+                emitter.completeWithError(e);
+            }
+        });
+        return ResponseEntity.ok(emitter);
+    }
+}
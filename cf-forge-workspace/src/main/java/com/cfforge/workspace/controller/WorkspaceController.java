@@ -1,10 +1,16 @@
 package com.cfforge.workspace.controller;
 
+import com.cfforge.common.delta.DeltaFormat;
+import com.cfforge.common.delta.DeltaMismatchException;
+import com.cfforge.common.delta.FileSignature;
 import com.cfforge.common.dto.FileEntry;
 import com.cfforge.workspace.service.FileStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -40,6 +46,33 @@ public class WorkspaceController {
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Delta sync, step 1: block signatures of the stored version.
+     */
+    @GetMapping(value = "/files/{*path}", params = "signature")
+    public FileSignature getSignature(@PathVariable UUID workspaceId,
+                                      @PathVariable String path) {
+        return fileStorageService.signature(workspaceId, path);
+    }
+
+    /**
+     * Delta sync, step 2: literal data plus block references against those signatures.
+     * 409 means the stored file changed in between; the client should fall back to a full PUT.
+     */
+    @PatchMapping(value = "/files/{*path}", consumes = DeltaFormat.MEDIA_TYPE)
+    public ResponseEntity<Map<String, Object>> applyDelta(@PathVariable UUID workspaceId,
+                                                          @PathVariable String path,
+                                                          HttpServletRequest request) {
+        try {
+            long size = fileStorageService.applyDelta(workspaceId, path, request.getInputStream());
+            return ResponseEntity.ok(Map.of("path", path, "size", size));
+        } catch (DeltaMismatchException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid delta: " + e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/files/{*path}")
     public ResponseEntity<Void> deleteFile(@PathVariable UUID workspaceId,
                                             @PathVariable String path) {
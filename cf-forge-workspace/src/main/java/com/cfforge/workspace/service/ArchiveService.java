@@ -0,0 +1,180 @@
+package com.cfforge.workspace.service;
+
+import com.cfforge.common.storage.S3StorageService;
+import com.cfforge.common.storage.StoredObject;
+import com.cfforge.workspace.archive.TarArchiveReader;
+import com.cfforge.workspace.archive.TarArchiveWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams workspaces and checkpoints as tar.gz and imports them back.
+ *
+ * Export walks a lazy object listing and keeps a small window of upcoming entries downloading
+ * in parallel while the current one is written, so memory stays bounded by
+ * {@code prefetch-window * prefetch-max-bytes} regardless of workspace size. Objects larger
+ * than the prefetch limit are streamed straight from storage when their turn comes.
+ */
+@Service
+@Slf4j
+public class ArchiveService {
+
+    private static final String BUCKET = "cf-forge-workspaces";
+
+    private final S3StorageService s3;
+    private final WorkspaceLocks workspaceLocks;
+    private final WorkspaceCache cache;
+    private final ExecutorService storageExecutor;
+    private final int prefetchWindow;
+    private final long prefetchMaxBytes;
+
+    public ArchiveService(S3StorageService s3,
+                          WorkspaceLocks workspaceLocks,
+                          WorkspaceCache cache,
+                          @Qualifier("storageExecutor") ExecutorService storageExecutor,
+                          @Value("${cfforge.archive.prefetch-window:8}") int prefetchWindow,
+                          @Value("${cfforge.archive.prefetch-max-bytes:1048576}") long prefetchMaxBytes) {
+        this.s3 = s3;
+        this.workspaceLocks = workspaceLocks;
+        this.cache = cache;
+        this.storageExecutor = storageExecutor;
+        this.prefetchWindow = prefetchWindow;
+        this.prefetchMaxBytes = prefetchMaxBytes;
+    }
+
+    /**
+     * Holds the workspace's shared lock for the whole export so a concurrent checkpoint restore
+     * can't swap files underneath it and produce a mixed archive.
+     */
+    public long exportWorkspace(UUID workspaceId, OutputStream out) throws IOException {
+        try {
+            return workspaceLocks.shared(workspaceId, () -> {
+                try {
+                    return export("workspaces/" + workspaceId + "/", out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public long exportCheckpoint(UUID workspaceId, String checkpointId, OutputStream out) throws IOException {
+        return export("checkpoints/" + workspaceId + "/" + checkpointId + "/files/", out);
+    }
+
+    /**
+     * Extracts a tar.gz into the workspace, overwriting files with the same path.
+     * Files not present in the archive are left untouched.
+     */
+    public int importWorkspace(UUID workspaceId, InputStream in) throws IOException {
+        String prefix = "workspaces/" + workspaceId + "/";
+        int count = 0;
+        TarArchiveReader reader = new TarArchiveReader(new GZIPInputStream(in, 64 * 1024));
+        TarArchiveReader.Entry entry;
+        try {
+            while ((entry = reader.nextEntry()) != null) {
+                String path = normalizeEntryPath(entry.path());
+                if (path == null) {
+                    log.warn("Skipping unsafe archive entry '{}' for workspace {}", entry.path(), workspaceId);
+                    continue;
+                }
+                TarArchiveReader.Entry current = entry;
+                workspaceLocks.shared(workspaceId,
+                    () -> s3.putObject(BUCKET, prefix + path, current.content(), current.size()));
+                count++;
+            }
+        } finally {
+            cache.invalidateWorkspace(workspaceId);
+        }
+        log.info("Imported {} files into workspace {}", count, workspaceId);
+        return count;
+    }
+
+    private long export(String prefix, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        long count = 0;
+        Deque<PendingEntry> window = new ArrayDeque<>();
+        try (Stream<StoredObject> objects = s3.streamObjects(BUCKET, prefix)) {
+            Iterator<StoredObject> it = objects.iterator();
+            TarArchiveWriter tar = new TarArchiveWriter(new GZIPOutputStream(out, 64 * 1024));
+            while (it.hasNext() || !window.isEmpty()) {
+                while (window.size() < prefetchWindow && it.hasNext()) {
+                    window.add(prefetch(it.next()));
+                }
+                writeEntry(tar, prefix, window.poll());
+                count++;
+            }
+            tar.close();
+        } finally {
+            window.forEach(p -> {
+                if (p.content() != null) p.content().cancel(true);
+            });
+        }
+        log.info("Exported {} files from {} in {}ms", count, prefix, System.currentTimeMillis() - start);
+        return count;
+    }
+
+    private PendingEntry prefetch(StoredObject object) {
+        if (object.size() > prefetchMaxBytes) {
+            return new PendingEntry(object, null);
+        }
+        return new PendingEntry(object,
+            CompletableFuture.supplyAsync(() -> s3.getObject(BUCKET, object.key()), storageExecutor));
+    }
+
+    private void writeEntry(TarArchiveWriter tar, String prefix, PendingEntry entry) throws IOException {
+        StoredObject object = entry.object();
+        String path = object.key().substring(prefix.length());
+        if (entry.content() == null) {
+            try (InputStream content = s3.openObject(BUCKET, object.key())) {
+                tar.writeFile(path, content, object.size(), object.lastModified());
+            }
+            return;
+        }
+        try {
+            tar.writeFile(path, entry.content().get(), object.lastModified());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while exporting " + path, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to read " + path, e.getCause());
+        }
+    }
+
+    private static String normalizeEntryPath(String path) {
+        String normalized = path.replace('\\', '/');
+        while (normalized.startsWith("./")) {
+            normalized = normalized.substring(2);
+        }
+        if (normalized.isEmpty() || normalized.startsWith("/")) {
+            return null;
+        }
+        for (String segment : normalized.split("/")) {
+            if (segment.equals("..")) {
+                return null;
+            }
+        }
+        return normalized;
+    }
+
+    private record PendingEntry(StoredObject object, CompletableFuture<byte[]> content) {}
+}
@@ -1,26 +1,48 @@
 package com.cfforge.workspace.service;
 
 import com.cfforge.common.storage.S3StorageService;
+import com.cfforge.common.storage.StoredObject;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 public class CheckpointService {
 
+    private static final String BUCKET = "cf-forge-workspaces";
+
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(1);
+
     private final S3StorageService s3;
     private final FileStorageService fileStorageService;
+    private final WorkspaceLocks workspaceLocks;
+    private final WorkspaceCache cache;
+    private final ExecutorService storageExecutor;
     private final int maxCheckpoints;
+    private final Map<String, RestoreJob> restoreJobs = new ConcurrentHashMap<>();
 
     public CheckpointService(S3StorageService s3, FileStorageService fileStorageService,
+                              WorkspaceLocks workspaceLocks, WorkspaceCache cache,
+                              @Qualifier("storageExecutor") ExecutorService storageExecutor,
                               @Value("${cfforge.checkpoints.max:50}") int maxCheckpoints) {
         this.s3 = s3;
         this.fileStorageService = fileStorageService;
+        this.workspaceLocks = workspaceLocks;
+        this.cache = cache;
+        this.storageExecutor = storageExecutor;
         this.maxCheckpoints = maxCheckpoints;
     }
 
@@ -31,12 +53,15 @@ public class CheckpointService {
         String destPrefix = "checkpoints/" + workspaceId + "/" + checkpointId + "/";
 
         // Copy all workspace files to checkpoint prefix
-        List<String> keys = s3.listObjects("cf-forge-workspaces", srcPrefix);
-        for (String key : keys) {
-            byte[] content = s3.getObject("cf-forge-workspaces", key);
-            String relativePath = key.replace(srcPrefix, "");
-            s3.putObject("cf-forge-workspaces", destPrefix + "files/" + relativePath, content);
-        }
+        List<String> keys = workspaceLocks.shared(workspaceId, () -> {
+            List<String> listed = s3.listObjects("cf-forge-workspaces", srcPrefix);
+            for (String key : listed) {
+                byte[] content = s3.getObject("cf-forge-workspaces", key);
+                String relativePath = key.replace(srcPrefix, "");
+                s3.putObject("cf-forge-workspaces", destPrefix + "files/" + relativePath, content);
+            }
+            return listed;
+        });
 
         // Store metadata
         String metadata = String.format(
@@ -68,25 +93,123 @@ public class CheckpointService {
             .collect(Collectors.toList());
     }
 
-    public void restoreCheckpoint(UUID workspaceId, String checkpointId) {
+    public boolean checkpointExists(UUID workspaceId, String checkpointId) {
+        String metadataKey = "checkpoints/" + workspaceId + "/" + checkpointId + "/metadata.json";
+        return !s3.listObjects("cf-forge-workspaces", metadataKey).isEmpty();
+    }
+
+    /**
+     * Starts a background restore and returns immediately. If a restore is already running for
+     * the workspace, that job is returned instead of starting a second one.
+     */
+    public RestoreJob startRestore(UUID workspaceId, String checkpointId) {
+        if (!checkpointExists(workspaceId, checkpointId)) {
+            throw new NoSuchElementException("Checkpoint not found: " + checkpointId);
+        }
+        restoreJobs.values().removeIf(j -> j.isFinished()
+            && j.getFinishedAt().isBefore(Instant.now().minus(FINISHED_JOB_RETENTION)));
+
+        synchronized (restoreJobs) {
+            Optional<RestoreJob> running = restoreJobs.values().stream()
+                .filter(j -> j.getWorkspaceId().equals(workspaceId) && !j.isFinished())
+                .findFirst();
+            if (running.isPresent()) {
+                return running.get();
+            }
+            RestoreJob job = new RestoreJob(workspaceId, checkpointId);
+            restoreJobs.put(job.getId(), job);
+            Thread.ofVirtual().name("restore-" + job.getId()).start(() -> restoreCheckpoint(job, checkpointId));
+            return job;
+        }
+    }
+
+    public Optional<RestoreJob> getRestoreJob(String jobId) {
+        return Optional.ofNullable(restoreJobs.get(jobId));
+    }
+
+    /**
+     * Stage-then-swap restore. Files that differ from the live workspace are first copied into a
+     * private staging prefix while the workspace stays fully readable; this also protects against
+     * the checkpoint being pruned mid-restore. The swap then moves staged files in and deletes
+     * files the checkpoint doesn't have, under the workspace's exclusive lock so no reader ever
+     * sees a half-restored tree. All copies are server-side and run in parallel.
+     */
+    private void restoreCheckpoint(RestoreJob job, String checkpointId) {
+        UUID workspaceId = job.getWorkspaceId();
         String srcPrefix = "checkpoints/" + workspaceId + "/" + checkpointId + "/files/";
         String destPrefix = "workspaces/" + workspaceId + "/";
+        String stagingPrefix = "staging/" + workspaceId + "/" + job.getId() + "/";
+        long start = System.currentTimeMillis();
+
+        List<String> changed = new ArrayList<>();
+        try {
+            job.moveTo(RestoreJob.State.STAGING);
+            Map<String, StoredObject> checkpointFiles = listRelative(srcPrefix);
+            Map<String, StoredObject> liveFiles = listRelative(destPrefix);
+
+            checkpointFiles.forEach((path, object) -> {
+                StoredObject live = liveFiles.get(path);
+                boolean unchanged = live != null && object.etag() != null
+                    && object.etag().equals(live.etag()) && object.size() == live.size();
+                if (!unchanged) changed.add(path);
+            });
+            List<String> stale = liveFiles.keySet().stream()
+                .filter(path -> !checkpointFiles.containsKey(path))
+                .toList();
+            job.plan(checkpointFiles.size(), changed.size(), stale.size());
+
+            forEachParallel(changed, path -> {
+                s3.copyObject(BUCKET, srcPrefix + path, stagingPrefix + path);
+                job.fileStaged();
+            });
 
-        // Clear current workspace
-        List<String> currentKeys = s3.listObjects("cf-forge-workspaces", destPrefix);
-        for (String key : currentKeys) {
-            s3.deleteObject("cf-forge-workspaces", key);
+            job.moveTo(RestoreJob.State.SWAPPING);
+            workspaceLocks.exclusive(workspaceId, () -> {
+                try {
+                    forEachParallel(changed, path -> {
+                        s3.copyObject(BUCKET, stagingPrefix + path, destPrefix + path);
+                        job.fileSwapped();
+                    });
+                    forEachParallel(stale, path -> {
+                        s3.deleteObject(BUCKET, destPrefix + path);
+                        job.fileDeleted();
+                    });
+                } finally {
+                    cache.invalidateWorkspace(workspaceId);
+                }
+            });
+
+            job.complete();
+            log.info("Restored checkpoint {} for workspace {} ({} files, {} changed, {} removed) in {}ms",
+                checkpointId, workspaceId, checkpointFiles.size(), changed.size(), stale.size(),
+                System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            String message = job.getState() == RestoreJob.State.SWAPPING
+                ? "Swap failed, workspace may be partially restored; retry the restore: " + cause.getMessage()
+                : "Staging failed, workspace unchanged: " + cause.getMessage();
+            job.fail(message);
+            log.error("Restore of checkpoint {} for workspace {} failed", checkpointId, workspaceId, cause);
+        } finally {
+            try {
+                forEachParallel(changed, path -> s3.deleteObject(BUCKET, stagingPrefix + path));
+            } catch (Exception e) {
+                log.warn("Failed to clean up restore staging area {}: {}", stagingPrefix, e.getMessage());
+            }
         }
+    }
 
-        // Copy checkpoint files to workspace
-        List<String> checkpointKeys = s3.listObjects("cf-forge-workspaces", srcPrefix);
-        for (String key : checkpointKeys) {
-            byte[] content = s3.getObject("cf-forge-workspaces", key);
-            String relativePath = key.replace(srcPrefix, "");
-            s3.putObject("cf-forge-workspaces", destPrefix + relativePath, content);
+    private Map<String, StoredObject> listRelative(String prefix) {
+        try (Stream<StoredObject> objects = s3.streamObjects(BUCKET, prefix)) {
+            return objects.collect(Collectors.toMap(o -> o.key().substring(prefix.length()), o -> o));
         }
+    }
 
-        log.info("Restored checkpoint {} for workspace {} ({} files)", checkpointId, workspaceId, checkpointKeys.size());
+    private void forEachParallel(List<String> paths, Consumer<String> action) {
+        CompletableFuture.allOf(paths.stream()
+                .map(path -> CompletableFuture.runAsync(() -> action.accept(path), storageExecutor))
+                .toArray(CompletableFuture[]::new))
+            .join();
     }
 
     private void pruneCheckpoints(UUID workspaceId) {
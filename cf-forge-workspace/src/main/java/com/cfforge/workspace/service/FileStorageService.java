@@ -1,40 +1,63 @@
 package com.cfforge.workspace.service;
 
+import com.cfforge.common.delta.DeltaDecoder;
+import com.cfforge.common.delta.FileSignature;
 import com.cfforge.common.dto.FileEntry;
 import com.cfforge.common.storage.S3StorageService;
+import com.cfforge.common.storage.StoredObject;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class FileStorageService {
 
     private final S3StorageService s3;
+    private final WorkspaceLocks workspaceLocks;
+    private final WorkspaceCache cache;
 
-    public FileStorageService(S3StorageService s3) {
+    public FileStorageService(S3StorageService s3, WorkspaceLocks workspaceLocks, WorkspaceCache cache) {
         this.s3 = s3;
+        this.workspaceLocks = workspaceLocks;
+        this.cache = cache;
     }
 
     public String readFile(UUID workspaceId, String path) {
         String key = buildKey(workspaceId, path);
-        byte[] content = s3.getObject("cf-forge-workspaces", key);
-        return new String(content, StandardCharsets.UTF_8);
+        return cache.getFile(workspaceId, path, () -> {
+            byte[] content = workspaceLocks.shared(workspaceId, () -> s3.getObject("cf-forge-workspaces", key));
+            return new String(content, StandardCharsets.UTF_8);
+        });
     }
 
     public void writeFile(UUID workspaceId, String path, String content) {
         String key = buildKey(workspaceId, path);
-        s3.putObject("cf-forge-workspaces", key, content.getBytes(StandardCharsets.UTF_8));
+        workspaceLocks.shared(workspaceId,
+            () -> s3.putObject("cf-forge-workspaces", key, content.getBytes(StandardCharsets.UTF_8)));
+        cache.invalidateFile(workspaceId, path);
     }
 
     public List<FileEntry> listFiles(UUID workspaceId, String dir) {
+        return cache.getListing(workspaceId, dir, () -> loadListing(workspaceId, dir));
+    }
+
+    private List<FileEntry> loadListing(UUID workspaceId, String dir) {
         String prefix = "workspaces/" + workspaceId + "/";
         if (dir != null && !dir.isEmpty()) {
             prefix += dir.endsWith("/") ? dir : dir + "/";
         }
-        List<String> keys = s3.listObjects("cf-forge-workspaces", prefix);
+        String listPrefix = prefix;
+        List<String> keys = workspaceLocks.shared(workspaceId, () -> s3.listObjects("cf-forge-workspaces", listPrefix));
         String finalPrefix = prefix;
         return keys.stream()
             .map(key -> {
@@ -49,7 +72,59 @@ public class FileStorageService {
 
     public void deleteFile(UUID workspaceId, String path) {
         String key = buildKey(workspaceId, path);
-        s3.deleteObject("cf-forge-workspaces", key);
+        workspaceLocks.shared(workspaceId, () -> s3.deleteObject("cf-forge-workspaces", key));
+        cache.invalidateFile(workspaceId, path);
+    }
+
+    /**
+     * Block signatures of the stored file for delta sync. A missing file has an empty signature,
+     * so a delta against it simply carries the whole content.
+     */
+    public FileSignature signature(UUID workspaceId, String path) {
+        String key = buildKey(workspaceId, path);
+        return FileSignature.compute(workspaceLocks.shared(workspaceId, () -> readOrEmpty(key)));
+    }
+
+    /**
+     * Rebuilds the file from its stored version plus a client delta and stores the result.
+     * Reconstruction goes through a temp file so the new version is never held in memory twice.
+     *
+     * @return size of the new file
+     */
+    public long applyDelta(UUID workspaceId, String path, InputStream delta) throws IOException {
+        String key = buildKey(workspaceId, path);
+        Path reconstructed = Files.createTempFile("cfforge-delta-", ".tmp");
+        try {
+            long size = workspaceLocks.shared(workspaceId, () -> {
+                try {
+                    long length;
+                    try (OutputStream out = Files.newOutputStream(reconstructed)) {
+                        length = DeltaDecoder.apply(readOrEmpty(key), delta, out);
+                    }
+                    try (InputStream in = Files.newInputStream(reconstructed)) {
+                        s3.putObject("cf-forge-workspaces", key, in, length);
+                    }
+                    return length;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            cache.invalidateFile(workspaceId, path);
+            return size;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            Files.deleteIfExists(reconstructed);
+        }
+    }
+
+    private byte[] readOrEmpty(String key) {
+        try (Stream<StoredObject> objects = s3.streamObjects("cf-forge-workspaces", key)) {
+            if (objects.noneMatch(object -> object.key().equals(key))) {
+                return new byte[0];
+            }
+        }
+        return s3.getObject("cf-forge-workspaces", key);
     }
 
     private String buildKey(UUID workspaceId, String path) {
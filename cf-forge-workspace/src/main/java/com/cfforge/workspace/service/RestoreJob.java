@@ -0,0 +1,99 @@
+package com.cfforge.workspace.service;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mutable progress tracker for a background checkpoint restore. Read via {@link #status()}.
+ */
+public class RestoreJob {
+
+    public enum State { QUEUED, STAGING, SWAPPING, COMPLETED, FAILED }
+
+    private final String id = UUID.randomUUID().toString();
+    private final UUID workspaceId;
+    private final String checkpointId;
+    private final Instant createdAt = Instant.now();
+    private final AtomicInteger staged = new AtomicInteger();
+    private final AtomicInteger swapped = new AtomicInteger();
+    private final AtomicInteger deleted = new AtomicInteger();
+
+    private volatile State state = State.QUEUED;
+    private volatile int totalFiles;
+    private volatile int changedFiles;
+    private volatile int staleFiles;
+    private volatile String error;
+    private volatile Instant finishedAt;
+
+    RestoreJob(UUID workspaceId, String checkpointId) {
+        this.workspaceId = workspaceId;
+        this.checkpointId = checkpointId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public UUID getWorkspaceId() {
+        return workspaceId;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isFinished() {
+        return state == State.COMPLETED || state == State.FAILED;
+    }
+
+    Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    void plan(int totalFiles, int changedFiles, int staleFiles) {
+        this.totalFiles = totalFiles;
+        this.changedFiles = changedFiles;
+        this.staleFiles = staleFiles;
+    }
+
+    void moveTo(State state) {
+        this.state = state;
+    }
+
+    void fileStaged() {
+        staged.incrementAndGet();
+    }
+
+    void fileSwapped() {
+        swapped.incrementAndGet();
+    }
+
+    void fileDeleted() {
+        deleted.incrementAndGet();
+    }
+
+    void complete() {
+        this.finishedAt = Instant.now();
+        this.state = State.COMPLETED;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.state = State.FAILED;
+    }
+
+    public Status status() {
+        int work = changedFiles * 2 + staleFiles;
+        int done = staged.get() + swapped.get() + deleted.get();
+        int percent = state == State.COMPLETED ? 100 : work == 0 ? 0 : Math.min(99, done * 100 / work);
+        return new Status(id, workspaceId, checkpointId, state, percent, totalFiles, changedFiles, staleFiles,
+            staged.get(), swapped.get(), deleted.get(), error, createdAt, finishedAt);
+    }
+
+    public record Status(String jobId, UUID workspaceId, String checkpointId, State state, int percent,
+                         int totalFiles, int changedFiles, int staleFiles,
+                         int stagedFiles, int swappedFiles, int deletedFiles,
+                         String error, Instant createdAt, Instant finishedAt) {}
+}
@@ -0,0 +1,306 @@
+package com.cfforge.workspace.service;
+
+import com.cfforge.common.dto.FileEntry;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Redis cache of small file contents and directory listings, shared by every workspace instance.
+ *
+ * Entries are size-capped and live under a sliding TTL. A global recency index (sorted set
+ * scored by last access) bounds the total entry count with LRU eviction regardless of the Redis
+ * server's own maxmemory policy. Each workspace keeps a set of its cached keys so writes and
+ * bulk operations can invalidate precisely; every hit or store re-adds its key to that set and
+ * extends the set's TTL, so the set never expires before an entry it should list.
+ *
+ * Every invalidation bumps a per-workspace generation. A reader that missed notes the generation
+ * before loading from storage and only stores what it loaded if the generation is unchanged, so
+ * content read before a concurrent write can't overwrite that write's entry. Writes only
+ * invalidate; the next read fills the cache, so concurrent writers can't leave the loser's content.
+ *
+ * Invalidations ignore the read backoff and always go to Redis. One that fails marks its workspace
+ * as pending: this instance stops using the cache for that workspace and retries dropping
+ * everything cached for it until Redis accepts. Redis failures never fail a request: the cache
+ * backs off for a while and callers fall through to object storage.
+ */
+@Component
+@Slf4j
+public class WorkspaceCache {
+
+    private static final String LRU_INDEX = "ws:cache:lru";
+    private static final Duration BACKOFF = Duration.ofSeconds(30);
+    private static final TypeReference<List<FileEntry>> FILE_LIST = new TypeReference<>() {};
+    private static final RedisScript<Long> POPULATE = new DefaultRedisScript<>("""
+        if (redis.call('GET', KEYS[1]) or '0') ~= ARGV[1] then
+            return 0
+        end
+        redis.call('SET', KEYS[2], ARGV[2], 'PX', ARGV[3])
+        redis.call('SADD', KEYS[3], KEYS[2])
+        redis.call('PEXPIRE', KEYS[3], ARGV[3])
+        redis.call('ZADD', KEYS[4], ARGV[4], KEYS[2])
+        return 1
+        """, Long.class);
+
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int maxFileBytes;
+    private final int maxListingEntries;
+    private final long maxEntries;
+    private final Duration ttl;
+
+    private final Set<UUID> pendingInvalidations = ConcurrentHashMap.newKeySet();
+    private volatile long disabledUntil;
+
+    public WorkspaceCache(StringRedisTemplate redis, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                          @Value("${cfforge.cache.enabled:true}") boolean enabled,
+                          @Value("${cfforge.cache.max-file-bytes:65536}") int maxFileBytes,
+                          @Value("${cfforge.cache.max-listing-entries:2000}") int maxListingEntries,
+                          @Value("${cfforge.cache.max-entries:50000}") long maxEntries,
+                          @Value("${cfforge.cache.ttl:PT30M}") Duration ttl) {
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxFileBytes = maxFileBytes;
+        this.maxListingEntries = maxListingEntries;
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+    }
+
+    public String getFile(UUID workspaceId, String path, Supplier<String> loader) {
+        String key = fileKey(workspaceId, path);
+        Optional<String> cached = get(workspaceId, key, "file");
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        String generation = generation(workspaceId);
+        String content = loader.get();
+        if (fits(content)) {
+            populate(workspaceId, key, content, generation);
+        }
+        return content;
+    }
+
+    public List<FileEntry> getListing(UUID workspaceId, String dir, Supplier<List<FileEntry>> loader) {
+        String key = listingKey(workspaceId, dir);
+        Optional<String> cached = get(workspaceId, key, "listing");
+        if (cached.isPresent()) {
+            try {
+                return objectMapper.readValue(cached.get(), FILE_LIST);
+            } catch (Exception e) {
+                log.debug("Discarding unreadable cached listing {}: {}", key, e.getMessage());
+            }
+        }
+        String generation = generation(workspaceId);
+        List<FileEntry> listing = loader.get();
+        if (listing.size() <= maxListingEntries) {
+            try {
+                populate(workspaceId, key, objectMapper.writeValueAsString(listing), generation);
+            } catch (Exception e) {
+                log.debug("Failed to serialize listing {}: {}", key, e.getMessage());
+            }
+        }
+        return listing;
+    }
+
+    /**
+     * A single file changed: drop its entry and every cached listing of the workspace, since
+     * any ancestor directory's listing may now be stale.
+     */
+    public void invalidateFile(UUID workspaceId, String path) {
+        String fileKey = fileKey(workspaceId, path);
+        invalidate(workspaceId, fileKey, key -> key.startsWith(listingPrefix(workspaceId)) || key.equals(fileKey));
+    }
+
+    /**
+     * Bulk change (restore, import): drop everything cached for the workspace.
+     */
+    public void invalidateWorkspace(UUID workspaceId) {
+        invalidate(workspaceId, null, key -> true);
+    }
+
+    private Optional<String> get(UUID workspaceId, String key, String type) {
+        if (!available(workspaceId)) {
+            return Optional.empty();
+        }
+        try {
+            String value = redis.opsForValue().get(key);
+            meterRegistry.counter("workspace.cache.requests", "type", type, "result", value != null ? "hit" : "miss")
+                .increment();
+            if (value != null) {
+                String index = indexKey(workspaceId);
+                redis.opsForZSet().add(LRU_INDEX, key, System.currentTimeMillis());
+                redis.expire(key, ttl);
+                redis.opsForSet().add(index, key);
+                redis.expire(index, ttl);
+            }
+            return Optional.ofNullable(value);
+        } catch (Exception e) {
+            backOff(e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The workspace's current generation, or null if the cache can't be used.
+     */
+    private String generation(UUID workspaceId) {
+        if (!available(workspaceId)) {
+            return null;
+        }
+        try {
+            String generation = redis.opsForValue().get(generationKey(workspaceId));
+            return generation != null ? generation : "0";
+        } catch (Exception e) {
+            backOff(e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores what a reader loaded, unless the workspace was invalidated since it read {@code generation}.
+     */
+    private void populate(UUID workspaceId, String key, String value, String generation) {
+        if (generation == null || !available(workspaceId)) {
+            return;
+        }
+        try {
+            Long stored = redis.execute(POPULATE,
+                List.of(generationKey(workspaceId), key, indexKey(workspaceId), LRU_INDEX),
+                generation, value, String.valueOf(ttl.toMillis()), String.valueOf(System.currentTimeMillis()));
+            if (stored != null && stored == 1) {
+                trimToCapacity();
+            }
+        } catch (Exception e) {
+            backOff(e);
+        }
+    }
+
+    private void trimToCapacity() {
+        Long size = redis.opsForZSet().zCard(LRU_INDEX);
+        if (size == null || size <= maxEntries) {
+            return;
+        }
+        var evicted = redis.opsForZSet().popMin(LRU_INDEX, size - maxEntries);
+        if (evicted != null && !evicted.isEmpty()) {
+            List<String> keys = new ArrayList<>();
+            evicted.forEach(t -> keys.add(t.getValue()));
+            redis.delete(keys);
+            meterRegistry.counter("workspace.cache.evictions").increment(keys.size());
+        }
+    }
+
+    private void invalidate(UUID workspaceId, String key, Predicate<String> matches) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            drop(workspaceId, key, matches);
+        } catch (Exception e) {
+            pendingInvalidations.add(workspaceId);
+            backOff(e);
+        }
+    }
+
+    /**
+     * Retries invalidations that failed, dropping everything cached for their workspaces.
+     */
+    @Scheduled(fixedDelayString = "${cfforge.cache.invalidation-retry-ms:5000}")
+    public void retryPendingInvalidations() {
+        for (UUID workspaceId : List.copyOf(pendingInvalidations)) {
+            pendingInvalidations.remove(workspaceId);
+            try {
+                drop(workspaceId, null, key -> true);
+            } catch (Exception e) {
+                pendingInvalidations.add(workspaceId);
+                log.debug("Cache invalidation for workspace {} still failing: {}", workspaceId, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drops the workspace's indexed keys that match, and {@code key} itself even if the index has
+     * lost it.
+     */
+    private void drop(UUID workspaceId, String key, Predicate<String> matches) {
+        String generation = generationKey(workspaceId);
+        redis.opsForValue().increment(generation);
+        redis.expire(generation, ttl);
+        String index = indexKey(workspaceId);
+        Set<String> members = redis.opsForSet().members(index);
+        Set<String> matching = new HashSet<>();
+        if (members != null) {
+            members.stream().filter(matches).forEach(matching::add);
+        }
+        if (key != null) {
+            matching.add(key);
+        }
+        if (matching.isEmpty()) {
+            return;
+        }
+        List<String> keys = List.copyOf(matching);
+        redis.delete(keys);
+        redis.opsForSet().remove(index, keys.toArray());
+        redis.opsForZSet().remove(LRU_INDEX, keys.toArray());
+    }
+
+    private boolean fits(String content) {
+        return content.length() <= maxFileBytes && content.getBytes(StandardCharsets.UTF_8).length <= maxFileBytes;
+    }
+
+    private boolean available() {
+        return enabled && System.currentTimeMillis() >= disabledUntil;
+    }
+
+    private boolean available(UUID workspaceId) {
+        return available() && !pendingInvalidations.contains(workspaceId);
+    }
+
+    private void backOff(Exception e) {
+        disabledUntil = System.currentTimeMillis() + BACKOFF.toMillis();
+        log.warn("Workspace cache unavailable, bypassing for {}s: {}", BACKOFF.toSeconds(), e.getMessage());
+    }
+
+    private static String fileKey(UUID workspaceId, String path) {
+        return "ws:cache:" + workspaceId + ":file:" + path;
+    }
+
+    private static String listingPrefix(UUID workspaceId) {
+        return "ws:cache:" + workspaceId + ":list:";
+    }
+
+    private static String listingKey(UUID workspaceId, String dir) {
+        return listingPrefix(workspaceId) + (dir != null ? dir : "");
+    }
+
+    private static String indexKey(UUID workspaceId) {
+        return "ws:cache:" + workspaceId + ":keys";
+    }
+
+    private static String generationKey(UUID workspaceId) {
+        return "ws:cache:" + workspaceId + ":gen";
+    }
+}
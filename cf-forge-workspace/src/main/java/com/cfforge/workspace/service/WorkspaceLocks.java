@@ -0,0 +1,61 @@
+package com.cfforge.workspace.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Per-workspace read/write locks.
+ *
+ * Ordinary file operations run under the shared lock and never block each other. Operations
+ * that must look atomic to readers, like the swap phase of a checkpoint restore, take the
+ * exclusive lock. Locks are striped so the table stays bounded no matter how many
+ * workspaces this instance has served.
+ */
+@Component
+public class WorkspaceLocks {
+
+    private static final int STRIPES = 256;
+
+    private final ReentrantReadWriteLock[] locks = new ReentrantReadWriteLock[STRIPES];
+
+    public WorkspaceLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    public <T> T shared(UUID workspaceId, Supplier<T> action) {
+        return withLock(lockFor(workspaceId).readLock(), action);
+    }
+
+    public void shared(UUID workspaceId, Runnable action) {
+        shared(workspaceId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public void exclusive(UUID workspaceId, Runnable action) {
+        withLock(lockFor(workspaceId).writeLock(), () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private ReentrantReadWriteLock lockFor(UUID workspaceId) {
+        return locks[Math.floorMod(workspaceId.hashCode(), STRIPES)];
+    }
+
+    private static <T> T withLock(Lock lock, Supplier<T> action) {
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
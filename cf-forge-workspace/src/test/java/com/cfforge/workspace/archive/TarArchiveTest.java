@@ -0,0 +1,82 @@
+package com.cfforge.workspace.archive;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TarArchiveTest {
+
+    @Test
+    void roundTrip_preservesPathsAndContent() throws Exception {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("pom.xml", "<project/>".getBytes(StandardCharsets.UTF_8));
+        files.put("src/main/java/App.java", "class App {}".getBytes(StandardCharsets.UTF_8));
+        files.put("empty.txt", new byte[0]);
+        files.put("block.bin", new byte[512]);
+
+        Map<String, byte[]> extracted = roundTrip(files);
+
+        assertThat(extracted.keySet()).containsExactlyElementsOf(files.keySet());
+        files.forEach((path, content) -> assertThat(extracted.get(path)).isEqualTo(content));
+    }
+
+    @Test
+    void roundTrip_longPathsUsePaxHeaders() throws Exception {
+        String longPath = "src/" + "nested/".repeat(30) + "VeryLongFileName.java";
+        Map<String, byte[]> extracted = roundTrip(Map.of(longPath, "x".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(extracted).containsOnlyKeys(longPath);
+    }
+
+    @Test
+    void writeFile_fromStream_zeroFillsShortContent() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TarArchiveWriter writer = new TarArchiveWriter(out)) {
+            writer.writeFile("short.txt", new ByteArrayInputStream(new byte[]{1, 2}), 4, Instant.EPOCH);
+        }
+
+        TarArchiveReader reader = new TarArchiveReader(new ByteArrayInputStream(out.toByteArray()));
+        TarArchiveReader.Entry entry = reader.nextEntry();
+        assertThat(entry.content().readAllBytes()).containsExactly(1, 2, 0, 0);
+        assertThat(reader.nextEntry()).isNull();
+    }
+
+    @Test
+    void nextEntry_skipsUnreadContent() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TarArchiveWriter writer = new TarArchiveWriter(out)) {
+            writer.writeFile("a.txt", new byte[1000], Instant.EPOCH);
+            writer.writeFile("b.txt", "b".getBytes(StandardCharsets.UTF_8), Instant.EPOCH);
+        }
+
+        TarArchiveReader reader = new TarArchiveReader(new ByteArrayInputStream(out.toByteArray()));
+        assertThat(reader.nextEntry().path()).isEqualTo("a.txt");
+        TarArchiveReader.Entry second = reader.nextEntry();
+        assertThat(second.path()).isEqualTo("b.txt");
+        assertThat(new String(second.content().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("b");
+    }
+
+    private Map<String, byte[]> roundTrip(Map<String, byte[]> files) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TarArchiveWriter writer = new TarArchiveWriter(out)) {
+            for (var file : files.entrySet()) {
+                writer.writeFile(file.getKey(), file.getValue(), Instant.now());
+            }
+        }
+
+        Map<String, byte[]> extracted = new LinkedHashMap<>();
+        TarArchiveReader reader = new TarArchiveReader(new ByteArrayInputStream(out.toByteArray()));
+        TarArchiveReader.Entry entry;
+        while ((entry = reader.nextEntry()) != null) {
+            extracted.put(entry.path(), entry.content().readAllBytes());
+        }
+        return extracted;
+    }
+}
@@ -0,0 +1,96 @@
+package com.cfforge.workspace.service;
+
+import com.cfforge.common.storage.S3StorageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CheckpointServiceTest {
+
+    @TempDir
+    Path storageDir;
+
+    private S3StorageService s3;
+    private ExecutorService executor;
+    private FileStorageService files;
+    private CheckpointService service;
+    private final UUID workspaceId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        s3 = new S3StorageService();
+        ReflectionTestUtils.setField(s3, "endpoint", "");
+        ReflectionTestUtils.setField(s3, "fallbackDir", storageDir.toString());
+        executor = Executors.newFixedThreadPool(4);
+        WorkspaceLocks locks = new WorkspaceLocks();
+        WorkspaceCache cache = new WorkspaceCache(null, new ObjectMapper(), new SimpleMeterRegistry(),
+            false, 65536, 2000, 50000, Duration.ofMinutes(30));
+        files = new FileStorageService(s3, locks, cache);
+        service = new CheckpointService(s3, files, locks, cache, executor, 50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void startRestore_restoresCheckpointContentsInBackground() throws Exception {
+        files.writeFile(workspaceId, "app.py", "v1");
+        files.writeFile(workspaceId, "lib/util.py", "util");
+        var checkpoint = service.createCheckpoint(workspaceId, "before edit");
+
+        files.writeFile(workspaceId, "app.py", "v2");
+        files.writeFile(workspaceId, "extra.txt", "new");
+        files.deleteFile(workspaceId, "lib/util.py");
+
+        RestoreJob job = service.startRestore(workspaceId, checkpoint.id());
+        awaitFinished(job);
+
+        assertThat(job.status().state()).isEqualTo(RestoreJob.State.COMPLETED);
+        assertThat(job.status().percent()).isEqualTo(100);
+        assertThat(job.status().deletedFiles()).isEqualTo(1);
+        assertThat(files.readFile(workspaceId, "app.py")).isEqualTo("v1");
+        assertThat(files.readFile(workspaceId, "lib/util.py")).isEqualTo("util");
+        assertThat(files.listFiles(workspaceId, "")).extracting("name").doesNotContain("extra.txt");
+        assertThat(s3.listObjects("cf-forge-workspaces", "staging/" + workspaceId + "/")).isEmpty();
+    }
+
+    @Test
+    void startRestore_unknownCheckpoint_throws() {
+        assertThatThrownBy(() -> service.startRestore(workspaceId, "missing"))
+            .isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void getRestoreJob_returnsTrackedJob() throws Exception {
+        files.writeFile(workspaceId, "a.txt", "a");
+        var checkpoint = service.createCheckpoint(workspaceId, "cp");
+
+        RestoreJob job = service.startRestore(workspaceId, checkpoint.id());
+        awaitFinished(job);
+
+        assertThat(service.getRestoreJob(job.getId())).containsSame(job);
+    }
+
+    private void awaitFinished(RestoreJob job) throws InterruptedException {
+        for (int i = 0; i < 200 && !job.isFinished(); i++) {
+            Thread.sleep(25);
+        }
+        assertThat(job.isFinished()).isTrue();
+    }
+}
@@ -0,0 +1,84 @@
+package com.cfforge.workspace.service;
+
+import com.cfforge.common.delta.DeltaEncoder;
+import com.cfforge.common.delta.DeltaMismatchException;
+import com.cfforge.common.delta.FileSignature;
+import com.cfforge.common.storage.S3StorageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileStorageServiceTest {
+
+    @TempDir
+    Path storageDir;
+
+    private FileStorageService files;
+    private final UUID workspaceId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        S3StorageService s3 = new S3StorageService();
+        ReflectionTestUtils.setField(s3, "endpoint", "");
+        ReflectionTestUtils.setField(s3, "fallbackDir", storageDir.toString());
+        WorkspaceCache cache = new WorkspaceCache(null, new ObjectMapper(), new SimpleMeterRegistry(),
+            false, 65536, 2000, 50000, Duration.ofMinutes(30));
+        files = new FileStorageService(s3, new WorkspaceLocks(), cache);
+    }
+
+    @Test
+    void applyDelta_rebuildsEditedFile() throws Exception {
+        String original = "line\n".repeat(50_000);
+        files.writeFile(workspaceId, "package-lock.json", original);
+        String edited = original.substring(0, 100_000) + "changed\n" + original.substring(100_000);
+
+        byte[] delta = delta(files.signature(workspaceId, "package-lock.json"), edited);
+        long size = files.applyDelta(workspaceId, "package-lock.json", new ByteArrayInputStream(delta));
+
+        assertThat(size).isEqualTo(edited.length());
+        assertThat(delta.length).isLessThan(20_000);
+        assertThat(files.readFile(workspaceId, "package-lock.json")).isEqualTo(edited);
+    }
+
+    @Test
+    void applyDelta_againstMissingFileCreatesIt() throws Exception {
+        FileSignature empty = files.signature(workspaceId, "new.txt");
+        assertThat(empty.length()).isZero();
+
+        files.applyDelta(workspaceId, "new.txt", new ByteArrayInputStream(delta(empty, "hello")));
+
+        assertThat(files.readFile(workspaceId, "new.txt")).isEqualTo("hello");
+    }
+
+    @Test
+    void applyDelta_rejectsStaleBase() throws Exception {
+        files.writeFile(workspaceId, "a.txt", "version one");
+        FileSignature signature = files.signature(workspaceId, "a.txt");
+        files.writeFile(workspaceId, "a.txt", "version two");
+
+        byte[] delta = delta(signature, "version three");
+
+        assertThatThrownBy(() -> files.applyDelta(workspaceId, "a.txt", new ByteArrayInputStream(delta)))
+            .isInstanceOf(DeltaMismatchException.class);
+        assertThat(files.readFile(workspaceId, "a.txt")).isEqualTo("version two");
+    }
+
+    private static byte[] delta(FileSignature signature, String content) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DeltaEncoder.encode(signature, content.getBytes(StandardCharsets.UTF_8), out);
+        return out.toByteArray();
+    }
+}
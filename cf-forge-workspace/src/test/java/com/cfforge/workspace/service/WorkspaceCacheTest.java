@@ -0,0 +1,151 @@
+package com.cfforge.workspace.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class WorkspaceCacheTest {
+
+    @Mock
+    private StringRedisTemplate redis;
+    @Mock
+    private ValueOperations<String, String> values;
+    @Mock
+    private SetOperations<String, String> sets;
+    @Mock
+    private ZSetOperations<String, String> zsets;
+
+    private WorkspaceCache cache;
+    private final UUID workspaceId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        when(redis.opsForValue()).thenReturn(values);
+        when(redis.opsForSet()).thenReturn(sets);
+        when(redis.opsForZSet()).thenReturn(zsets);
+        when(zsets.zCard(anyString())).thenReturn(1L);
+        cache = new WorkspaceCache(redis, new ObjectMapper(), new SimpleMeterRegistry(),
+            true, 16, 100, 1000, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void getFile_hitSkipsLoader() {
+        when(values.get("ws:cache:" + workspaceId + ":file:a.txt")).thenReturn("cached");
+
+        String content = cache.getFile(workspaceId, "a.txt", () -> {
+            throw new AssertionError("loader should not run on a hit");
+        });
+
+        assertThat(content).isEqualTo("cached");
+    }
+
+    @Test
+    void getFile_missLoadsAndStoresSmallFiles() {
+        String prefix = "ws:cache:" + workspaceId;
+
+        String content = cache.getFile(workspaceId, "a.txt", () -> "small");
+
+        assertThat(content).isEqualTo("small");
+        verify(redis).execute(any(RedisScript.class),
+            eq(List.of(prefix + ":gen", prefix + ":file:a.txt", prefix + ":keys", "ws:cache:lru")),
+            eq("0"), eq("small"), eq("300000"), anyString());
+    }
+
+    @Test
+    void getFile_storesOnlyForTheGenerationReadBeforeLoading() {
+        String prefix = "ws:cache:" + workspaceId;
+        when(values.get(prefix + ":gen")).thenReturn("3");
+
+        cache.getFile(workspaceId, "a.txt", () -> {
+            // A write lands while the reader is loading
+            cache.invalidateFile(workspaceId, "a.txt");
+            when(values.get(prefix + ":gen")).thenReturn("4");
+            return "old";
+        });
+
+        verify(values).increment(prefix + ":gen");
+        verify(redis).execute(any(RedisScript.class), anyList(), eq("3"), eq("old"), anyString(), anyString());
+    }
+
+    @Test
+    void invalidateFile_dropsFileAndListingsButKeepsOtherFiles() {
+        String prefix = "ws:cache:" + workspaceId;
+        when(sets.members(prefix + ":keys")).thenReturn(Set.of(
+            prefix + ":file:a.txt", prefix + ":file:b.txt", prefix + ":list:", prefix + ":list:src"));
+
+        cache.invalidateFile(workspaceId, "a.txt");
+
+        verify(redis).delete(argThat((List<String> keys) -> keys.size() == 3
+            && keys.containsAll(List.of(prefix + ":file:a.txt", prefix + ":list:", prefix + ":list:src"))));
+    }
+
+    @Test
+    void getFile_hitKeepsTheWorkspaceIndexAlive() {
+        String prefix = "ws:cache:" + workspaceId;
+        when(values.get(prefix + ":file:a.txt")).thenReturn("cached");
+
+        cache.getFile(workspaceId, "a.txt", () -> "unused");
+
+        verify(sets).add(prefix + ":keys", prefix + ":file:a.txt");
+        verify(redis).expire(prefix + ":keys", Duration.ofMinutes(5));
+    }
+
+    @Test
+    void invalidateFile_dropsTheFileEvenWhenTheIndexHasExpired() {
+        String prefix = "ws:cache:" + workspaceId;
+        when(values.get(prefix + ":file:a.txt")).thenReturn("stale");
+        when(sets.members(prefix + ":keys")).thenReturn(Set.of());
+
+        cache.invalidateFile(workspaceId, "a.txt");
+
+        verify(redis).delete(List.of(prefix + ":file:a.txt"));
+    }
+
+    @Test
+    void redisFailureFallsThroughToLoader() {
+        when(values.get(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertThat(cache.getFile(workspaceId, "a.txt", () -> "from-storage")).isEqualTo("from-storage");
+        assertThat(cache.getFile(workspaceId, "a.txt", () -> "again")).isEqualTo("again");
+        verify(values, times(1)).get(anyString());
+    }
+
+    @Test
+    void invalidateFile_ignoresTheReadBackoffAndRetriesFailures() {
+        String prefix = "ws:cache:" + workspaceId;
+        when(values.get(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+        cache.getFile(workspaceId, "a.txt", () -> "from-storage");
+        when(sets.members(prefix + ":keys")).thenReturn(Set.of(prefix + ":file:a.txt", prefix + ":list:"));
+        when(redis.delete(anyList())).thenThrow(new RedisConnectionFailureException("down")).thenReturn(2L);
+
+        cache.invalidateFile(workspaceId, "a.txt");
+        cache.retryPendingInvalidations();
+        cache.retryPendingInvalidations();
+
+        verify(redis, times(2)).delete(argThat((List<String> keys) -> keys.size() == 2
+            && keys.containsAll(List.of(prefix + ":file:a.txt", prefix + ":list:"))));
+    }
+}